@@ -0,0 +1,47 @@
+package com.checkout.payment.gateway.factory;
+
+import com.checkout.payment.gateway.command.ProcessPaymentCommand;
+import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link PaymentFactory#createPayment} building the {@link Payment} stored for every
+ * authorised or declined payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentFactoryBenchmark {
+
+  private final PaymentFactory testObj = new PaymentFactory();
+  private ProcessPaymentCommand processPaymentCommand;
+
+  @Setup
+  public void setUp() throws ExpiredCardDateException {
+    processPaymentCommand = new ProcessPaymentCommand(UUID.randomUUID(),
+        new CashAmount(Currency.getInstance("GBP"), 150), 2222405343248877L, 4, 2030, 123);
+  }
+
+  @Benchmark
+  public Payment createPayment() {
+    return testObj.createPayment(processPaymentCommand, PaymentStatus.AUTHORIZED);
+  }
+}
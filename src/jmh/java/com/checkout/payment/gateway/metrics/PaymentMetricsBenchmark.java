@@ -0,0 +1,79 @@
+package com.checkout.payment.gateway.metrics;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead {@link PaymentMetrics} adds to a payment, recording into the Prometheus registry the
+ * application scrapes. {@code nanoTime} is the floor: the clock read every recording starts with.
+ * Run with {@code -prof gc} to check recording allocates nothing once the meters are registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentMetricsBenchmark {
+  private static final IsoCurrency[] CURRENCIES = {
+      IsoCurrency.lookup("GBP"), IsoCurrency.lookup("USD"), IsoCurrency.lookup("EUR"), IsoCurrency.lookup("JPY")};
+  private static final PaymentStatus[] STATUSES = {PaymentStatus.AUTHORIZED, PaymentStatus.DECLINED, null, PaymentStatus.AUTHORIZED};
+
+  private PaymentMetrics testObj;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    testObj = new PaymentMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    for (IsoCurrency currency : CURRENCIES) {
+      for (PaymentStatus status : STATUSES) {
+        testObj.recordBankCall(currency, status, PaymentMetrics.nanoTime());
+      }
+    }
+  }
+
+  @Benchmark
+  public long nanoTime() {
+    return PaymentMetrics.nanoTime();
+  }
+
+  @Benchmark
+  public void recordStage() {
+    testObj.record(PaymentMetrics.Stage.PARSE, PaymentMetrics.nanoTime());
+  }
+
+  @Benchmark
+  public void recordBankCall() {
+    int i = next++;
+    testObj.recordBankCall(CURRENCIES[i & 3], STATUSES[(i >>> 2) & 3], PaymentMetrics.nanoTime());
+  }
+
+  @Benchmark
+  public void countProcessed() {
+    testObj.countProcessed(STATUSES[next++ & 1]);
+  }
+
+  //Every meter a POST /payment records, as PaymentGatewayController and PaymentGatewayServiceImpl do
+  @Benchmark
+  public void recordPayment() {
+    testObj.record(PaymentMetrics.Stage.PARSE, PaymentMetrics.nanoTime());
+    testObj.record(PaymentMetrics.Stage.IDEMPOTENCY_LOOKUP, PaymentMetrics.nanoTime());
+    testObj.recordBankCall(CURRENCIES[0], PaymentStatus.AUTHORIZED, PaymentMetrics.nanoTime());
+    testObj.record(PaymentMetrics.Stage.REPOSITORY_INSERT, PaymentMetrics.nanoTime());
+    testObj.countProcessed(PaymentStatus.AUTHORIZED);
+    testObj.record(PaymentMetrics.Stage.SERIALISATION, PaymentMetrics.nanoTime());
+  }
+}
@@ -0,0 +1,74 @@
+package com.checkout.payment.gateway.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building a {@link CashAmount} from a minor amount and of reading it back, once per
+ * payment for the command and again for the bank request and the response. Amounts cycle through
+ * currencies with 0, 2 and 3 decimal places so the JIT cannot fold them to constants.
+ * <p>
+ * Run with {@code -PjmhProfilers=gc} to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CashAmountBenchmark {
+
+  private static final int AMOUNTS = 1024;
+
+  private final Currency[] currencies = new Currency[AMOUNTS];
+  private final int[] minorAmounts = new int[AMOUNTS];
+  private final CashAmount[] cashAmounts = new CashAmount[AMOUNTS];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Currency[] mixedCurrencies = {Currency.getInstance("GBP"), Currency.getInstance("JPY"), Currency.getInstance("BHD")};
+    for (int i = 0; i < AMOUNTS; i++) {
+      currencies[i] = mixedCurrencies[i % mixedCurrencies.length];
+      minorAmounts[i] = 100 + i * 7919;
+      cashAmounts[i] = new CashAmount(currencies[i], minorAmounts[i]);
+    }
+  }
+
+  @Benchmark
+  public CashAmount newCashAmount() {
+    int index = nextIndex();
+    return new CashAmount(currencies[index], minorAmounts[index]);
+  }
+
+  @Benchmark
+  public long getMinorAmount() {
+    return cashAmounts[nextIndex()].getMinorAmount();
+  }
+
+  @Benchmark
+  public String getCurrencyIso() {
+    return cashAmounts[nextIndex()].getCurrencyIso();
+  }
+
+  @Benchmark
+  public BigDecimal getMajorAmount() {
+    return cashAmounts[nextIndex()].getMajorAmount();
+  }
+
+  private int nextIndex() {
+    next = (next + 1) & (AMOUNTS - 1);
+    return next;
+  }
+}
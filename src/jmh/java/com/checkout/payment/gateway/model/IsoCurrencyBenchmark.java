@@ -0,0 +1,45 @@
+package com.checkout.payment.gateway.model;
+
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of resolving a request's currency code with {@link IsoCurrency#lookup} against
+ * {@link Currency#getInstance(String)}, for an ISO code and for junk that
+ * {@code Currency.getInstance} rejects with an exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoCurrencyBenchmark {
+
+  @Param({"GBP", "ZZZ"})
+  private String code;
+
+  @Benchmark
+  public IsoCurrency isoCurrencyLookup() {
+    return IsoCurrency.lookup(code);
+  }
+
+  @Benchmark
+  public Currency currencyGetInstance() {
+    try {
+      return Currency.getInstance(code);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
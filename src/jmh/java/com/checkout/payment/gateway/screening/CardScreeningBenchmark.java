@@ -0,0 +1,59 @@
+package com.checkout.payment.gateway.screening;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of screening a card before the bank call: the {@link LuhnCheck} and finding its scheme in
+ * the bundled {@link BinRangeTable}, cycling through 1024 random 16 digit card numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardScreeningBenchmark {
+
+  private long[] cardNumbers;
+  private BinRangeTable binRanges;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    cardNumbers = new long[1024];
+    for (int i = 0; i < cardNumbers.length; i++) {
+      cardNumbers[i] = random.nextLong(1_000_000_000_000_000L, 10_000_000_000_000_000L);
+    }
+    try (InputStream ranges = CardScreeningBenchmark.class.getResourceAsStream("/bin-ranges.csv")) {
+      binRanges = BinRangeTable.load(ranges);
+    }
+  }
+
+  @Benchmark
+  public boolean luhnCheck() {
+    return LuhnCheck.isValid(nextCardNumber());
+  }
+
+  @Benchmark
+  public String schemeOf() {
+    return binRanges.schemeOf(nextCardNumber());
+  }
+
+  private long nextCardNumber() {
+    return cardNumbers[next++ & (cardNumbers.length - 1)];
+  }
+}
@@ -0,0 +1,100 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Durable insert throughput of a {@link JournalPaymentsRepository} that syncs every write
+ * against one that group commits, from 1 to 64 writer threads. Syncing every write is bound by
+ * disk flush latency whatever the concurrency, while group commit should scale with it until
+ * batches reach {@link JournalOptions#getGroupCommitMaxBatchSize()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JournalGroupCommitBenchmark {
+
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @Param({"EVERY_WRITE", "GROUP_COMMIT"})
+  private JournalFsyncPolicy fsyncPolicy;
+
+  private Path directory;
+  private JournalPaymentsRepository testObj;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("payments-journal");
+    testObj = new JournalPaymentsRepository(JournalOptions.builder()
+        .directory(directory)
+        .fsyncPolicy(fsyncPolicy)
+        .build());
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException {
+    testObj.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Payment createPayment_1Thread() {
+    return testObj.createPayment(newPayment());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Payment createPayment_4Threads() {
+    return testObj.createPayment(newPayment());
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Payment createPayment_16Threads() {
+    return testObj.createPayment(newPayment());
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Payment createPayment_64Threads() {
+    return testObj.createPayment(newPayment());
+  }
+
+  private static Payment newPayment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    UUID idempotencyKey = new UUID(random.nextLong(), random.nextLong());
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, CASH_AMOUNT, PAYMENT_METHOD_DETAILS);
+  }
+}
@@ -0,0 +1,89 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup time of a {@link JournalPaymentsRepository}: mapping the segments of a journal of
+ * {@code payments} records and rebuilding both indexes from them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class JournalRecoveryBenchmark {
+
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @Param({"1000000", "10000000"})
+  private int payments;
+
+  private Path directory;
+  private JournalPaymentsRepository recoveredRepository;
+
+  @Setup(Level.Trial)
+  public void writeJournal() throws IOException {
+    directory = Files.createTempDirectory("payments-journal");
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    try (JournalPaymentsRepository repository = new JournalPaymentsRepository(options())) {
+      for (int i = 0; i < payments; i++) {
+        repository.createPayment(new Payment(new UUID(random.nextLong(), random.nextLong()),
+            PaymentStatus.AUTHORIZED, new CashAmount(Currency.getInstance("GBP"), random.nextInt(1_000_000)),
+            PAYMENT_METHOD_DETAILS));
+      }
+    }
+  }
+
+  @Benchmark
+  public JournalPaymentsRepository recover() throws IOException {
+    recoveredRepository = new JournalPaymentsRepository(options());
+    return recoveredRepository;
+  }
+
+  @TearDown(Level.Iteration)
+  public void closeRepository() throws IOException {
+    recoveredRepository.close();
+    recoveredRepository = null;
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteJournal() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  private JournalOptions options() {
+    return JournalOptions.builder()
+        .directory(directory)
+        .fsyncPolicy(JournalFsyncPolicy.EVERY_N_RECORDS)
+        .fsyncEveryRecords(Integer.MAX_VALUE)
+        .build();
+  }
+}
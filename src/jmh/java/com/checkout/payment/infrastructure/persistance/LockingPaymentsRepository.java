@@ -0,0 +1,44 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The original write-locked insert path of {@link SimpleInMemoryPaymentsRepository}, kept as the
+ * baseline for {@link PaymentsRepositoryInsertBenchmark}. Only the lookups and the insert are
+ * kept, as only inserts are benchmarked against it.
+ */
+class LockingPaymentsRepository {
+
+  private final Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+  private final Map<UUID, UUID> paymentsIndexByIdempotencyKey = new ConcurrentHashMap<>();
+  private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+  private final IdempotencyReservations idempotencyReservations = new IdempotencyReservations();
+
+  public Optional<Payment> getByTransactionId(UUID transactionId) {
+    return Optional.ofNullable(payments.get(transactionId));
+  }
+
+  public Optional<Payment> getByIdempotencyKey(UUID idempotencyKey) {
+    Optional<UUID> paymentIdOpt = Optional.ofNullable(paymentsIndexByIdempotencyKey.get(idempotencyKey));
+    return paymentIdOpt.map(payments::get);
+  }
+
+  public Payment createPayment(Payment payment) {
+    readWriteLock.writeLock().lock();
+    try {
+      UUID paymentTransactionId = UUID.randomUUID();
+      payment.setTransactionId(paymentTransactionId);
+      payments.put(payment.getTransactionId(), payment);
+      paymentsIndexByIdempotencyKey.put(payment.getIdempotencyKey(), paymentTransactionId);
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+    idempotencyReservations.complete(payment);
+    return payment;
+  }
+}
@@ -0,0 +1,101 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of a page of {@code GET /payments} over {@link PaymentSearchIndex} holding
+ * {@code payments} payments created over ten days, a tenth of them declined, in a handful of
+ * currencies. The payments themselves are not looked up, so only the index is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PaymentSearchIndexBenchmark {
+
+  private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+  private static final long TEN_DAYS = TimeUnit.DAYS.toMillis(10);
+  private static final IsoCurrency GBP = IsoCurrency.lookup("GBP");
+  private static final IsoCurrency[] CURRENCIES = {GBP, IsoCurrency.lookup("USD"), IsoCurrency.lookup("EUR"),
+      IsoCurrency.lookup("JPY"), IsoCurrency.lookup("CHF")};
+
+  @Param({"10000000"})
+  private int payments;
+
+  private PaymentSearchIndex testObj;
+  private Function<UUID, Optional<Payment>> lookup;
+  private PaymentSearchQuery declinedGbpLastHour;
+  private PaymentSearchQuery byCardNumberLastFour;
+  private PaymentSearchQuery declined;
+  private PaymentSearchQuery declinedDeepPage;
+
+  @Setup
+  public void setUp() {
+    testObj = new PaymentSearchIndex();
+    SplittableRandom random = new SplittableRandom(42);
+    Payment payment = null;
+    for (int i = 0; i < payments; i++) {
+      payment = new Payment(new UUID(random.nextLong(), random.nextLong()),
+          random.nextInt(10) == 0 ? PaymentStatus.DECLINED : PaymentStatus.AUTHORIZED,
+          new CashAmount(CURRENCIES[random.nextInt(CURRENCIES.length)], 150),
+          new PaymentMethodDetails(random.nextInt(10_000), 10, 2030));
+      payment.setTransactionId(new UUID(random.nextLong(), random.nextLong()));
+      payment.setCreatedAt(Instant.ofEpochMilli(START + TEN_DAYS * i / payments));
+      testObj.add(payment);
+    }
+    Optional<Payment> found = Optional.of(payment);
+    lookup = transactionId -> found;
+    Instant end = Instant.ofEpochMilli(START + TEN_DAYS);
+    declinedGbpLastHour = PaymentSearchQuery.builder().status(PaymentStatus.DECLINED).currency(GBP)
+        .from(end.minusSeconds(3_600)).to(end).build();
+    byCardNumberLastFour = PaymentSearchQuery.builder().cardNumberLastFour(8877).build();
+    declined = PaymentSearchQuery.builder().status(PaymentStatus.DECLINED).build();
+    declinedDeepPage = PaymentSearchQuery.builder().status(PaymentStatus.DECLINED)
+        .cursor(Integer.toString(payments / 2)).build();
+  }
+
+  @Benchmark
+  public PaymentPage declinedGbpLastHour() {
+    return testObj.search(declinedGbpLastHour, lookup);
+  }
+
+  @Benchmark
+  public PaymentPage byCardNumberLastFour() {
+    return testObj.search(byCardNumberLastFour, lookup);
+  }
+
+  @Benchmark
+  public PaymentPage declined() {
+    return testObj.search(declined, lookup);
+  }
+
+  @Benchmark
+  public PaymentPage declinedDeepPage() {
+    return testObj.search(declinedDeepPage, lookup);
+  }
+}
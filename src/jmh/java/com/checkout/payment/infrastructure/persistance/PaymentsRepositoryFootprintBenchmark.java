@@ -0,0 +1,87 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Retained heap and direct memory per payment once {@code payments} payments are stored, for
+ * the heap-based {@link SimpleInMemoryPaymentsRepository} against the
+ * {@link OffHeapPaymentsRepository}. The footprint is reported through the auxiliary counters
+ * next to the time taken to load the repository.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+public class PaymentsRepositoryFootprintBenchmark {
+
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @State(Scope.Benchmark)
+  public static class Repository {
+    @Param({"simpleInMemory", "offHeap"})
+    private String repository;
+
+    @Param({"1000000", "10000000"})
+    private int payments;
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long heapBytesPerPayment;
+    public long directBytesPerPayment;
+  }
+
+  @Benchmark
+  public PaymentsRepository load(Repository state, Footprint footprint) {
+    long heapBefore = usedHeap();
+    long directBefore = usedDirectMemory();
+    PaymentsRepository testObj = "offHeap".equals(state.repository)
+        ? new OffHeapPaymentsRepository(state.payments)
+        : new SimpleInMemoryPaymentsRepository();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < state.payments; i++) {
+      //Distinct amounts stop payments sharing a CashAmount, as they would in production
+      CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), random.nextInt(1_000_000));
+      testObj.createPayment(new Payment(new UUID(random.nextLong(), random.nextLong()),
+          PaymentStatus.AUTHORIZED, cashAmount, PAYMENT_METHOD_DETAILS));
+    }
+    footprint.heapBytesPerPayment = (usedHeap() - heapBefore) / state.payments;
+    footprint.directBytesPerPayment = (usedDirectMemory() - directBefore) / state.payments;
+    return testObj;
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long usedDirectMemory() {
+    return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+        .filter(bufferPool -> "direct".equals(bufferPool.getName()))
+        .mapToLong(BufferPoolMXBean::getMemoryUsed)
+        .sum();
+  }
+}
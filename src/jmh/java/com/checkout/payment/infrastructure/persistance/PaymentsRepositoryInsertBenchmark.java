@@ -0,0 +1,83 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput of the write-locked baseline against the lock-free
+ * {@link SimpleInMemoryPaymentsRepository} from 1 to 64 writer threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentsRepositoryInsertBenchmark {
+
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @Param({"locking", "lockFree"})
+  private String repository;
+
+  private UnaryOperator<Payment> createPayment;
+
+  //A fresh repository per iteration keeps the map sizes, and so resize costs, comparable
+  @Setup(Level.Iteration)
+  public void setUp() {
+    createPayment = "locking".equals(repository)
+        ? new LockingPaymentsRepository()::createPayment
+        : new SimpleInMemoryPaymentsRepository()::createPayment;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Payment createPayment_1Thread() {
+    return createPayment.apply(newPayment());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Payment createPayment_4Threads() {
+    return createPayment.apply(newPayment());
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Payment createPayment_16Threads() {
+    return createPayment.apply(newPayment());
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Payment createPayment_64Threads() {
+    return createPayment.apply(newPayment());
+  }
+
+  private static Payment newPayment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    UUID idempotencyKey = new UUID(random.nextLong(), random.nextLong());
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, CASH_AMOUNT, PAYMENT_METHOD_DETAILS);
+  }
+}
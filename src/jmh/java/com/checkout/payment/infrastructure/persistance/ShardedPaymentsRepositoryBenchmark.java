@@ -0,0 +1,87 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert latency percentiles, p99.9 among them, of {@link SimpleInMemoryPaymentsRepository} against
+ * the {@link ShardedPaymentsRepository} presized for {@code initialCapacity} payments, as each
+ * grows from empty over an iteration, so the map resizes of the former are sampled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Threads(4)
+public class ShardedPaymentsRepositoryBenchmark {
+
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @Param({"simpleInMemory", "sharded", "shardedSingleWriter"})
+  private String repository;
+
+  @Param({"4"})
+  private int shards;
+
+  @Param({"4000000"})
+  private int initialCapacity;
+
+  private PaymentsRepository testObj;
+
+  //A fresh repository per iteration, so every iteration samples the growth from empty
+  @Setup(Level.Iteration)
+  public void setUp() {
+    testObj = switch (repository) {
+      case "simpleInMemory" -> new SimpleInMemoryPaymentsRepository();
+      case "sharded", "shardedSingleWriter" -> new ShardedPaymentsRepository(ShardingOptions.builder()
+          .shards(shards)
+          .initialCapacity(initialCapacity)
+          .singleWriter("shardedSingleWriter".equals(repository))
+          .build());
+      default -> throw new IllegalArgumentException("Unknown repository " + repository);
+    };
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    if (testObj instanceof ShardedPaymentsRepository shardedPaymentsRepository) {
+      shardedPaymentsRepository.close();
+    }
+    testObj = null;
+  }
+
+  @Benchmark
+  public Payment createPayment() {
+    return testObj.createPayment(newPayment());
+  }
+
+  private static Payment newPayment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    UUID idempotencyKey = new UUID(random.nextLong(), random.nextLong());
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, CASH_AMOUNT, PAYMENT_METHOD_DETAILS);
+  }
+}
@@ -0,0 +1,101 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.util.Currency;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded read and write latency of {@link SimpleInMemoryPaymentsRepository} holding
+ * {@code payments} payments: lookups by transaction id for {@code GET /payment/{id}} and by
+ * idempotency key for duplicate detection, and creating a payment. Keys are looked up in a random
+ * order so the reads are not served from a warm cache line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleInMemoryPaymentsRepositoryBenchmark {
+
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final PaymentMethodDetails PAYMENT_METHOD_DETAILS = new PaymentMethodDetails(1234, 10, 2030);
+
+  @Param({"100000"})
+  private int payments;
+
+  private SimpleInMemoryPaymentsRepository testObj;
+  private UUID[] transactionIds;
+  private UUID[] idempotencyKeys;
+  private int next;
+
+  //Rebuilt per iteration so createPayment does not grow the repository across iterations
+  @Setup(Level.Iteration)
+  public void setUp() {
+    testObj = new SimpleInMemoryPaymentsRepository();
+    transactionIds = new UUID[payments];
+    idempotencyKeys = new UUID[payments];
+    for (int i = 0; i < payments; i++) {
+      Payment payment = testObj.createPayment(newPayment());
+      transactionIds[i] = payment.getTransactionId();
+      idempotencyKeys[i] = payment.getIdempotencyKey();
+    }
+    shuffle(transactionIds);
+    shuffle(idempotencyKeys);
+  }
+
+  @Benchmark
+  public Optional<Payment> getByTransactionId() {
+    return testObj.getByTransactionId(transactionIds[nextIndex()]);
+  }
+
+  @Benchmark
+  public Optional<Payment> getByIdempotencyKey() {
+    return testObj.getByIdempotencyKey(idempotencyKeys[nextIndex()]);
+  }
+
+  @Benchmark
+  public Payment createPayment() {
+    return testObj.createPayment(newPayment());
+  }
+
+  private int nextIndex() {
+    int index = next;
+    next = index + 1 == payments ? 0 : index + 1;
+    return index;
+  }
+
+  private static Payment newPayment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    UUID idempotencyKey = new UUID(random.nextLong(), random.nextLong());
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, CASH_AMOUNT, PAYMENT_METHOD_DETAILS);
+  }
+
+  private static void shuffle(UUID[] keys) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = keys.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      UUID key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+    }
+  }
+}
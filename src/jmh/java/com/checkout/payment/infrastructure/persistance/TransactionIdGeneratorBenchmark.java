@@ -0,0 +1,62 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transaction ID generation throughput of {@link UUID#randomUUID()}, which draws from one shared
+ * {@link java.security.SecureRandom}, against the per-thread {@link TransactionIdGenerator} from 1
+ * to 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdGeneratorBenchmark {
+
+  @Param({"randomUUID", "timeOrdered"})
+  private String generator;
+
+  private final TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+
+  @Benchmark
+  @Threads(1)
+  public UUID next_1Thread() {
+    return next();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID next_4Threads() {
+    return next();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public UUID next_16Threads() {
+    return next();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public UUID next_64Threads() {
+    return next();
+  }
+
+  private UUID next() {
+    return "randomUUID".equals(generator) ? UUID.randomUUID() : transactionIdGenerator.next();
+  }
+}
@@ -0,0 +1,124 @@
+package com.checkout.payment.infrastructure.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.checkout.payment.configuration.HttpClientConfig;
+import com.checkout.payment.configuration.HttpClientRequestFactories;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Time to settle {@code inFlight} concurrent {@link BankService#authorisePaymentAsync} calls
+ * against a slow WireMock bank answering after {@code bankLatencyMillis}. {@code platform} is the
+ * default bank executor of one platform thread per pooled connection, {@code virtual} the
+ * executor of {@code spring.threads.virtual.enabled}, starting a virtual thread per call. The
+ * connection pool is sized to {@code inFlight} so that only the executor limits the calls in
+ * flight: a batch takes about {@code inFlight / 200} bank round trips on platform threads and a
+ * single one on virtual threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BankServiceInFlightBenchmark {
+
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final int PLATFORM_THREADS = 200;
+
+  @Param({"platform", "virtual"})
+  private String executor;
+
+  @Param({"1000", "2000"})
+  private int inFlight;
+
+  @Param({"1000"})
+  private int bankLatencyMillis;
+
+  private WireMockServer wireMockServer;
+  private ExecutorService bankServiceExecutor;
+  private ClientHttpRequestFactory requestFactory;
+  private BankService testObj;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    //Delayed responses are scheduled rather than slept on, so the bank holds no thread per call
+    wireMockServer = new WireMockServer(options()
+        .dynamicPort()
+        .asynchronousResponseEnabled(true)
+        .asynchronousResponseThreads(4)
+        .jettyAcceptQueueSize(inFlight));
+    wireMockServer.start();
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(bankLatencyMillis)
+            .withBody("{\"authorized\": true, \"authorization_code\": \"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}")));
+    HttpClientConfig httpClientConfig = new HttpClientConfig();
+    httpClientConfig.setMaxConnections(inFlight);
+    httpClientConfig.setReadTimeout(Duration.ofSeconds(30));
+    httpClientConfig.setAcquireTimeout(Duration.ofSeconds(30));
+    bankServiceExecutor = "virtual".equals(executor)
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    requestFactory = HttpClientRequestFactories.create(httpClientConfig);
+    testObj = new BankServiceImpl(RestClient.builder()
+        .baseUrl("http://localhost:" + wireMockServer.port())
+        .requestFactory(requestFactory)
+        .build(), bankServiceExecutor);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    bankServiceExecutor.shutdownNow();
+    ((DisposableBean) requestFactory).destroy();
+    wireMockServer.stop();
+  }
+
+  @Benchmark
+  public int authoriseInFlightPayments() {
+    CompletableFuture<?>[] authorisations = new CompletableFuture<?>[inFlight];
+    for (int i = 0; i < inFlight; i++) {
+      authorisations[i] = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, CASH_AMOUNT, 123);
+    }
+    CompletableFuture.allOf(authorisations).join();
+    int authorised = 0;
+    for (CompletableFuture<?> authorisation : authorisations) {
+      if (authorisation.join() == PaymentStatus.AUTHORIZED) {
+        authorised++;
+      }
+    }
+    return authorised;
+  }
+}
@@ -0,0 +1,107 @@
+package com.checkout.payment.infrastructure.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.checkout.payment.configuration.HttpClientConfig;
+import com.checkout.payment.configuration.HttpClientConfig.Protocol;
+import com.checkout.payment.configuration.HttpClientRequestFactories;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Load test of {@link BankServiceImpl} against a local WireMock bank answering after
+ * {@code bankLatencyMillis}, with 32 concurrent callers. {@code simple} is the
+ * {@code HttpURLConnection} client the gateway used before the bank client was configurable,
+ * against the pooled HTTP/1.1 and the multiplexed HTTP/2 clients built by
+ * {@link HttpClientRequestFactories}. Throughput and the p99 latency of the sampled mode are the
+ * figures to compare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(32)
+public class BankServiceLoadBenchmark {
+
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
+  private static final CashAmount CASH_AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+
+  @Param({"simple", "HTTP_1_1", "HTTP_2"})
+  private String client;
+
+  @Param({"5"})
+  private int bankLatencyMillis;
+
+  private WireMockServer wireMockServer;
+  private ClientHttpRequestFactory requestFactory;
+  private BankService testObj;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    wireMockServer = new WireMockServer(options()
+        .dynamicPort()
+        .containerThreads(200));
+    wireMockServer.start();
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(bankLatencyMillis)
+            .withBody("{\"authorized\": true, \"authorization_code\": \"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}")));
+    requestFactory = requestFactory();
+    testObj = new BankServiceImpl(RestClient.builder()
+        .baseUrl("http://localhost:" + wireMockServer.port())
+        .requestFactory(requestFactory)
+        .build(), Runnable::run);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (requestFactory instanceof DisposableBean disposableRequestFactory) {
+      disposableRequestFactory.destroy();
+    }
+    wireMockServer.stop();
+  }
+
+  @Benchmark
+  public PaymentStatus authorisePayment() {
+    return testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, CASH_AMOUNT, 123);
+  }
+
+  private ClientHttpRequestFactory requestFactory() {
+    if ("simple".equals(client)) {
+      return new SimpleClientHttpRequestFactory();
+    }
+    HttpClientConfig httpClientConfig = new HttpClientConfig();
+    httpClientConfig.setProtocol(Protocol.valueOf(client));
+    return HttpClientRequestFactories.create(httpClientConfig);
+  }
+}
@@ -0,0 +1,55 @@
+package com.checkout.payment.infrastructure.rest.request;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of the body of a call to the acquirer bank, from the card details: formatting the expiry
+ * date with {@link String#format} and Jackson writing the {@link CardPaymentRequest}, as
+ * {@code RestClient}'s message converter does, against {@link CardPaymentRequestJsonWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardPaymentRequestBenchmark {
+
+  private long cardNumber = 2222405343248877L;
+  private int expiryMonth = 4;
+  private int expiryYear = 2030;
+  private String currency = "GBP";
+  private long amount = 150;
+  private int cvv = 123;
+  private ObjectWriter cardPaymentRequestWriter;
+
+  @Setup
+  public void setUp() {
+    cardPaymentRequestWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(CardPaymentRequest.class);
+  }
+
+  @Benchmark
+  public byte[] serialiseCardPaymentRequest() throws IOException {
+    String expiryDate = String.format("%02d/%d", expiryMonth, expiryYear);
+    return cardPaymentRequestWriter.writeValueAsBytes(
+        new CardPaymentRequest(cardNumber, expiryDate, currency, amount, cvv));
+  }
+
+  @Benchmark
+  public byte[] writeCardPaymentRequest() {
+    return CardPaymentRequestJsonWriter.toJson(cardNumber, expiryMonth, expiryYear, currency, amount, cvv);
+  }
+}
@@ -0,0 +1,155 @@
+package com.checkout.payment.rest.v1;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.checkout.payment.application.PaymentGatewayApplication;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time for the running gateway to process {@code payments} payments sent as one
+ * {@code POST /payments/batch} against the same payments sent as single {@code POST /payment}
+ * calls, {@code clientConcurrency} at a time. Both reach a WireMock bank answering after
+ * {@code bankLatencyMillis} with the default {@code payments.batch.parallelism}, so the
+ * difference is the per-request HTTP, validation and dispatch overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PaymentBatchBenchmark {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Param({"10000"})
+  private int payments;
+
+  @Param({"200"})
+  private int clientConcurrency;
+
+  @Param({"5"})
+  private int bankLatencyMillis;
+
+  private WireMockServer wireMockServer;
+  private ConfigurableApplicationContext applicationContext;
+  private HttpClient httpClient;
+  private URI paymentUri;
+  private URI batchUri;
+  private List<String> paymentBodies;
+  private String batchBody;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    wireMockServer = new WireMockServer(options()
+        .dynamicPort()
+        .containerThreads(250));
+    wireMockServer.start();
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(bankLatencyMillis)
+            .withBody("{\"authorized\": true, \"authorization_code\": \"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}")));
+    applicationContext = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+        .run("--server.port=0",
+            "--http-clients.bank-api.port=" + wireMockServer.port(),
+            "--http-clients.bank-api.acquire-timeout=5s",
+            "--logging.level.root=WARN");
+    String baseUri = "http://localhost:" + applicationContext.getEnvironment().getProperty("local.server.port")
+        + "/payment-gateway-api";
+    paymentUri = URI.create(baseUri + "/payment");
+    batchUri = URI.create(baseUri + "/payments/batch");
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    httpClient.close();
+    applicationContext.close();
+    wireMockServer.stop();
+  }
+
+  //New idempotency keys every run, so no payment is answered as a duplicate
+  @Setup(Level.Invocation)
+  public void createPaymentRequests() throws JsonProcessingException {
+    List<PaymentRequest> paymentRequests = new ArrayList<>(payments);
+    paymentBodies = new ArrayList<>(payments);
+    for (int i = 0; i < payments; i++) {
+      PaymentRequest paymentRequest = PaymentRequest.builder()
+          .idempotencyKey(UUID.randomUUID().toString())
+          .cardNumber("2222405343248877")
+          .expiryMonth(4)
+          .expiryYear(Year.now().plusYears(1).getValue())
+          .currency("GBP")
+          .amount("150")
+          .cvv("123").build();
+      paymentRequests.add(paymentRequest);
+      paymentBodies.add(OBJECT_MAPPER.writeValueAsString(paymentRequest));
+    }
+    batchBody = OBJECT_MAPPER.writeValueAsString(paymentRequests);
+  }
+
+  @Benchmark
+  public int batchCall() {
+    return httpClient.sendAsync(jsonPost(batchUri, batchBody), HttpResponse.BodyHandlers.ofString())
+        .join().body().length();
+  }
+
+  @Benchmark
+  public int singleCalls() throws InterruptedException {
+    Semaphore permits = new Semaphore(clientConcurrency);
+    List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(payments);
+    for (String paymentBody : paymentBodies) {
+      permits.acquire();
+      responses.add(httpClient.sendAsync(jsonPost(paymentUri, paymentBody), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, e) -> permits.release()));
+    }
+    int created = 0;
+    for (CompletableFuture<HttpResponse<Void>> response : responses) {
+      if (response.join().statusCode() == 201) {
+        created++;
+      }
+    }
+    return created;
+  }
+
+  private static HttpRequest jsonPost(URI uri, String body) {
+    return HttpRequest.newBuilder(uri)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
@@ -0,0 +1,132 @@
+package com.checkout.payment.rest.v1;
+
+import com.checkout.payment.gateway.command.ProcessPaymentCommand;
+import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.validator.InvalidPaymentRequestException;
+import com.checkout.payment.rest.v1.validator.PaymentRequestParser;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.Year;
+import java.util.Currency;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of turning a deserialised {@link PaymentRequest} into a {@link ProcessPaymentCommand}, for a
+ * valid and an invalid request:
+ * <ul>
+ *     <li>{@code annotations_*}: Hibernate Validator over the constraint annotations, then parsing
+ *     the fields again into the command as the controller did before {@link PaymentRequestParser}</li>
+ *     <li>{@code parse_*}: the single pass {@link PaymentRequestParser}</li>
+ * </ul>
+ * {@code validate_*} is the bean validation alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentRequestBenchmark {
+
+  private static final Currency GBP = Currency.getInstance("GBP");
+
+  private Validator validator;
+  private PaymentRequestParser paymentRequestParser;
+  private PaymentRequest validRequest;
+  private PaymentRequest invalidRequest;
+  private UUID idempotencyKey;
+  private int expiryYear;
+
+  @Setup
+  public void setUp() {
+    validator = Validation.buildDefaultValidatorFactory().getValidator();
+    paymentRequestParser = new PaymentRequestParser(AllowedCurrencies.all());
+    expiryYear = Year.now().plusYears(1).getValue();
+    idempotencyKey = UUID.randomUUID();
+    validRequest = PaymentRequest.builder()
+        .idempotencyKey(idempotencyKey.toString())
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(expiryYear)
+        .currency("GBP")
+        .amount("150")
+        .cvv("123").build();
+    //Fails the card number, currency and cvv constraints
+    invalidRequest = PaymentRequest.builder()
+        .idempotencyKey(idempotencyKey.toString())
+        .cardNumber("22224053432488AB")
+        .expiryMonth(4)
+        .expiryYear(expiryYear)
+        .currency("ZZZ")
+        .amount("150")
+        .cvv("12").build();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<PaymentRequest>> validate_validRequest() {
+    return validator.validate(validRequest);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<PaymentRequest>> validate_invalidRequest() {
+    return validator.validate(invalidRequest);
+  }
+
+  @Benchmark
+  public ProcessPaymentCommand annotations_validRequest() throws ExpiredCardDateException {
+    Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(validRequest);
+    if (!violations.isEmpty()) {
+      throw new ConstraintViolationException(violations);
+    }
+    return new ProcessPaymentCommand(UUID.fromString(validRequest.getIdempotencyKey()),
+        new CashAmount(IsoCurrency.lookup(validRequest.getCurrency()), Long.parseLong(validRequest.getAmount())),
+        Long.parseLong(validRequest.getCardNumber()),
+        validRequest.getExpiryMonth(),
+        validRequest.getExpiryYear(),
+        Integer.parseInt(validRequest.getCvv()));
+  }
+
+  @Benchmark
+  public ConstraintViolationException annotations_invalidRequest() {
+    return new ConstraintViolationException(validator.validate(invalidRequest));
+  }
+
+  @Benchmark
+  public ProcessPaymentCommand parse_validRequest() throws ExpiredCardDateException {
+    return paymentRequestParser.parse(validRequest);
+  }
+
+  @Benchmark
+  public InvalidPaymentRequestException parse_invalidRequest() throws ExpiredCardDateException {
+    try {
+      paymentRequestParser.parse(invalidRequest);
+      throw new IllegalStateException("Invalid request parsed");
+    } catch (InvalidPaymentRequestException e) {
+      return e;
+    }
+  }
+
+  //The command alone, without validating or parsing the request strings
+  @Benchmark
+  public ProcessPaymentCommand newProcessPaymentCommand() throws ExpiredCardDateException {
+    return new ProcessPaymentCommand(idempotencyKey, new CashAmount(GBP, 150), 2222405343248877L, 4, expiryYear, 123);
+  }
+}
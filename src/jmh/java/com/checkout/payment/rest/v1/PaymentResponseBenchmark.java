@@ -0,0 +1,97 @@
+package com.checkout.payment.rest.v1;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.json.JsonBuffer;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponseJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of the JSON edges of {@code POST /payment}: mapping a {@link Payment} to its
+ * {@link PaymentResponse}, and Jackson writing the response and reading a {@link PaymentRequest}
+ * with an {@link ObjectMapper} configured as Spring MVC configures its message converter. The
+ * response is also written by {@link PaymentResponseJsonWriter}, to a copied array as the
+ * {@link PaymentResponseCache} does and left in the thread's {@link JsonBuffer} as the message
+ * converter does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentResponseBenchmark {
+
+  private Payment payment;
+  private PaymentResponse paymentResponse;
+  private ObjectWriter paymentResponseWriter;
+  private ObjectReader paymentRequestReader;
+  private byte[] paymentRequestBody;
+
+  @Setup
+  public void setUp() throws IOException {
+    payment = new Payment(UUID.randomUUID(), PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 150), new PaymentMethodDetails(8877, 4, 2030));
+    payment.setTransactionId(UUID.randomUUID());
+    payment.setCreatedAt(Instant.now());
+    paymentResponse = PaymentResponse.from(payment);
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    paymentResponseWriter = objectMapper.writerFor(PaymentResponse.class);
+    paymentRequestReader = objectMapper.readerFor(PaymentRequest.class);
+    paymentRequestBody = objectMapper.writeValueAsBytes(PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount("150")
+        .cvv("123").build());
+  }
+
+  @Benchmark
+  public PaymentResponse paymentResponseFrom() {
+    return PaymentResponse.from(payment);
+  }
+
+  @Benchmark
+  public byte[] serialisePaymentResponse() throws IOException {
+    return paymentResponseWriter.writeValueAsBytes(paymentResponse);
+  }
+
+  @Benchmark
+  public byte[] writePaymentResponse() {
+    return PaymentResponseJsonWriter.toJson(paymentResponse);
+  }
+
+  @Benchmark
+  public JsonBuffer writePaymentResponseToBuffer() {
+    return PaymentResponseJsonWriter.write(JsonBuffer.forCurrentThread(), paymentResponse);
+  }
+
+  @Benchmark
+  public PaymentRequest deserialisePaymentRequest() throws IOException {
+    return paymentRequestReader.readValue(paymentRequestBody);
+  }
+}
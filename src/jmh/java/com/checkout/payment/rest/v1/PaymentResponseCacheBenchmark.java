@@ -0,0 +1,84 @@
+package com.checkout.payment.rest.v1;
+
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of answering {@code GET /payment/{id}} for one of {@code payments} payments polled at
+ * random: building and writing the {@link PaymentResponse} on every read, as before the
+ * {@link PaymentResponseCache}, against copying the bytes it holds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentResponseCacheBenchmark {
+
+  @Param({"10000"})
+  private int payments;
+
+  private UUID[] transactionIds;
+  private Function<UUID, Optional<Payment>> paymentLookup;
+  private ObjectWriter paymentResponseWriter;
+  private PaymentResponseCache paymentResponseCache;
+
+  @Setup
+  public void setUp() {
+    Map<UUID, Payment> paymentsByTransactionId = new HashMap<>();
+    transactionIds = new UUID[payments];
+    for (int i = 0; i < payments; i++) {
+      Payment payment = new Payment(UUID.randomUUID(), PaymentStatus.AUTHORIZED,
+          new CashAmount(Currency.getInstance("GBP"), 150), new PaymentMethodDetails(8877, 4, 2030));
+      payment.setTransactionId(UUID.randomUUID());
+      transactionIds[i] = payment.getTransactionId();
+      paymentsByTransactionId.put(payment.getTransactionId(), payment);
+    }
+    paymentLookup = transactionId -> Optional.ofNullable(paymentsByTransactionId.get(transactionId));
+    paymentResponseWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(PaymentResponse.class);
+    paymentResponseCache = new PaymentResponseCache(payments, PaymentMetrics.NOOP);
+  }
+
+  @Benchmark
+  public byte[] uncached() throws IOException {
+    Payment payment = paymentLookup.apply(nextTransactionId()).orElseThrow();
+    return paymentResponseWriter.writeValueAsBytes(PaymentResponse.from(payment));
+  }
+
+  //The copy stands in for the write of the bytes to the response buffer
+  @Benchmark
+  public byte[] cached() {
+    return paymentResponseCache.get(nextTransactionId(), paymentLookup).body().clone();
+  }
+
+  private UUID nextTransactionId() {
+    return transactionIds[ThreadLocalRandom.current().nextInt(payments)];
+  }
+}
@@ -1,18 +1,52 @@
 package com.checkout.payment.configuration;
 
 import com.checkout.payment.gateway.factory.PaymentFactory;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.model.AllowedCurrencies;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.resilience.AimdConcurrencyLimit;
+import com.checkout.payment.gateway.resilience.CircuitBreaker;
+import com.checkout.payment.gateway.resilience.CircuitBreakerHealthIndicator;
+import com.checkout.payment.gateway.resilience.CircuitBreakingBankService;
+import com.checkout.payment.gateway.resilience.ConcurrencyLimitedBankService;
+import com.checkout.payment.gateway.resilience.HedgingBankService;
+import com.checkout.payment.gateway.resilience.LatencyPercentile;
+import com.checkout.payment.gateway.screening.BinRangeTable;
+import com.checkout.payment.gateway.screening.CardScreeningBankService;
 import com.checkout.payment.gateway.service.BankService;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
 import com.checkout.payment.gateway.service.PaymentGatewayServiceImpl;
+import com.checkout.payment.infrastructure.persistance.JournalOptions;
+import com.checkout.payment.infrastructure.persistance.IdempotencyKeyStore;
+import com.checkout.payment.infrastructure.persistance.JournalPaymentsRepository;
+import com.checkout.payment.infrastructure.persistance.OffHeapPaymentsRepository;
 import com.checkout.payment.infrastructure.persistance.SimpleInMemoryPaymentsRepository;
 import com.checkout.payment.infrastructure.rest.BankServiceImpl;
+import com.checkout.payment.infrastructure.rest.RetryBackoff;
 import com.checkout.payment.rest.v1.PaymentGatewayController;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
+import com.checkout.payment.rest.v1.PaymentResponseCache;
+import com.checkout.payment.rest.v1.validator.PaymentRequestParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jetty.util.thread.VirtualThreadPool;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.jetty.ConfigurableJettyWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestClient;
 
 @Configuration
@@ -25,27 +59,103 @@ public class ApplicationConfiguration {
   }
 
   @Bean
-  Validator validator() {
-    return Validation.buildDefaultValidatorFactory().getValidator();
+  @ConfigurationProperties("payments.repository")
+  public PaymentsRepositoryConfig paymentsRepositoryConfig() {
+    return new PaymentsRepositoryConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.batch")
+  public PaymentsBatchConfig paymentsBatchConfig() {
+    return new PaymentsBatchConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.currencies")
+  public CurrencyConfig currencyConfig() {
+    return new CurrencyConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.card-screening")
+  public CardScreeningConfig cardScreeningConfig() {
+    return new CardScreeningConfig();
+  }
+
+  @Bean
+  PaymentRequestParser paymentRequestParser(CurrencyConfig currencyConfig) {
+    return new PaymentRequestParser(AllowedCurrencies.of(currencyConfig.getAllowed()));
   }
 
   @Bean
   public PaymentGatewayController paymentGatewayController(
-      PaymentGatewayService paymentGatewayService, Validator validator) {
-    return new PaymentGatewayController(paymentGatewayService, validator);
+      PaymentGatewayService paymentGatewayService, PaymentRequestParser paymentRequestParser,
+      PaymentsBatchConfig paymentsBatchConfig, CommonExceptionHandler commonExceptionHandler,
+      PaymentMetrics paymentMetrics, PaymentResponseCache paymentResponseCache, ObjectMapper objectMapper) {
+    return new PaymentGatewayController(paymentGatewayService, paymentRequestParser, paymentsBatchConfig,
+        commonExceptionHandler, paymentMetrics, paymentResponseCache, objectMapper);
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.response-cache")
+  public PaymentResponseCacheConfig paymentResponseCacheConfig() {
+    return new PaymentResponseCacheConfig();
+  }
+
+  @Bean
+  public PaymentResponseCache paymentResponseCache(PaymentResponseCacheConfig paymentResponseCacheConfig,
+      PaymentMetrics paymentMetrics, MeterRegistry meterRegistry) {
+    return new PaymentResponseCache(paymentResponseCacheConfig.getMaxSize(), paymentMetrics, meterRegistry);
   }
 
   @Bean
   public PaymentGatewayService paymentGatewayService(
       PaymentsRepository paymentsRepository,
       PaymentFactory paymentFactory,
-      BankService bankService) {
-    return new PaymentGatewayServiceImpl(paymentsRepository, paymentFactory, bankService);
+      BankService bankService,
+      PaymentMetrics paymentMetrics) {
+    return new PaymentGatewayServiceImpl(paymentsRepository, paymentFactory, bankService, paymentMetrics);
+  }
+
+  @Bean
+  public PaymentMetrics paymentMetrics(MeterRegistry meterRegistry) {
+    return new PaymentMetrics(meterRegistry);
   }
 
+  //Replaces Boot's JSON converter, keeping its configured ObjectMapper
   @Bean
-  public PaymentsRepository paymentsRepository() {
-    return new SimpleInMemoryPaymentsRepository();
+  MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+      PaymentMetrics paymentMetrics) {
+    return new TimedMappingJackson2HttpMessageConverter(objectMapper, paymentMetrics);
+  }
+
+  @Bean
+  public PaymentsRepository paymentsRepository(PaymentsRepositoryConfig paymentsRepositoryConfig,
+      MeterRegistry meterRegistry) throws IOException {
+    return switch (paymentsRepositoryConfig.getType()) {
+      case IN_MEMORY -> new SimpleInMemoryPaymentsRepository(
+          idempotencyKeyStore(paymentsRepositoryConfig.getIdempotency()));
+      case OFF_HEAP -> new OffHeapPaymentsRepository(paymentsRepositoryConfig.getInitialCapacity());
+      case JOURNAL -> new JournalPaymentsRepository(journalOptions(paymentsRepositoryConfig.getJournal()),
+          meterRegistry);
+    };
+  }
+
+  private static IdempotencyKeyStore idempotencyKeyStore(PaymentsRepositoryConfig.Idempotency idempotencyConfig) {
+    return new IdempotencyKeyStore(idempotencyConfig.getTtl(), idempotencyConfig.getMaxSize(),
+        idempotencyConfig.getGenerations());
+  }
+
+  private static JournalOptions journalOptions(PaymentsRepositoryConfig.Journal journalConfig) {
+    return JournalOptions.builder()
+        .directory(Path.of(journalConfig.getDirectory()))
+        .recordsPerSegment(journalConfig.getRecordsPerSegment())
+        .fsyncPolicy(journalConfig.getFsyncPolicy())
+        .fsyncInterval(journalConfig.getFsyncInterval())
+        .fsyncEveryRecords(journalConfig.getFsyncEveryRecords())
+        .groupCommitMaxBatchSize(journalConfig.getGroupCommitMaxBatchSize())
+        .groupCommitMaxLinger(journalConfig.getGroupCommitMaxLinger())
+        .build();
   }
 
   @Bean
@@ -54,12 +164,122 @@ public class ApplicationConfiguration {
   }
 
   @Bean
-  public BankService bankService(RestClient restClient) {
-    return new BankServiceImpl(restClient);
+  @ConfigurationProperties("payments.bank.concurrency-limit")
+  public BankConcurrencyLimitConfig bankConcurrencyLimitConfig() {
+    return new BankConcurrencyLimitConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.bank.retry")
+  public BankRetryConfig bankRetryConfig() {
+    return new BankRetryConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.bank.hedging")
+  public BankHedgingConfig bankHedgingConfig() {
+    return new BankHedgingConfig();
+  }
+
+  @Bean
+  @ConfigurationProperties("payments.bank.circuit-breaker")
+  public BankCircuitBreakerConfig bankCircuitBreakerConfig() {
+    return new BankCircuitBreakerConfig();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.bank.circuit-breaker.enabled", matchIfMissing = true)
+  CircuitBreaker bankCircuitBreaker(BankCircuitBreakerConfig config) {
+    return new CircuitBreaker(config.getSlidingWindowSize(), config.getMinimumCalls(),
+        config.getFailureRateThreshold(), config.getSlowCallRateThreshold(), config.getSlowCallDuration(),
+        config.getWaitInOpenState(), config.getPermittedCallsInHalfOpenState());
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.bank.circuit-breaker.enabled", matchIfMissing = true)
+  HealthIndicator bankCircuitBreakerHealthIndicator(CircuitBreaker bankCircuitBreaker) {
+    return new CircuitBreakerHealthIndicator(bankCircuitBreaker);
+  }
+
+  //From the outside in: cards rejected locally never reach the bank, an open circuit fails before
+  //taking a concurrency slot and counts a hedged payment once, and a hedge takes a slot of its own,
+  //so the limit counts every call actually made to the bank
+  @Bean
+  public BankService bankService(RestClient restClient, ExecutorService bankServiceExecutor,
+      BankRetryConfig bankRetryConfig, BankHedgingConfig bankHedgingConfig,
+      BankConcurrencyLimitConfig bankConcurrencyLimitConfig, ObjectProvider<CircuitBreaker> bankCircuitBreaker,
+      CardScreeningConfig cardScreeningConfig, MeterRegistry meterRegistry)
+      throws IOException {
+    BankService bankService = new BankServiceImpl(restClient, bankServiceExecutor, retryBackoff(bankRetryConfig));
+    if (bankConcurrencyLimitConfig.isEnabled()) {
+      bankService = new ConcurrencyLimitedBankService(bankService,
+          concurrencyLimit(bankConcurrencyLimitConfig), meterRegistry);
+    }
+    if (bankHedgingConfig.isEnabled()) {
+      bankService = new HedgingBankService(bankService,
+          new LatencyPercentile(bankHedgingConfig.getPercentile(), bankHedgingConfig.getWindowSize()), meterRegistry);
+    }
+    CircuitBreaker circuitBreaker = bankCircuitBreaker.getIfAvailable();
+    if (circuitBreaker != null) {
+      bankService = new CircuitBreakingBankService(bankService, circuitBreaker, meterRegistry);
+    }
+    if (cardScreeningConfig.isEnabled()) {
+      try (InputStream binRanges = cardScreeningConfig.getBinRanges().getInputStream()) {
+        bankService = new CardScreeningBankService(bankService, BinRangeTable.load(binRanges), meterRegistry);
+      }
+    }
+    return bankService;
+  }
+
+  private static RetryBackoff retryBackoff(BankRetryConfig config) {
+    return new RetryBackoff(config.getMaxAttempts(), config.getInitialBackoff(), config.getMaxBackoff());
+  }
+
+  private static AimdConcurrencyLimit concurrencyLimit(BankConcurrencyLimitConfig config) {
+    return new AimdConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+        config.getSlowCallThreshold(), config.getBackoffRatio());
+  }
+
+  //A bank call holds its thread for the whole round trip, so there is one platform thread per
+  //pooled connection, or a virtual thread per call when spring.threads.virtual.enabled is set
+  @Bean
+  ExecutorService bankServiceExecutor(HttpClientConfig httpClientConfig, Environment environment) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bank-api-", 1).factory());
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    return Executors.newFixedThreadPool(httpClientConfig.getMaxConnections(),
+        runnable -> new Thread(runnable, "bank-api-" + threadNumber.incrementAndGet()));
+  }
+
+  //Boot's virtual thread Jetty pool still queues each dispatch under a lock. Spring dispatches an
+  //async result while holding a monitor, so a bank thread completing a payment would pin its
+  //carrier whenever that lock is contended. Jetty's VirtualThreadPool starts every task on its own
+  //virtual thread instead, with no queue to lock. Unordered, it runs after Boot's customizer.
+  @Bean
+  WebServerFactoryCustomizer<ConfigurableJettyWebServerFactory> jettyVirtualThreadPoolCustomizer(
+      Environment environment) {
+    return factory -> {
+      if (Threading.VIRTUAL.isActive(environment)) {
+        VirtualThreadPool threadPool = new VirtualThreadPool();
+        threadPool.setName("jetty");
+        factory.setThreadPool(threadPool);
+      }
+    };
+  }
+
+  //A DisposableBean, so its HTTP client is closed or stopped with the context
+  @Bean
+  ClientHttpRequestFactory bankClientHttpRequestFactory(HttpClientConfig httpClientConfig) {
+    return HttpClientRequestFactories.create(httpClientConfig);
   }
 
   @Bean
-  RestClient restClient(HttpClientConfig httpClientConfig) {
-    return RestClient.create(httpClientConfig.getHost() + ":" + httpClientConfig.getPort());
+  RestClient restClient(HttpClientConfig httpClientConfig,
+      ClientHttpRequestFactory bankClientHttpRequestFactory) {
+    return RestClient.builder()
+        .baseUrl(httpClientConfig.getHost() + ":" + httpClientConfig.getPort())
+        .requestFactory(bankClientHttpRequestFactory)
+        .build();
   }
 }
@@ -0,0 +1,20 @@
+package com.checkout.payment.configuration;
+
+import java.time.Duration;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BankCircuitBreakerConfig {
+    private boolean enabled = true;
+    private int slidingWindowSize = 100;
+    //Calls the window must hold before its rates can open the circuit
+    private int minimumCalls = 20;
+    //Percentages of failed and of slow calls that open the circuit
+    private int failureRateThreshold = 50;
+    private int slowCallRateThreshold = 80;
+    private Duration slowCallDuration = Duration.ofSeconds(3);
+    private Duration waitInOpenState = Duration.ofSeconds(10);
+    private int permittedCallsInHalfOpenState = 5;
+}
@@ -0,0 +1,18 @@
+package com.checkout.payment.configuration;
+
+import java.time.Duration;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BankConcurrencyLimitConfig {
+    private boolean enabled = true;
+    //Starts at the bank connection pool size and only backs off once the bank slows down
+    private int initialLimit = 200;
+    private int minLimit = 10;
+    private int maxLimit = 200;
+    //A call slower than this lowers the limit as a failure does
+    private Duration slowCallThreshold = Duration.ofSeconds(1);
+    private double backoffRatio = 0.9;
+}
@@ -0,0 +1,14 @@
+package com.checkout.payment.configuration;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BankHedgingConfig {
+    private boolean enabled = false;
+    //A call slower than this percentile of recent calls is hedged with a second request
+    private double percentile = 95;
+    //Recent calls the percentile is taken over; hedging starts after an eighth of them
+    private int windowSize = 1024;
+}
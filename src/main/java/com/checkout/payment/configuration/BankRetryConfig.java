@@ -0,0 +1,14 @@
+package com.checkout.payment.configuration;
+
+import java.time.Duration;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BankRetryConfig {
+    //Including the first call, so 1 turns retries off
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(50);
+    private Duration maxBackoff = Duration.ofMillis(500);
+}
@@ -0,0 +1,14 @@
+package com.checkout.payment.configuration;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+@Data
+@NoArgsConstructor
+public class CardScreeningConfig {
+    //Rejects cards failing the Luhn check or outside the BIN ranges without calling the bank
+    private boolean enabled = false;
+    private Resource binRanges = new ClassPathResource("bin-ranges.csv");
+}
@@ -1,10 +1,15 @@
 package com.checkout.payment.configuration;
 
 import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.exception.InvalidBatchSizeException;
+import com.checkout.payment.gateway.service.exception.BankOverloadedException;
 import com.checkout.payment.gateway.service.exception.BankServiceException;
+import com.checkout.payment.gateway.service.exception.BankUnavailableException;
 import com.checkout.payment.gateway.service.exception.InvalidBankPaymentDetailsException;
 import com.checkout.payment.gateway.service.exception.PaymentIncongruentServiceException;
+import com.checkout.payment.gateway.service.exception.RejectedCardException;
 import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import com.checkout.payment.rest.v1.validator.InvalidPaymentRequestException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +31,13 @@ public class CommonExceptionHandler {
         HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(InvalidPaymentRequestException.class)
+  public ResponseEntity<ErrorListResponse> handleInvalidPaymentRequestException(InvalidPaymentRequestException ex) {
+    log.info("Bad Request Exception occurred", ex);
+    return new ResponseEntity<>(new ErrorListResponse(ex.getErrors()),
+        HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(ExpiredCardDateException.class)
   public ResponseEntity<ErrorListResponse> handleExpiredCardDateException(ExpiredCardDateException ex) {
     log.info("Expired Card Date Bad Request", ex);
@@ -33,6 +45,20 @@ public class CommonExceptionHandler {
         HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(RejectedCardException.class)
+  public ResponseEntity<ErrorListResponse> handleRejectedCardException(RejectedCardException ex) {
+    log.info("Card rejected before calling Acquirer bank: {}", ex.getMessage());
+    return new ResponseEntity<>(new ErrorListResponse(ex.getReason().getCode(), ex.getMessage()),
+        HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidBatchSizeException.class)
+  public ResponseEntity<ErrorListResponse> handleInvalidBatchSizeException(InvalidBatchSizeException ex) {
+    log.info("Invalid Batch Size Bad Request", ex);
+    return new ResponseEntity<>(new ErrorListResponse("batch.size.invalid", ex.getMessage()),
+        HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(PaymentIncongruentServiceException.class)
   public ResponseEntity<ErrorListResponse> handlePaymentIncongruentServiceException(PaymentIncongruentServiceException ex) {
     log.error("Payment cannot be processed due to incongruent error", ex);
@@ -54,6 +80,43 @@ public class CommonExceptionHandler {
         HttpStatus.SERVICE_UNAVAILABLE);
   }
 
+  @ExceptionHandler(BankOverloadedException.class)
+  public ResponseEntity<ErrorListResponse> handleBankOverloadedException(BankOverloadedException ex) {
+    log.warn("Payment rejected: {}", ex.getMessage());
+    return new ResponseEntity<>(new ErrorListResponse("bank.overloaded", "Too many payments in flight, please try later"),
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(BankUnavailableException.class)
+  public ResponseEntity<ErrorListResponse> handleBankUnavailableException(BankUnavailableException ex) {
+    log.warn("Payment rejected: {}", ex.getMessage());
+    return new ResponseEntity<>(new ErrorListResponse("bank.unavailable", "Acquirer bank is unavailable, please try later"),
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Maps the failure of one payment of a batch to the response its own {@code POST /payment}
+   * would have had.
+   */
+  public ResponseEntity<ErrorListResponse> handleBatchItemException(Throwable ex) {
+    return switch (ex) {
+      case ConstraintViolationException e -> handleConstraintViolationException(e);
+      case InvalidPaymentRequestException e -> handleInvalidPaymentRequestException(e);
+      case ExpiredCardDateException e -> handleExpiredCardDateException(e);
+      case RejectedCardException e -> handleRejectedCardException(e);
+      case PaymentIncongruentServiceException e -> handlePaymentIncongruentServiceException(e);
+      case BankServiceException e -> handleBankServiceException(e);
+      case InvalidBankPaymentDetailsException e -> handleInvalidBankPaymentDetailsException(e);
+      case BankOverloadedException e -> handleBankOverloadedException(e);
+      case BankUnavailableException e -> handleBankUnavailableException(e);
+      default -> {
+        log.error("Unexpected error processing a batch payment", ex);
+        yield new ResponseEntity<>(new ErrorListResponse("internal.server.error", "Error please try later"),
+            HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    };
+  }
+
   private ErrorListResponse generateErrorResponse(final ConstraintViolationException exception) {
     return new ErrorListResponse(exception.getConstraintViolations().stream()
         .map(v -> new ErrorListResponse.ErrorResponse(getProperty(v), v.getMessage()))
@@ -0,0 +1,13 @@
+package com.checkout.payment.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class CurrencyConfig {
+    //ISO codes of the currencies payments are accepted in, every ISO currency when empty
+    private List<String> allowed = new ArrayList<>();
+}
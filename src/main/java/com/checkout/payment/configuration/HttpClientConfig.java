@@ -1,5 +1,6 @@
 package com.checkout.payment.configuration;
 
+import java.time.Duration;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -8,4 +9,17 @@ import lombok.NoArgsConstructor;
 public class HttpClientConfig {
     private String host;
     private int port = -1;
+    private Protocol protocol = Protocol.HTTP_1_1;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(5);
+    private Duration acquireTimeout = Duration.ofMillis(500);
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private int maxConnections = 200;
+
+    public enum Protocol {
+        /** Pooled keep-alive connections, one request in flight on each. */
+        HTTP_1_1,
+        /** Requests multiplexed as streams over shared connections. */
+        HTTP_2
+    }
 }
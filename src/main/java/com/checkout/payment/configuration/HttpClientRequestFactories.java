@@ -0,0 +1,97 @@
+package com.checkout.payment.configuration;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.HttpClientTransportOverHTTP2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JettyClientHttpRequestFactory;
+
+/**
+ * Builds the {@link ClientHttpRequestFactory} behind an outbound {@code RestClient} from its
+ * {@link HttpClientConfig}.
+ * <ul>
+ *     <li>{@link HttpClientConfig.Protocol#HTTP_1_1} pools keep-alive connections with Apache HttpClient. A request waits up to the acquire timeout for a free connection once {@code maxConnections} are in use.</li>
+ *     <li>{@link HttpClientConfig.Protocol#HTTP_2} multiplexes requests as streams over shared connections with the Jetty {@link HttpClient}, speaking HTTP/2 from the first byte over cleartext as the JDK client's upgrade from HTTP/1.1 is refused for requests with a body. Streams are not acquired from a pool, so the acquire timeout does not apply.</li>
+ * </ul>
+ * Either factory is a {@link DisposableBean} that closes or stops its client, so a factory exposed
+ * as a bean releases its connections and threads when the context shuts down. A factory created
+ * outside of a context is to be destroyed by its owner.
+ */
+public final class HttpClientRequestFactories {
+
+  private HttpClientRequestFactories() {
+  }
+
+  public static ClientHttpRequestFactory create(HttpClientConfig httpClientConfig) {
+    return switch (httpClientConfig.getProtocol()) {
+      case HTTP_1_1 -> pooled(httpClientConfig);
+      case HTTP_2 -> multiplexed(httpClientConfig);
+    };
+  }
+
+  private static ClientHttpRequestFactory pooled(HttpClientConfig httpClientConfig) {
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(httpClientConfig.getMaxConnections())
+        .setMaxConnPerRoute(httpClientConfig.getMaxConnections())
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(timeout(httpClientConfig.getConnectTimeout().toMillis()))
+            .setSocketTimeout(timeout(httpClientConfig.getReadTimeout().toMillis()))
+            .setTimeToLive(TimeValue.of(httpClientConfig.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+            .build())
+        .build();
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectionRequestTimeout(timeout(httpClientConfig.getAcquireTimeout().toMillis()))
+        .setResponseTimeout(timeout(httpClientConfig.getReadTimeout().toMillis()))
+        .setConnectionKeepAlive(TimeValue.of(httpClientConfig.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+        .build();
+    return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .evictIdleConnections(TimeValue.of(httpClientConfig.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+        .build());
+  }
+
+  private static ClientHttpRequestFactory multiplexed(HttpClientConfig httpClientConfig) {
+    HttpClient httpClient = new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()));
+    httpClient.setMaxConnectionsPerDestination(httpClientConfig.getMaxConnections());
+    httpClient.setIdleTimeout(httpClientConfig.getKeepAlive().toMillis());
+    JettyClientHttpRequestFactory requestFactory = new StoppingJettyClientHttpRequestFactory(httpClient);
+    requestFactory.setConnectTimeout(httpClientConfig.getConnectTimeout());
+    requestFactory.setReadTimeout(httpClientConfig.getReadTimeout());
+    try {
+      httpClient.start();
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to start the HTTP/2 client", e);
+    }
+    return requestFactory;
+  }
+
+  private static Timeout timeout(long millis) {
+    return Timeout.ofMilliseconds(millis);
+  }
+
+  //Spring's factory only stops a client it created itself, unlike the Apache one which closes it
+  private static final class StoppingJettyClientHttpRequestFactory extends JettyClientHttpRequestFactory {
+    private final HttpClient httpClient;
+
+    private StoppingJettyClientHttpRequestFactory(HttpClient httpClient) {
+      super(httpClient);
+      this.httpClient = httpClient;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+      httpClient.stop();
+    }
+  }
+}
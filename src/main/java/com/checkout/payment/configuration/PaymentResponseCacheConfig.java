@@ -0,0 +1,10 @@
+package com.checkout.payment.configuration;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class PaymentResponseCacheConfig {
+    private long maxSize = 100_000;
+}
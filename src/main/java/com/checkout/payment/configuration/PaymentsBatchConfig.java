@@ -0,0 +1,12 @@
+package com.checkout.payment.configuration;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class PaymentsBatchConfig {
+    private int maxSize = 10_000;
+    private int parallelism = 200;
+    private int maxLineLength = 8_192;
+}
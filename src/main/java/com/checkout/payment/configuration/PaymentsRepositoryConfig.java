@@ -0,0 +1,41 @@
+package com.checkout.payment.configuration;
+
+import com.checkout.payment.infrastructure.persistance.JournalFsyncPolicy;
+import java.time.Duration;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class PaymentsRepositoryConfig {
+    private Type type = Type.IN_MEMORY;
+    private int initialCapacity = 1_000_000;
+    private Journal journal = new Journal();
+    private Idempotency idempotency = new Idempotency();
+
+    public enum Type {
+        IN_MEMORY,
+        OFF_HEAP,
+        JOURNAL
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Idempotency {
+        private Duration ttl = Duration.ofHours(24);
+        private int maxSize = 1_000_000;
+        private int generations = 8;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Journal {
+        private String directory = "data/payments-journal";
+        private int recordsPerSegment = 1 << 20;
+        private JournalFsyncPolicy fsyncPolicy = JournalFsyncPolicy.EVERY_WRITE;
+        private Duration fsyncInterval = Duration.ofMillis(10);
+        private int fsyncEveryRecords = 100;
+        private int groupCommitMaxBatchSize = 256;
+        private Duration groupCommitMaxLinger = Duration.ZERO;
+    }
+}
@@ -0,0 +1,52 @@
+package com.checkout.payment.configuration;
+
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.json.JsonBuffer;
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponseJsonWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Spring Boot's JSON converter, timing the serialisation of payment responses as the
+ * {@link PaymentMetrics.Stage#SERIALISATION} stage. Other bodies, such as actuator's, are not timed.
+ * <p>
+ * A {@link PaymentResponse} written as UTF-8 without indentation is written by
+ * {@link PaymentResponseJsonWriter} instead of Jackson, to the same bytes.
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+  private final PaymentMetrics paymentMetrics;
+
+  public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper, PaymentMetrics paymentMetrics) {
+    super(objectMapper);
+    this.paymentMetrics = paymentMetrics;
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+    if (!(object instanceof PaymentResponse || object instanceof BatchPaymentResponse
+        || object instanceof ErrorListResponse)) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+    long startNanos = PaymentMetrics.nanoTime();
+    if (object instanceof PaymentResponse paymentResponse && isCompactUtf8(outputMessage)) {
+      PaymentResponseJsonWriter.write(JsonBuffer.forCurrentThread(), paymentResponse).writeTo(outputMessage.getBody());
+    } else {
+      super.writeInternal(object, type, outputMessage);
+    }
+    paymentMetrics.record(PaymentMetrics.Stage.SERIALISATION, startNanos);
+  }
+
+  private boolean isCompactUtf8(HttpOutputMessage outputMessage) {
+    return getJsonEncoding(outputMessage.getHeaders().getContentType()) == JsonEncoding.UTF8
+        && !getObjectMapper().isEnabled(SerializationFeature.INDENT_OUTPUT);
+  }
+}
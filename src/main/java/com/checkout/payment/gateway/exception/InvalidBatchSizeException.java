@@ -0,0 +1,9 @@
+package com.checkout.payment.gateway.exception;
+
+public class InvalidBatchSizeException extends Exception {
+
+  public InvalidBatchSizeException(String message) {
+    super(message);
+  }
+
+}
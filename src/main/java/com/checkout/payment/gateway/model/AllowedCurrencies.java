@@ -0,0 +1,45 @@
+package com.checkout.payment.gateway.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The {@link IsoCurrency currencies} the gateway settles and so accepts payments in, set with
+ * {@code payments.currencies.allowed}.
+ */
+public final class AllowedCurrencies {
+  private final boolean[] allowedByOrdinal;
+
+  private AllowedCurrencies(boolean[] allowedByOrdinal) {
+    this.allowedByOrdinal = allowedByOrdinal;
+  }
+
+  public static AllowedCurrencies all() {
+    boolean[] allowedByOrdinal = new boolean[IsoCurrency.count()];
+    Arrays.fill(allowedByOrdinal, true);
+    return new AllowedCurrencies(allowedByOrdinal);
+  }
+
+  /**
+   * @param codes ISO codes of the allowed currencies, every currency when empty
+   * @throws IllegalArgumentException if a code is not an ISO currency
+   */
+  public static AllowedCurrencies of(Collection<String> codes) {
+    if (codes.isEmpty()) {
+      return all();
+    }
+    boolean[] allowedByOrdinal = new boolean[IsoCurrency.count()];
+    for (String code : codes) {
+      IsoCurrency isoCurrency = IsoCurrency.lookup(code);
+      if (isoCurrency == null) {
+        throw new IllegalArgumentException("Unknown ISO currency code " + code);
+      }
+      allowedByOrdinal[isoCurrency.getOrdinal()] = true;
+    }
+    return new AllowedCurrencies(allowedByOrdinal);
+  }
+
+  public boolean isAllowed(IsoCurrency isoCurrency) {
+    return allowedByOrdinal[isoCurrency.getOrdinal()];
+  }
+}
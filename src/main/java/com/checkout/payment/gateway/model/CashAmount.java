@@ -2,37 +2,49 @@ package com.checkout.payment.gateway.model;
 
 import lombok.EqualsAndHashCode;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Currency;
 
+/**
+ * An amount of money held as a {@code long} count of the currency's minor units, e.g. pence for
+ * GBP, and the {@link IsoCurrency#getOrdinal() ordinal} of its currency.
+ * <p>
+ * Reading the minor amount or the currency code allocates nothing. The {@link BigDecimal} major
+ * amount is only built when it is asked for. Two amounts are equal when they are in the same
+ * currency and have the same minor amount, as when the major amount was stored at the currency's
+ * scale.
+ */
 @EqualsAndHashCode
 public class CashAmount {
-  private final Currency currency;
-  private final BigDecimal scaledMajorAmount;
-
-  public CashAmount(Currency currency, int unscaledMinorAmountValue){
-    this.currency = currency;
-    int currencyDecimalPlaces = currency.getDefaultFractionDigits();
-    //To prevent Non-Terminating Decimals by using RoundingMode
-    this.scaledMajorAmount = BigDecimal.valueOf(unscaledMinorAmountValue, currencyDecimalPlaces)
-        .setScale(currencyDecimalPlaces, RoundingMode.HALF_UP);
+  private final long minorAmount;
+  private final short currencyOrdinal;
+
+  public CashAmount(Currency currency, long minorAmount){
+    this(IsoCurrency.of(currency), minorAmount);
+  }
+
+  public CashAmount(IsoCurrency currency, long minorAmount){
+    this.minorAmount = minorAmount;
+    this.currencyOrdinal = (short) currency.getOrdinal();
   }
 
   public BigDecimal getMajorAmount(){
-    return scaledMajorAmount;
+    return BigDecimal.valueOf(minorAmount, getCurrency().getFractionDigits());
   }
 
-  public int getMinorAmount(){
-    return scaledMajorAmount.movePointRight(currency.getDefaultFractionDigits()).intValueExact();
+  public long getMinorAmount(){
+    return minorAmount;
   }
 
   public String getCurrencyIso(){
-    return currency.getCurrencyCode();
+    return getCurrency().getCode();
+  }
+
+  public IsoCurrency getCurrency(){
+    return IsoCurrency.ofOrdinal(currencyOrdinal);
   }
 
   @Override
   public String toString() {
-    return currency.getSymbol() + " " + getMajorAmount().toPlainString();
+    return getCurrency().getSymbol() + " " + getMajorAmount().toPlainString();
   }
-
 }
@@ -0,0 +1,122 @@
+package com.checkout.payment.gateway.model;
+
+import java.util.Comparator;
+import java.util.Currency;
+
+/**
+ * An ISO 4217 currency as the gateway uses it: its code, its number of minor unit digits and a
+ * small ordinal for compact references such as {@link CashAmount}'s.
+ * <p>
+ * Every currency the JDK knows is built into a table once, keyed by its three letter code read as
+ * a base 26 number. Looking a code up is three character reads and an array load, and a code that
+ * is not an ISO currency gives {@code null} rather than the {@link IllegalArgumentException}
+ * {@link Currency#getInstance(String)} throws, so a flood of junk codes costs no exceptions.
+ * The packed code is stable across JDKs, unlike the ordinal, so it is what gets persisted.
+ */
+public final class IsoCurrency {
+  private static final int CODE_RADIX = 26;
+  private static final IsoCurrency[] CURRENCIES_BY_PACKED_CODE = new IsoCurrency[CODE_RADIX * CODE_RADIX * CODE_RADIX];
+  private static final IsoCurrency[] CURRENCIES_BY_ORDINAL;
+
+  static {
+    Currency[] currencies = Currency.getAvailableCurrencies().stream()
+        .sorted(Comparator.comparing(Currency::getCurrencyCode))
+        .toArray(Currency[]::new);
+    CURRENCIES_BY_ORDINAL = new IsoCurrency[currencies.length];
+    for (int ordinal = 0; ordinal < currencies.length; ordinal++) {
+      IsoCurrency isoCurrency = new IsoCurrency(currencies[ordinal], (short) ordinal);
+      CURRENCIES_BY_ORDINAL[ordinal] = isoCurrency;
+      CURRENCIES_BY_PACKED_CODE[isoCurrency.packedCode] = isoCurrency;
+    }
+  }
+
+  private final Currency currency;
+  private final String code;
+  private final int fractionDigits;
+  private final short ordinal;
+  private final short packedCode;
+
+  private IsoCurrency(Currency currency, short ordinal) {
+    this.currency = currency;
+    this.code = currency.getCurrencyCode();
+    this.fractionDigits = currency.getDefaultFractionDigits();
+    this.ordinal = ordinal;
+    this.packedCode = (short) packCode(code);
+  }
+
+  /**
+   * @return the currency with the ISO code, or {@code null} if there is none
+   */
+  public static IsoCurrency lookup(CharSequence code) {
+    int packedCode = packCode(code);
+    return packedCode < 0 ? null : CURRENCIES_BY_PACKED_CODE[packedCode];
+  }
+
+  public static IsoCurrency of(Currency currency) {
+    return CURRENCIES_BY_PACKED_CODE[packCode(currency.getCurrencyCode())];
+  }
+
+  public static IsoCurrency ofOrdinal(int ordinal) {
+    return CURRENCIES_BY_ORDINAL[ordinal];
+  }
+
+  /**
+   * @return the currency with the packed code, or {@code null} if there is none
+   */
+  public static IsoCurrency ofPackedCode(int packedCode) {
+    return packedCode < 0 || packedCode >= CURRENCIES_BY_PACKED_CODE.length
+        ? null
+        : CURRENCIES_BY_PACKED_CODE[packedCode];
+  }
+
+  /**
+   * @return the number of currencies, one more than the largest ordinal
+   */
+  public static int count() {
+    return CURRENCIES_BY_ORDINAL.length;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * @return the number of minor unit digits, or -1 for pseudo-currencies such as gold (XAU)
+   */
+  public int getFractionDigits() {
+    return fractionDigits;
+  }
+
+  public int getOrdinal() {
+    return ordinal;
+  }
+
+  public int getPackedCode() {
+    return packedCode;
+  }
+
+  public String getSymbol() {
+    return currency.getSymbol();
+  }
+
+  @Override
+  public String toString() {
+    return code;
+  }
+
+  //-1 unless the code is three upper case letters
+  private static int packCode(CharSequence code) {
+    if (code == null || code.length() != 3) {
+      return -1;
+    }
+    int packedCode = 0;
+    for (int i = 0; i < 3; i++) {
+      int letter = code.charAt(i) - 'A';
+      if (letter < 0 || letter >= CODE_RADIX) {
+        return -1;
+      }
+      packedCode = packedCode * CODE_RADIX + letter;
+    }
+    return packedCode;
+  }
+}
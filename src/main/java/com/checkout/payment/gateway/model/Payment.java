@@ -4,6 +4,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+import java.time.Instant;
 import java.util.UUID;
 
 
@@ -17,8 +18,13 @@ public class Payment {
   private final PaymentStatus status;
   private final CashAmount cashAmount;
   private final PaymentMethodDetails paymentMethodDetails;
+  private Instant createdAt;
 
   public void setTransactionId(UUID transactionId){
     this.transactionId = transactionId;
   }
+
+  public void setCreatedAt(Instant createdAt){
+    this.createdAt = createdAt;
+  }
 }
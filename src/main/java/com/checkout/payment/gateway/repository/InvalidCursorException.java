@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.repository;
+
+/**
+ * The cursor of a {@link PaymentSearchQuery} was not the {@code nextCursor} of a page returned by
+ * the repository searched.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String cursor) {
+    super("Invalid cursor " + cursor);
+  }
+}
@@ -0,0 +1,13 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.List;
+
+/**
+ * A page of payments matching a {@link PaymentSearchQuery}, newest first.
+ *
+ * @param nextCursor passed as the {@link PaymentSearchQuery#getCursor() cursor} of the next query
+ * to get the following page, or {@code null} if this is the last page
+ */
+public record PaymentPage(List<Payment> payments, String nextCursor) {
+}
@@ -0,0 +1,26 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Filters of a payment search, all optional, and the page of results wanted. Payments are returned
+ * newest first, and the next page starts after the {@code cursor} returned with the previous one.
+ */
+@Getter
+@Builder
+public class PaymentSearchQuery {
+  private final PaymentStatus status;
+  private final IsoCurrency currency;
+  private final Integer cardNumberLastFour;
+  //Inclusive
+  private final Instant from;
+  //Exclusive
+  private final Instant to;
+  @Builder.Default
+  private final int limit = 50;
+  private final String cursor;
+}
@@ -3,9 +3,42 @@ package com.checkout.payment.gateway.repository;
 import com.checkout.payment.gateway.model.Payment;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface PaymentsRepository {
   Optional<Payment> getByTransactionId(UUID transactionId);
   Optional<Payment> getByIdempotencyKey(UUID idempotencyKey);
   Payment createPayment(Payment payment);
+
+  /**
+   * Creates the payment like {@link #createPayment(Payment)}, completing once it is persisted. A
+   * repository that persists writes on its own thread does not block the caller meanwhile.
+   */
+  default CompletableFuture<Payment> createPaymentAsync(Payment payment) {
+    return CompletableFuture.completedFuture(createPayment(payment));
+  }
+
+  /**
+   * Finds the payments matching every filter of the query, newest first, resuming after the
+   * query's cursor.
+   *
+   * @throws InvalidCursorException if the cursor was not returned by this repository
+   */
+  PaymentPage findPayments(PaymentSearchQuery query);
+
+  /**
+   * Atomically reserves the idempotency key for the caller.
+   * <p>
+   * An empty result means the caller now owns the key and must either
+   * {@link #createPayment(Payment) create} the payment or
+   * {@link #releaseIdempotencyKey(UUID, Throwable) release} the key. Otherwise the payment already
+   * owning the key is returned, completed or still in flight.
+   */
+  Optional<CompletableFuture<Payment>> reserveIdempotencyKey(UUID idempotencyKey);
+
+  /**
+   * Releases a key reserved by {@link #reserveIdempotencyKey(UUID)} without creating a payment,
+   * failing any duplicate waiting on it with the given cause.
+   */
+  void releaseIdempotencyKey(UUID idempotencyKey, Throwable cause);
 }
@@ -0,0 +1,125 @@
+package com.checkout.payment.gateway.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit adapted to the observed latency by additive increase, multiplicative
+ * decrease (AIMD), as TCP adapts its congestion window.
+ * <ul>
+ *     <li>A call completing within {@code slowCallThreshold} while the limit is at least half used
+ *     raises the limit by {@code 1 / limit}, so by about one per limit's worth of calls.</li>
+ *     <li>A slower call, or a dropped one such as a timeout, multiplies the limit by
+ *     {@code backoffRatio}. Only calls started after the last decrease lower it again, so a burst
+ *     of failures already in flight backs off once rather than once per failure.</li>
+ * </ul>
+ * The limit stays between {@code minLimit} and {@code maxLimit}. Acquiring and releasing are
+ * lock-free.
+ */
+public final class AimdConcurrencyLimit {
+
+  public enum Outcome {
+    /** The call completed, its latency adjusts the limit. */
+    SUCCESS,
+    /** The call failed in a way that signals overload, such as a timeout, lowering the limit. */
+    DROPPED,
+    /** The call failed for its own reasons, such as a bad request, leaving the limit as it is. */
+    IGNORED
+  }
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long slowCallThresholdNanos;
+  private final double backoffRatio;
+  private final LongSupplier nanoClock;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  //The limit is a double held as its raw long bits, so it grows by fractions lock-free
+  private final AtomicLong limitBits;
+  private final AtomicLong lastDecreaseNanos;
+
+  public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration slowCallThreshold,
+      double backoffRatio) {
+    this(initialLimit, minLimit, maxLimit, slowCallThreshold, backoffRatio, System::nanoTime);
+  }
+
+  AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration slowCallThreshold,
+      double backoffRatio, LongSupplier nanoClock) {
+    if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit, minLimit="
+          + minLimit + ", initialLimit=" + initialLimit + ", maxLimit=" + maxLimit);
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be between 0 and 1 exclusive, backoffRatio=" + backoffRatio);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.nanoClock = nanoClock;
+    this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+    this.lastDecreaseNanos = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  /**
+   * @return false if the limit is reached and the call must not be made
+   */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= getLimit()) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * @param startNanos the {@link #nanoTime()} the call was started at after acquiring
+   */
+  public void release(long startNanos, Outcome outcome) {
+    int inFlightBefore = inFlight.getAndDecrement();
+    switch (outcome) {
+      case SUCCESS -> {
+        if (nanoClock.getAsLong() - startNanos > slowCallThresholdNanos) {
+          decrease(startNanos);
+        } else if (inFlightBefore * 2 >= getLimit()) {
+          increase();
+        }
+      }
+      case DROPPED -> decrease(startNanos);
+      case IGNORED -> {
+      }
+    }
+  }
+
+  public long nanoTime() {
+    return nanoClock.getAsLong();
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limitBits.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void increase() {
+    limitBits.getAndUpdate(bits -> {
+      double limit = Double.longBitsToDouble(bits);
+      return Double.doubleToRawLongBits(Math.min(maxLimit, limit + 1 / limit));
+    });
+  }
+
+  private void decrease(long startNanos) {
+    long lastDecrease = lastDecreaseNanos.get();
+    if (startNanos - lastDecrease < 0 || !lastDecreaseNanos.compareAndSet(lastDecrease, nanoClock.getAsLong())) {
+      return;
+    }
+    limitBits.getAndUpdate(bits ->
+        Double.doubleToRawLongBits(Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio)));
+  }
+}
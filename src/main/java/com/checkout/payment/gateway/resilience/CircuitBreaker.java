@@ -0,0 +1,233 @@
+package com.checkout.payment.gateway.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker over a count based sliding window of the last {@code slidingWindowSize} calls.
+ * <ul>
+ *     <li>{@link State#CLOSED}: calls are permitted. Once the window holds at least
+ *     {@code minimumCalls}, a failure rate or slow call rate at or above its threshold opens the
+ *     circuit.</li>
+ *     <li>{@link State#OPEN}: calls are refused at once for {@code waitInOpenState}, after which the
+ *     circuit is half open.</li>
+ *     <li>{@link State#HALF_OPEN}: only {@code permittedCallsInHalfOpenState} probe calls are
+ *     permitted. Once they have all completed the circuit closes with an empty window, or opens again
+ *     if their failure or slow call rate reaches the threshold.</li>
+ * </ul>
+ * Each permission is tagged with the generation of the state it was granted in, and a call is only
+ * counted if it completes in that same generation: one permitted before a transition belonged to a
+ * window that is gone. Checking for permission while closed only reads a volatile field; recording
+ * a call and the transitions take a short lock.
+ */
+public final class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  public enum Outcome {
+    SUCCESS,
+    FAILURE,
+    /** The call failed for its own reasons, such as a bad request, and is not counted. */
+    IGNORED
+  }
+
+  /**
+   * The window as it was at one point in time.
+   */
+  public record Snapshot(State state, int bufferedCalls, int failedCalls, int slowCalls) {
+  }
+
+  /** Returned by {@link #tryAcquirePermission()} when the call must not be made. */
+  public static final long NOT_PERMITTED = -1;
+
+  private static final State[] STATES = State.values();
+  private static final byte FAILED = 1;
+  private static final byte SLOW = 2;
+
+  private final int minimumCalls;
+  private final int failureRateThreshold;
+  private final int slowCallRateThreshold;
+  private final long slowCallDurationNanos;
+  private final long waitInOpenStateNanos;
+  private final int permittedCallsInHalfOpenState;
+  private final LongSupplier nanoClock;
+  private final ReentrantLock lock = new ReentrantLock();
+  //The outcome of each call in the window as FAILED and SLOW bits, oldest overwritten first
+  private final byte[] window;
+  //The state's ordinal in the low two bits, the number of transitions so far above them
+  private volatile long generation = State.CLOSED.ordinal();
+  private State state = State.CLOSED;
+  private int nextCall;
+  private int bufferedCalls;
+  private int failedCalls;
+  private int slowCalls;
+  private long openedAtNanos;
+  private int halfOpenPermittedCalls;
+
+  /**
+   * @param failureRateThreshold percentage of failed calls that opens the circuit
+   * @param slowCallRateThreshold percentage of calls slower than {@code slowCallDuration} that opens
+   *                              the circuit
+   */
+  public CircuitBreaker(int slidingWindowSize, int minimumCalls, int failureRateThreshold,
+      int slowCallRateThreshold, Duration slowCallDuration, Duration waitInOpenState,
+      int permittedCallsInHalfOpenState) {
+    this(slidingWindowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold, slowCallDuration,
+        waitInOpenState, permittedCallsInHalfOpenState, System::nanoTime);
+  }
+
+  CircuitBreaker(int slidingWindowSize, int minimumCalls, int failureRateThreshold,
+      int slowCallRateThreshold, Duration slowCallDuration, Duration waitInOpenState,
+      int permittedCallsInHalfOpenState, LongSupplier nanoClock) {
+    if (minimumCalls < 1 || minimumCalls > slidingWindowSize) {
+      throw new IllegalArgumentException("minimumCalls must be between 1 and slidingWindowSize, minimumCalls="
+          + minimumCalls + ", slidingWindowSize=" + slidingWindowSize);
+    }
+    if (failureRateThreshold < 1 || failureRateThreshold > 100 || slowCallRateThreshold < 1 || slowCallRateThreshold > 100) {
+      throw new IllegalArgumentException("Rate thresholds must be percentages between 1 and 100, failureRateThreshold="
+          + failureRateThreshold + ", slowCallRateThreshold=" + slowCallRateThreshold);
+    }
+    if (permittedCallsInHalfOpenState < 1 || permittedCallsInHalfOpenState > slidingWindowSize) {
+      throw new IllegalArgumentException("permittedCallsInHalfOpenState must be between 1 and slidingWindowSize, "
+          + "permittedCallsInHalfOpenState=" + permittedCallsInHalfOpenState);
+    }
+    this.window = new byte[slidingWindowSize];
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallDurationNanos = slowCallDuration.toNanos();
+    this.waitInOpenStateNanos = waitInOpenState.toNanos();
+    this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @return the permission to hand back to {@link #onComplete(long, long, Outcome)}, or
+   * {@link #NOT_PERMITTED} if the call must not be made as the circuit is open, or half open with
+   * all its probe calls made
+   */
+  public long tryAcquirePermission() {
+    long generation = this.generation;
+    if (stateOf(generation) == State.CLOSED) {
+      return generation;
+    }
+    lock.lock();
+    try {
+      if (state == State.OPEN) {
+        if (nanoClock.getAsLong() - openedAtNanos < waitInOpenStateNanos) {
+          return NOT_PERMITTED;
+        }
+        transitionTo(State.HALF_OPEN);
+      }
+      if (state == State.HALF_OPEN) {
+        if (halfOpenPermittedCalls == permittedCallsInHalfOpenState) {
+          return NOT_PERMITTED;
+        }
+        halfOpenPermittedCalls++;
+      }
+      return this.generation;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param permission the permission {@link #tryAcquirePermission()} granted the call
+   * @param startNanos the {@link #nanoTime()} the permitted call was started at
+   */
+  public void onComplete(long permission, long startNanos, Outcome outcome) {
+    long durationNanos = nanoClock.getAsLong() - startNanos;
+    lock.lock();
+    try {
+      if (permission != generation) {
+        //Permitted before the last transition, the window it belonged to is gone
+        return;
+      }
+      switch (state) {
+        case CLOSED -> {
+          if (outcome != Outcome.IGNORED) {
+            record(outcome, durationNanos);
+            if (bufferedCalls >= minimumCalls && rateThresholdReached()) {
+              transitionTo(State.OPEN);
+            }
+          }
+        }
+        case HALF_OPEN -> {
+          if (outcome == Outcome.IGNORED) {
+            //Frees the probe for another call
+            halfOpenPermittedCalls--;
+          } else {
+            record(outcome, durationNanos);
+            if (bufferedCalls >= permittedCallsInHalfOpenState) {
+              transitionTo(rateThresholdReached() ? State.OPEN : State.CLOSED);
+            }
+          }
+        }
+        case OPEN -> {
+          //No call is permitted while open
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long nanoTime() {
+    return nanoClock.getAsLong();
+  }
+
+  public State getState() {
+    return stateOf(generation);
+  }
+
+  public Snapshot snapshot() {
+    lock.lock();
+    try {
+      return new Snapshot(state, bufferedCalls, failedCalls, slowCalls);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void record(Outcome outcome, long durationNanos) {
+    byte call = (byte) ((outcome == Outcome.FAILURE ? FAILED : 0) | (durationNanos > slowCallDurationNanos ? SLOW : 0));
+    if (bufferedCalls == window.length) {
+      byte evicted = window[nextCall];
+      failedCalls -= evicted & FAILED;
+      slowCalls -= (evicted & SLOW) >> 1;
+    } else {
+      bufferedCalls++;
+    }
+    window[nextCall] = call;
+    nextCall = (nextCall + 1) % window.length;
+    failedCalls += call & FAILED;
+    slowCalls += (call & SLOW) >> 1;
+  }
+
+  private boolean rateThresholdReached() {
+    return failedCalls * 100 >= failureRateThreshold * bufferedCalls
+        || slowCalls * 100 >= slowCallRateThreshold * bufferedCalls;
+  }
+
+  private void transitionTo(State newState) {
+    nextCall = 0;
+    bufferedCalls = 0;
+    failedCalls = 0;
+    slowCalls = 0;
+    halfOpenPermittedCalls = 0;
+    if (newState == State.OPEN) {
+      openedAtNanos = nanoClock.getAsLong();
+    }
+    state = newState;
+    generation = ((generation >>> 2) + 1) << 2 | newState.ordinal();
+  }
+
+  private static State stateOf(long generation) {
+    return STATES[(int) (generation & 3)];
+  }
+}
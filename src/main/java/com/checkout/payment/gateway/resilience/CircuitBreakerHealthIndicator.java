@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.resilience;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Shows the state and window of a {@link CircuitBreaker} on {@code /health}. An open circuit is the
+ * acquirer bank being down rather than the gateway, which still serves reads, so the gateway stays
+ * {@code UP} and the state is in the details.
+ */
+public class CircuitBreakerHealthIndicator implements HealthIndicator {
+  private final CircuitBreaker circuitBreaker;
+
+  public CircuitBreakerHealthIndicator(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  @Override
+  public Health health() {
+    CircuitBreaker.Snapshot snapshot = circuitBreaker.snapshot();
+    return Health.up()
+        .withDetail("state", snapshot.state())
+        .withDetail("bufferedCalls", snapshot.bufferedCalls())
+        .withDetail("failedCalls", snapshot.failedCalls())
+        .withDetail("slowCalls", snapshot.slowCalls())
+        .build();
+  }
+}
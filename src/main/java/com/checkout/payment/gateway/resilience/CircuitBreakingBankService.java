@@ -0,0 +1,89 @@
+package com.checkout.payment.gateway.resilience;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
+import com.checkout.payment.gateway.service.exception.BankUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Guards the acquirer bank with a {@link CircuitBreaker}, so payments fail at once with a
+ * {@link BankUnavailableException} while the bank is down rather than each waiting for a timeout.
+ * <p>
+ * A {@link BankServiceException}, a 5xx or timeout, is a failure. Other failures, such as the bank
+ * rejecting the card or the concurrency limit being reached, say nothing of the bank's health and
+ * are not counted.
+ */
+public class CircuitBreakingBankService implements BankService {
+  static final String REJECTIONS = "payments.bank.circuit-breaker.rejections";
+
+  private final BankService bankService;
+  private final CircuitBreaker circuitBreaker;
+  private final Counter rejections;
+
+  public CircuitBreakingBankService(BankService bankService, CircuitBreaker circuitBreaker,
+      MeterRegistry meterRegistry) {
+    this.bankService = bankService;
+    this.circuitBreaker = circuitBreaker;
+    this.rejections = Counter.builder(REJECTIONS)
+        .description("Payments rejected as the acquirer bank circuit was open")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear,
+      CashAmount cashAmount, int cvv) {
+    long permission = acquirePermission();
+    long startNanos = circuitBreaker.nanoTime();
+    try {
+      PaymentStatus paymentStatus = bankService.authorisePayment(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+      circuitBreaker.onComplete(permission, startNanos, CircuitBreaker.Outcome.SUCCESS);
+      return paymentStatus;
+    } catch (RuntimeException e) {
+      circuitBreaker.onComplete(permission, startNanos, outcomeOf(e));
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth,
+      int expiryYear, CashAmount cashAmount, int cvv) {
+    long permission;
+    try {
+      permission = acquirePermission();
+    } catch (BankUnavailableException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    long startNanos = circuitBreaker.nanoTime();
+    CompletableFuture<PaymentStatus> authorisation;
+    try {
+      authorisation = bankService.authorisePaymentAsync(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+    } catch (RuntimeException e) {
+      circuitBreaker.onComplete(permission, startNanos, outcomeOf(e));
+      throw e;
+    }
+    return authorisation.whenComplete((paymentStatus, e) -> circuitBreaker.onComplete(permission, startNanos,
+        e == null ? CircuitBreaker.Outcome.SUCCESS : outcomeOf(e)));
+  }
+
+  private long acquirePermission() {
+    long permission = circuitBreaker.tryAcquirePermission();
+    if (permission == CircuitBreaker.NOT_PERMITTED) {
+      rejections.increment();
+      throw new BankUnavailableException();
+    }
+    return permission;
+  }
+
+  private static CircuitBreaker.Outcome outcomeOf(Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof BankServiceException
+        ? CircuitBreaker.Outcome.FAILURE
+        : CircuitBreaker.Outcome.IGNORED;
+  }
+}
@@ -0,0 +1,95 @@
+package com.checkout.payment.gateway.resilience;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankOverloadedException;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounds the payments in flight with the acquirer bank by an {@link AimdConcurrencyLimit}, so a
+ * slow bank backs payments off rather than queueing them all on the bank executor. A payment over
+ * the limit fails at once with a {@link BankOverloadedException}.
+ * <p>
+ * A {@link BankServiceException}, a 5xx or timeout, lowers the limit. Other failures, such as the
+ * bank rejecting the card, leave it as it is.
+ */
+public class ConcurrencyLimitedBankService implements BankService {
+  static final String LIMIT = "payments.bank.concurrency.limit";
+  static final String IN_FLIGHT = "payments.bank.concurrency.in-flight";
+  static final String REJECTIONS = "payments.bank.concurrency.rejections";
+
+  private final BankService bankService;
+  private final AimdConcurrencyLimit concurrencyLimit;
+  private final Counter rejections;
+
+  public ConcurrencyLimitedBankService(BankService bankService, AimdConcurrencyLimit concurrencyLimit,
+      MeterRegistry meterRegistry) {
+    this.bankService = bankService;
+    this.concurrencyLimit = concurrencyLimit;
+    Gauge.builder(LIMIT, concurrencyLimit, AimdConcurrencyLimit::getLimit)
+        .description("Payments allowed in flight with the acquirer bank")
+        .register(meterRegistry);
+    Gauge.builder(IN_FLIGHT, concurrencyLimit, AimdConcurrencyLimit::getInFlight)
+        .description("Payments in flight with the acquirer bank")
+        .register(meterRegistry);
+    this.rejections = Counter.builder(REJECTIONS)
+        .description("Payments rejected as the acquirer bank concurrency limit was reached")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear,
+      CashAmount cashAmount, int cvv) {
+    acquire();
+    long startNanos = concurrencyLimit.nanoTime();
+    try {
+      PaymentStatus paymentStatus = bankService.authorisePayment(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+      concurrencyLimit.release(startNanos, AimdConcurrencyLimit.Outcome.SUCCESS);
+      return paymentStatus;
+    } catch (RuntimeException e) {
+      concurrencyLimit.release(startNanos, outcomeOf(e));
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth,
+      int expiryYear, CashAmount cashAmount, int cvv) {
+    try {
+      acquire();
+    } catch (BankOverloadedException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    long startNanos = concurrencyLimit.nanoTime();
+    CompletableFuture<PaymentStatus> authorisation;
+    try {
+      authorisation = bankService.authorisePaymentAsync(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+    } catch (RuntimeException e) {
+      concurrencyLimit.release(startNanos, outcomeOf(e));
+      throw e;
+    }
+    return authorisation.whenComplete((paymentStatus, e) -> concurrencyLimit.release(startNanos,
+        e == null ? AimdConcurrencyLimit.Outcome.SUCCESS : outcomeOf(e)));
+  }
+
+  private void acquire() {
+    if (!concurrencyLimit.tryAcquire()) {
+      rejections.increment();
+      throw new BankOverloadedException();
+    }
+  }
+
+  private static AimdConcurrencyLimit.Outcome outcomeOf(Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof BankServiceException
+        ? AimdConcurrencyLimit.Outcome.DROPPED
+        : AimdConcurrencyLimit.Outcome.IGNORED;
+  }
+}
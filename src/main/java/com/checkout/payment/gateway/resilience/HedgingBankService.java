@@ -0,0 +1,131 @@
+package com.checkout.payment.gateway.resilience;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cuts the acquirer bank's tail latency by hedging: once a call has taken longer than a
+ * {@link LatencyPercentile} of recent calls, a second request for the payment is sent and whichever
+ * answers first is used.
+ * <p>
+ * Both requests carry the payment's idempotency key, so the acquirer authorises it at most once.
+ * At the p95, about one call in twenty is hedged while the bank behaves, so the extra load stays
+ * small. A failed request only fails the payment once the other has failed too.
+ * <p>
+ * Wrapped around a {@link ConcurrencyLimitedBankService}, each request takes a slot of its own, so
+ * hedges never push the calls in flight past the limit: a hedge the limit refuses with a
+ * {@link BankOverloadedException} is skipped, and the payment waits for its first request.
+ */
+public class HedgingBankService implements BankService {
+  static final String HEDGES = "payments.bank.hedging.hedges";
+  static final String DELAY = "payments.bank.hedging.delay";
+
+  private final BankService bankService;
+  private final LatencyPercentile latencyPercentile;
+  private final Counter hedges;
+
+  public HedgingBankService(BankService bankService, LatencyPercentile latencyPercentile,
+      MeterRegistry meterRegistry) {
+    this.bankService = bankService;
+    this.latencyPercentile = latencyPercentile;
+    this.hedges = Counter.builder(HEDGES)
+        .description("Second requests sent to the acquirer bank for a slow payment")
+        .register(meterRegistry);
+    Gauge.builder(DELAY, latencyPercentile, HedgingBankService::delaySeconds)
+        .description("How long a bank call runs before it is hedged")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear,
+      CashAmount cashAmount, int cvv) {
+    try {
+      return authorisePaymentAsync(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth,
+      int expiryYear, CashAmount cashAmount, int cvv) {
+    HedgedAuthorisation authorisation = new HedgedAuthorisation(() -> bankService.authorisePaymentAsync(
+        idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv));
+    authorisation.send();
+    long hedgeDelayNanos = latencyPercentile.getNanos();
+    if (hedgeDelayNanos != LatencyPercentile.UNKNOWN && !authorisation.result.isDone()) {
+      CompletableFuture.delayedExecutor(hedgeDelayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+        if (authorisation.tryHedge() && !isRefused(authorisation.send())) {
+          hedges.increment();
+        }
+      });
+    }
+    return authorisation.result;
+  }
+
+  private static boolean isRefused(CompletableFuture<PaymentStatus> response) {
+    return response.isCompletedExceptionally() && response.exceptionNow() instanceof BankOverloadedException;
+  }
+
+  private static double delaySeconds(LatencyPercentile latencyPercentile) {
+    long nanos = latencyPercentile.getNanos();
+    return nanos == LatencyPercentile.UNKNOWN ? Double.NaN : nanos / 1e9;
+  }
+
+  private final class HedgedAuthorisation {
+    private final CompletableFuture<PaymentStatus> result = new CompletableFuture<>();
+    private final Supplier<CompletableFuture<PaymentStatus>> request;
+    //Requests sent and not yet failed
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private HedgedAuthorisation(Supplier<CompletableFuture<PaymentStatus>> request) {
+      this.request = request;
+    }
+
+    private CompletableFuture<PaymentStatus> send() {
+      long startNanos = System.nanoTime();
+      CompletableFuture<PaymentStatus> response;
+      try {
+        response = request.get();
+      } catch (RuntimeException e) {
+        response = CompletableFuture.failedFuture(e);
+      }
+      response.whenComplete((paymentStatus, e) -> {
+        if (e == null) {
+          latencyPercentile.record(System.nanoTime() - startNanos);
+          result.complete(paymentStatus);
+        } else if (pending.decrementAndGet() == 0) {
+          result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        }
+      });
+      return response;
+    }
+
+    //False once the payment is answered or every request has failed
+    private boolean tryHedge() {
+      int requests;
+      do {
+        requests = pending.get();
+        if (requests == 0 || result.isDone()) {
+          return false;
+        }
+      } while (!pending.compareAndSet(requests, requests + 1));
+      return true;
+    }
+  }
+}
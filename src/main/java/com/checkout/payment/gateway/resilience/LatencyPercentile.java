@@ -0,0 +1,62 @@
+package com.checkout.payment.gateway.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A percentile of the latest call latencies.
+ * <p>
+ * Latencies are kept in a ring of the last {@code windowSize}. Recording one is a counter increment
+ * and a store; every eighth of the window, the thread recording sorts a copy of the ring and
+ * publishes the percentile, so reading it is a volatile read.
+ */
+public class LatencyPercentile {
+  public static final long UNKNOWN = -1;
+
+  private final double percentile;
+  private final AtomicLongArray latenciesNanos;
+  private final int recomputeEvery;
+  private final AtomicLong recorded = new AtomicLong();
+  private volatile long percentileNanos = UNKNOWN;
+
+  /**
+   * @param percentile between 0 exclusive and 100 inclusive, e.g. 95 for the p95
+   */
+  public LatencyPercentile(double percentile, int windowSize) {
+    if (!(percentile > 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("percentile must be in (0, 100]");
+    }
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be at least 1");
+    }
+    this.percentile = percentile;
+    this.latenciesNanos = new AtomicLongArray(windowSize);
+    this.recomputeEvery = Math.max(1, windowSize / 8);
+  }
+
+  public void record(long latencyNanos) {
+    long count = recorded.incrementAndGet();
+    latenciesNanos.setOpaque((int) ((count - 1) % latenciesNanos.length()), latencyNanos);
+    if (count % recomputeEvery == 0) {
+      recompute((int) Math.min(count, latenciesNanos.length()));
+    }
+  }
+
+  /**
+   * @return the percentile of the latencies in the window, or {@link #UNKNOWN} until an eighth of
+   * the window has been recorded
+   */
+  public long getNanos() {
+    return percentileNanos;
+  }
+
+  private void recompute(int samples) {
+    long[] sorted = new long[samples];
+    for (int i = 0; i < samples; i++) {
+      sorted[i] = latenciesNanos.getOpaque(i);
+    }
+    Arrays.sort(sorted);
+    percentileNanos = sorted[(int) Math.ceil(percentile / 100 * samples) - 1];
+  }
+}
@@ -0,0 +1,134 @@
+package com.checkout.payment.gateway.screening;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The BIN (issuer identification number) ranges of the card schemes the gateway routes to the
+ * acquirer.
+ * <p>
+ * Every range is widened to {@value #PREFIX_DIGITS} digit card prefixes and held as sorted,
+ * non-overlapping intervals in parallel primitive arrays, so finding the scheme of a card is a
+ * binary search over {@code int}s with no allocation.
+ * <p>
+ * Loaded from lines of {@code low,high,scheme}, where {@code low} and {@code high} are BIN
+ * prefixes of up to {@value #PREFIX_DIGITS} digits, {@code high} inclusive, e.g.
+ * {@code 2221,2720,MASTERCARD}. Blank lines and lines starting with {@code #} are skipped.
+ */
+public final class BinRangeTable {
+  static final int PREFIX_DIGITS = 8;
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final int[] lows;
+  private final int[] highs;
+  private final String[] schemes;
+
+  private BinRangeTable(int[] lows, int[] highs, String[] schemes) {
+    this.lows = lows;
+    this.highs = highs;
+    this.schemes = schemes;
+  }
+
+  /**
+   * @throws IllegalArgumentException naming the line of a malformed or overlapping range
+   */
+  public static BinRangeTable load(InputStream ranges) throws IOException {
+    List<Range> parsedRanges = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(ranges, StandardCharsets.UTF_8));
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.strip();
+      if (!line.isEmpty() && line.charAt(0) != '#') {
+        parsedRanges.add(parseRange(line, lineNumber));
+      }
+    }
+    return of(parsedRanges);
+  }
+
+  private static BinRangeTable of(List<Range> ranges) {
+    ranges.sort(Comparator.comparingInt(Range::low));
+    int[] lows = new int[ranges.size()];
+    int[] highs = new int[ranges.size()];
+    String[] schemes = new String[ranges.size()];
+    for (int i = 0; i < ranges.size(); i++) {
+      Range range = ranges.get(i);
+      if (i > 0 && range.low() <= highs[i - 1]) {
+        throw new IllegalArgumentException("BIN range on line " + range.lineNumber() + " overlaps another range");
+      }
+      lows[i] = range.low();
+      highs[i] = range.high();
+      schemes[i] = range.scheme();
+    }
+    return new BinRangeTable(lows, highs, schemes);
+  }
+
+  private static Range parseRange(String line, int lineNumber) {
+    String[] fields = line.split(",");
+    if (fields.length != 3) {
+      throw new IllegalArgumentException("Expected low,high,scheme on line " + lineNumber + " of the BIN ranges");
+    }
+    int low = parsePrefix(fields[0].strip(), '0', lineNumber);
+    int high = parsePrefix(fields[1].strip(), '9', lineNumber);
+    String scheme = fields[2].strip();
+    if (low > high || scheme.isEmpty()) {
+      throw new IllegalArgumentException("Invalid BIN range on line " + lineNumber);
+    }
+    return new Range(low, high, scheme, lineNumber);
+  }
+
+  //Pads the prefix to PREFIX_DIGITS with the digit that makes it the low or high end of the range
+  private static int parsePrefix(String prefix, char padding, int lineNumber) {
+    if (prefix.isEmpty() || prefix.length() > PREFIX_DIGITS || !prefix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+      throw new IllegalArgumentException("BIN prefix on line " + lineNumber + " must be 1 to "
+          + PREFIX_DIGITS + " digits");
+    }
+    return Integer.parseInt(prefix + String.valueOf(padding).repeat(PREFIX_DIGITS - prefix.length()));
+  }
+
+  /**
+   * @return the scheme whose range holds the card number, null if the gateway does not route it
+   */
+  public String schemeOf(long cardNumber) {
+    if (cardNumber < POWERS_OF_TEN[PREFIX_DIGITS - 1]) {
+      return null;
+    }
+    int prefix = (int) (cardNumber / POWERS_OF_TEN[digits(cardNumber) - PREFIX_DIGITS]);
+    int index = Arrays.binarySearch(lows, prefix);
+    if (index < 0) {
+      //The range starting below the prefix, if any
+      index = -index - 2;
+    }
+    return index >= 0 && prefix <= highs[index] ? schemes[index] : null;
+  }
+
+  public int size() {
+    return lows.length;
+  }
+
+  private static int digits(long value) {
+    int digits = 1;
+    while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+      digits++;
+    }
+    return digits;
+  }
+
+  private record Range(int low, int high, String scheme, int lineNumber) {
+  }
+}
@@ -0,0 +1,70 @@
+package com.checkout.payment.gateway.screening;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.RejectedCardException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Screens the card before handing the payment to the acquirer bank. A card number failing the
+ * {@link LuhnCheck} or outside the routed {@link BinRangeTable BIN ranges} would only come back
+ * from the bank as a bad request, so it is rejected here with a {@link RejectedCardException} and
+ * the round trip is saved. Saved calls are counted in {@value #SAVED_BANK_CALLS} by reason.
+ */
+@Slf4j
+public class CardScreeningBankService implements BankService {
+  static final String SAVED_BANK_CALLS = "payments.card-screening.saved-bank-calls";
+
+  private final BankService bankService;
+  private final BinRangeTable binRanges;
+  private final Counter invalidCardNumbers;
+  private final Counter unsupportedCardSchemes;
+
+  public CardScreeningBankService(BankService bankService, BinRangeTable binRanges, MeterRegistry meterRegistry) {
+    this.bankService = bankService;
+    this.binRanges = binRanges;
+    this.invalidCardNumbers = savedBankCalls(RejectedCardException.Reason.INVALID_CARD_NUMBER, meterRegistry);
+    this.unsupportedCardSchemes = savedBankCalls(RejectedCardException.Reason.UNSUPPORTED_CARD_SCHEME, meterRegistry);
+  }
+
+  private static Counter savedBankCalls(RejectedCardException.Reason reason, MeterRegistry meterRegistry) {
+    return Counter.builder(SAVED_BANK_CALLS)
+        .description("Acquirer bank calls saved by rejecting the card before authorisation")
+        .tag("reason", reason.getCode())
+        .register(meterRegistry);
+  }
+
+  @Override
+  public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear,
+      CashAmount cashAmount, int cvv) {
+    screen(cardNumber);
+    return bankService.authorisePayment(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+  }
+
+  @Override
+  public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth,
+      int expiryYear, CashAmount cashAmount, int cvv) {
+    try {
+      screen(cardNumber);
+    } catch (RejectedCardException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return bankService.authorisePaymentAsync(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv);
+  }
+
+  private void screen(long cardNumber) {
+    if (!LuhnCheck.isValid(cardNumber)) {
+      invalidCardNumbers.increment();
+      throw new RejectedCardException(RejectedCardException.Reason.INVALID_CARD_NUMBER);
+    }
+    if (binRanges.schemeOf(cardNumber) == null) {
+      unsupportedCardSchemes.increment();
+      throw new RejectedCardException(RejectedCardException.Reason.UNSUPPORTED_CARD_SCHEME);
+    }
+  }
+}
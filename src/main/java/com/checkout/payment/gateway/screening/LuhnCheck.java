@@ -0,0 +1,26 @@
+package com.checkout.payment.gateway.screening;
+
+/**
+ * The Luhn (mod 10) check digit of a card number, computed on the {@code long} the request was
+ * parsed into. Leading zeros do not change the sum, so they need no string to keep them.
+ */
+public final class LuhnCheck {
+  //DOUBLED[d] is the digit sum of 2 * d
+  private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+  private LuhnCheck() {
+  }
+
+  public static boolean isValid(long cardNumber) {
+    if (cardNumber <= 0) {
+      return false;
+    }
+    int sum = 0;
+    //Two digits a step: the check digit end is kept as is, the one before it is doubled
+    for (long remaining = cardNumber; remaining != 0; remaining /= 100) {
+      int lastTwoDigits = (int) (remaining % 100);
+      sum += lastTwoDigits % 10 + DOUBLED[lastTwoDigits / 10];
+    }
+    return sum % 10 == 0;
+  }
+}
@@ -2,8 +2,20 @@ package com.checkout.payment.gateway.service;
 
 import com.checkout.payment.gateway.model.CashAmount;
 import com.checkout.payment.gateway.model.PaymentStatus;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface BankService {
-  PaymentStatus authorisePayment(long cardNumber, int expiryMonth, int expiryYear, CashAmount cashAmount, int cvv);
+  /**
+   * @param idempotencyKey the merchant's key for the payment, sent to the acquirer with every
+   * request for it, so a retried or hedged request cannot authorise the payment twice
+   */
+  PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear, CashAmount cashAmount, int cvv);
+
+  /**
+   * Authorises the payment without blocking the caller. Failures complete the future exceptionally
+   * with the exceptions {@link #authorisePayment} throws.
+   */
+  CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear, CashAmount cashAmount, int cvv);
 
 }
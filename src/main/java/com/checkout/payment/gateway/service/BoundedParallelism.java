@@ -0,0 +1,94 @@
+package com.checkout.payment.gateway.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs an asynchronous task per item with at most {@code parallelism} of them in flight.
+ * <p>
+ * Each of the {@code parallelism} lanes starts the next pending item once its current one
+ * completes, so no thread waits for a permit. A task completing on the caller's thread, like a
+ * duplicate answered from the repository, lets the lane move on without growing the stack.
+ */
+public final class BoundedParallelism {
+
+  private BoundedParallelism() {
+  }
+
+  /**
+   * @return the results in the order of {@code items}, or the first failure of a task once every
+   * task has completed
+   */
+  public static <T, R> CompletableFuture<List<R>> map(List<T> items, int parallelism,
+      Function<T, CompletableFuture<R>> task) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    Dispatch<T, R> dispatch = new Dispatch<>(items, task);
+    if (items.isEmpty()) {
+      dispatch.result.complete(List.of());
+    }
+    for (int lane = 0; lane < Math.min(parallelism, items.size()); lane++) {
+      dispatch.runLane();
+    }
+    return dispatch.result;
+  }
+
+  private static final class Dispatch<T, R> {
+    private final List<T> items;
+    private final Function<T, CompletableFuture<R>> task;
+    private final Object[] results;
+    private final AtomicInteger nextItem = new AtomicInteger();
+    private final AtomicInteger pendingItems;
+    private final CompletableFuture<List<R>> result = new CompletableFuture<>();
+    private volatile Throwable failure;
+
+    private Dispatch(List<T> items, Function<T, CompletableFuture<R>> task) {
+      this.items = items;
+      this.task = task;
+      this.results = new Object[items.size()];
+      this.pendingItems = new AtomicInteger(items.size());
+    }
+
+    private void runLane() {
+      for (int index = nextItem.getAndIncrement(); index < items.size(); index = nextItem.getAndIncrement()) {
+        int item = index;
+        CompletableFuture<R> itemResult = start(item);
+        if (!itemResult.isDone()) {
+          itemResult.whenComplete((value, e) -> {
+            complete(item, value, e);
+            runLane();
+          });
+          return;
+        }
+        itemResult.whenComplete((value, e) -> complete(item, value, e));
+      }
+    }
+
+    private CompletableFuture<R> start(int index) {
+      try {
+        return task.apply(items.get(index));
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(int index, R value, Throwable e) {
+      if (e != null && failure == null) {
+        failure = e;
+      }
+      results[index] = value;
+      if (pendingItems.decrementAndGet() == 0) {
+        if (failure != null) {
+          result.completeExceptionally(failure);
+        } else {
+          result.complete((List<R>) Arrays.asList(results));
+        }
+      }
+    }
+  }
+}
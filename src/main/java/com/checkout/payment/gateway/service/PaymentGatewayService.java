@@ -2,12 +2,22 @@ package com.checkout.payment.gateway.service;
 
 import com.checkout.payment.gateway.command.ProcessPaymentCommand;
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
 import com.checkout.payment.gateway.service.exception.PaymentAlreadyProcessedException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface PaymentGatewayService {
   Optional<Payment> findPaymentsByTransactionId(UUID transactionId);
   Optional<Payment> findPaymentByIdempotencyId(UUID idempotencyKey);
+  PaymentPage searchPayments(PaymentSearchQuery query);
   Payment processPayment(ProcessPaymentCommand command) throws PaymentAlreadyProcessedException;
+
+  /**
+   * Processes the payment without blocking on the acquirer bank. The idempotency key is reserved
+   * before returning, so a duplicate still fails fast with {@link PaymentAlreadyProcessedException}.
+   */
+  CompletableFuture<Payment> processPaymentAsync(ProcessPaymentCommand command) throws PaymentAlreadyProcessedException;
 }
@@ -2,19 +2,24 @@ package com.checkout.payment.gateway.service;
 
 import com.checkout.payment.gateway.command.ProcessPaymentCommand;
 import com.checkout.payment.gateway.factory.PaymentFactory;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
 import com.checkout.payment.gateway.model.Payment;
 import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import com.checkout.payment.gateway.service.exception.PaymentAlreadyProcessedException;
-import lombok.RequiredArgsConstructor;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@AllArgsConstructor
 /*
   TODO: Strategy pattern for the bank Service.
   PaymentProcessor base on payment method type.
@@ -25,6 +30,7 @@ public class PaymentGatewayServiceImpl implements PaymentGatewayService {
   private final PaymentsRepository paymentsRepository;
   private final PaymentFactory paymentFactory;
   private final BankService bankService;
+  private final PaymentMetrics paymentMetrics;
 
   @Override
   public Optional<Payment> findPaymentsByTransactionId(UUID transactionId) {
@@ -37,18 +43,85 @@ public class PaymentGatewayServiceImpl implements PaymentGatewayService {
     return paymentsRepository.getByIdempotencyKey(idempotencyKey);
   }
 
+  @Override
+  public PaymentPage searchPayments(PaymentSearchQuery query) {
+    return paymentsRepository.findPayments(query);
+  }
+
   @Override
   public Payment processPayment(ProcessPaymentCommand command)
       throws PaymentAlreadyProcessedException {
-    checkForIdempotency(command.getIdempotencyKey());
-    PaymentStatus authorisationStatus = bankService.authorisePayment(command.getCardNumber(), command.getExpiryMonth(), command.getExpiryYear(), command.getCashAmount(), command.getCvv());
+    reserveIdempotencyKey(command.getIdempotencyKey());
+    try {
+      long bankCallStartNanos = PaymentMetrics.nanoTime();
+      PaymentStatus authorisationStatus;
+      try {
+        authorisationStatus = bankService.authorisePayment(command.getIdempotencyKey(), command.getCardNumber(), command.getExpiryMonth(), command.getExpiryYear(), command.getCashAmount(), command.getCvv());
+      } catch (RuntimeException e) {
+        paymentMetrics.recordBankCall(command.getCashAmount().getCurrency(), null, bankCallStartNanos);
+        throw e;
+      }
+      paymentMetrics.recordBankCall(command.getCashAmount().getCurrency(), authorisationStatus, bankCallStartNanos);
+      return createPayment(command, authorisationStatus);
+    } catch (RuntimeException e) {
+      paymentsRepository.releaseIdempotencyKey(command.getIdempotencyKey(), e);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<Payment> processPaymentAsync(ProcessPaymentCommand command)
+      throws PaymentAlreadyProcessedException {
+    reserveIdempotencyKey(command.getIdempotencyKey());
+    long bankCallStartNanos = PaymentMetrics.nanoTime();
+    CompletableFuture<PaymentStatus> authorisation;
+    try {
+      authorisation = bankService.authorisePaymentAsync(command.getIdempotencyKey(), command.getCardNumber(), command.getExpiryMonth(), command.getExpiryYear(), command.getCashAmount(), command.getCvv());
+    } catch (RuntimeException e) {
+      paymentsRepository.releaseIdempotencyKey(command.getIdempotencyKey(), e);
+      throw e;
+    }
+    return authorisation
+        .whenComplete((authorisationStatus, e) -> paymentMetrics.recordBankCall(
+            command.getCashAmount().getCurrency(), authorisationStatus, bankCallStartNanos))
+        .thenCompose(authorisationStatus -> createPaymentAsync(command, authorisationStatus))
+        .whenComplete((payment, e) -> {
+          if (e != null) {
+            paymentsRepository.releaseIdempotencyKey(command.getIdempotencyKey(), unwrap(e));
+          }
+        });
+  }
+
+  private Payment createPayment(ProcessPaymentCommand command, PaymentStatus authorisationStatus) {
+    Payment payment = paymentFactory.createPayment(command, authorisationStatus);
+    long insertStartNanos = PaymentMetrics.nanoTime();
+    Payment createdPayment = paymentsRepository.createPayment(payment);
+    paymentMetrics.record(PaymentMetrics.Stage.REPOSITORY_INSERT, insertStartNanos);
+    paymentMetrics.countProcessed(authorisationStatus);
+    return createdPayment;
+  }
+
+  private CompletableFuture<Payment> createPaymentAsync(ProcessPaymentCommand command,
+      PaymentStatus authorisationStatus) {
     Payment payment = paymentFactory.createPayment(command, authorisationStatus);
-    return paymentsRepository.createPayment(payment);
+    long insertStartNanos = PaymentMetrics.nanoTime();
+    return paymentsRepository.createPaymentAsync(payment).thenApply(createdPayment -> {
+      paymentMetrics.record(PaymentMetrics.Stage.REPOSITORY_INSERT, insertStartNanos);
+      paymentMetrics.countProcessed(authorisationStatus);
+      return createdPayment;
+    });
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
   }
 
-  private void checkForIdempotency(UUID idempotencyKey) throws PaymentAlreadyProcessedException {
-    if (paymentsRepository.getByIdempotencyKey(idempotencyKey).isPresent()) {
-      throw new PaymentAlreadyProcessedException("Payment has already been processed.");
+  private void reserveIdempotencyKey(UUID idempotencyKey) throws PaymentAlreadyProcessedException {
+    long lookupStartNanos = PaymentMetrics.nanoTime();
+    Optional<CompletableFuture<Payment>> processedPayment = paymentsRepository.reserveIdempotencyKey(idempotencyKey);
+    paymentMetrics.record(PaymentMetrics.Stage.IDEMPOTENCY_LOOKUP, lookupStartNanos);
+    if (processedPayment.isPresent()) {
+      throw new PaymentAlreadyProcessedException("Payment has already been processed.", processedPayment.get());
     }
   }
 }
@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.service.exception;
+
+/**
+ * The payment was not sent to the acquirer bank as too many are already in flight. Thrown for every
+ * payment over the limit while the bank is slow, so no stack trace is filled in.
+ */
+public class BankOverloadedException extends RuntimeException {
+
+  public BankOverloadedException() {
+    super("Too many payments in flight with the acquirer bank", null, false, false);
+  }
+}
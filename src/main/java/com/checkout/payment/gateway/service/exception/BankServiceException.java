@@ -2,4 +2,11 @@ package com.checkout.payment.gateway.service.exception;
 
 public class BankServiceException extends RuntimeException{
 
+  public BankServiceException() {
+  }
+
+  //The acquirer's failure stays out of the message returned to merchants
+  public BankServiceException(Throwable cause) {
+    super(null, cause);
+  }
 }
@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.service.exception;
+
+/**
+ * The payment was not sent to the acquirer bank as its recent calls have been failing or slow.
+ * Thrown for every payment while the bank is down, so no stack trace is filled in.
+ */
+public class BankUnavailableException extends RuntimeException {
+
+  public BankUnavailableException() {
+    super("Acquirer bank circuit is open", null, false, false);
+  }
+}
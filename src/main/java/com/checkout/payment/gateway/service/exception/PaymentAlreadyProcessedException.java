@@ -1,8 +1,28 @@
 package com.checkout.payment.gateway.service.exception;
 
+import com.checkout.payment.gateway.model.Payment;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 public class PaymentAlreadyProcessedException extends Exception {
 
+  private final transient CompletableFuture<Payment> processedPayment;
+
   public PaymentAlreadyProcessedException(String message) {
+    this(message, null);
+  }
+
+  public PaymentAlreadyProcessedException(String message,
+      CompletableFuture<Payment> processedPayment) {
     super(message);
+    this.processedPayment = processedPayment;
+  }
+
+  /**
+   * The payment that already owns the idempotency key, which completes once the original request
+   * has been processed when it is still in flight.
+   */
+  public Optional<CompletableFuture<Payment>> getProcessedPayment() {
+    return Optional.ofNullable(processedPayment);
   }
 }
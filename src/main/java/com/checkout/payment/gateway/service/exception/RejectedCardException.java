@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.service.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The card was rejected by the gateway before calling the acquirer bank. Thrown for every such
+ * request, so no stack trace is filled in.
+ */
+@Getter
+public class RejectedCardException extends RuntimeException {
+  private final Reason reason;
+
+  public RejectedCardException(Reason reason) {
+    super(reason.getMessage(), null, false, false);
+    this.reason = reason;
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Reason {
+    INVALID_CARD_NUMBER("card.number.invalid", "Card number is not valid"),
+    UNSUPPORTED_CARD_SCHEME("card.scheme.unsupported", "Card scheme is not supported");
+
+    private final String code;
+    private final String message;
+  }
+}
@@ -0,0 +1,150 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects writes submitted by concurrent callers into batches and hands each batch to a single
+ * committer thread, so that one disk sync is shared by every write in it.
+ * <p>
+ * A batch is committed as soon as {@code maxBatchSize} writes are waiting, or once the first
+ * write in it has lingered for {@code maxLinger}. With no linger, a batch is whatever queued up
+ * while the previous one was being synced.
+ * <p>
+ * The size of every batch and the time taken to commit it are recorded in the
+ * {@code payments.journal.group-commit.batch-size} and
+ * {@code payments.journal.group-commit.flush} histograms.
+ * <p>
+ * A write is queued under the same lock that closing takes, so every write accepted is queued
+ * before the committer is told to stop, and is committed.
+ *
+ * @param <E> the pending write, which the commit is responsible for completing
+ */
+@Slf4j
+final class GroupCommitter<E> implements Closeable {
+
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final BlockingQueue<E> pendingWrites = new LinkedBlockingQueue<>();
+  private final ReentrantLock closeLock = new ReentrantLock();
+  private final int maxBatchSize;
+  private final long maxLingerNanos;
+  private final Consumer<List<E>> commit;
+  private final DistributionSummary batchSize;
+  private final Timer flushLatency;
+  private final Thread committer;
+  private volatile boolean closed;
+
+  GroupCommitter(String name, int maxBatchSize, Duration maxLinger, Consumer<List<E>> commit,
+      MeterRegistry meterRegistry) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("maxBatchSize must be positive, maxBatchSize=" + maxBatchSize);
+    }
+    this.maxBatchSize = maxBatchSize;
+    this.maxLingerNanos = maxLinger.toNanos();
+    this.commit = commit;
+    this.batchSize = DistributionSummary.builder("payments.journal.group-commit.batch-size")
+        .description("Writes committed by a single disk sync")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.flushLatency = Timer.builder("payments.journal.group-commit.flush")
+        .description("Time taken to write and sync a batch")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.committer = new Thread(this::commitUntilClosed, name);
+    committer.start();
+  }
+
+  void submit(E write) {
+    closeLock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Group committer " + committer.getName() + " is closed");
+      }
+      pendingWrites.add(write);
+    } finally {
+      closeLock.unlock();
+    }
+  }
+
+  /**
+   * Stops accepting writes, commits the ones already submitted and waits for the committer
+   * thread to finish.
+   */
+  @Override
+  public void close() {
+    closeLock.lock();
+    try {
+      closed = true;
+    } finally {
+      closeLock.unlock();
+    }
+    try {
+      committer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    //Writes left behind by an interrupted committer
+    List<E> leftovers = new ArrayList<>();
+    pendingWrites.drainTo(leftovers);
+    if (!leftovers.isEmpty()) {
+      commit(leftovers);
+    }
+  }
+
+  private void commitUntilClosed() {
+    List<E> batch = new ArrayList<>(maxBatchSize);
+    try {
+      while (!closed || !pendingWrites.isEmpty()) {
+        E first = pendingWrites.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          fill(batch);
+          commit(batch);
+          batch.clear();
+        }
+      }
+    } catch (InterruptedException e) {
+      log.error("Group committer {} interrupted with writes pending", committer.getName());
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fill(List<E> batch) throws InterruptedException {
+    pendingWrites.drainTo(batch, maxBatchSize - batch.size());
+    long deadline = System.nanoTime() + maxLingerNanos;
+    long remainingNanos = maxLingerNanos;
+    while (batch.size() < maxBatchSize && remainingNanos > 0) {
+      E next = pendingWrites.poll(remainingNanos, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+      pendingWrites.drainTo(batch, maxBatchSize - batch.size());
+      remainingNanos = deadline - System.nanoTime();
+    }
+  }
+
+  private void commit(List<E> batch) {
+    long start = System.nanoTime();
+    try {
+      commit.accept(batch);
+    } catch (RuntimeException e) {
+      //The commit completes its writes, even exceptionally, so a failure must not stop the committer
+      log.error("Group committer {} failed to commit a batch of {}", committer.getName(), batch.size(), e);
+    }
+    flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    batchSize.record(batch.size());
+  }
+}
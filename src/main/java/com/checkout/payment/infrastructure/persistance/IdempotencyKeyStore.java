@@ -0,0 +1,253 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Maps idempotency keys to the transaction ID of the payment that used them for a retry window of
+ * {@code ttl}, holding at most about {@code maxSize} keys, so its heap stays flat however long the
+ * node runs.
+ * <p>
+ * Keys are held in a ring of {@code generations} open-addressing tables of primitive
+ * {@code long}s, four per slot for the key and the transaction ID, so a key costs no objects. New
+ * keys go into the current generation, which is closed every {@code ttl / (generations - 1)} or
+ * once it holds its share of {@code maxSize}. The oldest generation is then cleared and reused as
+ * the current one. Eviction is a whole generation at a time, so nothing is paid per request.
+ * <p>
+ * A key is honoured for at least {@code ttl} and at most {@code ttl / (generations - 1)} longer,
+ * unless more than {@code maxSize} keys arrive within {@code ttl}: the size bound then wins and
+ * the oldest keys are evicted early.
+ *
+ * <p>Thread safety is achieved with a {@link StampedLock}:</p>
+ * <ul>
+ *     <li>Writers take the write lock, as {@link #putIfAbsent(UUID, UUID)} checks every generation for the key and may rotate the ring.</li>
+ *     <li>Readers probe the generations optimistically without locking, and only retry under the read lock when a write raced with them.</li>
+ * </ul>
+ *
+ * @see StampedLock
+ */
+public class IdempotencyKeyStore {
+
+  private static final int LONGS_PER_SLOT = 4;
+  private static final int TRANSACTION_ID_MOST_SIG_BITS = 2;
+  private static final int TRANSACTION_ID_LEAST_SIG_BITS = 3;
+
+  private final long ttlNanos;
+  private final long generationSpanNanos;
+  private final int generationCapacity;
+  private final int slotsPerGeneration;
+  private final LongSupplier nanoClock;
+  private final StampedLock lock = new StampedLock();
+  private final Generation[] generations;
+  private int current;
+  private int allocatedTables;
+
+  public IdempotencyKeyStore(Duration ttl, int maxSize, int generations) {
+    this(ttl, maxSize, generations, System::nanoTime);
+  }
+
+  IdempotencyKeyStore(Duration ttl, int maxSize, int generations, LongSupplier nanoClock) {
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException("ttl must be positive, ttl=" + ttl);
+    }
+    if (generations < 2) {
+      throw new IllegalArgumentException("generations must be at least 2, generations=" + generations);
+    }
+    if (maxSize < generations) {
+      throw new IllegalArgumentException("maxSize must be at least generations, maxSize=" + maxSize);
+    }
+    this.ttlNanos = ttl.toNanos();
+    this.generationSpanNanos = ttlNanos / (generations - 1);
+    this.generationCapacity = maxSize / generations;
+    this.slotsPerGeneration = Integer.highestOneBit(generationCapacity * 2 - 1) << 1;
+    this.nanoClock = nanoClock;
+    this.generations = new Generation[generations];
+    for (int i = 0; i < generations; i++) {
+      this.generations[i] = new Generation();
+    }
+    open(this.generations[current], nanoClock.getAsLong());
+  }
+
+  /**
+   * @return the transaction ID held for the idempotency key, or {@code null} if it is unknown or
+   * has expired
+   */
+  public UUID get(UUID idempotencyKey) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        UUID transactionId = find(idempotencyKey, nanoClock.getAsLong());
+        if (lock.validate(stamp)) {
+          return transactionId;
+        }
+      } catch (RuntimeException e) {
+        //A racing rotation left an inconsistent view, retried below under the read lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return find(idempotencyKey, nanoClock.getAsLong());
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Holds the transaction ID for the idempotency key unless the key is already held.
+   *
+   * @return the transaction ID already held for the key, or {@code null} if the given one is now
+   * held
+   */
+  public UUID putIfAbsent(UUID idempotencyKey, UUID transactionId) {
+    if (transactionId.getMostSignificantBits() == 0 && transactionId.getLeastSignificantBits() == 0) {
+      //An all-zero slot marks it empty
+      throw new IllegalArgumentException("transactionId must not be the nil UUID");
+    }
+    long stamp = lock.writeLock();
+    try {
+      long now = nanoClock.getAsLong();
+      UUID heldTransactionId = find(idempotencyKey, now);
+      if (heldTransactionId != null) {
+        return heldTransactionId;
+      }
+      Generation generation = generations[current];
+      if (now - generation.openedAt >= generationSpanNanos || generation.size == generationCapacity) {
+        generation = rotate(now);
+      }
+      generation.insert(idempotencyKey, transactionId);
+      return null;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * @return the number of keys held, including expired ones not yet evicted
+   */
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      int size = 0;
+      for (Generation generation : generations) {
+        size += generation.size;
+      }
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * @return the number of generation tables allocated so far, which is at most one per generation
+   * however many keys have been held
+   */
+  int allocatedTables() {
+    long stamp = lock.readLock();
+    try {
+      return allocatedTables;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private Generation rotate(long now) {
+    generations[current].close(now);
+    current = (current + 1) % generations.length;
+    Generation generation = generations[current];
+    open(generation, now);
+    return generation;
+  }
+
+  private void open(Generation generation, long now) {
+    if (generation.slots == null) {
+      allocatedTables++;
+    }
+    generation.open(now, slotsPerGeneration);
+  }
+
+  //Newest first, so the current generation answers most duplicates
+  private UUID find(UUID idempotencyKey, long now) {
+    long mostSigBits = idempotencyKey.getMostSignificantBits();
+    long leastSigBits = idempotencyKey.getLeastSignificantBits();
+    int hash = UuidHash.hash(mostSigBits, leastSigBits);
+    for (int i = 0; i < generations.length; i++) {
+      Generation generation = generations[(current - i + generations.length) % generations.length];
+      if (generation.slots == null || generation.isExpired(now, ttlNanos, generationSpanNanos)) {
+        continue;
+      }
+      UUID transactionId = generation.find(hash, mostSigBits, leastSigBits);
+      if (transactionId != null) {
+        return transactionId;
+      }
+    }
+    return null;
+  }
+
+  //Its table is only allocated the first time it becomes current, and then cleared for reuse
+  private static final class Generation {
+    private long[] slots;
+    private int size;
+    private long openedAt;
+    private boolean closed;
+    private long closedAt;
+
+    private void open(long now, int slotCount) {
+      if (slots == null) {
+        slots = new long[slotCount * LONGS_PER_SLOT];
+      } else {
+        Arrays.fill(slots, 0L);
+      }
+      size = 0;
+      openedAt = now;
+      closed = false;
+    }
+
+    private void close(long now) {
+      closed = true;
+      closedAt = now;
+    }
+
+    //Its newest key was added no later than it was closed, or than its span ended for the current
+    //generation, as a later write would have rotated it
+    private boolean isExpired(long now, long ttlNanos, long spanNanos) {
+      long lastAddedBy = closed ? closedAt : openedAt + spanNanos;
+      return now - lastAddedBy >= ttlNanos;
+    }
+
+    private UUID find(int hash, long mostSigBits, long leastSigBits) {
+      long[] slots = this.slots;
+      int mask = slots.length / LONGS_PER_SLOT - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        int base = slot * LONGS_PER_SLOT;
+        long transactionIdMostSigBits = slots[base + TRANSACTION_ID_MOST_SIG_BITS];
+        long transactionIdLeastSigBits = slots[base + TRANSACTION_ID_LEAST_SIG_BITS];
+        if (transactionIdMostSigBits == 0 && transactionIdLeastSigBits == 0) {
+          return null;
+        }
+        if (slots[base] == mostSigBits && slots[base + 1] == leastSigBits) {
+          return new UUID(transactionIdMostSigBits, transactionIdLeastSigBits);
+        }
+      }
+    }
+
+    private void insert(UUID idempotencyKey, UUID transactionId) {
+      long mostSigBits = idempotencyKey.getMostSignificantBits();
+      long leastSigBits = idempotencyKey.getLeastSignificantBits();
+      int mask = slots.length / LONGS_PER_SLOT - 1;
+      int slot = UuidHash.hash(mostSigBits, leastSigBits) & mask;
+      while (slots[slot * LONGS_PER_SLOT + TRANSACTION_ID_MOST_SIG_BITS] != 0
+          || slots[slot * LONGS_PER_SLOT + TRANSACTION_ID_LEAST_SIG_BITS] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      int base = slot * LONGS_PER_SLOT;
+      slots[base] = mostSigBits;
+      slots[base + 1] = leastSigBits;
+      slots[base + TRANSACTION_ID_MOST_SIG_BITS] = transactionId.getMostSignificantBits();
+      slots[base + TRANSACTION_ID_LEAST_SIG_BITS] = transactionId.getLeastSignificantBits();
+      size++;
+    }
+  }
+}
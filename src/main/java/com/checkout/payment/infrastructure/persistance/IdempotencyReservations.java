@@ -0,0 +1,58 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Tracks the payments in flight per idempotency key, so concurrent duplicates subscribe to the
+ * result of the first request instead of calling the acquirer bank again.
+ * <p>
+ * A reservation is only held between {@link #reserve(UUID, Function)} and the point the payment
+ * is stored ({@link #complete(Payment)}) or abandoned ({@link #release(UUID, Throwable)}), so the
+ * map only ever holds the in-flight payments.
+ */
+class IdempotencyReservations {
+
+  private final Map<UUID, CompletableFuture<Payment>> inFlightPayments = new ConcurrentHashMap<>();
+
+  Optional<CompletableFuture<Payment>> reserve(UUID idempotencyKey,
+      Function<UUID, Optional<Payment>> processedPaymentLookup) {
+    Optional<Payment> processedPayment = processedPaymentLookup.apply(idempotencyKey);
+    if (processedPayment.isPresent()) {
+      return processedPayment.map(CompletableFuture::completedFuture);
+    }
+    CompletableFuture<Payment> reservation = new CompletableFuture<>();
+    CompletableFuture<Payment> inFlightPayment = inFlightPayments.putIfAbsent(idempotencyKey,
+        reservation);
+    if (inFlightPayment != null) {
+      return Optional.of(inFlightPayment);
+    }
+    //The previous owner may have stored the payment between the lookup and the reservation
+    processedPayment = processedPaymentLookup.apply(idempotencyKey);
+    if (processedPayment.isPresent()) {
+      inFlightPayments.remove(idempotencyKey, reservation);
+      reservation.complete(processedPayment.get());
+      return Optional.of(reservation);
+    }
+    return Optional.empty();
+  }
+
+  void complete(Payment payment) {
+    CompletableFuture<Payment> reservation = inFlightPayments.remove(payment.getIdempotencyKey());
+    if (reservation != null) {
+      reservation.complete(payment);
+    }
+  }
+
+  void release(UUID idempotencyKey, Throwable cause) {
+    CompletableFuture<Payment> reservation = inFlightPayments.remove(idempotencyKey);
+    if (reservation != null) {
+      reservation.completeExceptionally(cause);
+    }
+  }
+}
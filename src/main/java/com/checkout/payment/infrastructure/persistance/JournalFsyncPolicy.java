@@ -0,0 +1,19 @@
+package com.checkout.payment.infrastructure.persistance;
+
+/**
+ * When {@link PaymentJournal} forces appended payment records to disk.
+ */
+public enum JournalFsyncPolicy {
+  /** Every record is on disk before its payment is acknowledged. */
+  EVERY_WRITE,
+  /** Records are forced in the background every {@link JournalOptions#getFsyncInterval()}. */
+  INTERVAL,
+  /** Records are forced once {@link JournalOptions#getFsyncEveryRecords()} have been appended. */
+  EVERY_N_RECORDS,
+  /**
+   * Concurrent writes are batched and every payment in a batch is acknowledged after a single
+   * sync, bounded by {@link JournalOptions#getGroupCommitMaxBatchSize()} and
+   * {@link JournalOptions#getGroupCommitMaxLinger()}.
+   */
+  GROUP_COMMIT
+}
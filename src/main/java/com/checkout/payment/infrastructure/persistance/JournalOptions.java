@@ -0,0 +1,24 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class JournalOptions {
+  private final Path directory;
+  @Builder.Default
+  private final int recordsPerSegment = 1 << 20;
+  @Builder.Default
+  private final JournalFsyncPolicy fsyncPolicy = JournalFsyncPolicy.EVERY_WRITE;
+  @Builder.Default
+  private final Duration fsyncInterval = Duration.ofMillis(10);
+  @Builder.Default
+  private final int fsyncEveryRecords = 100;
+  @Builder.Default
+  private final int groupCommitMaxBatchSize = 256;
+  @Builder.Default
+  private final Duration groupCommitMaxLinger = Duration.ZERO;
+}
@@ -0,0 +1,247 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A durable {@link PaymentsRepository} whose payments survive restarts, kept in a memory-mapped
+ * {@link PaymentJournal}.
+ * <p>
+ * The transaction ID and idempotency key indexes map to a record's journal position and are
+ * held on the heap. They are not persisted but rebuilt on startup by scanning the journal
+ * segments in parallel, so the journal stays the only source of truth. The
+ * {@link PaymentSearchIndex} is rebuilt in journal order once they are, each payment created when
+ * its time-ordered transaction ID says. Payments journaled before IDs carried their creation time
+ * are indexed as created at the epoch.
+ *
+ * <p>Thread safety is achieved as follows:</p>
+ * <ul>
+ *     <li>Writers are serialised by a lock, so an idempotency key is never appended twice. With {@link JournalFsyncPolicy#GROUP_COMMIT} they instead queue their payment for a single {@link GroupCommitter} thread, which appends and syncs a whole batch before publishing it.</li>
+ *     <li>Readers are lock-free. A record is fully written before its position is published in the {@link ConcurrentHashMap} indexes, and journal records are never overwritten.</li>
+ * </ul>
+ *
+ * @see PaymentJournal
+ * @see JournalFsyncPolicy
+ */
+public class JournalPaymentsRepository implements PaymentsRepository, Closeable {
+
+  private final PaymentJournal journal;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private final IdempotencyReservations idempotencyReservations = new IdempotencyReservations();
+  private final Map<UUID, Long> positionsByTransactionId = new ConcurrentHashMap<>();
+  private final Map<UUID, Long> positionsByIdempotencyKey = new ConcurrentHashMap<>();
+  private final PaymentSearchIndex paymentSearchIndex = new PaymentSearchIndex();
+  private final TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+  private final GroupCommitter<PendingPayment> groupCommitter;
+
+  public JournalPaymentsRepository(JournalOptions options) throws IOException {
+    this(options, new SimpleMeterRegistry());
+  }
+
+  public JournalPaymentsRepository(JournalOptions options, MeterRegistry meterRegistry)
+      throws IOException {
+    this.journal = new PaymentJournal(options);
+    try {
+      journal.recover(this::index);
+      indexRecoveredPayments();
+    } catch (IOException | RuntimeException e) {
+      journal.close();
+      throw e;
+    }
+    journal.start();
+    this.groupCommitter = options.getFsyncPolicy() == JournalFsyncPolicy.GROUP_COMMIT
+        ? new GroupCommitter<>("payment-journal-group-commit", options.getGroupCommitMaxBatchSize(),
+            options.getGroupCommitMaxLinger(), this::commit, meterRegistry)
+        : null;
+  }
+
+  @Override
+  public Optional<Payment> getByTransactionId(UUID transactionId) {
+    return Optional.ofNullable(positionsByTransactionId.get(transactionId)).map(journal::read);
+  }
+
+  @Override
+  public Optional<Payment> getByIdempotencyKey(UUID idempotencyKey) {
+    return Optional.ofNullable(positionsByIdempotencyKey.get(idempotencyKey)).map(journal::read);
+  }
+
+  @Override
+  public Payment createPayment(Payment payment) {
+    if (groupCommitter != null) {
+      return createPaymentInGroup(payment);
+    }
+    UUID paymentTransactionId = generateTransactionId();
+    Payment processedPayment;
+    writeLock.lock();
+    try {
+      Long processedPosition = positionsByIdempotencyKey.get(payment.getIdempotencyKey());
+      if (processedPosition == null) {
+        payment.setTransactionId(paymentTransactionId);
+        payment.setCreatedAt(TransactionIdGenerator.createdAt(paymentTransactionId));
+        long position = journal.append(payment);
+        positionsByTransactionId.put(paymentTransactionId, position);
+        positionsByIdempotencyKey.put(payment.getIdempotencyKey(), position);
+        paymentSearchIndex.add(payment);
+        processedPayment = payment;
+      } else {
+        processedPayment = journal.read(processedPosition);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    idempotencyReservations.complete(processedPayment);
+    return processedPayment;
+  }
+
+  //In group commit the caller is completed by the group commit thread instead of waiting for it
+  @Override
+  public CompletableFuture<Payment> createPaymentAsync(Payment payment) {
+    if (groupCommitter == null) {
+      return PaymentsRepository.super.createPaymentAsync(payment);
+    }
+    return submitToGroup(payment);
+  }
+
+  @Override
+  public PaymentPage findPayments(PaymentSearchQuery query) {
+    return paymentSearchIndex.search(query, this::getByTransactionId);
+  }
+
+  @Override
+  public Optional<CompletableFuture<Payment>> reserveIdempotencyKey(UUID idempotencyKey) {
+    return idempotencyReservations.reserve(idempotencyKey, this::getByIdempotencyKey);
+  }
+
+  @Override
+  public void releaseIdempotencyKey(UUID idempotencyKey, Throwable cause) {
+    idempotencyReservations.release(idempotencyKey, cause);
+  }
+
+  public int size() {
+    return positionsByTransactionId.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (groupCommitter != null) {
+      groupCommitter.close();
+    }
+    writeLock.lock();
+    try {
+      journal.close();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private Payment createPaymentInGroup(Payment payment) {
+    try {
+      return submitToGroup(payment).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  private CompletableFuture<Payment> submitToGroup(Payment payment) {
+    PendingPayment pendingPayment = new PendingPayment(payment, generateTransactionId(),
+        new CompletableFuture<>());
+    groupCommitter.submit(pendingPayment);
+    return pendingPayment.processedPayment;
+  }
+
+  /**
+   * Appends a batch of payments and syncs them once, and only then publishes them to readers and
+   * completes their callers. If the batch fails partway, the journal is truncated back to where
+   * the batch started, so none of it is recovered after a restart either. Called by the single
+   * group commit thread.
+   */
+  private void commit(List<PendingPayment> batch) {
+    Map<UUID, Payment> processedPayments = new HashMap<>();
+    List<PendingPayment> appended = new ArrayList<>(batch.size());
+    long[] positions = new long[batch.size()];
+    long batchStart = journal.tail();
+    try {
+      for (PendingPayment pendingPayment : batch) {
+        Payment payment = pendingPayment.payment;
+        Long processedPosition = positionsByIdempotencyKey.get(payment.getIdempotencyKey());
+        if (processedPosition == null
+            && processedPayments.putIfAbsent(payment.getIdempotencyKey(), payment) == null) {
+          payment.setTransactionId(pendingPayment.transactionId);
+          payment.setCreatedAt(TransactionIdGenerator.createdAt(pendingPayment.transactionId));
+          positions[appended.size()] = journal.append(payment);
+          appended.add(pendingPayment);
+        }
+      }
+      journal.force();
+    } catch (RuntimeException e) {
+      try {
+        journal.truncate(batchStart);
+      } catch (RuntimeException truncateFailure) {
+        e.addSuppressed(truncateFailure);
+      }
+      batch.forEach(pendingPayment -> pendingPayment.processedPayment.completeExceptionally(e));
+      throw e;
+    }
+    for (int i = 0; i < appended.size(); i++) {
+      Payment payment = appended.get(i).payment;
+      positionsByTransactionId.put(payment.getTransactionId(), positions[i]);
+      positionsByIdempotencyKey.put(payment.getIdempotencyKey(), positions[i]);
+      paymentSearchIndex.add(payment);
+    }
+    for (PendingPayment pendingPayment : batch) {
+      UUID idempotencyKey = pendingPayment.payment.getIdempotencyKey();
+      Payment processedPayment = processedPayments.containsKey(idempotencyKey)
+          ? processedPayments.get(idempotencyKey)
+          : journal.read(positionsByIdempotencyKey.get(idempotencyKey));
+      idempotencyReservations.complete(processedPayment);
+      pendingPayment.processedPayment.complete(processedPayment);
+    }
+  }
+
+  //Called concurrently while segments are scanned; the earliest record wins a duplicated key
+  private void index(long position, ByteBuffer segment, int offset) {
+    positionsByTransactionId.put(readId(segment, offset, PaymentRecord.TRANSACTION_ID), position);
+    positionsByIdempotencyKey.merge(readId(segment, offset, PaymentRecord.IDEMPOTENCY_KEY),
+        position, Math::min);
+  }
+
+  private void indexRecoveredPayments() {
+    long[] positions = positionsByTransactionId.values().stream()
+        .mapToLong(Long::longValue)
+        .sorted()
+        .toArray();
+    for (long position : positions) {
+      paymentSearchIndex.add(journal.read(position));
+    }
+  }
+
+  private static UUID readId(ByteBuffer segment, int offset, int idField) {
+    return new UUID(PaymentRecord.mostSigBits(segment, offset, idField),
+        PaymentRecord.leastSigBits(segment, offset, idField));
+  }
+
+  private record PendingPayment(Payment payment, UUID transactionId,
+      CompletableFuture<Payment> processedPayment) {
+  }
+
+  private UUID generateTransactionId() {
+    return transactionIdGenerator.next();
+  }
+}
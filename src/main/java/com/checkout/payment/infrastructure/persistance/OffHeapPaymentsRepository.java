@@ -0,0 +1,227 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A {@link PaymentsRepository} that keeps payments as fixed-width {@link PaymentRecord}s in
+ * direct memory, so retaining tens of millions of payments costs no per-payment heap objects
+ * and no GC time.
+ * <p>
+ * Records are appended to chunks of direct memory and found through two open-addressing
+ * indexes, also held off-heap, that map the transaction ID and the idempotency key to the
+ * record number. A {@link Payment} is only decoded from its record when it is read. Payments are
+ * searched through a {@link PaymentSearchIndex} held on the heap.
+ *
+ * <p>Thread safety is achieved with a {@link StampedLock}:</p>
+ * <ul>
+ *     <li>Writers take the write lock, as appending a record may grow the chunks and indexes.</li>
+ *     <li>Readers probe the indexes optimistically without locking, and only retry under the read lock when a write raced with them. Records are never moved or removed, so a racing read can at worst see a stale or partial view, which the lock validation discards.</li>
+ * </ul>
+ *
+ * @see PaymentRecord
+ * @see StampedLock
+ */
+public class OffHeapPaymentsRepository implements PaymentsRepository {
+
+  private static final int RECORDS_PER_CHUNK_SHIFT = 16;
+  private static final int RECORDS_PER_CHUNK = 1 << RECORDS_PER_CHUNK_SHIFT;
+  private static final int MIN_INDEX_CAPACITY = 16;
+  //Keeps every index buffer addressable by an int offset
+  private static final int MAX_INDEX_CAPACITY = 1 << 28;
+  private static final int EMPTY_SLOT = 0;
+  private static final int NOT_FOUND = -1;
+
+  private final StampedLock lock = new StampedLock();
+  private final IdempotencyReservations idempotencyReservations = new IdempotencyReservations();
+  private final PaymentSearchIndex paymentSearchIndex = new PaymentSearchIndex();
+  private final TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+  private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+  private volatile ByteBuffer transactionIdIndex;
+  private volatile ByteBuffer idempotencyKeyIndex;
+  private int size;
+
+  public OffHeapPaymentsRepository(int initialCapacity) {
+    int indexCapacity = indexCapacityFor(initialCapacity);
+    this.transactionIdIndex = allocateIndex(indexCapacity);
+    this.idempotencyKeyIndex = allocateIndex(indexCapacity);
+  }
+
+  @Override
+  public Optional<Payment> getByTransactionId(UUID transactionId) {
+    return find(PaymentRecord.TRANSACTION_ID, transactionId);
+  }
+
+  @Override
+  public Optional<Payment> getByIdempotencyKey(UUID idempotencyKey) {
+    return find(PaymentRecord.IDEMPOTENCY_KEY, idempotencyKey);
+  }
+
+  @Override
+  public Payment createPayment(Payment payment) {
+    UUID idempotencyKey = payment.getIdempotencyKey();
+    UUID paymentTransactionId = generateTransactionId();
+    Payment processedPayment;
+    long stamp = lock.writeLock();
+    try {
+      int processedRecordNo = lookup(idempotencyKeyIndex, PaymentRecord.IDEMPOTENCY_KEY,
+          idempotencyKey.getMostSignificantBits(), idempotencyKey.getLeastSignificantBits());
+      if (processedRecordNo == NOT_FOUND) {
+        payment.setTransactionId(paymentTransactionId);
+        payment.setCreatedAt(TransactionIdGenerator.createdAt(paymentTransactionId));
+        append(payment);
+        paymentSearchIndex.add(payment);
+        processedPayment = payment;
+      } else {
+        processedPayment = readRecord(processedRecordNo);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    idempotencyReservations.complete(processedPayment);
+    return processedPayment;
+  }
+
+  @Override
+  public PaymentPage findPayments(PaymentSearchQuery query) {
+    return paymentSearchIndex.search(query, this::getByTransactionId);
+  }
+
+  @Override
+  public Optional<CompletableFuture<Payment>> reserveIdempotencyKey(UUID idempotencyKey) {
+    return idempotencyReservations.reserve(idempotencyKey, this::getByIdempotencyKey);
+  }
+
+  @Override
+  public void releaseIdempotencyKey(UUID idempotencyKey, Throwable cause) {
+    idempotencyReservations.release(idempotencyKey, cause);
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private Optional<Payment> find(int idField, UUID id) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        Payment payment = read(idField, id);
+        if (lock.validate(stamp)) {
+          return Optional.ofNullable(payment);
+        }
+      } catch (RuntimeException e) {
+        //A racing write left an inconsistent view, retried below under the read lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return Optional.ofNullable(read(idField, id));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private Payment read(int idField, UUID id) {
+    ByteBuffer index = idField == PaymentRecord.TRANSACTION_ID
+        ? transactionIdIndex
+        : idempotencyKeyIndex;
+    int recordNo = lookup(index, idField, id.getMostSignificantBits(),
+        id.getLeastSignificantBits());
+    return recordNo == NOT_FOUND ? null : readRecord(recordNo);
+  }
+
+  private Payment readRecord(int recordNo) {
+    return PaymentRecord.read(chunkOf(recordNo), offsetOf(recordNo));
+  }
+
+  private void append(Payment payment) {
+    int recordNo = size;
+    if (recordNo >> RECORDS_PER_CHUNK_SHIFT == chunks.length) {
+      ByteBuffer[] grownChunks = Arrays.copyOf(chunks, chunks.length + 1);
+      grownChunks[chunks.length] = ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * PaymentRecord.SIZE);
+      chunks = grownChunks;
+    }
+    if ((recordNo + 1) * 2L > transactionIdIndex.capacity() / Integer.BYTES) {
+      transactionIdIndex = rehash(transactionIdIndex, PaymentRecord.TRANSACTION_ID);
+      idempotencyKeyIndex = rehash(idempotencyKeyIndex, PaymentRecord.IDEMPOTENCY_KEY);
+    }
+    PaymentRecord.write(chunkOf(recordNo), offsetOf(recordNo), payment);
+    insert(transactionIdIndex, PaymentRecord.TRANSACTION_ID, recordNo);
+    insert(idempotencyKeyIndex, PaymentRecord.IDEMPOTENCY_KEY, recordNo);
+    size = recordNo + 1;
+  }
+
+  private int lookup(ByteBuffer index, int idField, long mostSigBits, long leastSigBits) {
+    int mask = index.capacity() / Integer.BYTES - 1;
+    for (int slot = UuidHash.hash(mostSigBits, leastSigBits) & mask; ; slot = (slot + 1) & mask) {
+      int entry = index.getInt(slot * Integer.BYTES);
+      if (entry == EMPTY_SLOT) {
+        return NOT_FOUND;
+      }
+      int recordNo = entry - 1;
+      if (PaymentRecord.hasId(chunkOf(recordNo), offsetOf(recordNo), idField, mostSigBits,
+          leastSigBits)) {
+        return recordNo;
+      }
+    }
+  }
+
+  private void insert(ByteBuffer index, int idField, int recordNo) {
+    ByteBuffer chunk = chunkOf(recordNo);
+    int offset = offsetOf(recordNo);
+    int mask = index.capacity() / Integer.BYTES - 1;
+    int slot = UuidHash.hash(PaymentRecord.mostSigBits(chunk, offset, idField),
+        PaymentRecord.leastSigBits(chunk, offset, idField)) & mask;
+    while (index.getInt(slot * Integer.BYTES) != EMPTY_SLOT) {
+      slot = (slot + 1) & mask;
+    }
+    index.putInt(slot * Integer.BYTES, recordNo + 1);
+  }
+
+  //Readers may still be probing the old index, so the grown one is filled before it is published
+  private ByteBuffer rehash(ByteBuffer index, int idField) {
+    int capacity = index.capacity() / Integer.BYTES;
+    if (capacity == MAX_INDEX_CAPACITY) {
+      throw new IllegalStateException("Off-heap payments repository is full, size=" + size);
+    }
+    ByteBuffer grownIndex = allocateIndex(capacity * 2);
+    for (int recordNo = 0; recordNo < size; recordNo++) {
+      insert(grownIndex, idField, recordNo);
+    }
+    return grownIndex;
+  }
+
+  private ByteBuffer chunkOf(int recordNo) {
+    return chunks[recordNo >>> RECORDS_PER_CHUNK_SHIFT];
+  }
+
+  private static int offsetOf(int recordNo) {
+    return (recordNo & (RECORDS_PER_CHUNK - 1)) * PaymentRecord.SIZE;
+  }
+
+  private static int indexCapacityFor(int expectedPayments) {
+    long capacity = Math.max(MIN_INDEX_CAPACITY, expectedPayments * 2L);
+    return (int) Math.min(MAX_INDEX_CAPACITY, Long.highestOneBit(capacity - 1) << 1);
+  }
+
+  private static ByteBuffer allocateIndex(int capacity) {
+    return ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+  }
+
+  private UUID generateTransactionId() {
+    return transactionIdGenerator.next();
+  }
+}
@@ -0,0 +1,370 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of {@link PaymentRecord}s, split into memory-mapped segment files of
+ * {@link JournalOptions#getRecordsPerSegment()} records each.
+ * <pre>
+ *  0  payment record            {@link PaymentRecord#SIZE} bytes
+ * 48  checksum                  int, CRC-32C of the payment record
+ * 52  magic                     int
+ * 56  padding up to {@link #RECORD_SIZE}
+ * </pre>
+ * Records are 64 bytes so that none straddles a disk sector. A record only counts once both its
+ * magic and checksum match, so a write torn by a crash, or a segment truncated mid-record, ends
+ * the log at the last complete record.
+ * <p>
+ * A record is addressed by its position, the segment number in the high int and the record
+ * number within the segment in the low int.
+ */
+@Slf4j
+class PaymentJournal implements Closeable {
+
+  static final int RECORD_SIZE = 64;
+  private static final int CHECKSUM = PaymentRecord.SIZE;
+  private static final int MAGIC = CHECKSUM + Integer.BYTES;
+  private static final int RECORD_MAGIC = 0x50415931;
+  private static final int MAX_RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_SIZE;
+  private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("payments-(\\d{10})\\.journal");
+
+  private final Path directory;
+  private final JournalOptions options;
+  private final List<Segment> segments = new CopyOnWriteArrayList<>();
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final ScheduledExecutorService fsyncScheduler;
+  private final CRC32C appendChecksum = new CRC32C();
+  private volatile Segment activeSegment;
+  private int nextRecordNo;
+  private int unsyncedRecords;
+
+  /**
+   * Visits a valid record found while recovering the journal. Segments are scanned in parallel,
+   * so it may be called concurrently and in any order.
+   */
+  @FunctionalInterface
+  interface RecordVisitor {
+    void visit(long position, ByteBuffer segment, int offset);
+  }
+
+  PaymentJournal(JournalOptions options) {
+    if (options.getRecordsPerSegment() <= 0
+        || options.getRecordsPerSegment() > MAX_RECORDS_PER_SEGMENT) {
+      throw new IllegalArgumentException("recordsPerSegment must be between 1 and "
+          + MAX_RECORDS_PER_SEGMENT + ", recordsPerSegment=" + options.getRecordsPerSegment());
+    }
+    this.directory = options.getDirectory();
+    this.options = options;
+    this.fsyncScheduler = options.getFsyncPolicy() == JournalFsyncPolicy.INTERVAL
+        ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "payment-journal-fsync");
+          thread.setDaemon(true);
+          return thread;
+        })
+        : null;
+  }
+
+  /**
+   * Maps the existing segments, hands every valid record to the visitor and positions the
+   * journal after the last one, discarding any torn tail. Must be called once, before appending.
+   */
+  void recover(RecordVisitor visitor) throws IOException {
+    Files.createDirectories(directory);
+    List<Path> segmentFiles = listSegmentFiles();
+    for (int segmentNo = 0; segmentNo < segmentFiles.size(); segmentNo++) {
+      boolean last = segmentNo == segmentFiles.size() - 1;
+      segments.add(Segment.open(segmentNo, segmentFiles.get(segmentNo),
+          last ? options.getRecordsPerSegment() : 0));
+    }
+    int[] validRecords = new int[segments.size()];
+    IntStream.range(0, segments.size())
+        .parallel()
+        .forEach(segmentNo -> validRecords[segmentNo] = scan(segments.get(segmentNo), visitor));
+    if (segments.isEmpty()) {
+      segments.add(Segment.open(0, segmentFile(0), options.getRecordsPerSegment()));
+      activeSegment = segments.get(0);
+      return;
+    }
+    for (int segmentNo = 0; segmentNo < segments.size() - 1; segmentNo++) {
+      if (validRecords[segmentNo] < segments.get(segmentNo).capacity) {
+        log.warn("Payment journal segment {} is corrupt after record {}, later records in it are ignored",
+            segments.get(segmentNo).path, validRecords[segmentNo]);
+      }
+    }
+    activeSegment = segments.get(segments.size() - 1);
+    nextRecordNo = validRecords[segments.size() - 1];
+    discardTail(activeSegment, nextRecordNo);
+  }
+
+  void start() {
+    if (fsyncScheduler != null) {
+      long intervalNanos = options.getFsyncInterval().toNanos();
+      fsyncScheduler.scheduleWithFixedDelay(this::forceActiveSegment, intervalNanos, intervalNanos,
+          TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Appends the payment and, depending on the {@link JournalFsyncPolicy}, forces it to disk
+   * before returning its position.
+   */
+  long append(Payment payment) {
+    appendLock.lock();
+    try {
+      if (nextRecordNo == activeSegment.capacity) {
+        rollSegment();
+      }
+      ByteBuffer buffer = activeSegment.buffer;
+      int offset = nextRecordNo * RECORD_SIZE;
+      PaymentRecord.write(buffer, offset, payment);
+      buffer.putInt(offset + CHECKSUM, checksum(activeSegment.appendView, offset, appendChecksum));
+      buffer.putInt(offset + MAGIC, RECORD_MAGIC);
+      long position = position(activeSegment.segmentNo, nextRecordNo++);
+      switch (options.getFsyncPolicy()) {
+        case EVERY_WRITE -> activeSegment.buffer.force(offset, RECORD_SIZE);
+        case EVERY_N_RECORDS -> {
+          if (++unsyncedRecords >= options.getFsyncEveryRecords()) {
+            activeSegment.buffer.force();
+            unsyncedRecords = 0;
+          }
+        }
+        case INTERVAL, GROUP_COMMIT -> {
+          //Forced by the fsync scheduler or the group committer
+        }
+      }
+      return position;
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Forces every record appended so far to disk. Full segments are forced when they are rolled,
+   * so only the active one is left.
+   */
+  void force() {
+    activeSegment.buffer.force();
+  }
+
+  /**
+   * @return the position the next record will be appended at, to {@link #truncate(long)} the
+   * journal back to
+   */
+  long tail() {
+    appendLock.lock();
+    try {
+      return position(activeSegment.segmentNo, nextRecordNo);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Discards every record appended from the {@link #tail()} position on, deleting any segment
+   * rolled since, so that appends resume there. None of the discarded records may have been
+   * published to readers.
+   */
+  void truncate(long tail) {
+    appendLock.lock();
+    try {
+      while (activeSegment.segmentNo > segmentNoOf(tail)) {
+        Segment rolledSegment = segments.remove(segments.size() - 1);
+        activeSegment = segments.get(segments.size() - 1);
+        try {
+          rolledSegment.channel.close();
+          Files.delete(rolledSegment.path);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Failed to delete payment journal segment " + rolledSegment.path, e);
+        }
+      }
+      nextRecordNo = (int) tail;
+      unsyncedRecords = 0;
+      discardTail(activeSegment, nextRecordNo);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  Payment read(long position) {
+    return PaymentRecord.read(segments.get(segmentNoOf(position)).buffer, offsetOf(position));
+  }
+
+  ByteBuffer segmentOf(long position) {
+    return segments.get(segmentNoOf(position)).buffer;
+  }
+
+  static int offsetOf(long position) {
+    return (int) position * RECORD_SIZE;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fsyncScheduler != null) {
+      fsyncScheduler.shutdownNow();
+    }
+    appendLock.lock();
+    try {
+      for (Segment segment : segments) {
+        segment.buffer.force();
+        segment.channel.close();
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private void rollSegment() {
+    activeSegment.buffer.force();
+    int segmentNo = activeSegment.segmentNo + 1;
+    try {
+      activeSegment = Segment.open(segmentNo, segmentFile(segmentNo), options.getRecordsPerSegment());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to roll payment journal segment " + segmentNo, e);
+    }
+    segments.add(activeSegment);
+    nextRecordNo = 0;
+    unsyncedRecords = 0;
+  }
+
+  private void forceActiveSegment() {
+    try {
+      activeSegment.buffer.force();
+    } catch (RuntimeException e) {
+      log.error("Failed to force payment journal segment {}", activeSegment.path, e);
+    }
+  }
+
+  private int scan(Segment segment, RecordVisitor visitor) {
+    ByteBuffer view = segment.buffer.duplicate();
+    CRC32C checksum = new CRC32C();
+    int recordNo = 0;
+    while (recordNo < segment.capacity && isValid(view, recordNo * RECORD_SIZE, checksum)) {
+      visitor.visit(position(segment.segmentNo, recordNo), segment.buffer, recordNo * RECORD_SIZE);
+      recordNo++;
+    }
+    return recordNo;
+  }
+
+  //Writeback order is not guaranteed for mapped pages, so records past the torn one are zeroed too
+  private static void discardTail(Segment segment, int fromRecordNo) {
+    ByteBuffer buffer = segment.buffer;
+    int tailOffset = fromRecordNo * RECORD_SIZE;
+    if (isZero(buffer, tailOffset, buffer.capacity())) {
+      return;
+    }
+    log.warn("Discarding tail of payment journal segment {} after record {}", segment.path,
+        fromRecordNo);
+    for (int offset = tailOffset; offset < buffer.capacity(); offset += Long.BYTES) {
+      buffer.putLong(offset, 0L);
+    }
+    segment.buffer.force();
+  }
+
+  private static boolean isZero(ByteBuffer buffer, int from, int to) {
+    for (int offset = from; offset < to; offset += Long.BYTES) {
+      if (buffer.getLong(offset) != 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isValid(ByteBuffer view, int offset, CRC32C checksum) {
+    return view.getInt(offset + MAGIC) == RECORD_MAGIC
+        && view.getInt(offset + CHECKSUM) == checksum(view, offset, checksum);
+  }
+
+  private static int checksum(ByteBuffer view, int offset, CRC32C checksum) {
+    checksum.reset();
+    view.limit(offset + PaymentRecord.SIZE).position(offset);
+    checksum.update(view);
+    view.limit(view.capacity());
+    return (int) checksum.getValue();
+  }
+
+  private List<Path> listSegmentFiles() throws IOException {
+    List<Path> segmentFiles = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(file -> SEGMENT_FILE_NAME.matcher(file.getFileName().toString()).matches())
+          .sorted()
+          .forEach(segmentFiles::add);
+    }
+    for (int segmentNo = 0; segmentNo < segmentFiles.size(); segmentNo++) {
+      Matcher matcher = SEGMENT_FILE_NAME.matcher(segmentFiles.get(segmentNo).getFileName().toString());
+      if (!matcher.matches() || Integer.parseInt(matcher.group(1)) != segmentNo) {
+        throw new IllegalStateException("Payment journal segment " + segmentNo + " is missing from " + directory);
+      }
+    }
+    return segmentFiles;
+  }
+
+  private Path segmentFile(int segmentNo) {
+    return directory.resolve(String.format("payments-%010d.journal", segmentNo));
+  }
+
+  private static long position(int segmentNo, int recordNo) {
+    return (long) segmentNo << 32 | recordNo;
+  }
+
+  private static int segmentNoOf(long position) {
+    return (int) (position >>> 32);
+  }
+
+  private static final class Segment {
+    private final int segmentNo;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    //Only used under the append lock
+    private final ByteBuffer appendView;
+    private final int capacity;
+
+    private Segment(int segmentNo, Path path, FileChannel channel, MappedByteBuffer buffer) {
+      this.segmentNo = segmentNo;
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+      this.appendView = buffer.duplicate();
+      this.capacity = buffer.capacity() / RECORD_SIZE;
+    }
+
+    /**
+     * Maps the whole segment file, growing it to at least {@code minRecords} records.
+     */
+    static Segment open(int segmentNo, Path path, int minRecords) throws IOException {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        long records = Math.max(channel.size() / RECORD_SIZE, minRecords);
+        MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, records * RECORD_SIZE);
+        return new Segment(segmentNo, path, channel, buffer);
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Fixed-width binary layout of a {@link Payment}, used by the repositories that keep payments
+ * outside of the Java heap.
+ * <pre>
+ *  0  transaction id            2 x long
+ * 16  idempotency key           2 x long
+ * 32  minor amount              long
+ * 40  currency                  short, ISO code packed in base 26
+ * 42  card last four digits     short
+ * 44  expiry year               short
+ * 46  expiry month              byte
+ * 47  status                    byte, {@link PaymentStatus} ordinal
+ * </pre>
+ * The currency is stored as its {@link IsoCurrency#getPackedCode() packed code} rather than its
+ * ordinal, so records stay readable whatever currencies the running JDK knows about, and a record
+ * of a currency the JDK does not know fails to read with the code named. The creation time is
+ * not stored, as it is read back from the {@link TransactionIdGenerator time-ordered} transaction
+ * id.
+ */
+final class PaymentRecord {
+
+  static final int SIZE = 48;
+  static final int TRANSACTION_ID = 0;
+  static final int IDEMPOTENCY_KEY = 16;
+  private static final int MINOR_AMOUNT = 32;
+  static final int CURRENCY = 40;
+  private static final int LAST_FOUR_CARD_DIGITS = 42;
+  private static final int EXPIRY_YEAR = 44;
+  private static final int EXPIRY_MONTH = 46;
+  private static final int STATUS = 47;
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private PaymentRecord() {
+  }
+
+  static void write(ByteBuffer buffer, int offset, Payment payment) {
+    PaymentMethodDetails paymentMethodDetails = payment.getPaymentMethodDetails();
+    CashAmount cashAmount = payment.getCashAmount();
+    writeId(buffer, offset + TRANSACTION_ID, payment.getTransactionId());
+    writeId(buffer, offset + IDEMPOTENCY_KEY, payment.getIdempotencyKey());
+    buffer.putLong(offset + MINOR_AMOUNT, cashAmount.getMinorAmount());
+    buffer.putShort(offset + CURRENCY, (short) cashAmount.getCurrency().getPackedCode());
+    buffer.putShort(offset + LAST_FOUR_CARD_DIGITS, (short) paymentMethodDetails.getLastFourCardDigits());
+    buffer.putShort(offset + EXPIRY_YEAR, (short) paymentMethodDetails.getExpiryYear());
+    buffer.put(offset + EXPIRY_MONTH, (byte) paymentMethodDetails.getExpiryMonth());
+    buffer.put(offset + STATUS, (byte) payment.getStatus().ordinal());
+  }
+
+  static Payment read(ByteBuffer buffer, int offset) {
+    IsoCurrency currency = readCurrency(buffer, offset + CURRENCY);
+    CashAmount cashAmount = new CashAmount(currency, buffer.getLong(offset + MINOR_AMOUNT));
+    PaymentMethodDetails paymentMethodDetails = new PaymentMethodDetails(
+        buffer.getShort(offset + LAST_FOUR_CARD_DIGITS),
+        buffer.get(offset + EXPIRY_MONTH),
+        buffer.getShort(offset + EXPIRY_YEAR));
+    Payment payment = new Payment(readId(buffer, offset + IDEMPOTENCY_KEY),
+        STATUSES[buffer.get(offset + STATUS)],
+        cashAmount,
+        paymentMethodDetails);
+    UUID transactionId = readId(buffer, offset + TRANSACTION_ID);
+    payment.setTransactionId(transactionId);
+    payment.setCreatedAt(TransactionIdGenerator.createdAt(transactionId));
+    return payment;
+  }
+
+  static boolean hasId(ByteBuffer buffer, int offset, int idField, long mostSigBits,
+      long leastSigBits) {
+    return buffer.getLong(offset + idField) == mostSigBits
+        && buffer.getLong(offset + idField + Long.BYTES) == leastSigBits;
+  }
+
+  static long mostSigBits(ByteBuffer buffer, int offset, int idField) {
+    return buffer.getLong(offset + idField);
+  }
+
+  static long leastSigBits(ByteBuffer buffer, int offset, int idField) {
+    return buffer.getLong(offset + idField + Long.BYTES);
+  }
+
+  private static void writeId(ByteBuffer buffer, int offset, UUID id) {
+    buffer.putLong(offset, id.getMostSignificantBits());
+    buffer.putLong(offset + Long.BYTES, id.getLeastSignificantBits());
+  }
+
+  private static IsoCurrency readCurrency(ByteBuffer buffer, int offset) {
+    int packedCode = buffer.getShort(offset);
+    IsoCurrency currency = IsoCurrency.ofPackedCode(packedCode);
+    if (currency == null) {
+      throw new IllegalStateException("Payment record currency " + unpackCode(packedCode)
+          + " is not known to this JDK");
+    }
+    return currency;
+  }
+
+  //The three letters of a packed code, or the number itself if it is not one
+  private static String unpackCode(int packedCode) {
+    if (packedCode < 0 || packedCode >= 26 * 26 * 26) {
+      return String.valueOf(packedCode);
+    }
+    return new String(new char[]{
+        (char) ('A' + packedCode / (26 * 26)), (char) ('A' + packedCode / 26 % 26), (char) ('A' + packedCode % 26)});
+  }
+
+  private static UUID readId(ByteBuffer buffer, int offset) {
+    return new UUID(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES));
+  }
+}
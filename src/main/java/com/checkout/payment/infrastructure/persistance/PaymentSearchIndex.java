@@ -0,0 +1,400 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Secondary indexes answering {@link PaymentSearchQuery}s over the payments of a repository,
+ * maintained as each payment is created.
+ * <p>
+ * Every payment indexed is given the next document number, and results are returned in
+ * descending document order, newest first. A page's cursor is the document number its last
+ * payment was given, so the next page resumes below it however many payments were created since.
+ * <ul>
+ *     <li>Creation time: a {@link ConcurrentSkipListMap} from each second to the first document created in it, over a column of creation times in document order. A time range is narrowed to the second by the skip list and to the millisecond by a binary search of the column.</li>
+ *     <li>Status and currency: a bitmap of documents per value, intersected 64 documents at a time.</li>
+ *     <li>Card number last four digits: an ascending list of documents per value.</li>
+ * </ul>
+ * Creation times never decrease in document order: a payment indexed after one created later is
+ * indexed as created at the same time as it.
+ * <p>
+ * Each document also has an order ID, the greatest transaction ID indexed in its millisecond so
+ * far, so documents never decrease in creation time and order ID either, and a search merging the
+ * pages of several indexes can order them all by the two.
+ *
+ * <p>Thread safety is achieved without blocking readers:</p>
+ * <ul>
+ *     <li>Writers are serialised by a lock.</li>
+ *     <li>Readers never lock. A document only becomes visible to them when the volatile {@code size} is raised past it, after every index holds it. Storage grows in chunks that are never moved, so a reader only ever sees documents it can fully read.</li>
+ * </ul>
+ */
+class PaymentSearchIndex {
+
+  private static final int DOCS_PER_CHUNK_SHIFT = 16;
+  private static final int DOCS_PER_CHUNK = 1 << DOCS_PER_CHUNK_SHIFT;
+  private static final int WORDS_PER_CHUNK_SHIFT = DOCS_PER_CHUNK_SHIFT - 6;
+  private static final int WORDS_PER_CHUNK = 1 << WORDS_PER_CHUNK_SHIFT;
+  private static final int CARD_NUMBER_LAST_FOUR_VALUES = 10_000;
+  private static final long MILLIS_PER_SECOND = 1_000;
+
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private final ConcurrentSkipListMap<Long, Integer> firstDocBySecond = new ConcurrentSkipListMap<>();
+  private final LongColumn createdAtMillis = new LongColumn();
+  private final LongColumn transactionIdMostSigBits = new LongColumn();
+  private final LongColumn transactionIdLeastSigBits = new LongColumn();
+  private final LongColumn orderIdMostSigBits = new LongColumn();
+  private final LongColumn orderIdLeastSigBits = new LongColumn();
+  private final Bitmap[] statusBitmaps = new Bitmap[PaymentStatus.values().length];
+  private final AtomicReferenceArray<Bitmap> currencyBitmaps = new AtomicReferenceArray<>(IsoCurrency.count());
+  private final AtomicReferenceArray<PostingList> cardNumberLastFourPostings =
+      new AtomicReferenceArray<>(CARD_NUMBER_LAST_FOUR_VALUES);
+  private volatile int size;
+  private long lastCreatedAtMillis = Long.MIN_VALUE;
+
+  PaymentSearchIndex() {
+    for (int i = 0; i < statusBitmaps.length; i++) {
+      statusBitmaps[i] = new Bitmap();
+    }
+  }
+
+  /**
+   * Indexes a payment with its transaction ID assigned, as created at its creation time, or at the
+   * epoch if it has none.
+   */
+  void add(Payment payment) {
+    long createdAtEpochMillis = payment.getCreatedAt() == null ? 0L : payment.getCreatedAt().toEpochMilli();
+    writeLock.lock();
+    try {
+      int doc = size;
+      long createdAt = Math.max(lastCreatedAtMillis, createdAtEpochMillis);
+      long mostSigBits = payment.getTransactionId().getMostSignificantBits();
+      long leastSigBits = payment.getTransactionId().getLeastSignificantBits();
+      createdAtMillis.set(doc, createdAt);
+      transactionIdMostSigBits.set(doc, mostSigBits);
+      transactionIdLeastSigBits.set(doc, leastSigBits);
+      if (doc > 0 && createdAt == lastCreatedAtMillis
+          && compareIds(mostSigBits, leastSigBits, orderIdMostSigBits.get(doc - 1), orderIdLeastSigBits.get(doc - 1)) < 0) {
+        mostSigBits = orderIdMostSigBits.get(doc - 1);
+        leastSigBits = orderIdLeastSigBits.get(doc - 1);
+      }
+      orderIdMostSigBits.set(doc, mostSigBits);
+      orderIdLeastSigBits.set(doc, leastSigBits);
+      statusBitmaps[payment.getStatus().ordinal()].set(doc);
+      currencyBitmap(payment.getCashAmount().getCurrency().getOrdinal()).set(doc);
+      cardNumberLastFourPostings(payment.getPaymentMethodDetails().getLastFourCardDigits()).add(doc);
+      long second = Math.floorDiv(createdAt, MILLIS_PER_SECOND);
+      if (doc == 0 || second != Math.floorDiv(lastCreatedAtMillis, MILLIS_PER_SECOND)) {
+        firstDocBySecond.put(second, doc);
+      }
+      lastCreatedAtMillis = createdAt;
+      size = doc + 1;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param paymentLookup resolves a matching transaction ID to its payment
+   * @throws IllegalArgumentException if the limit is not positive
+   * @throws InvalidCursorException if the cursor was not returned by this index
+   */
+  PaymentPage search(PaymentSearchQuery query, Function<UUID, Optional<Payment>> paymentLookup) {
+    if (query.getLimit() < 1) {
+      throw new IllegalArgumentException("limit must be positive, limit=" + query.getLimit());
+    }
+    int size = this.size;
+    int highDoc = query.getCursor() == null ? size : parseCursor(query.getCursor(), size);
+    //One more than the page, to know whether there is a next one
+    int[] docs = new int[query.getLimit() + 1];
+    int found = collect(query, highDoc, size, docs);
+    int pageSize = Math.min(found, query.getLimit());
+    List<Payment> payments = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      paymentLookup.apply(transactionId(docs[i])).ifPresent(payments::add);
+    }
+    return new PaymentPage(payments, found > pageSize ? Integer.toString(docs[pageSize - 1]) : null);
+  }
+
+  /**
+   * Collects the documents below {@code highDoc} matching the query's filters and time range,
+   * newest first, as many as {@code docs} holds. The query's cursor and limit are ignored.
+   *
+   * @param size the {@link #size()} read once for the whole search
+   * @return the number of documents collected
+   */
+  int collect(PaymentSearchQuery query, int highDoc, int size, int[] docs) {
+    if (query.getTo() != null) {
+      highDoc = Math.min(highDoc, firstDocCreatedAtOrAfter(query.getTo().toEpochMilli(), size));
+    }
+    int lowDoc = query.getFrom() == null ? 0 : firstDocCreatedAtOrAfter(query.getFrom().toEpochMilli(), size);
+    return lowDoc < highDoc ? collectMatching(query, lowDoc, highDoc, docs) : 0;
+  }
+
+  /**
+   * @return the document of the payment with the transaction ID indexed as created at the time, or
+   * -1 if there is none
+   */
+  int docOf(long createdAtEpochMillis, UUID transactionId, int size) {
+    for (int doc = firstDocCreatedAtOrAfter(createdAtEpochMillis, size);
+        doc < size && createdAtMillis.get(doc) == createdAtEpochMillis; doc++) {
+      if (transactionIdMostSigBits.get(doc) == transactionId.getMostSignificantBits()
+          && transactionIdLeastSigBits.get(doc) == transactionId.getLeastSignificantBits()) {
+        return doc;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the first document ordered at or after the document of another index, by creation
+   * time and then order ID, or size if there is none
+   */
+  int firstDocOrderedAtOrAfter(PaymentSearchIndex other, int otherDoc, int size) {
+    long createdAt = other.createdAtMillis.get(otherDoc);
+    long mostSigBits = other.orderIdMostSigBits.get(otherDoc);
+    long leastSigBits = other.orderIdLeastSigBits.get(otherDoc);
+    int low = firstDocCreatedAtOrAfter(createdAt, size);
+    int high = createdAt == Long.MAX_VALUE ? size : firstDocCreatedAtOrAfter(createdAt + 1, size);
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareIds(orderIdMostSigBits.get(middle), orderIdLeastSigBits.get(middle), mostSigBits, leastSigBits) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Compares documents of two indexes by creation time and then order ID.
+   */
+  int compare(int doc, PaymentSearchIndex other, int otherDoc) {
+    int byCreatedAt = Long.compare(createdAtMillis.get(doc), other.createdAtMillis.get(otherDoc));
+    return byCreatedAt != 0
+        ? byCreatedAt
+        : compareIds(orderIdMostSigBits.get(doc), orderIdLeastSigBits.get(doc),
+            other.orderIdMostSigBits.get(otherDoc), other.orderIdLeastSigBits.get(otherDoc));
+  }
+
+  //The creation time the document is indexed at, which may be later than its payment's
+  long createdAtMillis(int doc) {
+    return createdAtMillis.get(doc);
+  }
+
+  UUID transactionId(int doc) {
+    return new UUID(transactionIdMostSigBits.get(doc), transactionIdLeastSigBits.get(doc));
+  }
+
+  //The first document created at or after the time, or size if there is none
+  private int firstDocCreatedAtOrAfter(long epochMillis, int size) {
+    long second = Math.floorDiv(epochMillis, MILLIS_PER_SECOND);
+    Map.Entry<Long, Integer> floor = firstDocBySecond.floorEntry(second);
+    Map.Entry<Long, Integer> higher = firstDocBySecond.higherEntry(second);
+    int low = floor == null ? 0 : Math.min(floor.getValue(), size);
+    int high = higher == null ? size : Math.min(higher.getValue(), size);
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (createdAtMillis.get(middle) < epochMillis) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int collectMatching(PaymentSearchQuery query, int lowDoc, int highDoc, int[] docs) {
+    Bitmap status = query.getStatus() == null ? null : statusBitmaps[query.getStatus().ordinal()];
+    Bitmap currency = null;
+    if (query.getCurrency() != null) {
+      currency = currencyBitmaps.get(query.getCurrency().getOrdinal());
+      if (currency == null) {
+        return 0;
+      }
+    }
+    Integer cardNumberLastFour = query.getCardNumberLastFour();
+    if (cardNumberLastFour != null) {
+      PostingList postings = cardNumberLastFour >= 0 && cardNumberLastFour < CARD_NUMBER_LAST_FOUR_VALUES
+          ? cardNumberLastFourPostings.get(cardNumberLastFour)
+          : null;
+      return postings == null ? 0 : postings.collect(lowDoc, highDoc, status, currency, docs);
+    }
+    return Bitmap.collect(lowDoc, highDoc, status, currency, docs);
+  }
+
+  private Bitmap currencyBitmap(int currencyOrdinal) {
+    Bitmap bitmap = currencyBitmaps.get(currencyOrdinal);
+    if (bitmap == null) {
+      bitmap = new Bitmap();
+      currencyBitmaps.set(currencyOrdinal, bitmap);
+    }
+    return bitmap;
+  }
+
+  private PostingList cardNumberLastFourPostings(int cardNumberLastFour) {
+    PostingList postings = cardNumberLastFourPostings.get(cardNumberLastFour);
+    if (postings == null) {
+      postings = new PostingList();
+      cardNumberLastFourPostings.set(cardNumberLastFour, postings);
+    }
+    return postings;
+  }
+
+  //Time-ordered IDs compare as unsigned numbers, most significant bits first
+  private static int compareIds(long mostSigBits, long leastSigBits, long otherMostSigBits, long otherLeastSigBits) {
+    int byMostSigBits = Long.compareUnsigned(mostSigBits, otherMostSigBits);
+    return byMostSigBits != 0 ? byMostSigBits : Long.compareUnsigned(leastSigBits, otherLeastSigBits);
+  }
+
+  private static int parseCursor(String cursor, int size) {
+    int doc;
+    try {
+      doc = Integer.parseInt(cursor);
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(cursor);
+    }
+    if (doc < 0 || doc > size) {
+      throw new InvalidCursorException(cursor);
+    }
+    return doc;
+  }
+
+  //Written by the single writer only, in chunks allocated as it grows
+  private static final class LongColumn {
+    private volatile long[][] chunks = new long[0][];
+
+    private void set(int doc, long value) {
+      int chunkNo = doc >>> DOCS_PER_CHUNK_SHIFT;
+      long[][] chunks = this.chunks;
+      if (chunkNo == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunkNo + 1);
+        chunks[chunkNo] = new long[DOCS_PER_CHUNK];
+        this.chunks = chunks;
+      }
+      chunks[chunkNo][doc & (DOCS_PER_CHUNK - 1)] = value;
+    }
+
+    private long get(int doc) {
+      return chunks[doc >>> DOCS_PER_CHUNK_SHIFT][doc & (DOCS_PER_CHUNK - 1)];
+    }
+  }
+
+  //A chunk of words is only allocated once a document in its range is set
+  private static final class Bitmap {
+    private volatile long[][] chunks = new long[0][];
+
+    private void set(int doc) {
+      int word = doc >>> 6;
+      int chunkNo = word >>> WORDS_PER_CHUNK_SHIFT;
+      long[][] chunks = this.chunks;
+      if (chunkNo >= chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunkNo + 1);
+        chunks[chunkNo] = new long[WORDS_PER_CHUNK];
+        this.chunks = chunks;
+      } else if (chunks[chunkNo] == null) {
+        chunks[chunkNo] = new long[WORDS_PER_CHUNK];
+      }
+      chunks[chunkNo][word & (WORDS_PER_CHUNK - 1)] |= 1L << doc;
+    }
+
+    private long word(int word) {
+      long[][] chunks = this.chunks;
+      int chunkNo = word >>> WORDS_PER_CHUNK_SHIFT;
+      if (chunkNo >= chunks.length || chunks[chunkNo] == null) {
+        return 0L;
+      }
+      return chunks[chunkNo][word & (WORDS_PER_CHUNK - 1)];
+    }
+
+    private boolean contains(int doc) {
+      return (word(doc >>> 6) & 1L << doc) != 0;
+    }
+
+    /**
+     * Collects the documents from {@code highDoc} exclusive down to {@code lowDoc} set in both
+     * bitmaps, a missing one matching every document.
+     */
+    private static int collect(int lowDoc, int highDoc, Bitmap first, Bitmap second, int[] docs) {
+      int found = 0;
+      for (int word = (highDoc - 1) >>> 6; word >= lowDoc >>> 6 && found < docs.length; word--) {
+        long bits = -1L;
+        if (first != null) {
+          bits &= first.word(word);
+        }
+        if (second != null) {
+          bits &= second.word(word);
+        }
+        int wordDoc = word << 6;
+        if (highDoc - wordDoc < Long.SIZE) {
+          bits &= (1L << highDoc - wordDoc) - 1;
+        }
+        if (lowDoc > wordDoc) {
+          bits &= -1L << lowDoc - wordDoc;
+        }
+        while (bits != 0 && found < docs.length) {
+          int bit = Long.SIZE - 1 - Long.numberOfLeadingZeros(bits);
+          docs[found++] = wordDoc + bit;
+          bits &= ~(1L << bit);
+        }
+      }
+      return found;
+    }
+  }
+
+  //Unused slots hold Integer.MAX_VALUE, so the list stays sorted for a reader racing the writer
+  private static final class PostingList {
+    private volatile int[] docs = emptySlots(8);
+    private int count;
+
+    private void add(int doc) {
+      int[] docs = this.docs;
+      if (count == docs.length) {
+        int[] grownDocs = emptySlots(docs.length * 2);
+        System.arraycopy(docs, 0, grownDocs, 0, count);
+        this.docs = docs = grownDocs;
+      }
+      docs[count++] = doc;
+    }
+
+    private int collect(int lowDoc, int highDoc, Bitmap first, Bitmap second, int[] found) {
+      int[] docs = this.docs;
+      int index = Arrays.binarySearch(docs, highDoc);
+      int collected = 0;
+      for (int i = (index < 0 ? -index - 1 : index) - 1; i >= 0 && collected < found.length; i--) {
+        int doc = docs[i];
+        if (doc < lowDoc) {
+          break;
+        }
+        if ((first == null || first.contains(doc)) && (second == null || second.contains(doc))) {
+          found[collected++] = doc;
+        }
+      }
+      return collected;
+    }
+
+    private static int[] emptySlots(int length) {
+      int[] slots = new int[length];
+      Arrays.fill(slots, Integer.MAX_VALUE);
+      return slots;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A {@link PaymentsRepository} partitioned into independent shards, so writers on different
+ * cores never touch the same map and no map ever grows past its share of the payments.
+ * <p>
+ * Each shard holds its payments by transaction ID in a {@link ConcurrentHashMap} presized for
+ * its share of {@link ShardingOptions#getInitialCapacity()}, so it is not resized while the
+ * repository grows to that size, and the transaction ID of each payment by its idempotency key in
+ * its own {@link IdempotencyKeyStore}.
+ * <p>
+ * A payment is stored in the shard its idempotency key hashes to, and its transaction ID is
+ * generated with that shard's number in its lowest random bits. Creating a payment or looking it
+ * up by either ID therefore only ever touches one shard, found from the ID alone.
+ *
+ * <p>Thread safety is achieved per shard, in one of two ways:</p>
+ * <ul>
+ *     <li>By default, as in {@link SimpleInMemoryPaymentsRepository}: writers store the payment under its fresh transaction ID, then claim the idempotency key with {@link IdempotencyKeyStore#putIfAbsent(UUID, UUID)}, removing the payment again if they lose the race.</li>
+ *     <li>With {@link ShardingOptions#isSingleWriter()}, every write to a shard is handed to that shard's own thread, so its maps and key store are never written concurrently. Readers still read them directly.</li>
+ * </ul>
+ *
+ * <p>Each shard indexes its own payments in its own {@link PaymentSearchIndex}, so writers on
+ * different shards never share its lock. A search collects a page from every shard and merges
+ * them newest first by indexed creation time, then by transaction ID within a millisecond. A
+ * page's cursor is the indexed creation time and transaction ID of its last payment, which locate
+ * it in its shard, found from the ID, and every other shard resumes below the same point.</p>
+ *
+ * @see ShardingOptions
+ */
+public class ShardedPaymentsRepository implements PaymentsRepository, Closeable {
+
+  private static final String CURSOR_SEPARATOR = ".";
+
+  private final Shard[] shards;
+  private final int shardMask;
+  private final TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+
+  public ShardedPaymentsRepository(ShardingOptions options) {
+    if (options.getShards() < 1) {
+      throw new IllegalArgumentException("shards must be positive, shards=" + options.getShards());
+    }
+    int shardCount = Integer.highestOneBit(options.getShards() * 2 - 1);
+    this.shards = new Shard[shardCount];
+    this.shardMask = shardCount - 1;
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i, options, shardCount);
+    }
+  }
+
+  @Override
+  public Optional<Payment> getByTransactionId(UUID transactionId) {
+    return Optional.ofNullable(shardOfTransactionId(transactionId).payments.get(transactionId));
+  }
+
+  @Override
+  public Optional<Payment> getByIdempotencyKey(UUID idempotencyKey) {
+    Shard shard = shardOfIdempotencyKey(idempotencyKey);
+    UUID transactionId = shard.paymentsIndexByIdempotencyKey.get(idempotencyKey);
+    return transactionId == null ? Optional.empty() : Optional.ofNullable(shard.payments.get(transactionId));
+  }
+
+  @Override
+  public Payment createPayment(Payment payment) {
+    Shard shard = shardOfIdempotencyKey(payment.getIdempotencyKey());
+    if (shard.writer == null) {
+      return createPayment(shard, payment);
+    }
+    try {
+      return CompletableFuture.supplyAsync(() -> createPayment(shard, payment), shard.writer).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException if the limit is not positive
+   * @throws InvalidCursorException if the cursor was not returned by this repository
+   */
+  @Override
+  public PaymentPage findPayments(PaymentSearchQuery query) {
+    if (query.getLimit() < 1) {
+      throw new IllegalArgumentException("limit must be positive, limit=" + query.getLimit());
+    }
+    int[] highDocs = query.getCursor() == null ? null : parseCursor(query.getCursor());
+    //One more than the page from every shard, as the whole page may come from one of them
+    int[][] docs = new int[shards.length][query.getLimit() + 1];
+    int[] found = new int[shards.length];
+    for (int shardNo = 0; shardNo < shards.length; shardNo++) {
+      PaymentSearchIndex index = shards[shardNo].paymentSearchIndex;
+      int size = index.size();
+      found[shardNo] = index.collect(query, highDocs == null ? size : Math.min(highDocs[shardNo], size),
+          size, docs[shardNo]);
+    }
+    int[] merged = new int[shards.length];
+    List<Payment> payments = new ArrayList<>(query.getLimit());
+    Shard lastShard = null;
+    int lastDoc = -1;
+    for (int taken = 0; taken < query.getLimit(); taken++) {
+      int newestShardNo = newestShardNo(docs, found, merged);
+      if (newestShardNo < 0) {
+        break;
+      }
+      lastShard = shards[newestShardNo];
+      lastDoc = docs[newestShardNo][merged[newestShardNo]++];
+      Payment payment = lastShard.payments.get(lastShard.paymentSearchIndex.transactionId(lastDoc));
+      if (payment != null) {
+        payments.add(payment);
+      }
+    }
+    String nextCursor = newestShardNo(docs, found, merged) < 0
+        ? null
+        : lastShard.paymentSearchIndex.createdAtMillis(lastDoc) + CURSOR_SEPARATOR
+            + lastShard.paymentSearchIndex.transactionId(lastDoc);
+    return new PaymentPage(payments, nextCursor);
+  }
+
+  @Override
+  public Optional<CompletableFuture<Payment>> reserveIdempotencyKey(UUID idempotencyKey) {
+    return shardOfIdempotencyKey(idempotencyKey).idempotencyReservations
+        .reserve(idempotencyKey, this::getByIdempotencyKey);
+  }
+
+  @Override
+  public void releaseIdempotencyKey(UUID idempotencyKey, Throwable cause) {
+    shardOfIdempotencyKey(idempotencyKey).idempotencyReservations.release(idempotencyKey, cause);
+  }
+
+  public int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.payments.size();
+    }
+    return size;
+  }
+
+  public int shardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Stops the shards' writer threads once the writes already handed to them are done.
+   */
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      if (shard.writer != null) {
+        shard.writer.close();
+      }
+    }
+  }
+
+  private Payment createPayment(Shard shard, Payment payment) {
+    UUID paymentTransactionId = generateTransactionId(shard.shardNo);
+    payment.setTransactionId(paymentTransactionId);
+    payment.setCreatedAt(TransactionIdGenerator.createdAt(paymentTransactionId));
+    shard.payments.put(paymentTransactionId, payment);
+    UUID processedTransactionId = shard.paymentsIndexByIdempotencyKey.putIfAbsent(
+        payment.getIdempotencyKey(), paymentTransactionId);
+    if (processedTransactionId != null) {
+      shard.payments.remove(paymentTransactionId);
+      Payment processedPayment = shard.payments.get(processedTransactionId);
+      shard.idempotencyReservations.complete(processedPayment);
+      return processedPayment;
+    }
+    shard.paymentSearchIndex.add(payment);
+    shard.idempotencyReservations.complete(payment);
+    return payment;
+  }
+
+  //The document of every shard the page after the cursor starts below
+  private int[] parseCursor(String cursor) {
+    int separator = cursor.indexOf(CURSOR_SEPARATOR);
+    long cursorCreatedAt;
+    UUID cursorTransactionId;
+    try {
+      cursorCreatedAt = Long.parseLong(cursor.substring(0, Math.max(separator, 0)));
+      cursorTransactionId = UUID.fromString(cursor.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(cursor);
+    }
+    return highDocs(cursorCreatedAt, cursorTransactionId, cursor);
+  }
+
+  //Order IDs are transaction IDs of the shard they are in, so no document of another shard is ordered the same as the cursor's
+  private int[] highDocs(long cursorCreatedAt, UUID cursorTransactionId, String cursor) {
+    int cursorShardNo = (int) cursorTransactionId.getLeastSignificantBits() & shardMask;
+    PaymentSearchIndex cursorIndex = shards[cursorShardNo].paymentSearchIndex;
+    int cursorDoc = cursorIndex.docOf(cursorCreatedAt, cursorTransactionId, cursorIndex.size());
+    if (cursorDoc < 0) {
+      throw new InvalidCursorException(cursor);
+    }
+    int[] highDocs = new int[shards.length];
+    for (int shardNo = 0; shardNo < shards.length; shardNo++) {
+      PaymentSearchIndex index = shards[shardNo].paymentSearchIndex;
+      highDocs[shardNo] = shardNo == cursorShardNo
+          ? cursorDoc
+          : index.firstDocOrderedAtOrAfter(cursorIndex, cursorDoc, index.size());
+    }
+    return highDocs;
+  }
+
+  //The shard whose next document is the newest, or -1 once every shard's are merged
+  private int newestShardNo(int[][] docs, int[] found, int[] merged) {
+    int newestShardNo = -1;
+    for (int shardNo = 0; shardNo < shards.length; shardNo++) {
+      if (merged[shardNo] < found[shardNo] && (newestShardNo < 0
+          || shards[shardNo].paymentSearchIndex.compare(docs[shardNo][merged[shardNo]],
+              shards[newestShardNo].paymentSearchIndex, docs[newestShardNo][merged[newestShardNo]]) > 0)) {
+        newestShardNo = shardNo;
+      }
+    }
+    return newestShardNo;
+  }
+
+  //The shard number replaces the lowest random bits, leaving the time order and version intact
+  private UUID generateTransactionId(int shardNo) {
+    UUID transactionId = transactionIdGenerator.next();
+    return new UUID(transactionId.getMostSignificantBits(),
+        transactionId.getLeastSignificantBits() & ~shardMask | shardNo);
+  }
+
+  private Shard shardOfTransactionId(UUID transactionId) {
+    return shards[(int) transactionId.getLeastSignificantBits() & shardMask];
+  }
+
+  private Shard shardOfIdempotencyKey(UUID idempotencyKey) {
+    return shards[UuidHash.hash(idempotencyKey.getMostSignificantBits(), idempotencyKey.getLeastSignificantBits())
+        & shardMask];
+  }
+
+  private static final class Shard {
+    private final int shardNo;
+    private final Map<UUID, Payment> payments;
+    private final IdempotencyKeyStore paymentsIndexByIdempotencyKey;
+    private final IdempotencyReservations idempotencyReservations = new IdempotencyReservations();
+    private final PaymentSearchIndex paymentSearchIndex = new PaymentSearchIndex();
+    private final ExecutorService writer;
+
+    private Shard(int shardNo, ShardingOptions options, int shardCount) {
+      this.shardNo = shardNo;
+      this.payments = new ConcurrentHashMap<>(Math.max(options.getInitialCapacity() / shardCount, 16));
+      this.paymentsIndexByIdempotencyKey = new IdempotencyKeyStore(options.getIdempotencyTtl(),
+          Math.max(options.getIdempotencyMaxSize() / shardCount, options.getIdempotencyGenerations()),
+          options.getIdempotencyGenerations());
+      this.writer = options.isSingleWriter()
+          ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("payments-shard-" + shardNo).daemon().factory())
+          : null;
+    }
+  }
+}
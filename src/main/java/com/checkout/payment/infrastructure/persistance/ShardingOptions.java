@@ -0,0 +1,22 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ShardingOptions {
+  @Builder.Default
+  private final int shards = Runtime.getRuntime().availableProcessors();
+  @Builder.Default
+  private final int initialCapacity = 1_000_000;
+  @Builder.Default
+  private final boolean singleWriter = false;
+  @Builder.Default
+  private final Duration idempotencyTtl = Duration.ofHours(24);
+  @Builder.Default
+  private final int idempotencyMaxSize = 1_000_000;
+  @Builder.Default
+  private final int idempotencyGenerations = 8;
+}
@@ -1,42 +1,58 @@
 package com.checkout.payment.infrastructure.persistance;
 
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.springframework.stereotype.Repository;
 
 /**
  * A simple in-memory implementation of the {@link PaymentsRepository} interface that is
  * thread-safe.
  * <p>
- * This repository stores payments in two {@link ConcurrentHashMap} instances:
- * <ul>
- *     <li>One map stores payments by their transaction ID</li>
- *     <li>Another map stores payments by their idempotency key</li>
- * </ul>
+ * This repository stores payments by their transaction ID in a {@link ConcurrentHashMap}, and
+ * the transaction ID of each payment by its idempotency key in an {@link IdempotencyKeyStore}. The
+ * idempotency keys are only honoured for a retry window and the store is bounded in size, so a
+ * payment stays fetchable by its transaction ID after its idempotency key is evicted.
  *
- * <p>Thread safety is achieved as follows:</p>
+ * <p>Thread safety is achieved without any global lock:</p>
  * <ul>
- *     <li>Concurrent reads are supported by using {@link ConcurrentHashMap}, which ensures thread-safe access to the maps during read operations.</li>
- *     <li>For write operations, a {@link ReentrantReadWriteLock} is used to ensure that updates to both maps (transaction ID and idempotency key) are atomic and synchronized.</li>
+ *     <li>Concurrent reads are supported by using {@link ConcurrentHashMap} and {@link IdempotencyKeyStore}, which ensure thread-safe access during read operations.</li>
+ *     <li>Writes first store the payment under its freshly generated transaction ID, which no other writer can hold, and then claim the idempotency key with {@link IdempotencyKeyStore#putIfAbsent(UUID, UUID)}. A writer losing that race removes its payment again and returns the payment that owns the key.</li>
  * </ul>
  *
- * <p>Note that the write lock is only used for the creation of payments, ensuring that the payment is added atomically to both maps. Read operations such as {@link #getByTransactionId(UUID)} and {@link #getByIdempotencyKey(UUID)} are lock-free as {@link ConcurrentHashMap} handles thread safety for these operations.</p>
+ * <p>Because the payment is stored before its idempotency key is published, {@link #getByIdempotencyKey(UUID)} never resolves to a missing payment.</p>
+ *
+ * <p>Payments are searched through a {@link PaymentSearchIndex}, updated once a payment owns its idempotency key.</p>
+ *
+ * <p>Idempotency keys of payments still waiting on the acquirer bank are held in {@link IdempotencyReservations} until the payment is created or the key is released.</p>
  *
  * @see PaymentsRepository
  * @see ConcurrentHashMap
- * @see ReentrantReadWriteLock
+ * @see IdempotencyKeyStore
  */
 @Repository
 public class SimpleInMemoryPaymentsRepository implements PaymentsRepository {
 
   private final Map<UUID, Payment> payments = new ConcurrentHashMap<>();
-  private final Map<UUID, UUID> paymentsIndexByIdempotencyKey = new ConcurrentHashMap<>();
-  private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+  private final IdempotencyKeyStore paymentsIndexByIdempotencyKey;
+  private final IdempotencyReservations idempotencyReservations = new IdempotencyReservations();
+  private final PaymentSearchIndex paymentSearchIndex = new PaymentSearchIndex();
+  private final TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+
+  public SimpleInMemoryPaymentsRepository() {
+    this(new IdempotencyKeyStore(Duration.ofHours(24), 1_000_000, 8));
+  }
+
+  public SimpleInMemoryPaymentsRepository(IdempotencyKeyStore paymentsIndexByIdempotencyKey) {
+    this.paymentsIndexByIdempotencyKey = paymentsIndexByIdempotencyKey;
+  }
 
   @Override
   public Optional<Payment> getByTransactionId(UUID transactionId) {
@@ -51,20 +67,40 @@ public class SimpleInMemoryPaymentsRepository implements PaymentsRepository {
 
   @Override
   public Payment createPayment(Payment payment) {
-    readWriteLock.writeLock().lock();
-    try {
-      UUID paymentTransactionId = generateTransactionId();
-      payment.setTransactionId(paymentTransactionId);
-      payments.put(payment.getTransactionId(), payment);
-      paymentsIndexByIdempotencyKey.put(payment.getIdempotencyKey(), paymentTransactionId);
-      return payment;
-    } finally {
-      readWriteLock.writeLock().unlock();
+    UUID paymentTransactionId = generateTransactionId();
+    payment.setTransactionId(paymentTransactionId);
+    payment.setCreatedAt(TransactionIdGenerator.createdAt(paymentTransactionId));
+    payments.put(paymentTransactionId, payment);
+    UUID processedTransactionId = paymentsIndexByIdempotencyKey.putIfAbsent(
+        payment.getIdempotencyKey(), paymentTransactionId);
+    if (processedTransactionId != null) {
+      payments.remove(paymentTransactionId);
+      Payment processedPayment = payments.get(processedTransactionId);
+      idempotencyReservations.complete(processedPayment);
+      return processedPayment;
     }
+    paymentSearchIndex.add(payment);
+    idempotencyReservations.complete(payment);
+    return payment;
+  }
+
+  @Override
+  public PaymentPage findPayments(PaymentSearchQuery query) {
+    return paymentSearchIndex.search(query, this::getByTransactionId);
+  }
+
+  @Override
+  public Optional<CompletableFuture<Payment>> reserveIdempotencyKey(UUID idempotencyKey) {
+    return idempotencyReservations.reserve(idempotencyKey, this::getByIdempotencyKey);
+  }
+
+  @Override
+  public void releaseIdempotencyKey(UUID idempotencyKey, Throwable cause) {
+    idempotencyReservations.release(idempotencyKey, cause);
   }
 
   private UUID generateTransactionId() {
-    return UUID.randomUUID();
+    return transactionIdGenerator.next();
   }
 
 }
@@ -0,0 +1,111 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered transaction IDs in the UUID version 7 layout of RFC 9562, so IDs created
+ * later sort later, and the millisecond a payment was created can be read back from its ID.
+ * <pre>
+ *  48 bits  Unix time in milliseconds
+ *   4 bits  version, 7
+ *  12 bits  sequence within the millisecond
+ *   2 bits  variant, 0b10
+ *  62 bits  random
+ * </pre>
+ * Each platform thread draws from its own {@link SecureRandom} DRBG, a block of random bytes at a
+ * time, so generating an ID takes no lock and IDs stay as hard to guess as
+ * {@link UUID#randomUUID()}. Virtual threads come and go per request, so they share a stripe of
+ * sources picked by thread ID instead, each only locked, without pinning the carrier thread, for
+ * the few instructions an ID takes.
+ * <p>
+ * IDs from one thread strictly increase: the sequence counts IDs within a millisecond, a clock
+ * going back is ignored and a full sequence moves on to the next millisecond early.
+ */
+class TransactionIdGenerator {
+
+  private static final int VERSION_7 = 0x7000;
+  private static final int SEQUENCE_MASK = 0xFFF;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+  private static final int RANDOM_BYTES_PER_DRAW = 512;
+  private static final int VIRTUAL_THREAD_SOURCES =
+      Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+
+  private final LongSupplier millisClock;
+  private final ThreadLocal<Source> platformThreadSource = ThreadLocal.withInitial(Source::new);
+  private final Source[] virtualThreadSources = new Source[VIRTUAL_THREAD_SOURCES];
+
+  TransactionIdGenerator() {
+    this(System::currentTimeMillis);
+  }
+
+  TransactionIdGenerator(LongSupplier millisClock) {
+    this.millisClock = millisClock;
+    for (int i = 0; i < VIRTUAL_THREAD_SOURCES; i++) {
+      virtualThreadSources[i] = new Source();
+    }
+  }
+
+  UUID next() {
+    Thread thread = Thread.currentThread();
+    if (!thread.isVirtual()) {
+      return platformThreadSource.get().next(millisClock.getAsLong());
+    }
+    long threadId = thread.threadId();
+    Source source = virtualThreadSources[(int) (threadId ^ threadId >>> 16) & (VIRTUAL_THREAD_SOURCES - 1)];
+    source.lock.lock();
+    try {
+      return source.next(millisClock.getAsLong());
+    } finally {
+      source.lock.unlock();
+    }
+  }
+
+  /**
+   * @return the millisecond the transaction ID was generated in, or {@code null} if it was not
+   * generated as a version 7 UUID
+   */
+  static Instant createdAt(UUID transactionId) {
+    return transactionId.version() == 7
+        ? Instant.ofEpochMilli(transactionId.getMostSignificantBits() >>> 16)
+        : null;
+  }
+
+  private static final class Source {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SecureRandom secureRandom = newSecureRandom();
+    private final ByteBuffer randomBytes = ByteBuffer.allocate(RANDOM_BYTES_PER_DRAW).position(RANDOM_BYTES_PER_DRAW);
+    private long lastMillis = Long.MIN_VALUE;
+    private int sequence;
+
+    private UUID next(long nowMillis) {
+      long millis = Math.max(nowMillis, lastMillis);
+      if (millis != lastMillis) {
+        sequence = 0;
+      } else if (++sequence > SEQUENCE_MASK) {
+        millis++;
+        sequence = 0;
+      }
+      lastMillis = millis;
+      if (!randomBytes.hasRemaining()) {
+        secureRandom.nextBytes(randomBytes.array());
+        randomBytes.clear();
+      }
+      return new UUID(millis << 16 | VERSION_7 | sequence, randomBytes.getLong() & RANDOM_MASK | VARIANT);
+    }
+
+    private static SecureRandom newSecureRandom() {
+      try {
+        return SecureRandom.getInstance("DRBG");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("DRBG SecureRandom is not available", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.checkout.payment.infrastructure.persistance;
+
+/**
+ * Hashes a UUID's two halves with the MurmurHash3 finaliser, so that its low bits alone pick a well
+ * spread hash table slot or shard, even for time-ordered IDs whose high bits barely change.
+ */
+final class UuidHash {
+
+  private UuidHash() {
+  }
+
+  static int hash(long mostSigBits, long leastSigBits) {
+    long hash = mostSigBits * 0x9E3779B97F4A7C15L ^ leastSigBits;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    return (int) hash;
+  }
+}
@@ -5,47 +5,139 @@ import com.checkout.payment.gateway.model.PaymentStatus;
 import com.checkout.payment.gateway.service.BankService;
 import com.checkout.payment.gateway.service.exception.BankServiceException;
 import com.checkout.payment.gateway.service.exception.InvalidBankPaymentDetailsException;
-import com.checkout.payment.infrastructure.rest.request.CardPaymentRequest;
+import com.checkout.payment.infrastructure.rest.request.CardPaymentRequestJsonWriter;
 import com.checkout.payment.infrastructure.rest.response.CardPaymentResponse;
-import lombok.RequiredArgsConstructor;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
+/**
+ * Authorises payments with the acquirer bank over REST.
+ * <p>
+ * Every request for a payment carries its idempotency key in the {@value #IDEMPOTENCY_KEY_HEADER}
+ * header, so the acquirer can answer a repeated request with the original authorisation. That
+ * makes it safe to retry a call the bank answered with a 5xx, which is done up to the
+ * {@link RetryBackoff}'s attempts. Timeouts are not retried here, as the caller is already late.
+ * <p>
+ * {@link #authorisePaymentAsync} runs each attempt on the bank executor and schedules the next one
+ * after the backoff, so no bank executor thread is held while waiting to retry.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class BankServiceImpl implements BankService {
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
   private final RestClient restClient;
+  private final Executor executor;
+  private final RetryBackoff retryBackoff;
+
+  public BankServiceImpl(RestClient restClient, Executor executor) {
+    this(restClient, executor, RetryBackoff.NONE);
+  }
+
+  public BankServiceImpl(RestClient restClient, Executor executor, RetryBackoff retryBackoff) {
+    this.restClient = restClient;
+    this.executor = executor;
+    this.retryBackoff = retryBackoff;
+  }
 
   @Override
-  public PaymentStatus authorisePayment(long cardNumber, int expiryMonth, int expiryYear,
+  public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth, int expiryYear,
       CashAmount cashAmount, int cvv) {
-    String expiryDate = convertToExpiryDate(expiryMonth, expiryYear);
-    CardPaymentRequest cardPaymentRequest = new CardPaymentRequest(cardNumber,expiryDate, cashAmount.getCurrencyIso(), cashAmount.getMinorAmount(), cvv);
-    CardPaymentResponse cardPaymentResponse = restClient.post().uri("/payments")
+    byte[] cardPaymentRequest = CardPaymentRequestJsonWriter.toJson(cardNumber, expiryMonth, expiryYear,
+        cashAmount.getCurrencyIso(), cashAmount.getMinorAmount(), cvv);
+    for (int attempt = 1; ; attempt++) {
+      PaymentStatus paymentStatus = attempt(idempotencyKey, cardPaymentRequest, attempt);
+      if (paymentStatus != null) {
+        return paymentStatus;
+      }
+      backoff(attempt);
+    }
+  }
+
+  //RestClient blocks, so the round trips run on the bank executor rather than the caller's thread
+  @Override
+  public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber, int expiryMonth,
+      int expiryYear, CashAmount cashAmount, int cvv) {
+    byte[] cardPaymentRequest = CardPaymentRequestJsonWriter.toJson(cardNumber, expiryMonth, expiryYear,
+        cashAmount.getCurrencyIso(), cashAmount.getMinorAmount(), cvv);
+    CompletableFuture<PaymentStatus> result = new CompletableFuture<>();
+    attemptAsync(idempotencyKey, cardPaymentRequest, 1, result);
+    return result;
+  }
+
+  private void attemptAsync(UUID idempotencyKey, byte[] cardPaymentRequest, int attempt,
+      CompletableFuture<PaymentStatus> result) {
+    CompletableFuture<PaymentStatus> response;
+    try {
+      response = CompletableFuture.supplyAsync(() -> attempt(idempotencyKey, cardPaymentRequest, attempt), executor);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return;
+    }
+    response.whenComplete((paymentStatus, e) -> {
+      if (e != null) {
+        result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+      } else if (paymentStatus != null) {
+        result.complete(paymentStatus);
+      } else {
+        CompletableFuture.delayedExecutor(retryBackoff.backoffNanos(attempt), TimeUnit.NANOSECONDS)
+            .execute(() -> attemptAsync(idempotencyKey, cardPaymentRequest, attempt + 1, result));
+      }
+    });
+  }
+
+  //null when the bank answered a 5xx and there are attempts left
+  private PaymentStatus attempt(UUID idempotencyKey, byte[] cardPaymentRequest, int attempt) {
+    try {
+      return convertCardPaymentResponse(send(idempotencyKey.toString(), cardPaymentRequest));
+    } catch (HttpServerErrorException e) {
+      if (attempt == retryBackoff.getMaxAttempts()) {
+        log.error("Communication problem with calling the acquirer bank");
+        throw new BankServiceException(e);
+      }
+      log.warn("Acquirer bank answered {}, retrying payment {}", e.getStatusCode().value(), idempotencyKey);
+      return null;
+    } catch (ResourceAccessException e) {
+      log.error("Timed out or failed to connect in calling the acquirer bank");
+      throw new BankServiceException(e);
+    }
+  }
+
+  //The request is sent as its pre-serialised JSON, written once for all the attempts
+  private CardPaymentResponse send(String idempotencyKeyHeader, byte[] cardPaymentRequest) {
+    return restClient.post().uri("/payments")
         .contentType(MediaType.APPLICATION_JSON)
+        .header(IDEMPOTENCY_KEY_HEADER, idempotencyKeyHeader)
         .body(cardPaymentRequest)
         .retrieve()
         .onStatus(HttpStatusCode::is4xxClientError, (request, response) -> {
           log.error("Invalid/Bad Request in calling the acquirer bank");
           throw new InvalidBankPaymentDetailsException();
         })
-        .onStatus(HttpStatusCode::is5xxServerError, (request, response) -> {
-          log.error("Communication problem with calling the acquirer bank");
-          throw new BankServiceException();
-        })
         .body(CardPaymentResponse.class);
-    return convertCardPaymentResponse(cardPaymentResponse);
   }
 
-  private PaymentStatus convertCardPaymentResponse(CardPaymentResponse cardPaymentResponse) {
-    return cardPaymentResponse.isAuthorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED;
+  private void backoff(int failedAttempts) {
+    try {
+      Thread.sleep(Duration.ofNanos(retryBackoff.backoffNanos(failedAttempts)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BankServiceException(e);
+    }
   }
 
-  private String convertToExpiryDate(int expiryMonth, int expiryYear) {
-    return String.format("%02d/%d", expiryMonth, expiryYear);
+  private PaymentStatus convertCardPaymentResponse(CardPaymentResponse cardPaymentResponse) {
+    return cardPaymentResponse.isAuthorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED;
   }
 }
@@ -0,0 +1,48 @@
+package com.checkout.payment.infrastructure.rest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and how long to wait before a failed bank call is tried again.
+ * <p>
+ * The wait before each retry is drawn at random from zero up to an exponentially growing cap
+ * ("full jitter"), so payments failed by the same bank hiccup do not all retry in step.
+ */
+public final class RetryBackoff {
+  public static final RetryBackoff NONE = new RetryBackoff(1, Duration.ZERO, Duration.ZERO);
+
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+
+  /**
+   * @param maxAttempts the most times a call is made, including the first
+   */
+  public RetryBackoff(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be at least 1");
+    }
+    if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+      throw new IllegalArgumentException("Backoff must be 0 <= initialBackoff <= maxBackoff");
+    }
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffNanos = initialBackoff.toNanos();
+    this.maxBackoffNanos = maxBackoff.toNanos();
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * @param failedAttempts the attempts made so far, from 1
+   * @return the nanos to wait before the next attempt, between zero and
+   * {@code min(maxBackoff, initialBackoff * 2^(failedAttempts - 1))}
+   */
+  public long backoffNanos(int failedAttempts) {
+    int doublings = Math.min(failedAttempts - 1, Long.numberOfLeadingZeros(initialBackoffNanos) - 1);
+    long capNanos = Math.min(maxBackoffNanos, initialBackoffNanos << Math.max(doublings, 0));
+    return capNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(capNanos + 1);
+  }
+}
@@ -10,7 +10,7 @@ public class CardPaymentRequest {
   @JsonProperty("expiry_date")
   private final String expiryDate;
   private final String currency;
-  private final int amount;
+  private final long amount;
   private final int cvv;
 
 }
@@ -0,0 +1,45 @@
+package com.checkout.payment.infrastructure.rest.request;
+
+import com.checkout.payment.json.JsonBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the {@link CardPaymentRequest} of a payment's card details as the JSON Jackson writes for
+ * it, byte for byte, but straight into a {@link JsonBuffer}, with the field names encoded once.
+ * Jackson writes the properties renamed by {@code @JsonProperty} after the others, and so does
+ * this writer.
+ * <p>
+ * The expiry date is formatted into the buffer as {@code String.format("%02d/%d", expiryMonth,
+ * expiryYear)} would format it, so no request or expiry date string is built at all.
+ */
+public final class CardPaymentRequestJsonWriter {
+  private static final byte[] CURRENCY = fieldName("{", "currency");
+  private static final byte[] AMOUNT = fieldName(",", "amount");
+  private static final byte[] CVV = fieldName(",", "cvv");
+  private static final byte[] CARD_NUMBER = fieldName(",", "card_number");
+  private static final byte[] EXPIRY_DATE = fieldName(",", "expiry_date");
+
+  private CardPaymentRequestJsonWriter() {
+  }
+
+  /**
+   * @return the JSON of the {@link CardPaymentRequest} of these card details, written in the
+   * calling thread's {@link JsonBuffer}
+   */
+  public static byte[] toJson(long cardNumber, int expiryMonth, int expiryYear, String currency, long amount,
+      int cvv) {
+    return JsonBuffer.forCurrentThread()
+        .writeRaw(CURRENCY).writeString(currency)
+        .writeRaw(AMOUNT).writeNumber(amount)
+        .writeRaw(CVV).writeNumber(cvv)
+        .writeRaw(CARD_NUMBER).writeNumber(cardNumber)
+        .writeRaw(EXPIRY_DATE).writeRaw('"').writeZeroPaddedNumber(expiryMonth, 2)
+        .writeRaw('/').writeNumber(expiryYear).writeRaw('"')
+        .writeRaw('}')
+        .toByteArray();
+  }
+
+  private static byte[] fieldName(String separator, String name) {
+    return (separator + '"' + name + "\":").getBytes(StandardCharsets.UTF_8);
+  }
+}
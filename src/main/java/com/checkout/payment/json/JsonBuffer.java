@@ -0,0 +1,277 @@
+package com.checkout.payment.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A growable byte buffer JSON is written straight into as UTF-8, for hand-written writers of the
+ * few documents on the hot path, with no {@code JsonGenerator}, no reflection and no intermediate
+ * {@link String}s.
+ * <p>
+ * Tokens are written as Jackson writes them with its default configuration, so a document written
+ * here is byte for byte the one an {@code ObjectMapper} writes: strings escape {@code "},
+ * {@code \} and control characters, using the short escapes where there is one and a six
+ * character unicode escape otherwise, as is each half of a surrogate pair, and any other character
+ * is written unescaped as UTF-8.
+ * <p>
+ * {@link #forCurrentThread()} hands each platform thread its own buffer, reset and reused for
+ * every document the thread writes, so writing allocates nothing once the buffer has grown to the
+ * largest document. Virtual threads come and go per request, so they are given a new buffer each
+ * time instead. A buffer is not thread safe.
+ */
+public final class JsonBuffer {
+  private static final int INITIAL_CAPACITY = 512;
+  private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
+      'a', 'b', 'c', 'd', 'e', 'f'};
+  private static final byte[] UPPER_HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
+      'A', 'B', 'C', 'D', 'E', 'F'};
+  private static final boolean[] ESCAPED = new boolean[0x80];
+  private static final byte[] DIGIT_TENS = new byte[100];
+  private static final byte[] DIGIT_ONES = new byte[100];
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+  private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+  private static final ThreadLocal<JsonBuffer> PLATFORM_THREAD_BUFFER = ThreadLocal.withInitial(JsonBuffer::new);
+
+  static {
+    for (int c = 0; c < 0x20; c++) {
+      ESCAPED[c] = true;
+    }
+    ESCAPED['"'] = true;
+    ESCAPED['\\'] = true;
+    for (int i = 0; i < 100; i++) {
+      DIGIT_TENS[i] = (byte) ('0' + i / 10);
+      DIGIT_ONES[i] = (byte) ('0' + i % 10);
+    }
+  }
+
+  private byte[] bytes;
+  private int size;
+
+  public JsonBuffer() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public JsonBuffer(int initialCapacity) {
+    this.bytes = new byte[initialCapacity];
+  }
+
+  /**
+   * @return the calling thread's buffer, empty
+   */
+  public static JsonBuffer forCurrentThread() {
+    if (Thread.currentThread().isVirtual()) {
+      return new JsonBuffer();
+    }
+    JsonBuffer buffer = PLATFORM_THREAD_BUFFER.get();
+    buffer.size = 0;
+    return buffer;
+  }
+
+  /**
+   * Writes bytes as they are, such as a field name already quoted and followed by its colon.
+   */
+  public JsonBuffer writeRaw(byte[] raw) {
+    ensureCapacity(raw.length);
+    System.arraycopy(raw, 0, bytes, size, raw.length);
+    size += raw.length;
+    return this;
+  }
+
+  public JsonBuffer writeRaw(char ascii) {
+    ensureCapacity(1);
+    bytes[size++] = (byte) ascii;
+    return this;
+  }
+
+  public JsonBuffer writeNull() {
+    return writeRaw(NULL);
+  }
+
+  public JsonBuffer writeNumber(long value) {
+    if (value == Long.MIN_VALUE) {
+      return writeRaw(LONG_MIN_VALUE);
+    }
+    ensureCapacity(20);
+    if (value < 0) {
+      bytes[size++] = '-';
+      value = -value;
+    }
+    int end = size + digits(value);
+    int position = end;
+    //Long division is slow, so all but the lowest eight digits are split off and the rest written as ints
+    while (value > Integer.MAX_VALUE) {
+      long quotient = value / 100_000_000;
+      writeDigitPairs((int) (value - quotient * 100_000_000), position, position - 8);
+      position -= 8;
+      value = quotient;
+    }
+    writeDigitPairs((int) value, position, size);
+    size = end;
+    return this;
+  }
+
+  /**
+   * Writes the number left padded with zeros to {@code width} digits, as {@code %0<width>d} formats
+   * it. A negative number is written as it is.
+   */
+  public JsonBuffer writeZeroPaddedNumber(long value, int width) {
+    if (value >= 0) {
+      ensureCapacity(width);
+      for (int padding = width - digits(value); padding > 0; padding--) {
+        bytes[size++] = '0';
+      }
+    }
+    return writeNumber(value);
+  }
+
+  /**
+   * Writes the UUID as a string in its canonical lower case form, as {@link UUID#toString()} does.
+   */
+  public JsonBuffer writeString(UUID value) {
+    if (value == null) {
+      return writeNull();
+    }
+    ensureCapacity(38);
+    bytes[size++] = '"';
+    long mostSignificantBits = value.getMostSignificantBits();
+    long leastSignificantBits = value.getLeastSignificantBits();
+    writeHex(mostSignificantBits >>> 32, 8);
+    bytes[size++] = '-';
+    writeHex(mostSignificantBits >>> 16, 4);
+    bytes[size++] = '-';
+    writeHex(mostSignificantBits, 4);
+    bytes[size++] = '-';
+    writeHex(leastSignificantBits >>> 48, 4);
+    bytes[size++] = '-';
+    writeHex(leastSignificantBits, 12);
+    bytes[size++] = '"';
+    return this;
+  }
+
+  public JsonBuffer writeString(String value) {
+    if (value == null) {
+      return writeNull();
+    }
+    int length = value.length();
+    //An ASCII character needing no escape is one byte, anything else at most six
+    ensureCapacity(length + 2);
+    byte[] bytes = this.bytes;
+    int position = size;
+    bytes[position++] = '"';
+    int i = 0;
+    for (; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= ESCAPED.length || ESCAPED[c]) {
+        break;
+      }
+      bytes[position++] = (byte) c;
+    }
+    size = position;
+    if (i < length) {
+      writeEscapedOrEncoded(value, i);
+    }
+    this.bytes[size++] = '"';
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  public void writeTo(OutputStream outputStream) throws IOException {
+    outputStream.write(bytes, 0, size);
+  }
+
+  private void writeEscapedOrEncoded(String value, int from) {
+    int length = value.length();
+    ensureCapacity(6 * (length - from) + 1);
+    for (int i = from; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < ESCAPED.length && !ESCAPED[c]) {
+        bytes[size++] = (byte) c;
+      } else if (c < 0x20) {
+        bytes[size++] = '\\';
+        switch (c) {
+          case '\b' -> bytes[size++] = 'b';
+          case '\t' -> bytes[size++] = 't';
+          case '\n' -> bytes[size++] = 'n';
+          case '\f' -> bytes[size++] = 'f';
+          case '\r' -> bytes[size++] = 'r';
+          default -> {
+            size--;
+            writeUnicodeEscape(c);
+          }
+        }
+      } else if (c == '"' || c == '\\') {
+        bytes[size++] = '\\';
+        bytes[size++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[size++] = (byte) (0xC0 | c >> 6);
+        bytes[size++] = (byte) (0x80 | c & 0x3F);
+      } else if (!Character.isSurrogate(c)) {
+        bytes[size++] = (byte) (0xE0 | c >> 12);
+        bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+        bytes[size++] = (byte) (0x80 | c & 0x3F);
+      } else {
+        //Jackson's UTF-8 generator escapes each half of a surrogate pair rather than encoding the pair
+        writeUnicodeEscape(c);
+      }
+    }
+  }
+
+  private void writeUnicodeEscape(char c) {
+    bytes[size++] = '\\';
+    bytes[size++] = 'u';
+    bytes[size++] = UPPER_HEX_DIGITS[c >> 12];
+    bytes[size++] = UPPER_HEX_DIGITS[c >> 8 & 0xF];
+    bytes[size++] = UPPER_HEX_DIGITS[c >> 4 & 0xF];
+    bytes[size++] = UPPER_HEX_DIGITS[c & 0xF];
+  }
+
+  //Writes the value right aligned before end, two digits at a time, down to start if it is shorter
+  private void writeDigitPairs(int value, int end, int start) {
+    byte[] bytes = this.bytes;
+    int position = end;
+    while (value >= 10) {
+      int quotient = value / 100;
+      int pair = value - quotient * 100;
+      bytes[--position] = DIGIT_ONES[pair];
+      bytes[--position] = DIGIT_TENS[pair];
+      value = quotient;
+    }
+    if (value > 0 || position == end) {
+      bytes[--position] = (byte) ('0' + value);
+    }
+    while (position > start) {
+      bytes[--position] = '0';
+    }
+  }
+
+  private void writeHex(long value, int hexDigits) {
+    for (int i = size + hexDigits - 1; i >= size; i--) {
+      bytes[i] = HEX_DIGITS[(int) value & 0xF];
+      value >>>= 4;
+    }
+    size += hexDigits;
+  }
+
+  private void ensureCapacity(int additionalBytes) {
+    if (size + additionalBytes > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+    }
+  }
+
+  private static int digits(long nonNegative) {
+    int digits = 1;
+    for (long limit = 10; digits < 19 && nonNegative >= limit; limit *= 10) {
+      digits++;
+    }
+    return digits;
+  }
+}
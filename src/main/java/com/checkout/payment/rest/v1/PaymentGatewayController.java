@@ -1,28 +1,50 @@
 package com.checkout.payment.rest.v1;
 
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+import com.checkout.payment.configuration.CommonExceptionHandler;
+import com.checkout.payment.configuration.PaymentsBatchConfig;
 import com.checkout.payment.gateway.command.ProcessPaymentCommand;
 import com.checkout.payment.gateway.exception.ExpiredCardDateException;
-import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.exception.InvalidBatchSizeException;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.gateway.service.BoundedParallelism;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
 import com.checkout.payment.gateway.service.exception.PaymentAlreadyProcessedException;
 import com.checkout.payment.gateway.service.exception.PaymentIncongruentServiceException;
 import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import com.checkout.payment.rest.v1.response.PaymentPageResponse;
+import com.checkout.payment.rest.v1.PaymentResponseCache.CachedPaymentResponse;
 import com.checkout.payment.rest.v1.response.PaymentResponse;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validator;
-import java.util.Currency;
+import com.checkout.payment.rest.v1.validator.InvalidPaymentRequestException;
+import com.checkout.payment.rest.v1.validator.PaymentRequestParser;
+import com.checkout.payment.rest.v1.validator.PaymentSearchQueryParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @Slf4j
@@ -30,68 +52,195 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentGatewayController {
 
   private final PaymentGatewayService paymentGatewayService;
-  private final Validator validator;
+  private final PaymentRequestParser paymentRequestParser;
+  private final PaymentsBatchConfig paymentsBatchConfig;
+  private final CommonExceptionHandler commonExceptionHandler;
+  private final PaymentMetrics paymentMetrics;
+  private final PaymentResponseCache paymentResponseCache;
+  private final ObjectMapper objectMapper;
 
-  public PaymentGatewayController(PaymentGatewayService paymentGatewayService, Validator validator) {
+  public PaymentGatewayController(PaymentGatewayService paymentGatewayService,
+      PaymentRequestParser paymentRequestParser, PaymentsBatchConfig paymentsBatchConfig,
+      CommonExceptionHandler commonExceptionHandler, PaymentMetrics paymentMetrics,
+      PaymentResponseCache paymentResponseCache, ObjectMapper objectMapper) {
     this.paymentGatewayService = paymentGatewayService;
-    this.validator = validator;
+    this.paymentRequestParser = paymentRequestParser;
+    this.paymentsBatchConfig = paymentsBatchConfig;
+    this.commonExceptionHandler = commonExceptionHandler;
+    this.paymentMetrics = paymentMetrics;
+    this.paymentResponseCache = paymentResponseCache;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * Answers with the payment's serialised {@link PaymentResponse} from the
+   * {@link PaymentResponseCache}, and its ETag. A request whose {@code If-None-Match} holds that
+   * ETag is answered with a 304 and no body.
+   */
   @GetMapping("/payment/{id}")
-  public ResponseEntity<PaymentResponse> getPaymentById(@PathVariable UUID id) {
-    Optional<Payment> payment = paymentGatewayService.findPaymentsByTransactionId(id);
-    return payment.map(value -> new ResponseEntity<>(PaymentResponse.from(value), HttpStatus.OK))
-        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  public ResponseEntity<byte[]> getPaymentById(@PathVariable UUID id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    CachedPaymentResponse response = paymentResponseCache.get(id,
+        paymentGatewayService::findPaymentsByTransactionId);
+    if (response == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    if (response.matches(ifNoneMatch)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.eTag()).build();
+    }
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(response.eTag())
+        .body(response.body());
   }
 
+  /**
+   * Searches payments by any of status, currency, card number last four digits and a creation time
+   * range, newest first. Pages are walked with keyset pagination: each page but the last carries a
+   * {@code nextCursor} to pass as the {@code cursor} of the next request, so a page costs the same
+   * however deep it is and is not shifted by payments created meanwhile.
+   */
+  @GetMapping("/payments")
+  public ResponseEntity<PaymentPageResponse> searchPayments(
+      @RequestParam(required = false) String status,
+      @RequestParam(required = false) String currency,
+      @RequestParam(required = false) String cardNumberLastFour,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(required = false) String limit,
+      @RequestParam(required = false) String cursor) {
+    PaymentSearchQuery query = PaymentSearchQueryParser.parse(status, currency, cardNumberLastFour, from, to,
+        limit, cursor);
+    PaymentPage paymentPage;
+    try {
+      paymentPage = paymentGatewayService.searchPayments(query);
+    } catch (InvalidCursorException e) {
+      throw new InvalidPaymentRequestException(List.of(PaymentSearchQueryParser.invalidCursor()));
+    }
+    return ResponseEntity.ok(PaymentPageResponse.from(paymentPage));
+  }
+
+  /**
+   * Answers asynchronously: the request thread is released while the acquirer bank authorises the
+   * payment, and failures completing the future are still mapped by the exception handlers.
+   */
   @PostMapping("/payment")
-  public ResponseEntity<PaymentResponse> createPayment(@RequestBody PaymentRequest paymentRequest)
+  public CompletableFuture<ResponseEntity<PaymentResponse>> createPayment(@RequestBody PaymentRequest paymentRequest)
       throws ExpiredCardDateException {
-    validatePaymentRequest(paymentRequest);
+    return submitPayment(parse(paymentRequest));
+  }
+
+  /**
+   * Validates every payment of the batch before any is sent to the acquirer bank, then authorises
+   * the valid ones with at most {@code payments.batch.parallelism} in flight. Each payment keeps its
+   * own idempotency key, so resubmitting a batch only authorises the payments not processed yet.
+   */
+  @PostMapping("/payments/batch")
+  public CompletableFuture<ResponseEntity<BatchPaymentResponse>> createPayments(
+      @RequestBody List<PaymentRequest> paymentRequests) throws InvalidBatchSizeException {
+    validateBatchSize(paymentRequests);
+    List<ParsedBatchItem> parsedItems = paymentRequests.stream()
+        .map(this::parseBatchItem)
+        .toList();
+    return BoundedParallelism.map(parsedItems, paymentsBatchConfig.getParallelism(), this::submitBatchItem)
+        .thenApply(items -> ResponseEntity.ok(new BatchPaymentResponse(items)));
+  }
+
+  /**
+   * Consumes an NDJSON upload of payments and streams an NDJSON result per line as each payment
+   * completes, see {@link PaymentStreamProcessor}. The bank concurrency limit of
+   * {@code payments.batch.parallelism} is what slows the upload down, so the request thread stays
+   * busy for the whole upload. A line longer than {@code payments.batch.max-line-length} bytes is
+   * answered with a 400 without being read into memory.
+   */
+  @PostMapping(value = "/payments/stream", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+  public void streamPayments(InputStream requestBody, HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(APPLICATION_NDJSON_VALUE);
+    long payments = new PaymentStreamProcessor(objectMapper, paymentsBatchConfig.getParallelism(),
+        paymentsBatchConfig.getMaxLineLength(), this::submitStreamItem)
+        .process(requestBody, response.getOutputStream());
+    log.info("Streamed {} payments", payments);
+  }
+
+  private CompletableFuture<BatchPaymentResponse.Item> submitStreamItem(PaymentRequest paymentRequest) {
+    return submitBatchItem(parseBatchItem(paymentRequest));
+  }
+
+  private CompletableFuture<ResponseEntity<PaymentResponse>> submitPayment(ProcessPaymentCommand command) {
     try {
-      Payment payment = processPayment(paymentRequest);
-      return ResponseEntity.status(HttpStatus.CREATED).body(PaymentResponse.from(payment));
+      return paymentGatewayService.processPaymentAsync(command)
+          .thenApply(payment -> ResponseEntity.status(HttpStatus.CREATED).body(PaymentResponse.from(payment)));
     } catch (PaymentAlreadyProcessedException e) {
-      return handleAlreadyProcessedPayment(paymentRequest);
+      return handleAlreadyProcessedPayment(command.getIdempotencyKey(), e);
     }
   }
 
-  private ResponseEntity<PaymentResponse> handleAlreadyProcessedPayment(
-      PaymentRequest paymentRequest) {
-    UUID idempotencyKey = UUID.fromString(paymentRequest.getIdempotencyKey());
-    Optional<Payment> processedPayment = paymentGatewayService.findPaymentByIdempotencyId(idempotencyKey);
-    if(processedPayment.isPresent()){
-      log.info("Payment has already been processed, id={} and idempotencyKey={}", processedPayment.get().getTransactionId(), idempotencyKey);
-      return ResponseEntity.status(HttpStatus.OK)
-          .body(PaymentResponse.from(processedPayment.get()));
+  //A duplicate of a payment still in flight shares the outcome of the original request
+  private CompletableFuture<ResponseEntity<PaymentResponse>> handleAlreadyProcessedPayment(
+      UUID idempotencyKey, PaymentAlreadyProcessedException exception) {
+    CompletableFuture<Payment> processedPayment = exception.getProcessedPayment()
+        .orElseGet(() -> CompletableFuture.completedFuture(
+            paymentGatewayService.findPaymentByIdempotencyId(idempotencyKey).orElseThrow(() -> {
+              log.error("Incongruent conflict. Payment already been processed but doesn't exist. idempotencyKey={}", idempotencyKey);
+              return new PaymentIncongruentServiceException();
+            })));
+    return processedPayment.thenApply(payment -> {
+      log.info("Payment has already been processed, id={} and idempotencyKey={}", payment.getTransactionId(), idempotencyKey);
+      return ResponseEntity.status(HttpStatus.OK).body(PaymentResponse.from(payment));
+    });
+  }
+
+  //A request the parser rejects is answered as its own POST /payment would have been, without the bank
+  private ParsedBatchItem parseBatchItem(PaymentRequest paymentRequest) {
+    try {
+      return new ParsedBatchItem(parse(paymentRequest), null);
+    } catch (ExpiredCardDateException | RuntimeException e) {
+      return new ParsedBatchItem(null, rejectedItem(commonExceptionHandler.handleBatchItemException(e)));
     }
-    log.error("Incongruent conflict. Payment already been processed but doesn't exist. idempotencyKey={}", idempotencyKey);
-    throw new PaymentIncongruentServiceException();
   }
 
-  private Payment processPayment(PaymentRequest paymentRequest)
-      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
-    return paymentGatewayService.processPayment(buildProcessPaymentCommand(paymentRequest));
+  //Validating the request and building its command are a single pass, so they are timed together
+  private ProcessPaymentCommand parse(PaymentRequest paymentRequest) throws ExpiredCardDateException {
+    long startNanos = PaymentMetrics.nanoTime();
+    try {
+      return paymentRequestParser.parse(paymentRequest);
+    } finally {
+      paymentMetrics.record(PaymentMetrics.Stage.PARSE, startNanos);
+    }
   }
-  private ProcessPaymentCommand buildProcessPaymentCommand(PaymentRequest paymentRequest)
-      throws ExpiredCardDateException {
-    UUID idempotencyKey = UUID.fromString(paymentRequest.getIdempotencyKey());
-    Currency currency = Currency.getInstance(paymentRequest.getCurrency());
-    CashAmount cashAmount = new CashAmount(currency, Integer.parseInt(paymentRequest.getAmount()));
-    long cardNumber = Long.parseLong(paymentRequest.getCardNumber());
-    int cvv = Integer.parseInt(paymentRequest.getCvv());
-    return new ProcessPaymentCommand(idempotencyKey,
-        cashAmount,
-        cardNumber,
-        paymentRequest.getExpiryMonth(),
-        paymentRequest.getExpiryYear(),
-        cvv);
-  }
-
-  private void validatePaymentRequest(PaymentRequest paymentRequest) {
-    Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(paymentRequest);
-    if (!violations.isEmpty()) {
-      throw new ConstraintViolationException(violations);
+
+  private CompletableFuture<BatchPaymentResponse.Item> submitBatchItem(ParsedBatchItem parsedItem) {
+    if (parsedItem.rejectedItem() != null) {
+      return CompletableFuture.completedFuture(parsedItem.rejectedItem());
+    }
+    CompletableFuture<ResponseEntity<PaymentResponse>> response;
+    try {
+      response = submitPayment(parsedItem.command());
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    return response.handle((entity, e) -> e == null
+        ? BatchPaymentResponse.Item.of(entity.getStatusCode().value(), entity.getBody())
+        : rejectedItem(commonExceptionHandler.handleBatchItemException(unwrap(e))));
+  }
+
+  private static BatchPaymentResponse.Item rejectedItem(ResponseEntity<ErrorListResponse> errorResponse) {
+    return BatchPaymentResponse.Item.of(errorResponse.getStatusCode().value(), errorResponse.getBody());
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+
+  private void validateBatchSize(List<PaymentRequest> paymentRequests) throws InvalidBatchSizeException {
+    if (paymentRequests == null || paymentRequests.isEmpty()
+        || paymentRequests.size() > paymentsBatchConfig.getMaxSize()) {
+      throw new InvalidBatchSizeException(
+          "Batch must contain between 1 and " + paymentsBatchConfig.getMaxSize() + " payments");
     }
   }
+
+  private record ParsedBatchItem(ProcessPaymentCommand command, BatchPaymentResponse.Item rejectedItem) {
+  }
 }
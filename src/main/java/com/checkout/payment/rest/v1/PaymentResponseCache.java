@@ -0,0 +1,89 @@
+package com.checkout.payment.rest.v1;
+
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponseJsonWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Holds the serialised {@link PaymentResponse} of recently read payments by transaction ID, so a
+ * repeated {@code GET /payment/{id}} is a cache lookup and a copy of the bytes, with no
+ * {@link PaymentResponse} built and no JSON written.
+ * <p>
+ * Payments never change once created, so an entry never goes stale and is only ever evicted for
+ * size. The cache holds at most {@code maxSize} responses, evicted by Caffeine's W-TinyLFU policy,
+ * which keeps the payments polled often over one-off reads and scans. Payments not found are not
+ * cached, as they may yet be created. A miss is written by {@link PaymentResponseJsonWriter} and
+ * timed as the {@link PaymentMetrics.Stage#SERIALISATION serialisation} stage, since these bytes
+ * bypass the message converter timing every other response.
+ * <p>
+ * Each response carries a strong ETag, the CRC-32C of its bytes, so a client already holding it
+ * can be answered with a 304. Hits, misses, evictions and the size are exposed as
+ * {@code cache.*} meters tagged {@code cache=payment-responses}.
+ */
+public class PaymentResponseCache {
+  public static final String CACHE_NAME = "payment-responses";
+
+  private final Cache<UUID, CachedPaymentResponse> cache;
+  private final PaymentMetrics paymentMetrics;
+
+  public PaymentResponseCache(long maxSize, PaymentMetrics paymentMetrics) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .recordStats()
+        .build();
+    this.paymentMetrics = paymentMetrics;
+  }
+
+  public PaymentResponseCache(long maxSize, PaymentMetrics paymentMetrics, MeterRegistry meterRegistry) {
+    this(maxSize, paymentMetrics);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * @param paymentLookup finds the payment on a miss
+   * @return the serialised response of the payment, or {@code null} if there is no such payment
+   */
+  public CachedPaymentResponse get(UUID transactionId, Function<UUID, Optional<Payment>> paymentLookup) {
+    return cache.get(transactionId, id -> paymentLookup.apply(id).map(this::serialise).orElse(null));
+  }
+
+  private CachedPaymentResponse serialise(Payment payment) {
+    long serialisationStartNanos = PaymentMetrics.nanoTime();
+    byte[] body = PaymentResponseJsonWriter.toJson(PaymentResponse.from(payment));
+    CRC32C crc = new CRC32C();
+    crc.update(body);
+    CachedPaymentResponse response = new CachedPaymentResponse(body, '"' + Long.toHexString(crc.getValue()) + '"');
+    paymentMetrics.record(PaymentMetrics.Stage.SERIALISATION, serialisationStartNanos);
+    return response;
+  }
+
+  public record CachedPaymentResponse(byte[] body, String eTag) {
+
+    /**
+     * @param ifNoneMatch the {@code If-None-Match} header, a comma separated list of entity tags or
+     * {@code *}
+     * @return whether the client already holds this response, comparing the tags weakly
+     */
+    public boolean matches(String ifNoneMatch) {
+      if (ifNoneMatch == null) {
+        return false;
+      }
+      for (String entityTag : ifNoneMatch.split(",")) {
+        String tag = entityTag.trim();
+        if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package com.checkout.payment.rest.v1;
+
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import com.checkout.payment.rest.v1.response.PaymentStreamResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Processes an NDJSON upload of {@link PaymentRequest}s line by line, writing an NDJSON
+ * {@link PaymentStreamResult} per line as each payment completes.
+ * <p>
+ * Memory stays flat whatever the size of the upload:
+ * <ul>
+ *     <li>Only the current line is buffered, up to {@code maxLineLength} bytes. A longer line is skipped and answered with a 400. Once {@code parallelism} payments are in flight, the next line is not read until one of them is answered, so the uploader is slowed down by TCP flow control rather than buffered.</li>
+ *     <li>Results are queued by the threads completing the payments and written by the reading thread alone, so at most {@code parallelism} results wait to be written.</li>
+ * </ul>
+ */
+@Slf4j
+final class PaymentStreamProcessor {
+
+  private static final int READ_CHUNK_SIZE = 8192;
+
+  private final ObjectReader paymentRequestReader;
+  private final ObjectWriter resultWriter;
+  private final int parallelism;
+  private final int maxLineLength;
+  private final Function<PaymentRequest, CompletableFuture<BatchPaymentResponse.Item>> paymentProcessor;
+  private final BlockingQueue<PaymentStreamResult> completedResults = new LinkedBlockingQueue<>();
+  private int inFlight;
+
+  PaymentStreamProcessor(ObjectMapper objectMapper, int parallelism, int maxLineLength,
+      Function<PaymentRequest, CompletableFuture<BatchPaymentResponse.Item>> paymentProcessor) {
+    this.paymentRequestReader = objectMapper.readerFor(PaymentRequest.class);
+    this.resultWriter = objectMapper.writerFor(PaymentStreamResult.class);
+    this.parallelism = parallelism;
+    this.maxLineLength = maxLineLength;
+    this.paymentProcessor = paymentProcessor;
+  }
+
+  /**
+   * @return the number of payment lines processed
+   */
+  long process(InputStream requestBody, OutputStream responseBody) throws IOException {
+    LineReader reader = new LineReader(requestBody, maxLineLength);
+    long lineNumber = 0;
+    long payments = 0;
+    try {
+      while (reader.next()) {
+        lineNumber++;
+        if (reader.isBlank()) {
+          continue;
+        }
+        writeCompletedResults(responseBody);
+        while (inFlight >= parallelism) {
+          awaitCompletedResult(responseBody);
+        }
+        submit(lineNumber, processLine(lineNumber, reader));
+        payments++;
+      }
+      while (inFlight > 0) {
+        awaitCompletedResult(responseBody);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted streaming payment results");
+    }
+    responseBody.flush();
+    return payments;
+  }
+
+  //The line is parsed before the reader moves on, as its buffer is reused for the next line
+  private CompletableFuture<BatchPaymentResponse.Item> processLine(long lineNumber, LineReader reader)
+      throws IOException {
+    if (reader.isTooLong()) {
+      log.info("Payment request on line {} is longer than {} bytes", lineNumber, maxLineLength);
+      return CompletableFuture.completedFuture(BatchPaymentResponse.Item.of(HttpStatus.BAD_REQUEST.value(),
+          new ErrorListResponse("paymentRequest", "PaymentRequest is longer than " + maxLineLength + " bytes")));
+    }
+    try {
+      return paymentProcessor.apply(paymentRequestReader.readValue(reader.line, 0, reader.length));
+    } catch (JsonProcessingException e) {
+      log.info("Malformed payment request on line {}", lineNumber);
+      return CompletableFuture.completedFuture(BatchPaymentResponse.Item.of(HttpStatus.BAD_REQUEST.value(),
+          new ErrorListResponse("paymentRequest", "Malformed PaymentRequest")));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void submit(long lineNumber, CompletableFuture<BatchPaymentResponse.Item> result) {
+    inFlight++;
+    result.whenComplete((item, e) -> {
+      if (e != null) {
+        log.error("Unexpected error processing payment on line {}", lineNumber, e);
+        item = BatchPaymentResponse.Item.of(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            new ErrorListResponse("internal.server.error", "Error please try later"));
+      }
+      completedResults.add(new PaymentStreamResult(lineNumber, item));
+    });
+  }
+
+  private void awaitCompletedResult(OutputStream responseBody) throws IOException, InterruptedException {
+    PaymentStreamResult completedResult = completedResults.poll();
+    if (completedResult == null) {
+      //Flush what is written before blocking, so the uploader sees results while we wait
+      responseBody.flush();
+      completedResult = completedResults.take();
+    }
+    write(completedResult, responseBody);
+    writeCompletedResults(responseBody);
+  }
+
+  private void writeCompletedResults(OutputStream responseBody) throws IOException {
+    PaymentStreamResult completedResult;
+    while ((completedResult = completedResults.poll()) != null) {
+      write(completedResult, responseBody);
+    }
+  }
+
+  private void write(PaymentStreamResult completedResult, OutputStream responseBody) throws IOException {
+    inFlight--;
+    responseBody.write(resultWriter.writeValueAsBytes(completedResult));
+    responseBody.write('\n');
+  }
+
+  //Splits the upload on '\n', dropping a '\r' before it, into a line buffer reused for every line.
+  //The buffer has room for a '\r' after the longest line, and the bytes of a line past it are
+  //skipped and the line marked too long.
+  private static final class LineReader {
+    private final InputStream in;
+    private final byte[] chunk = new byte[READ_CHUNK_SIZE];
+    private final int maxLineLength;
+    private final byte[] line;
+    private int chunkPosition;
+    private int chunkLimit;
+    private int length;
+    private boolean tooLong;
+
+    private LineReader(InputStream in, int maxLineLength) {
+      this.in = in;
+      this.maxLineLength = maxLineLength;
+      this.line = new byte[maxLineLength + 1];
+    }
+
+    //false once the upload is exhausted
+    private boolean next() throws IOException {
+      length = 0;
+      tooLong = false;
+      boolean lineStarted = false;
+      while (true) {
+        if (chunkPosition == chunkLimit) {
+          int read = in.read(chunk);
+          if (read < 0) {
+            tooLong |= length > maxLineLength;
+            return lineStarted;
+          }
+          chunkPosition = 0;
+          chunkLimit = read;
+        }
+        lineStarted = true;
+        while (chunkPosition < chunkLimit) {
+          byte b = chunk[chunkPosition++];
+          if (b == '\n') {
+            if (length > 0 && line[length - 1] == '\r') {
+              length--;
+            }
+            tooLong |= length > maxLineLength;
+            return true;
+          }
+          if (length < line.length) {
+            line[length++] = b;
+          } else {
+            tooLong = true;
+          }
+        }
+      }
+    }
+
+    private boolean isTooLong() {
+      return tooLong;
+    }
+
+    private boolean isBlank() {
+      if (tooLong) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        byte b = line[i];
+        if (b != ' ' && b != '\t' && b != '\r') {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.checkout.payment.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of each payment of a batch, in the order they were submitted. An item carries the
+ * status and body a single {@code POST /payment} of the same request would have answered with.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class BatchPaymentResponse {
+  private List<Item> results;
+
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Getter
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class Item {
+    private int status;
+    private PaymentResponse payment;
+    private List<ErrorListResponse.ErrorResponse> errors;
+
+    public static Item of(int status, PaymentResponse payment) {
+      return new Item(status, payment, null);
+    }
+
+    public static Item of(int status, ErrorListResponse errorListResponse) {
+      return new Item(status, null, errorListResponse.getErrors());
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.checkout.payment.rest.v1.response;
+
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A page of {@code GET /payments} results, newest first. {@code nextCursor} is passed as the
+ * {@code cursor} of the next request for the following page, and is left out on the last page.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentPageResponse {
+  private List<PaymentResponse> payments;
+  private String nextCursor;
+
+  public static PaymentPageResponse from(PaymentPage paymentPage) {
+    return new PaymentPageResponse(paymentPage.payments().stream().map(PaymentResponse::from).toList(),
+        paymentPage.nextCursor());
+  }
+}
@@ -19,7 +19,8 @@ public class PaymentResponse {
   private int expiryMonth;
   private int expiryYear;
   private String currency;
-  private int amount;
+  private long amount;
+  private String createdAt;
 
   public static PaymentResponse from(Payment payment) {
     PaymentMethodDetails paymentMethodDetails = payment.getPaymentMethodDetails();
@@ -30,7 +31,8 @@ public class PaymentResponse {
         paymentMethodDetails.getExpiryMonth(),
         paymentMethodDetails.getExpiryYear(),
         payment.getCashAmount().getCurrencyIso(),
-        payment.getCashAmount().getMinorAmount());
+        payment.getCashAmount().getMinorAmount(),
+        payment.getCreatedAt() == null ? null : payment.getCreatedAt().toString());
   }
 
   @Override
@@ -44,6 +46,7 @@ public class PaymentResponse {
         ", expiryYear=" + expiryYear +
         ", currency='" + currency + '\'' +
         ", amount=" + amount +
+        ", createdAt='" + createdAt + '\'' +
         '}';
   }
 }
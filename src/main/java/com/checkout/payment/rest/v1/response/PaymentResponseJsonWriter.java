@@ -0,0 +1,53 @@
+package com.checkout.payment.rest.v1.response;
+
+import com.checkout.payment.json.JsonBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a {@link PaymentResponse} as the JSON Jackson writes for it with Spring's default
+ * {@code ObjectMapper}, byte for byte, but straight into a {@link JsonBuffer}: the field names are
+ * encoded once, and the IDs and numbers are written as digits without a {@link String} in between.
+ */
+public final class PaymentResponseJsonWriter {
+  private static final byte[] ID = fieldName("{", "id");
+  private static final byte[] IDEMPOTENCY_KEY = fieldName(",", "idempotencyKey");
+  private static final byte[] STATUS = fieldName(",", "status");
+  private static final byte[] CARD_NUMBER_LAST_FOUR = fieldName(",", "cardNumberLastFour");
+  private static final byte[] EXPIRY_MONTH = fieldName(",", "expiryMonth");
+  private static final byte[] EXPIRY_YEAR = fieldName(",", "expiryYear");
+  private static final byte[] CURRENCY = fieldName(",", "currency");
+  private static final byte[] AMOUNT = fieldName(",", "amount");
+  private static final byte[] CREATED_AT = fieldName(",", "createdAt");
+
+  private PaymentResponseJsonWriter() {
+  }
+
+  /**
+   * @return the response's JSON, written in the calling thread's {@link JsonBuffer}
+   */
+  public static byte[] toJson(PaymentResponse paymentResponse) {
+    return write(JsonBuffer.forCurrentThread(), paymentResponse).toByteArray();
+  }
+
+  public static JsonBuffer write(JsonBuffer buffer, PaymentResponse paymentResponse) {
+    buffer.writeRaw(ID).writeString(paymentResponse.getId())
+        .writeRaw(IDEMPOTENCY_KEY).writeString(paymentResponse.getIdempotencyKey())
+        .writeRaw(STATUS);
+    if (paymentResponse.getStatus() == null) {
+      buffer.writeNull();
+    } else {
+      buffer.writeString(paymentResponse.getStatus().getName());
+    }
+    return buffer.writeRaw(CARD_NUMBER_LAST_FOUR).writeNumber(paymentResponse.getCardNumberLastFour())
+        .writeRaw(EXPIRY_MONTH).writeNumber(paymentResponse.getExpiryMonth())
+        .writeRaw(EXPIRY_YEAR).writeNumber(paymentResponse.getExpiryYear())
+        .writeRaw(CURRENCY).writeString(paymentResponse.getCurrency())
+        .writeRaw(AMOUNT).writeNumber(paymentResponse.getAmount())
+        .writeRaw(CREATED_AT).writeString(paymentResponse.getCreatedAt())
+        .writeRaw('}');
+  }
+
+  private static byte[] fieldName(String separator, String name) {
+    return (separator + '"' + name + "\":").getBytes(StandardCharsets.UTF_8);
+  }
+}
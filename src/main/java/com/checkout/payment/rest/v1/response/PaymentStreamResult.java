@@ -0,0 +1,19 @@
+package com.checkout.payment.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one line of an NDJSON payment upload. Results are written as they complete rather
+ * than in upload order, so each one names the line it answers.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class PaymentStreamResult {
+  private long line;
+  @JsonUnwrapped
+  private BatchPaymentResponse.Item result;
+}
@@ -1,21 +1,36 @@
 package com.checkout.payment.rest.v1.validator;
 
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import com.checkout.payment.gateway.model.IsoCurrency;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import java.util.Currency;
 
 public class CurrencyIsoValidator implements ConstraintValidator<ValidCurrencyIso, String> {
 
+  private final AllowedCurrencies allowedCurrencies;
+
+  public CurrencyIsoValidator() {
+    this(AllowedCurrencies.all());
+  }
+
+  public CurrencyIsoValidator(AllowedCurrencies allowedCurrencies) {
+    this.allowedCurrencies = allowedCurrencies;
+  }
+
   @Override
   public boolean isValid(String currencyIso, ConstraintValidatorContext context) {
     if (currencyIso == null) {
       return true; // @NotNull will handle null check separately
     }
-    try{
-      Currency.getInstance(currencyIso);
-    }catch (IllegalArgumentException | NullPointerException ex){
+    IsoCurrency isoCurrency = IsoCurrency.lookup(currencyIso);
+    if (isoCurrency == null) {
+      return false;
+    }
+    if (!allowedCurrencies.isAllowed(isoCurrency)) {
+      context.disableDefaultConstraintViolation();
+      context.buildConstraintViolationWithTemplate("Currency is not supported").addConstraintViolation();
       return false;
     }
-   return true;
+    return true;
   }
 }
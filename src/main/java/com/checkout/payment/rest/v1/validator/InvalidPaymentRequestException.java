@@ -0,0 +1,21 @@
+package com.checkout.payment.rest.v1.validator;
+
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * A {@link com.checkout.payment.rest.v1.request.PaymentRequest} breaking its constraints, thrown by
+ * {@link PaymentRequestParser}, or invalid search parameters, thrown by
+ * {@link PaymentSearchQueryParser}. Invalid requests are expected traffic, so no stack trace is taken.
+ */
+@Getter
+public class InvalidPaymentRequestException extends RuntimeException {
+
+  private final List<ErrorListResponse.ErrorResponse> errors;
+
+  public InvalidPaymentRequestException(List<ErrorListResponse.ErrorResponse> errors) {
+    super("Invalid PaymentRequest", null, false, false);
+    this.errors = errors;
+  }
+}
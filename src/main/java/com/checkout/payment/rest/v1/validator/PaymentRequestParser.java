@@ -0,0 +1,248 @@
+package com.checkout.payment.rest.v1.validator;
+
+import com.checkout.payment.gateway.command.ProcessPaymentCommand;
+import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Validates a {@link PaymentRequest} and parses it into a {@link ProcessPaymentCommand} in a single
+ * pass over each field, without reflection, regular expressions or allocating for a valid request
+ * beyond the command itself.
+ * <p>
+ * It reports the same errors as validating the constraint annotations on {@link PaymentRequest}
+ * with {@link CurrencyIsoValidator} checking the {@link AllowedCurrencies}: one per broken
+ * constraint, coded by the field name, in the order the fields and their constraints are declared.
+ * The annotations stay the documented contract and {@code PaymentRequestParserSmallTest} keeps the
+ * two in step.
+ */
+public class PaymentRequestParser {
+
+  private static final int UUID_LENGTH = 36;
+  //Returned for digits a long may not hold, left to Long.parseLong once the request is known to be
+  //valid, so those still fail as they did before. Long.MIN_VALUE itself is parsed again harmlessly.
+  private static final long PARSE_LATER = Long.MIN_VALUE;
+  private static final long NOT_DIGITS = -1;
+
+  private final AllowedCurrencies allowedCurrencies;
+
+  public PaymentRequestParser(AllowedCurrencies allowedCurrencies) {
+    this.allowedCurrencies = allowedCurrencies;
+  }
+
+  /**
+   * @throws InvalidPaymentRequestException listing every constraint the request breaks
+   * @throws ExpiredCardDateException if the request is valid but the card has expired
+   */
+  public ProcessPaymentCommand parse(PaymentRequest paymentRequest) throws ExpiredCardDateException {
+    if (paymentRequest == null) {
+      throw new InvalidPaymentRequestException(
+          List.of(new ErrorListResponse.ErrorResponse("paymentRequest", "PaymentRequest is required")));
+    }
+    Errors errors = new Errors();
+    UUID idempotencyKey = parseIdempotencyKey(paymentRequest.getIdempotencyKey(), errors);
+    long cardNumber = parseCardNumber(paymentRequest.getCardNumber(), errors);
+    validateExpiryMonth(paymentRequest.getExpiryMonth(), errors);
+    validateExpiryYear(paymentRequest.getExpiryYear(), errors);
+    IsoCurrency currency = parseCurrency(paymentRequest.getCurrency(), errors);
+    long amount = parseAmount(paymentRequest.getAmount(), errors);
+    int cvv = parseCvv(paymentRequest.getCvv(), errors);
+    if (errors.list != null) {
+      throw new InvalidPaymentRequestException(errors.list);
+    }
+    return new ProcessPaymentCommand(idempotencyKey,
+        new CashAmount(currency, amount == PARSE_LATER ? Long.parseLong(paymentRequest.getAmount()) : amount),
+        cardNumber == PARSE_LATER ? Long.parseLong(paymentRequest.getCardNumber()) : cardNumber,
+        paymentRequest.getExpiryMonth(),
+        paymentRequest.getExpiryYear(),
+        cvv);
+  }
+
+  private static UUID parseIdempotencyKey(String idempotencyKey, Errors errors) {
+    if (idempotencyKey == null) {
+      errors.add("idempotencyKey", "idempotencyKey is required");
+      return null;
+    }
+    if (idempotencyKey.length() != UUID_LENGTH
+        || idempotencyKey.charAt(8) != '-' || idempotencyKey.charAt(13) != '-'
+        || idempotencyKey.charAt(18) != '-' || idempotencyKey.charAt(23) != '-') {
+      errors.add("idempotencyKey", "Invalid idempotencyKey UUID format");
+      return null;
+    }
+    long timeLow = parseHex(idempotencyKey, 0, 8);
+    long timeMid = parseHex(idempotencyKey, 9, 13);
+    long timeHigh = parseHex(idempotencyKey, 14, 18);
+    long clockSequence = parseHex(idempotencyKey, 19, 23);
+    long node = parseHex(idempotencyKey, 24, 36);
+    if ((timeLow | timeMid | timeHigh | clockSequence | node) < 0) {
+      errors.add("idempotencyKey", "Invalid idempotencyKey UUID format");
+      return null;
+    }
+    return new UUID(timeLow << 32 | timeMid << 16 | timeHigh, clockSequence << 48 | node);
+  }
+
+  private static long parseCardNumber(String cardNumber, Errors errors) {
+    if (cardNumber == null) {
+      errors.add("cardNumber", "Card Number is required");
+      return 0;
+    }
+    if (cardNumber.length() < 14 || cardNumber.length() > 19) {
+      errors.add("cardNumber", "Card number must be between 14 and 19 characters");
+    }
+    long value = parseDigits(cardNumber, 0);
+    if (value == NOT_DIGITS) {
+      errors.add("cardNumber", "Card number must only contain numeric characters");
+    }
+    return value;
+  }
+
+  private static void validateExpiryMonth(Integer expiryMonth, Errors errors) {
+    if (expiryMonth == null) {
+      errors.add("expiryMonth", "Expiry Month is required");
+    } else if (expiryMonth < 1 || expiryMonth > 12) {
+      errors.add("expiryMonth", "Expiry Month must be between 1 and 12 digits");
+    }
+  }
+
+  //Four characters as a decimal string, so -999 to -100 pass as they do with ExpiryYearSizeValidator
+  private static void validateExpiryYear(Integer expiryYear, Errors errors) {
+    if (expiryYear == null) {
+      errors.add("expiryYear", "Expiry Year is required");
+    } else if (!(expiryYear >= 1000 && expiryYear <= 9999 || expiryYear >= -999 && expiryYear <= -100)) {
+      errors.add("expiryYear", "Expiry Year must be 4 digits");
+    }
+  }
+
+  private IsoCurrency parseCurrency(String currency, Errors errors) {
+    if (currency == null) {
+      errors.add("currency", "Currency is required");
+      errors.add("currency", "Currency cannot be empty");
+      return null;
+    }
+    if (isBlank(currency)) {
+      errors.add("currency", "Currency cannot be empty");
+    }
+    if (currency.length() != 3) {
+      errors.add("currency", "Currency number must be 3 in size");
+    }
+    IsoCurrency isoCurrency = IsoCurrency.lookup(currency);
+    if (isoCurrency == null) {
+      errors.add("currency", "Currency must be a valid ISO code standard");
+    } else if (!allowedCurrencies.isAllowed(isoCurrency)) {
+      errors.add("currency", "Currency is not supported");
+    }
+    return isoCurrency;
+  }
+
+  private static long parseAmount(String amount, Errors errors) {
+    if (amount == null) {
+      errors.add("amount", "Amount is required");
+      return 0;
+    }
+    boolean signed = !amount.isEmpty() && (amount.charAt(0) == '-' || amount.charAt(0) == '+');
+    long value = parseDigits(amount, signed ? 1 : 0);
+    if (value == NOT_DIGITS) {
+      //Any other number @Digits accepts, such as 1e3, fails Long.parseLong as it did before
+      if (!isWholeNumber(amount)) {
+        errors.add("amount", "Amount must be a numeric integer with no decimal places");
+      }
+      return PARSE_LATER;
+    }
+    return value != PARSE_LATER && amount.charAt(0) == '-' ? -value : value;
+  }
+
+  private static int parseCvv(String cvv, Errors errors) {
+    if (cvv == null) {
+      errors.add("cvv", "CVV is required");
+      return 0;
+    }
+    long value = parseDigits(cvv, 0);
+    if (value == NOT_DIGITS) {
+      errors.add("cvv", "CVV must only contain numeric characters");
+    }
+    if (cvv.length() < 3 || cvv.length() > 4) {
+      errors.add("cvv", "CVV must be between 3 and 4 characters");
+    }
+    return (int) value;
+  }
+
+  /**
+   * @return the value of the ASCII digits from {@code start}, {@link #NOT_DIGITS} if there are none
+   * or any other character, or {@link #PARSE_LATER} if the digits may not fit a long
+   */
+  private static long parseDigits(String value, int start) {
+    int length = value.length();
+    if (start == length) {
+      return NOT_DIGITS;
+    }
+    long result = 0;
+    boolean overflow = false;
+    for (int i = start; i < length; i++) {
+      int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return NOT_DIGITS;
+      }
+      overflow |= result > (Long.MAX_VALUE - digit) / 10;
+      result = result * 10 + digit;
+    }
+    return overflow ? PARSE_LATER : result;
+  }
+
+  //-1 unless every character is an ASCII hex digit, as [0-9a-fA-F]
+  private static long parseHex(String value, int start, int end) {
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      int digit;
+      if (c >= '0' && c <= '9') {
+        digit = c - '0';
+      } else if (c >= 'a' && c <= 'f') {
+        digit = c - 'a' + 10;
+      } else if (c >= 'A' && c <= 'F') {
+        digit = c - 'A' + 10;
+      } else {
+        return -1;
+      }
+      result = result << 4 | digit;
+    }
+    return result;
+  }
+
+  //As @NotBlank: nothing but characters up to and including space
+  private static boolean isBlank(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //As @Digits(integer = Integer.MAX_VALUE, fraction = 0)
+  private static boolean isWholeNumber(String value) {
+    try {
+      return new BigDecimal(value).scale() <= 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  //Only allocates a list for an invalid request
+  private static final class Errors {
+    private List<ErrorListResponse.ErrorResponse> list;
+
+    private void add(String field, String message) {
+      if (list == null) {
+        list = new ArrayList<>();
+      }
+      list.add(new ErrorListResponse.ErrorResponse(field, message));
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.checkout.payment.rest.v1.validator;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the query parameters of {@code GET /payments} into a {@link PaymentSearchQuery}, reporting
+ * every invalid parameter at once, each coded by the parameter name.
+ */
+public final class PaymentSearchQueryParser {
+
+  private static final int DEFAULT_LIMIT = 50;
+  private static final int MAX_LIMIT = 500;
+
+  private PaymentSearchQueryParser() {
+  }
+
+  /**
+   * @param from an ISO-8601 instant, inclusive
+   * @param to an ISO-8601 instant, exclusive
+   * @throws InvalidPaymentRequestException listing every invalid parameter
+   */
+  public static PaymentSearchQuery parse(String status, String currency, String cardNumberLastFour,
+      String from, String to, String limit, String cursor) {
+    List<ErrorListResponse.ErrorResponse> errors = new ArrayList<>();
+    PaymentSearchQuery.PaymentSearchQueryBuilder query = PaymentSearchQuery.builder()
+        .limit(DEFAULT_LIMIT)
+        .cursor(cursor);
+    if (status != null) {
+      query.status(parseStatus(status, errors));
+    }
+    if (currency != null) {
+      IsoCurrency isoCurrency = IsoCurrency.lookup(currency);
+      if (isoCurrency == null) {
+        errors.add(new ErrorListResponse.ErrorResponse("currency", "Currency must be a valid ISO code standard"));
+      }
+      query.currency(isoCurrency);
+    }
+    if (cardNumberLastFour != null) {
+      if (cardNumberLastFour.length() == 4 && isDigits(cardNumberLastFour)) {
+        query.cardNumberLastFour(Integer.parseInt(cardNumberLastFour));
+      } else {
+        errors.add(new ErrorListResponse.ErrorResponse("cardNumberLastFour", "Card number last four must be 4 digits"));
+      }
+    }
+    Instant fromInstant = parseInstant("from", from, errors);
+    Instant toInstant = parseInstant("to", to, errors);
+    if (fromInstant != null && toInstant != null && !fromInstant.isBefore(toInstant)) {
+      errors.add(new ErrorListResponse.ErrorResponse("from", "From must be before to"));
+    }
+    query.from(fromInstant).to(toInstant);
+    if (limit != null) {
+      int limitValue = !limit.isEmpty() && limit.length() <= 3 && isDigits(limit) ? Integer.parseInt(limit) : -1;
+      if (limitValue < 1 || limitValue > MAX_LIMIT) {
+        errors.add(new ErrorListResponse.ErrorResponse("limit", "Limit must be between 1 and " + MAX_LIMIT));
+      } else {
+        query.limit(limitValue);
+      }
+    }
+    //Each repository encodes its own cursors, so only it can tell one it did not return
+    if (cursor != null && cursor.isEmpty()) {
+      errors.add(invalidCursor());
+    }
+    if (!errors.isEmpty()) {
+      throw new InvalidPaymentRequestException(errors);
+    }
+    return query.build();
+  }
+
+  public static ErrorListResponse.ErrorResponse invalidCursor() {
+    return new ErrorListResponse.ErrorResponse("cursor", "Cursor must be the nextCursor of a previous page");
+  }
+
+  //As the status is written in responses, ignoring case
+  private static PaymentStatus parseStatus(String status, List<ErrorListResponse.ErrorResponse> errors) {
+    for (PaymentStatus paymentStatus : PaymentStatus.values()) {
+      if (paymentStatus.getName().equalsIgnoreCase(status)) {
+        return paymentStatus;
+      }
+    }
+    errors.add(new ErrorListResponse.ErrorResponse("status", "Status must be Authorized or Declined"));
+    return null;
+  }
+
+  private static Instant parseInstant(String parameter, String instant,
+      List<ErrorListResponse.ErrorResponse> errors) {
+    if (instant == null) {
+      return null;
+    }
+    try {
+      return Instant.parse(instant);
+    } catch (DateTimeParseException e) {
+      errors.add(new ErrorListResponse.ErrorResponse(parameter,
+          Character.toUpperCase(parameter.charAt(0)) + parameter.substring(1) + " must be an ISO-8601 instant"));
+      return null;
+    }
+  }
+
+  private static boolean isDigits(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,21 @@
+package com.checkout.payment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "payments.bank.circuit-breaker.enabled=false")
+class BankCircuitBreakerDisabledMediumTest extends AbstractMediumTest {
+
+  @Test
+  void health_circuitBreakerDisabled_noBankCircuitBreakerComponent() {
+    //When Then
+    given().get("/health").then().log().all()
+        .assertThat().statusCode(200)
+        .assertThat().body("status", equalTo("UP"))
+        .assertThat().body("components.bankCircuitBreaker", nullValue());
+  }
+}
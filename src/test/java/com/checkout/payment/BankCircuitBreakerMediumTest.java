@@ -0,0 +1,111 @@
+package com.checkout.payment;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.tomakehurst.wiremock.http.Fault;
+import io.restassured.response.ValidatableResponse;
+import java.time.Year;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+    "payments.bank.circuit-breaker.sliding-window-size=4",
+    "payments.bank.circuit-breaker.minimum-calls=4",
+    "payments.bank.circuit-breaker.slow-call-duration=200ms",
+    "payments.bank.circuit-breaker.wait-in-open-state=500ms",
+    "payments.bank.circuit-breaker.permitted-calls-in-half-open-state=1",
+    "payments.bank.retry.max-attempts=1"})
+class BankCircuitBreakerMediumTest extends AbstractMediumTest {
+
+  @BeforeEach
+  void resetBankRequests() {
+    WIRE_MOCK_SERVER.resetRequests();
+  }
+
+  @Test
+  void createPayment_bankFailing_circuitOpensFailsFastThenProbesAndCloses() throws Exception {
+    //Given the bank answers 500 then resets the connection
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse().withStatus(500)));
+    createPayment(502);
+    createPayment(502);
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+    createPayment(502);
+    createPayment(502);
+    //When the circuit is open
+    createPayment(503)
+        .body("errors[0].code", equalTo("bank.unavailable"));
+    //Then the bank was not called and health shows the circuit open
+    WIRE_MOCK_SERVER.verify(4, postRequestedFor(urlPathEqualTo("/payments")));
+    assertCircuitState("OPEN");
+    //When the bank recovers and the wait in open state has elapsed
+    setUpAuthorisedBank(0);
+    Thread.sleep(600);
+    //Then the probe payment goes through and closes the circuit
+    createPayment(201);
+    WIRE_MOCK_SERVER.verify(5, postRequestedFor(urlPathEqualTo("/payments")));
+    assertCircuitState("CLOSED");
+  }
+
+  @Test
+  void createPayment_bankSlow_circuitOpens() throws Exception {
+    //Given
+    setUpAuthorisedBank(300);
+    for (int i = 0; i < 4; i++) {
+      createPayment(201);
+    }
+    //When
+    createPayment(503);
+    //Then
+    WIRE_MOCK_SERVER.verify(4, postRequestedFor(urlPathEqualTo("/payments")));
+    given().get("/health").then().log().all()
+        .assertThat().statusCode(200)
+        .assertThat().body("status", equalTo("UP"))
+        .assertThat().body("components.bankCircuitBreaker.details.state", equalTo("OPEN"));
+  }
+
+  private static void setUpAuthorisedBank(int delayMillis) {
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(delayMillis)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+  }
+
+  private static void assertCircuitState(String state) {
+    given().get("/health").then().log().all()
+        .assertThat().statusCode(200)
+        .assertThat().body("status", equalTo("UP"))
+        .assertThat().body("components.bankCircuitBreaker.status", equalTo("UP"))
+        .assertThat().body("components.bankCircuitBreaker.details.state", equalTo(state));
+  }
+
+  private ValidatableResponse createPayment(int expectedStatusCode) throws JsonProcessingException {
+    return given()
+        .body(om.writeValueAsString(PaymentRequest.builder()
+            .idempotencyKey(UUID.randomUUID().toString())
+            .cardNumber("12345678912345")
+            .expiryMonth(10)
+            .expiryYear(Year.now().plusYears(1).getValue())
+            .currency("GBP")
+            .amount("150")
+            .cvv("500").build()))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then()
+        .assertThat().statusCode(expectedStatusCode);
+  }
+}
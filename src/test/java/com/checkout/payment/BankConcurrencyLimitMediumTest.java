@@ -0,0 +1,107 @@
+package com.checkout.payment;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.response.Response;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+    "payments.bank.concurrency-limit.initial-limit=2",
+    "payments.bank.concurrency-limit.min-limit=1",
+    "payments.bank.concurrency-limit.max-limit=2"})
+class BankConcurrencyLimitMediumTest extends AbstractMediumTest {
+  private static final int BANK_DELAY_MILLIS = 2000;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void createPayment_slowBankAtLimit_return503AtOnceWhileReadsStayAvailable() throws Exception {
+    //Given
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(BANK_DELAY_MILLIS)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    ExecutorService clients = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Integer>> inFlightPayments = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        String paymentRequest = paymentRequest();
+        inFlightPayments.add(clients.submit(() -> createPayment(paymentRequest).statusCode()));
+      }
+      awaitBankPaymentsInFlight(2);
+      //When
+      long start = System.nanoTime();
+      Response rejectedPayment = createPayment(paymentRequest());
+      Response read = given().get("/payment/{id}", UUID.randomUUID());
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+      //Then
+      assertThat(rejectedPayment.statusCode(), is(equalTo(503)));
+      assertThat(rejectedPayment.path("errors[0].code"), is(equalTo("bank.overloaded")));
+      assertThat(read.statusCode(), is(equalTo(404)));
+      assertThat(elapsedMillis, is(lessThan((long) BANK_DELAY_MILLIS)));
+      for (Future<Integer> inFlightPayment : inFlightPayments) {
+        assertThat(inFlightPayment.get(), is(equalTo(201)));
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+    given().get("/metrics/payments.bank.concurrency.rejections").then().log().all()
+        .assertThat().statusCode(200).contentType(JSON)
+        .assertThat().body("measurements[0].value", equalTo(1.0f));
+    //The bank calls were slower than the slow call threshold, so the limit backed off
+    given().get("/metrics/payments.bank.concurrency.limit").then()
+        .assertThat().statusCode(200)
+        .assertThat().body("measurements[0].value", equalTo(1.0f));
+    given().get("/metrics/payments.bank.concurrency.in-flight").then()
+        .assertThat().statusCode(200)
+        .assertThat().body("measurements[0].value", equalTo(0.0f));
+  }
+
+  private static Response createPayment(String paymentRequest) {
+    return given()
+        .body(paymentRequest)
+        .contentType(JSON)
+        .when()
+        .post("/payment").andReturn();
+  }
+
+  private void awaitBankPaymentsInFlight(int payments) throws InterruptedException {
+    while (meterRegistry.get("payments.bank.concurrency.in-flight").gauge().value() < payments) {
+      Thread.sleep(10);
+    }
+  }
+
+  private String paymentRequest() throws JsonProcessingException {
+    return om.writeValueAsString(PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("12345678912345")
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build());
+  }
+}
@@ -0,0 +1,102 @@
+package com.checkout.payment;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Year;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "payments.card-screening.enabled=true")
+class CardScreeningMediumTest extends AbstractMediumTest {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUpBank() {
+    WIRE_MOCK_SERVER.resetRequests();
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+  }
+
+  @Test
+  void createPayment_cardFailingLuhnCheck_return400WithoutCallingBank() throws JsonProcessingException {
+    //When & Then
+    given()
+        .log().all()
+        .body(om.writeValueAsString(paymentRequest("2222405343248112")))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then().log().all()
+        .assertThat().statusCode(400)
+        .assertThat().body("errors[0].code", equalTo("card.number.invalid"))
+        .assertThat().body("errors[0].message", equalTo("Card number is not valid"));
+    WIRE_MOCK_SERVER.verify(0, postRequestedFor(urlPathEqualTo("/payments")));
+    assertThat(savedBankCalls("card.number.invalid"), is(equalTo(1.0)));
+  }
+
+  @Test
+  void createPayment_cardOutsideBinRanges_return400WithoutCallingBank() throws JsonProcessingException {
+    //When & Then
+    given()
+        .log().all()
+        .body(om.writeValueAsString(paymentRequest("378282246310005")))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then().log().all()
+        .assertThat().statusCode(400)
+        .assertThat().body("errors[0].code", equalTo("card.scheme.unsupported"))
+        .assertThat().body("errors[0].message", equalTo("Card scheme is not supported"));
+    WIRE_MOCK_SERVER.verify(0, postRequestedFor(urlPathEqualTo("/payments")));
+    assertThat(savedBankCalls("card.scheme.unsupported"), is(equalTo(1.0)));
+  }
+
+  @Test
+  void createPayment_routedCardPassingLuhnCheck_return201() throws JsonProcessingException {
+    //When & Then
+    given()
+        .log().all()
+        .body(om.writeValueAsString(paymentRequest("2222405343248877")))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then().log().all()
+        .assertThat().statusCode(201)
+        .assertThat().body("status", equalTo("Authorized"));
+    WIRE_MOCK_SERVER.verify(1, postRequestedFor(urlPathEqualTo("/payments")));
+  }
+
+  private double savedBankCalls(String reason) {
+    return meterRegistry.get("payments.card-screening.saved-bank-calls").tag("reason", reason).counter().count();
+  }
+
+  private static PaymentRequest paymentRequest(String cardNumber) {
+    return PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber(cardNumber)
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+  }
+}
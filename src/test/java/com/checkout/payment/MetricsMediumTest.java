@@ -1,12 +1,23 @@
 package com.checkout.payment;
 
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.Year;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static io.restassured.RestAssured.given;
 import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 
+//Spring Boot tests only export to an in-memory registry unless observability is asked for
+@AutoConfigureObservability(tracing = false)
 class MetricsMediumTest extends AbstractMediumTest {
   @Test
   void testHealthCheck() {
@@ -17,7 +28,81 @@ class MetricsMediumTest extends AbstractMediumTest {
         .then().log().all()
         .assertThat().statusCode(200).contentType(JSON)
         .assertThat().body(notNullValue())
-        .assertThat().body("status", equalTo("UP"));
+        .assertThat().body("status", equalTo("UP"))
+        .assertThat().body("components.bankCircuitBreaker.details.state", equalTo("CLOSED"));
   }
 
+  @Test
+  void prometheus_paymentProcessed_everyStageTimedAndPaymentCounted() throws JsonProcessingException {
+    //Given
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    given()
+        .body(om.writeValueAsString(PaymentRequest.builder()
+            .idempotencyKey(UUID.randomUUID().toString())
+            .cardNumber("12345678912345")
+            .expiryMonth(10)
+            .expiryYear(Year.now().plusYears(1).getValue())
+            .currency("GBP")
+            .amount("150")
+            .cvv("500").build()))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then()
+        .assertThat().statusCode(201);
+    //When & Then
+    given()
+        .when()
+        .get("/prometheus")
+        .then()
+        .assertThat().statusCode(200)
+        .assertThat().body(containsString("payments_stage_seconds_count{stage=\"parse\"} 1"))
+        .assertThat().body(containsString("payments_stage_seconds_count{stage=\"idempotency-lookup\"} 1"))
+        .assertThat().body(containsString("payments_stage_seconds_count{stage=\"repository-insert\"} 1"))
+        .assertThat().body(containsString("payments_stage_seconds_count{stage=\"serialisation\"} 1"))
+        .assertThat().body(containsString("payments_bank_call_seconds_count{currency=\"GBP\",status=\"Authorized\"} 1"))
+        .assertThat().body(containsString("payments_bank_call_seconds_bucket{currency=\"GBP\",status=\"Authorized\",le="))
+        .assertThat().body(containsString("payments_processed_total{status=\"Authorized\"} 1"));
+  }
+
+  @Test
+  void prometheus_paymentReadTwice_responseCacheHitAndMissCounted() throws JsonProcessingException {
+    //Given
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    String paymentId = given()
+        .body(om.writeValueAsString(PaymentRequest.builder()
+            .idempotencyKey(UUID.randomUUID().toString())
+            .cardNumber("12345678912345")
+            .expiryMonth(10)
+            .expiryYear(Year.now().plusYears(1).getValue())
+            .currency("GBP")
+            .amount("150")
+            .cvv("500").build()))
+        .contentType(JSON)
+        .when()
+        .post("/payment")
+        .then()
+        .assertThat().statusCode(201)
+        .extract().path("id");
+    for (int i = 0; i < 2; i++) {
+      given().pathParam("id", paymentId).when().get("/payment/{id}").then().assertThat().statusCode(200);
+    }
+    //When & Then
+    given()
+        .when()
+        .get("/prometheus")
+        .then()
+        .assertThat().statusCode(200)
+        .assertThat().body(containsString("cache_gets_total{cache=\"payment-responses\",result=\"hit\"} 1"))
+        .assertThat().body(containsString("cache_gets_total{cache=\"payment-responses\",result=\"miss\"} 1"))
+        .assertThat().body(containsString("cache_size{cache=\"payment-responses\"} 1"));
+  }
 }
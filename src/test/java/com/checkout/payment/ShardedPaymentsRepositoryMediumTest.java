@@ -0,0 +1,122 @@
+package com.checkout.payment;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.infrastructure.persistance.ShardedPaymentsRepository;
+import com.checkout.payment.infrastructure.persistance.ShardingOptions;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+
+@Import(ShardedPaymentsRepositoryMediumTest.ShardedPaymentsRepositoryConfiguration.class)
+class ShardedPaymentsRepositoryMediumTest extends AbstractMediumTest {
+
+  @Autowired
+  private PaymentsRepository paymentsRepository;
+
+  //Not a payments.repository.type, so wired in over the configured repository
+  @TestConfiguration
+  static class ShardedPaymentsRepositoryConfiguration {
+
+    @Bean
+    @Primary
+    public PaymentsRepository shardedPaymentsRepository() {
+      return new ShardedPaymentsRepository(ShardingOptions.builder()
+          .shards(4)
+          .initialCapacity(1_000)
+          .build());
+    }
+  }
+
+  @Test
+  void searchPayments_pagedByNextCursor_everyPaymentOnceNewestFirst() throws JsonProcessingException {
+    //Given
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(201)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    List<String> createdPaymentIds = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      createdPaymentIds.add(0, createPayment().jsonPath().getString("id"));
+    }
+    List<String> pagedPaymentIds = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    //When
+    do {
+      RequestSpecification request = given()
+          .log().all()
+          .queryParam("limit", 2);
+      if (cursor != null) {
+        request.queryParam("cursor", cursor);
+      }
+      Response page = request
+          .expect()
+          .statusCode(200)
+          .when()
+          .get("/payments").andReturn();
+      pagedPaymentIds.addAll(page.jsonPath().getList("payments.id"));
+      cursor = page.jsonPath().getString("nextCursor");
+      pages++;
+    } while (cursor != null);
+    //Then
+    assertThat(paymentsRepository instanceof ShardedPaymentsRepository, is(true));
+    assertThat(pages, is(equalTo(4)));
+    assertThat(pagedPaymentIds, is(equalTo(createdPaymentIds)));
+  }
+
+  @Test
+  void searchPayments_cursorNotReturnedByRepository_return400AndInvalidCursorErrorCode() {
+    //When & Then
+    given()
+        .log().all()
+        .queryParam("cursor", "42." + UUID.randomUUID())
+        .expect()
+        .statusCode(400)
+        .when()
+        .get("/payments").then().log().all()
+        .assertThat().body("errors[0].code", equalTo("cursor"));
+  }
+
+  private Response createPayment() throws JsonProcessingException {
+    PaymentRequest paymentRequest = PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("2222405343248877")
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+    Response response = given()
+        .log().all()
+        .body(om.writeValueAsString(paymentRequest))
+        .contentType(JSON)
+        .expect()
+        .statusCode(201)
+        .when()
+        .post("/payment").andReturn();
+    assertThat(response.jsonPath().getString("id"), is(notNullValue()));
+    return response;
+  }
+}
@@ -0,0 +1,112 @@
+package com.checkout.payment;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsMediumTest extends AbstractMediumTest {
+  private static final int CONCURRENT_REQUESTS = 32;
+
+  @Autowired
+  private ExecutorService bankServiceExecutor;
+
+  @Test
+  void bankServiceExecutor_virtualThreadsEnabled_bankCallsRunOnVirtualThreads() throws Exception {
+    //When
+    boolean virtual = bankServiceExecutor.submit(() -> Thread.currentThread().isVirtual()).get();
+    //Then
+    assertThat(virtual, is(equalTo(true)));
+  }
+
+  //Parking while pinned to the carrier is what JFR reports, so the bank delay makes every request park
+  @Test
+  void createPayment_concurrentRequestsOnVirtualThreads_noCarrierThreadPinned() throws Exception {
+    //Given
+    WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(50)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    List<RecordedEvent> pinnedEvents;
+    try (Recording recording = new Recording()) {
+      recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+      recording.start();
+      //When
+      postConcurrentPaymentRequests();
+      recording.stop();
+      pinnedEvents = readEvents(recording);
+    }
+    //Then
+    assertThat(pinnedEvents, is(empty()));
+  }
+
+  private void postConcurrentPaymentRequests() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+    try {
+      List<Future<Integer>> statusCodes = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+        String body = om.writeValueAsString(createPaymentRequest());
+        statusCodes.add(clients.submit(() -> given()
+            .body(body)
+            .contentType(JSON)
+            .when()
+            .post("/payment")
+            .statusCode()));
+      }
+      for (Future<Integer> statusCode : statusCodes) {
+        assertThat(statusCode.get(), is(equalTo(201)));
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  private static List<RecordedEvent> readEvents(Recording recording) throws IOException {
+    Path dump = Files.createTempFile("virtual-threads", ".jfr");
+    try {
+      recording.dump(dump);
+      return RecordingFile.readAllEvents(dump);
+    } finally {
+      Files.delete(dump);
+    }
+  }
+
+  private static PaymentRequest createPaymentRequest() throws JsonProcessingException {
+    return PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("12345678912345")
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+  }
+}
@@ -9,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.checkout.payment.gateway.exception.ExpiredCardDateException;
 import com.checkout.payment.gateway.model.CashAmount;
+import java.time.Year;
 import java.util.Currency;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
@@ -19,18 +20,19 @@ class ProcessPaymentCommandSmallTest {
   void createProcessPaymentCommand_valid_success() throws ExpiredCardDateException {
     //Given & When
     UUID expectedIdempotencyKey = UUID.randomUUID();
+    int expectedExpiryYear = Year.now().plusYears(1).getValue();
     System.out.println("UUID " + UUID.randomUUID());
     CashAmount expectedCashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
     ProcessPaymentCommand expectedProcessPaymentCommand = new ProcessPaymentCommand(
         expectedIdempotencyKey,
-        expectedCashAmount, 12345L, 10, 2025, 500);
+        expectedCashAmount, 12345L, 10, expectedExpiryYear, 500);
     //Then
     assertThat(expectedProcessPaymentCommand, allOf(
         hasProperty("idempotencyKey", is(equalTo(expectedIdempotencyKey))),
         hasProperty("cashAmount", is(equalTo(expectedCashAmount))),
         hasProperty("cardNumber", is(equalTo(12345L))),
         hasProperty("expiryMonth", is(equalTo(10))),
-        hasProperty("expiryYear", is(equalTo(2025))),
+        hasProperty("expiryYear", is(equalTo(expectedExpiryYear))),
         hasProperty("cvv", is(equalTo(500)))));
   }
 
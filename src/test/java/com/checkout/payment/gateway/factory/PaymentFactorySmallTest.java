@@ -12,6 +12,7 @@ import com.checkout.payment.gateway.model.CashAmount;
 import com.checkout.payment.gateway.model.Payment;
 import com.checkout.payment.gateway.model.PaymentMethodDetails;
 import com.checkout.payment.gateway.model.PaymentStatus;
+import java.time.Year;
 import java.util.Currency;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
@@ -24,13 +25,14 @@ class PaymentFactorySmallTest {
     //Given
     PaymentFactory testObj = new PaymentFactory();
     UUID expectedIdempotencyKey = UUID.randomUUID();
+    int expiryYear = Year.now().plusYears(1).getValue();
     ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(expectedIdempotencyKey,
         new CashAmount(Currency.getInstance("GBP"), 150),
         123456789123456L,
         10,
-        2025,
+        expiryYear,
         500);
-    PaymentMethodDetails expectedPaymentMethodDetails = new PaymentMethodDetails(3456, 10, 2025);
+    PaymentMethodDetails expectedPaymentMethodDetails = new PaymentMethodDetails(3456, 10, expiryYear);
     //When
     Payment actualPayment = testObj.createPayment(processPaymentCommand, PaymentStatus.AUTHORIZED);
     //Then
@@ -0,0 +1,54 @@
+package com.checkout.payment.gateway.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class PaymentMetricsSmallTest {
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final PaymentMetrics testObj = new PaymentMetrics(meterRegistry);
+
+  @Test
+  void record_stage_timedUnderStageTag() {
+    //When
+    testObj.record(PaymentMetrics.Stage.PARSE, PaymentMetrics.nanoTime());
+    testObj.record(PaymentMetrics.Stage.PARSE, PaymentMetrics.nanoTime());
+    //Then
+    assertThat(meterRegistry.get(PaymentMetrics.STAGE).tag("stage", "parse").timer().count(), is(equalTo(2L)));
+    assertThat(meterRegistry.get(PaymentMetrics.STAGE).tag("stage", "repository-insert").timer().count(), is(equalTo(0L)));
+  }
+
+  @Test
+  void recordBankCall_statusAndCurrency_timedUnderStatusAndCurrencyTags() {
+    //When
+    testObj.recordBankCall(IsoCurrency.lookup("GBP"), PaymentStatus.AUTHORIZED, PaymentMetrics.nanoTime());
+    testObj.recordBankCall(IsoCurrency.lookup("GBP"), PaymentStatus.AUTHORIZED, PaymentMetrics.nanoTime());
+    testObj.recordBankCall(IsoCurrency.lookup("USD"), PaymentStatus.DECLINED, PaymentMetrics.nanoTime());
+    testObj.recordBankCall(IsoCurrency.lookup("USD"), null, PaymentMetrics.nanoTime());
+    //Then
+    assertThat(bankCalls("GBP", "Authorized"), is(equalTo(2L)));
+    assertThat(bankCalls("USD", "Declined"), is(equalTo(1L)));
+    assertThat(bankCalls("USD", "Failed"), is(equalTo(1L)));
+  }
+
+  @Test
+  void countProcessed_status_countedUnderStatusTag() {
+    //When
+    testObj.countProcessed(PaymentStatus.AUTHORIZED);
+    testObj.countProcessed(PaymentStatus.DECLINED);
+    testObj.countProcessed(PaymentStatus.DECLINED);
+    //Then
+    assertThat(meterRegistry.get(PaymentMetrics.PROCESSED).tag("status", "Authorized").counter().count(), is(equalTo(1.0)));
+    assertThat(meterRegistry.get(PaymentMetrics.PROCESSED).tag("status", "Declined").counter().count(), is(equalTo(2.0)));
+  }
+
+  private long bankCalls(String currency, String status) {
+    return meterRegistry.get(PaymentMetrics.BANK_CALL).tag("currency", currency).tag("status", status).timer().count();
+  }
+}
@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AllowedCurrenciesSmallTest {
+
+  @Test
+  void isAllowed_configuredCodes_onlyThoseCurrenciesAllowed() {
+    //Given
+    AllowedCurrencies testObj = AllowedCurrencies.of(List.of("GBP", "EUR"));
+    //Then
+    assertThat(testObj.isAllowed(IsoCurrency.lookup("GBP")), is(equalTo(true)));
+    assertThat(testObj.isAllowed(IsoCurrency.lookup("EUR")), is(equalTo(true)));
+    assertThat(testObj.isAllowed(IsoCurrency.lookup("USD")), is(equalTo(false)));
+  }
+
+  @Test
+  void isAllowed_noCodes_everyCurrencyAllowed() {
+    //Given
+    AllowedCurrencies testObj = AllowedCurrencies.of(List.of());
+    //Then
+    assertThat(testObj.isAllowed(IsoCurrency.lookup("USD")), is(equalTo(true)));
+    assertThat(testObj.isAllowed(IsoCurrency.lookup("JPY")), is(equalTo(true)));
+  }
+
+  @Test
+  void of_unknownCode_throwsIllegalArgumentException() {
+    //When
+    IllegalArgumentException actualException = assertThrows(IllegalArgumentException.class,
+        () -> AllowedCurrencies.of(List.of("GBP", "ZZZ")));
+    //Then
+    assertThat(actualException.getMessage(), is(equalTo("Unknown ISO currency code ZZZ")));
+  }
+}
@@ -3,6 +3,7 @@ package com.checkout.payment.gateway.model;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 import java.math.BigDecimal;
 import java.util.Currency;
@@ -45,8 +46,30 @@ class CashAmountSmallTest {
     //Given
     CashAmount testObj = new CashAmount(Currency.getInstance("GBP"), 150);
     //When
-    int actualMinorAmount = testObj.getMinorAmount();
+    long actualMinorAmount = testObj.getMinorAmount();
     //Then
-    assertThat(actualMinorAmount, is(equalTo(150)));
+    assertThat(actualMinorAmount, is(equalTo(150L)));
   }
-}
\ No newline at end of file
+
+  @Test
+  void getMinorAmount_amountLargerThanInt_returnsExactMinorAmount() {
+    //Given
+    CashAmount testObj = new CashAmount(Currency.getInstance("GBP"), 5_000_000_000L);
+    //When
+    long actualMinorAmount = testObj.getMinorAmount();
+    //Then
+    assertThat(actualMinorAmount, is(equalTo(5_000_000_000L)));
+    assertThat(testObj.getMajorAmount().compareTo(new BigDecimal("50000000.00")), is(0));
+  }
+
+  @Test
+  void equals_sameMinorAmountAndCurrency_equalOtherwiseNot() {
+    //Given
+    CashAmount testObj = new CashAmount(Currency.getInstance("GBP"), 150);
+    //Then
+    assertThat(testObj, is(equalTo(new CashAmount(Currency.getInstance("GBP"), 150))));
+    assertThat(testObj.hashCode(), is(equalTo(new CashAmount(Currency.getInstance("GBP"), 150).hashCode())));
+    assertThat(testObj, is(not(equalTo(new CashAmount(Currency.getInstance("EUR"), 150)))));
+    assertThat(testObj, is(not(equalTo(new CashAmount(Currency.getInstance("GBP"), 1500)))));
+  }
+}
@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Currency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IsoCurrencySmallTest {
+
+  @Test
+  void lookup_isoCode_returnsCurrencyWithFractionDigits() {
+    //When
+    IsoCurrency actualCurrency = IsoCurrency.lookup("BHD");
+    //Then
+    assertThat(actualCurrency.getCode(), is(equalTo("BHD")));
+    assertThat(actualCurrency.getFractionDigits(), is(equalTo(3)));
+    assertThat(IsoCurrency.ofOrdinal(actualCurrency.getOrdinal()), is(sameInstance(actualCurrency)));
+    assertThat(IsoCurrency.ofPackedCode(actualCurrency.getPackedCode()), is(sameInstance(actualCurrency)));
+    assertThat(IsoCurrency.of(Currency.getInstance("BHD")), is(sameInstance(actualCurrency)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"ZZZ", "gbp", "GB", "GBPP", "G1P", "", "{}~"})
+  void lookup_notAnIsoCode_returnsNull(String code) {
+    //When
+    IsoCurrency actualCurrency = IsoCurrency.lookup(code);
+    //Then
+    assertThat(actualCurrency, is(nullValue()));
+  }
+
+  @Test
+  void lookup_null_returnsNull() {
+    //When
+    IsoCurrency actualCurrency = IsoCurrency.lookup(null);
+    //Then
+    assertThat(actualCurrency, is(nullValue()));
+  }
+
+  @Test
+  void ofOrdinal_everyJdkCurrency_hasOrdinal() {
+    //Then
+    assertThat(IsoCurrency.count(), is(equalTo(Currency.getAvailableCurrencies().size())));
+    for (Currency currency : Currency.getAvailableCurrencies()) {
+      IsoCurrency isoCurrency = IsoCurrency.of(currency);
+      assertThat(IsoCurrency.ofOrdinal(isoCurrency.getOrdinal()).getCode(), is(equalTo(currency.getCurrencyCode())));
+      assertThat(isoCurrency.getFractionDigits(), is(equalTo(currency.getDefaultFractionDigits())));
+    }
+  }
+}
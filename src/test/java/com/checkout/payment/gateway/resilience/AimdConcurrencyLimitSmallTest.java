@@ -0,0 +1,134 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AimdConcurrencyLimitSmallTest {
+  private static final Duration SLOW_CALL_THRESHOLD = Duration.ofMillis(100);
+
+  private final AtomicLong nanoClock = new AtomicLong();
+
+  @Test
+  void tryAcquire_limitReached_false() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(2, 1, 10);
+    //When
+    boolean first = testObj.tryAcquire();
+    boolean second = testObj.tryAcquire();
+    boolean third = testObj.tryAcquire();
+    //Then
+    assertThat(first, is(equalTo(true)));
+    assertThat(second, is(equalTo(true)));
+    assertThat(third, is(equalTo(false)));
+    assertThat(testObj.getInFlight(), is(equalTo(2)));
+  }
+
+  @Test
+  void release_callIgnored_freesSlotLeavingLimit() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(1, 1, 10);
+    testObj.tryAcquire();
+    //When
+    testObj.release(testObj.nanoTime(), AimdConcurrencyLimit.Outcome.IGNORED);
+    //Then
+    assertThat(testObj.getInFlight(), is(equalTo(0)));
+    assertThat(testObj.getLimit(), is(equalTo(1)));
+    assertThat(testObj.tryAcquire(), is(equalTo(true)));
+  }
+
+  @Test
+  void release_fastCallsWithLimitHalfUsed_limitGrowsToMax() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(4, 1, 6);
+    //When
+    for (int i = 0; i < 100; i++) {
+      acquireAll(testObj);
+      long startNanos = testObj.nanoTime();
+      releaseAll(testObj, startNanos, AimdConcurrencyLimit.Outcome.SUCCESS);
+    }
+    //Then
+    assertThat(testObj.getLimit(), is(equalTo(6)));
+  }
+
+  @Test
+  void release_fastCallsWithLimitUnderused_limitUnchanged() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(10, 1, 20);
+    //When
+    for (int i = 0; i < 1000; i++) {
+      testObj.tryAcquire();
+      testObj.release(testObj.nanoTime(), AimdConcurrencyLimit.Outcome.SUCCESS);
+    }
+    //Then
+    assertThat(testObj.getLimit(), is(equalTo(10)));
+  }
+
+  @Test
+  void release_slowCall_limitBacksOff() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(10, 1, 20);
+    nanoClock.addAndGet(1);
+    testObj.tryAcquire();
+    long startNanos = testObj.nanoTime();
+    nanoClock.addAndGet(SLOW_CALL_THRESHOLD.toNanos() + 1);
+    //When
+    testObj.release(startNanos, AimdConcurrencyLimit.Outcome.SUCCESS);
+    //Then
+    assertThat(testObj.getLimit(), is(equalTo(5)));
+  }
+
+  @Test
+  void release_burstOfDroppedCallsInFlight_limitBacksOffOnce() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(10, 1, 20);
+    nanoClock.addAndGet(1);
+    acquireAll(testObj);
+    long startNanos = testObj.nanoTime();
+    nanoClock.addAndGet(1);
+    //When
+    releaseAll(testObj, startNanos, AimdConcurrencyLimit.Outcome.DROPPED);
+    //Then
+    assertThat(testObj.getLimit(), is(equalTo(5)));
+  }
+
+  @Test
+  void release_droppedCallsStartedAfterEachBackOff_limitStopsAtMin() {
+    //Given
+    AimdConcurrencyLimit testObj = limit(10, 3, 20);
+    //When
+    for (int i = 0; i < 10; i++) {
+      nanoClock.addAndGet(1);
+      testObj.tryAcquire();
+      testObj.release(testObj.nanoTime(), AimdConcurrencyLimit.Outcome.DROPPED);
+    }
+    //Then
+    assertThat(testObj.getLimit(), is(equalTo(3)));
+  }
+
+  @Test
+  void new_initialLimitAboveMax_throwIllegalArgumentException() {
+    //When Then
+    assertThrows(IllegalArgumentException.class, () -> limit(30, 1, 20));
+  }
+
+  private AimdConcurrencyLimit limit(int initialLimit, int minLimit, int maxLimit) {
+    return new AimdConcurrencyLimit(initialLimit, minLimit, maxLimit, SLOW_CALL_THRESHOLD, 0.5, nanoClock::get);
+  }
+
+  private static void acquireAll(AimdConcurrencyLimit testObj) {
+    while (testObj.tryAcquire()) {
+    }
+  }
+
+  private static void releaseAll(AimdConcurrencyLimit testObj, long startNanos, AimdConcurrencyLimit.Outcome outcome) {
+    while (testObj.getInFlight() > 0) {
+      testObj.release(startNanos, outcome);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerSmallTest {
+  private static final Duration SLOW_CALL_DURATION = Duration.ofMillis(100);
+  private static final Duration WAIT_IN_OPEN_STATE = Duration.ofSeconds(5);
+
+  private final AtomicLong nanoClock = new AtomicLong();
+  private final CircuitBreaker testObj = new CircuitBreaker(10, 4, 50, 50, SLOW_CALL_DURATION,
+      WAIT_IN_OPEN_STATE, 2, nanoClock::get);
+
+  @Test
+  void onComplete_failuresBelowMinimumCalls_staysClosed() {
+    //When
+    call(CircuitBreaker.Outcome.FAILURE, 3);
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(true)));
+  }
+
+  @Test
+  void onComplete_failureRateReachesThreshold_opensAndRefusesCalls() {
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 2);
+    call(CircuitBreaker.Outcome.FAILURE, 2);
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(false)));
+  }
+
+  @Test
+  void onComplete_failureRateBelowThreshold_staysClosed() {
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 6);
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+    assertThat(testObj.snapshot(), is(equalTo(new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 10, 4, 0))));
+  }
+
+  @Test
+  void onComplete_oldFailuresSlideOutOfWindow_staysClosed() {
+    //Given
+    call(CircuitBreaker.Outcome.SUCCESS, 2);
+    call(CircuitBreaker.Outcome.FAILURE, 1);
+    call(CircuitBreaker.Outcome.SUCCESS, 7);
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 2);
+    call(CircuitBreaker.Outcome.FAILURE, 3);
+    //Then the first failure has slid out, leaving 3 of 10
+    assertThat(testObj.snapshot(), is(equalTo(new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 10, 3, 0))));
+  }
+
+  @Test
+  void onComplete_slowCallRateReachesThreshold_opens() {
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 2);
+    slowCall(CircuitBreaker.Outcome.SUCCESS, 2);
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+  }
+
+  @Test
+  void onComplete_ignoredCalls_notCounted() {
+    //When
+    call(CircuitBreaker.Outcome.IGNORED, 10);
+    //Then
+    assertThat(testObj.snapshot(), is(equalTo(new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 0, 0, 0))));
+  }
+
+  @Test
+  void tryAcquirePermission_waitInOpenStateElapsed_halfOpenPermitsProbeCallsOnly() {
+    //Given
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    //When
+    boolean firstProbe = isPermitted(testObj.tryAcquirePermission());
+    boolean secondProbe = isPermitted(testObj.tryAcquirePermission());
+    boolean thirdCall = isPermitted(testObj.tryAcquirePermission());
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.HALF_OPEN)));
+    assertThat(firstProbe, is(equalTo(true)));
+    assertThat(secondProbe, is(equalTo(true)));
+    assertThat(thirdCall, is(equalTo(false)));
+  }
+
+  @Test
+  void onComplete_halfOpenProbesSucceed_closesWithEmptyWindow() {
+    //Given
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 2);
+    //Then
+    assertThat(testObj.snapshot(), is(equalTo(new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 0, 0, 0))));
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(true)));
+  }
+
+  @Test
+  void onComplete_halfOpenProbeFails_opensAgain() {
+    //Given
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    //When
+    call(CircuitBreaker.Outcome.SUCCESS, 1);
+    call(CircuitBreaker.Outcome.FAILURE, 1);
+    //Then
+    assertThat(testObj.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(false)));
+  }
+
+  @Test
+  void onComplete_halfOpenProbeIgnored_permitsAnotherProbe() {
+    //Given
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    long probe = testObj.tryAcquirePermission();
+    testObj.tryAcquirePermission();
+    //When
+    testObj.onComplete(probe, testObj.nanoTime(), CircuitBreaker.Outcome.IGNORED);
+    //Then
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(true)));
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(false)));
+  }
+
+  @Test
+  void onComplete_callPermittedWhileClosedIgnoredWhileHalfOpen_probesNotFreed() {
+    //Given
+    long closedCall = testObj.tryAcquirePermission();
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    testObj.tryAcquirePermission();
+    testObj.tryAcquirePermission();
+    //When
+    testObj.onComplete(closedCall, testObj.nanoTime(), CircuitBreaker.Outcome.IGNORED);
+    //Then
+    assertThat(isPermitted(testObj.tryAcquirePermission()), is(equalTo(false)));
+  }
+
+  @Test
+  void onComplete_callPermittedWhileClosedFailsWhileHalfOpen_notCountedAsProbe() {
+    //Given
+    long closedCall = testObj.tryAcquirePermission();
+    call(CircuitBreaker.Outcome.FAILURE, 4);
+    nanoClock.addAndGet(WAIT_IN_OPEN_STATE.toNanos());
+    long firstProbe = testObj.tryAcquirePermission();
+    long secondProbe = testObj.tryAcquirePermission();
+    //When
+    testObj.onComplete(closedCall, testObj.nanoTime(), CircuitBreaker.Outcome.FAILURE);
+    testObj.onComplete(firstProbe, testObj.nanoTime(), CircuitBreaker.Outcome.SUCCESS);
+    testObj.onComplete(secondProbe, testObj.nanoTime(), CircuitBreaker.Outcome.SUCCESS);
+    //Then
+    assertThat(testObj.snapshot(), is(equalTo(new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 0, 0, 0))));
+  }
+
+  @Test
+  void new_minimumCallsAboveWindow_throwIllegalArgumentException() {
+    //When Then
+    assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(10, 11, 50, 50,
+        SLOW_CALL_DURATION, WAIT_IN_OPEN_STATE, 2));
+  }
+
+  private void call(CircuitBreaker.Outcome outcome, int calls) {
+    for (int i = 0; i < calls; i++) {
+      long permission = testObj.tryAcquirePermission();
+      if (isPermitted(permission)) {
+        testObj.onComplete(permission, testObj.nanoTime(), outcome);
+      }
+    }
+  }
+
+  private void slowCall(CircuitBreaker.Outcome outcome, int calls) {
+    for (int i = 0; i < calls; i++) {
+      long permission = testObj.tryAcquirePermission();
+      long startNanos = testObj.nanoTime();
+      nanoClock.addAndGet(SLOW_CALL_DURATION.toNanos() + 1);
+      testObj.onComplete(permission, startNanos, outcome);
+    }
+  }
+
+  private static boolean isPermitted(long permission) {
+    return permission != CircuitBreaker.NOT_PERMITTED;
+  }
+}
@@ -0,0 +1,82 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
+import com.checkout.payment.gateway.service.exception.BankUnavailableException;
+import com.checkout.payment.gateway.service.exception.InvalidBankPaymentDetailsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakingBankServiceSmallTest {
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
+  private static final CashAmount AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+
+  @Mock
+  private BankService bankServiceMock;
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(2, 2, 100, 100, Duration.ofSeconds(1),
+      Duration.ofMinutes(1), 1);
+  private CircuitBreakingBankService testObj;
+
+  @BeforeEach
+  void setUp() {
+    testObj = new CircuitBreakingBankService(bankServiceMock, circuitBreaker, meterRegistry);
+  }
+
+  @Test
+  void authorisePaymentAsync_bankFailing_circuitOpensAndFailsFastWithoutCallingBank() {
+    //Given
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenReturn(CompletableFuture.failedFuture(new BankServiceException()));
+    testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //When
+    CompletableFuture<PaymentStatus> actualAuthorisation = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //Then
+    ExecutionException actualException = assertThrows(ExecutionException.class, actualAuthorisation::get);
+    assertThat(actualException.getCause(), is(instanceOf(BankUnavailableException.class)));
+    assertThat(circuitBreaker.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+    verify(bankServiceMock, times(2)).authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+    assertThat(meterRegistry.get(CircuitBreakingBankService.REJECTIONS).counter().count(), is(equalTo(1.0)));
+  }
+
+  @Test
+  void authorisePayment_invalidBankPaymentDetails_notCounted() {
+    //Given
+    when(bankServiceMock.authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenThrow(new InvalidBankPaymentDetailsException());
+    //When
+    for (int i = 0; i < 3; i++) {
+      assertThrows(InvalidBankPaymentDetailsException.class,
+          () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123));
+    }
+    //Then
+    assertThat(circuitBreaker.snapshot().bufferedCalls(), is(equalTo(0)));
+    assertThat(circuitBreaker.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+  }
+}
@@ -0,0 +1,102 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankOverloadedException;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
+import com.checkout.payment.gateway.service.exception.InvalidBankPaymentDetailsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitedBankServiceSmallTest {
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
+  private static final CashAmount AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+
+  @Mock
+  private BankService bankServiceMock;
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AimdConcurrencyLimit concurrencyLimit = new AimdConcurrencyLimit(2, 1, 2, Duration.ofSeconds(1), 0.5);
+  private ConcurrencyLimitedBankService testObj;
+
+  @BeforeEach
+  void setUp() {
+    testObj = new ConcurrencyLimitedBankService(bankServiceMock, concurrencyLimit, meterRegistry);
+  }
+
+  @Test
+  void authorisePaymentAsync_limitReached_failFastWithoutCallingBank() {
+    //Given
+    CompletableFuture<PaymentStatus> pendingAuthorisation = new CompletableFuture<>();
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenReturn(pendingAuthorisation);
+    testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //When
+    CompletableFuture<PaymentStatus> actualAuthorisation = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //Then
+    ExecutionException actualException = assertThrows(ExecutionException.class, actualAuthorisation::get);
+    assertThat(actualException.getCause(), is(instanceOf(BankOverloadedException.class)));
+    verify(bankServiceMock, times(2)).authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+    assertThat(meterRegistry.get(ConcurrencyLimitedBankService.REJECTIONS).counter().count(), is(equalTo(1.0)));
+    assertThat(meterRegistry.get(ConcurrencyLimitedBankService.IN_FLIGHT).gauge().value(), is(equalTo(2.0)));
+    assertThat(meterRegistry.get(ConcurrencyLimitedBankService.LIMIT).gauge().value(), is(equalTo(2.0)));
+  }
+
+  @Test
+  void authorisePaymentAsync_authorisationCompleted_releasesSlot() throws Exception {
+    //Given
+    CompletableFuture<PaymentStatus> pendingAuthorisation = new CompletableFuture<>();
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenReturn(pendingAuthorisation);
+    CompletableFuture<PaymentStatus> actualAuthorisation = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //When
+    pendingAuthorisation.complete(PaymentStatus.AUTHORIZED);
+    //Then
+    assertThat(actualAuthorisation.get(), is(equalTo(PaymentStatus.AUTHORIZED)));
+    assertThat(concurrencyLimit.getInFlight(), is(equalTo(0)));
+  }
+
+  @Test
+  void authorisePayment_bankServiceException_limitBacksOff() {
+    //Given
+    when(bankServiceMock.authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenThrow(new BankServiceException());
+    //When
+    assertThrows(BankServiceException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123));
+    //Then
+    assertThat(concurrencyLimit.getInFlight(), is(equalTo(0)));
+    assertThat(concurrencyLimit.getLimit(), is(equalTo(1)));
+  }
+
+  @Test
+  void authorisePayment_invalidBankPaymentDetails_limitUnchanged() {
+    //Given
+    when(bankServiceMock.authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenThrow(new InvalidBankPaymentDetailsException());
+    //When
+    assertThrows(InvalidBankPaymentDetailsException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123));
+    //Then
+    assertThat(concurrencyLimit.getInFlight(), is(equalTo(0)));
+    assertThat(concurrencyLimit.getLimit(), is(equalTo(2)));
+  }
+}
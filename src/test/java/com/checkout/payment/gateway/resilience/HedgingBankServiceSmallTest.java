@@ -0,0 +1,192 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HedgingBankServiceSmallTest {
+  private static final CashAmount AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+  private static final int WINDOW_SIZE = 64;
+
+  private final ExecutorService bankExecutor = Executors.newCachedThreadPool();
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @AfterEach
+  void tearDown() {
+    bankExecutor.shutdownNow();
+  }
+
+  @Test
+  void authorisePaymentAsync_oneCallInTwentySlow_p99CutByHedging() {
+    //Given every twentieth bank call takes 200ms, the others 2ms
+    IntFunction<CompletableFuture<PaymentStatus>> injectedLatency = call ->
+        authorisedAfter(call % 20 == 0 ? 200 : 2);
+    BankService unhedged = new FakeBankService(injectedLatency);
+    HedgingBankService hedged = new HedgingBankService(new FakeBankService(injectedLatency),
+        new LatencyPercentile(90, WINDOW_SIZE), meterRegistry);
+    measureLatenciesNanos(hedged, WINDOW_SIZE);
+    //When
+    long unhedgedP99 = p99(measureLatenciesNanos(unhedged, 200));
+    long hedgedP99 = p99(measureLatenciesNanos(hedged, 200));
+    //Then
+    assertThat(hedgedP99, is(lessThan(unhedgedP99 / 4)));
+    assertThat(meterRegistry.get(HedgingBankService.HEDGES).counter().count() > 0, is(equalTo(true)));
+  }
+
+  @Test
+  void authorisePaymentAsync_slowerThanPercentile_hedgeSentWithSameIdempotencyKey() {
+    //Given
+    FakeBankService bankService = new FakeBankService(call -> authorisedAfter(300));
+    HedgingBankService testObj = new HedgingBankService(bankService, oneMilliPercentile(), meterRegistry);
+    UUID idempotencyKey = UUID.randomUUID();
+    //When
+    PaymentStatus actualStatus = testObj.authorisePaymentAsync(idempotencyKey, 2222405343248877L, 4, 2030, AMOUNT, 123).join();
+    //Then
+    assertThat(actualStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+    assertThat(bankService.idempotencyKeys, is(equalTo(List.of(idempotencyKey, idempotencyKey))));
+    assertThat(meterRegistry.get(HedgingBankService.HEDGES).counter().count(), is(equalTo(1.0)));
+  }
+
+  @Test
+  void authorisePaymentAsync_firstRequestFailsAfterHedgeSent_answeredByHedge() {
+    //Given
+    FakeBankService bankService = new FakeBankService(call -> call == 1 ? failedAfter(100) : authorisedAfter(200));
+    HedgingBankService testObj = new HedgingBankService(bankService, oneMilliPercentile(), meterRegistry);
+    //When
+    PaymentStatus actualStatus = testObj.authorisePaymentAsync(UUID.randomUUID(), 2222405343248877L, 4, 2030, AMOUNT, 123).join();
+    //Then
+    assertThat(actualStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+  }
+
+  @Test
+  void authorisePaymentAsync_concurrencyLimitReached_hedgeSkipped() {
+    //Given a limit of one call in flight, held by the payment's first request
+    FakeBankService bankService = new FakeBankService(call -> authorisedAfter(100));
+    HedgingBankService testObj = new HedgingBankService(new ConcurrencyLimitedBankService(bankService,
+        new AimdConcurrencyLimit(1, 1, 1, Duration.ofSeconds(1), 0.5), meterRegistry),
+        oneMilliPercentile(), meterRegistry);
+    //When
+    PaymentStatus actualStatus = testObj.authorisePaymentAsync(UUID.randomUUID(), 2222405343248877L, 4, 2030, AMOUNT, 123).join();
+    //Then
+    assertThat(actualStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+    assertThat(bankService.calls.get(), is(equalTo(1)));
+    assertThat(meterRegistry.get(HedgingBankService.HEDGES).counter().count(), is(equalTo(0.0)));
+  }
+
+  @Test
+  void authorisePaymentAsync_noLatenciesRecorded_notHedged() {
+    //Given
+    FakeBankService bankService = new FakeBankService(call -> authorisedAfter(50));
+    HedgingBankService testObj = new HedgingBankService(bankService, new LatencyPercentile(50, 8), meterRegistry);
+    //When
+    testObj.authorisePaymentAsync(UUID.randomUUID(), 2222405343248877L, 4, 2030, AMOUNT, 123).join();
+    //Then
+    assertThat(bankService.idempotencyKeys.size(), is(equalTo(1)));
+    assertThat(meterRegistry.get(HedgingBankService.HEDGES).counter().count(), is(equalTo(0.0)));
+  }
+
+  @Test
+  void authorisePayment_bankFails_throwBankServiceException() {
+    //Given
+    FakeBankService bankService = new FakeBankService(
+        call -> CompletableFuture.failedFuture(new BankServiceException()));
+    HedgingBankService testObj = new HedgingBankService(bankService, new LatencyPercentile(50, 8), meterRegistry);
+    //When Then
+    assertThrows(BankServiceException.class,
+        () -> testObj.authorisePayment(UUID.randomUUID(), 2222405343248877L, 4, 2030, AMOUNT, 123));
+    assertThat(bankService.idempotencyKeys, everyItem(is(bankService.idempotencyKeys.get(0))));
+  }
+
+  private static LatencyPercentile oneMilliPercentile() {
+    LatencyPercentile latencyPercentile = new LatencyPercentile(50, 8);
+    for (int i = 0; i < 8; i++) {
+      latencyPercentile.record(1_000_000);
+    }
+    return latencyPercentile;
+  }
+
+  private static long[] measureLatenciesNanos(BankService bankService, int payments) {
+    long[] latenciesNanos = new long[payments];
+    for (int i = 0; i < payments; i++) {
+      long startNanos = System.nanoTime();
+      bankService.authorisePaymentAsync(UUID.randomUUID(), 2222405343248877L, 4, 2030, AMOUNT, 123).join();
+      latenciesNanos[i] = System.nanoTime() - startNanos;
+    }
+    return latenciesNanos;
+  }
+
+  private static long p99(long[] latenciesNanos) {
+    long[] sorted = latenciesNanos.clone();
+    Arrays.sort(sorted);
+    return sorted[(int) Math.ceil(0.99 * sorted.length) - 1];
+  }
+
+  private CompletableFuture<PaymentStatus> authorisedAfter(long millis) {
+    return CompletableFuture.supplyAsync(() -> {
+      sleep(millis);
+      return PaymentStatus.AUTHORIZED;
+    }, bankExecutor);
+  }
+
+  private CompletableFuture<PaymentStatus> failedAfter(long millis) {
+    return CompletableFuture.supplyAsync(() -> {
+      sleep(millis);
+      throw new BankServiceException();
+    }, bankExecutor);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  //Answers the nth call, from 1, as the injected latency says
+  private static final class FakeBankService implements BankService {
+    private final IntFunction<CompletableFuture<PaymentStatus>> injectedLatency;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<UUID> idempotencyKeys = new CopyOnWriteArrayList<>();
+
+    private FakeBankService(IntFunction<CompletableFuture<PaymentStatus>> injectedLatency) {
+      this.injectedLatency = injectedLatency;
+    }
+
+    @Override
+    public PaymentStatus authorisePayment(UUID idempotencyKey, long cardNumber, int expiryMonth,
+        int expiryYear, CashAmount cashAmount, int cvv) {
+      return authorisePaymentAsync(idempotencyKey, cardNumber, expiryMonth, expiryYear, cashAmount, cvv).join();
+    }
+
+    @Override
+    public CompletableFuture<PaymentStatus> authorisePaymentAsync(UUID idempotencyKey, long cardNumber,
+        int expiryMonth, int expiryYear, CashAmount cashAmount, int cvv) {
+      idempotencyKeys.add(idempotencyKey);
+      return injectedLatency.apply(calls.incrementAndGet());
+    }
+  }
+}
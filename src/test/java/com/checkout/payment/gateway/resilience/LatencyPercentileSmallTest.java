@@ -0,0 +1,57 @@
+package com.checkout.payment.gateway.resilience;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyPercentileSmallTest {
+
+  @Test
+  void getNanos_fewerThanAnEighthOfWindowRecorded_unknown() {
+    //Given
+    LatencyPercentile testObj = new LatencyPercentile(95, 80);
+    //When
+    for (int i = 1; i < 10; i++) {
+      testObj.record(i);
+    }
+    //Then
+    assertThat(testObj.getNanos(), is(equalTo(LatencyPercentile.UNKNOWN)));
+  }
+
+  @Test
+  void getNanos_windowRecorded_percentileOfWindow() {
+    //Given
+    LatencyPercentile testObj = new LatencyPercentile(95, 200);
+    //When
+    for (int i = 200; i >= 1; i--) {
+      testObj.record(i);
+    }
+    //Then
+    assertThat(testObj.getNanos(), is(equalTo(190L)));
+  }
+
+  @Test
+  void getNanos_olderLatenciesOverwritten_percentileOfLatestOnly() {
+    //Given
+    LatencyPercentile testObj = new LatencyPercentile(50, 8);
+    for (int i = 0; i < 8; i++) {
+      testObj.record(1_000);
+    }
+    //When
+    for (int i = 1; i <= 8; i++) {
+      testObj.record(i);
+    }
+    //Then
+    assertThat(testObj.getNanos(), is(equalTo(4L)));
+  }
+
+  @Test
+  void new_percentileOutOfRange_throwIllegalArgumentException() {
+    //When Then
+    assertThrows(IllegalArgumentException.class, () -> new LatencyPercentile(0, 100));
+    assertThrows(IllegalArgumentException.class, () -> new LatencyPercentile(100.5, 100));
+  }
+}
@@ -0,0 +1,91 @@
+package com.checkout.payment.gateway.screening;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BinRangeTableSmallTest {
+  private static final String RANGES = """
+      #low,high,scheme
+      4,4,VISA
+
+      51,55,MASTERCARD
+      2221,2720,MASTERCARD
+      34,34,AMEX
+      62212600,62292599,UNIONPAY
+      """;
+
+  @ParameterizedTest
+  @CsvSource(value = {
+      "4242424242424242, VISA",
+      "4000000000000002, VISA",
+      "5105105105105100, MASTERCARD",
+      "5555555555554444, MASTERCARD",
+      "2221000000000009, MASTERCARD",
+      "2720999999999999, MASTERCARD",
+      "2222405343248877, MASTERCARD",
+      "340000000000009, AMEX",
+      "6221260000000000, UNIONPAY",
+      "6229259999999999999, UNIONPAY",
+      "3530111333300000, NULL",
+      "5612345678901234, NULL",
+      "2220999999999999, NULL",
+      "2721000000000000, NULL",
+      "6221259999999999, NULL",
+      "370000000000002, NULL",
+      "12345678912345, NULL",
+      "9223372036854775807, NULL",
+      "1234567, NULL"}, nullValues = "NULL")
+  void schemeOf_cardNumber_schemeOfRangeHoldingIt(long cardNumber, String expectedScheme) throws IOException {
+    //Given
+    BinRangeTable testObj = BinRangeTable.load(toInputStream(RANGES));
+    //When
+    String actualScheme = testObj.schemeOf(cardNumber);
+    //Then
+    assertThat(actualScheme, is(equalTo(expectedScheme)));
+  }
+
+  @Test
+  void load_bundledRanges_routesVisaAndMastercard() throws IOException {
+    //Given
+    BinRangeTable testObj;
+    try (InputStream ranges = getClass().getResourceAsStream("/bin-ranges.csv")) {
+      testObj = BinRangeTable.load(ranges);
+    }
+    //Then
+    assertThat(testObj.size(), is(equalTo(3)));
+    assertThat(testObj.schemeOf(4242424242424242L), is(equalTo("VISA")));
+    assertThat(testObj.schemeOf(2222405343248877L), is(equalTo("MASTERCARD")));
+    assertThat(testObj.schemeOf(378282246310005L), is(nullValue()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "4,4",
+      "4,4,VISA,EXTRA",
+      "4a,4,VISA",
+      ",4,VISA",
+      "123456789,123456789,VISA",
+      "55,51,MASTERCARD",
+      "4,4, ",
+      "4,4,VISA\n40,40,VISA"})
+  void load_malformedOrOverlappingRange_throwIllegalArgumentException(String ranges) {
+    //When Then
+    assertThrows(IllegalArgumentException.class, () -> BinRangeTable.load(toInputStream(ranges)));
+  }
+
+  private static InputStream toInputStream(String ranges) {
+    return new ByteArrayInputStream(ranges.getBytes(StandardCharsets.UTF_8));
+  }
+}
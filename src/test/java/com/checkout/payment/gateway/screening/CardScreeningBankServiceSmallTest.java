@@ -0,0 +1,98 @@
+package com.checkout.payment.gateway.screening;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.exception.RejectedCardException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CardScreeningBankServiceSmallTest {
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
+  private static final CashAmount AMOUNT = new CashAmount(Currency.getInstance("GBP"), 150);
+
+  @Mock
+  private BankService bankServiceMock;
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CardScreeningBankService testObj;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    BinRangeTable binRanges = BinRangeTable.load(
+        new ByteArrayInputStream("4,4,VISA\n2221,2720,MASTERCARD".getBytes(StandardCharsets.UTF_8)));
+    testObj = new CardScreeningBankService(bankServiceMock, binRanges, meterRegistry);
+  }
+
+  @Test
+  void authorisePayment_routedCardPassingLuhnCheck_authorisedByBank() {
+    //Given
+    when(bankServiceMock.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123)).thenReturn(PaymentStatus.AUTHORIZED);
+    //When
+    PaymentStatus actualStatus = testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2030, AMOUNT, 123);
+    //Then
+    assertThat(actualStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+    assertThat(savedBankCalls("card.number.invalid") + savedBankCalls("card.scheme.unsupported"), is(equalTo(0.0)));
+  }
+
+  @Test
+  void authorisePayment_cardFailingLuhnCheck_rejectedWithoutCallingBank() {
+    //When
+    RejectedCardException actualException = assertThrows(RejectedCardException.class,
+        () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248112L, 4, 2030, AMOUNT, 123));
+    //Then
+    assertThat(actualException.getReason(), is(equalTo(RejectedCardException.Reason.INVALID_CARD_NUMBER)));
+    assertThat(savedBankCalls("card.number.invalid"), is(equalTo(1.0)));
+    verify(bankServiceMock, never()).authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+  }
+
+  @Test
+  void authorisePayment_cardOutsideBinRanges_rejectedWithoutCallingBank() {
+    //When
+    RejectedCardException actualException = assertThrows(RejectedCardException.class,
+        () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 378282246310005L, 4, 2030, AMOUNT, 1234));
+    //Then
+    assertThat(actualException.getReason(), is(equalTo(RejectedCardException.Reason.UNSUPPORTED_CARD_SCHEME)));
+    assertThat(savedBankCalls("card.scheme.unsupported"), is(equalTo(1.0)));
+    verify(bankServiceMock, never()).authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+  }
+
+  @Test
+  void authorisePaymentAsync_cardFailingLuhnCheck_failedFutureWithoutCallingBank() {
+    //When
+    CompletableFuture<PaymentStatus> actualFuture = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 4242424242424241L, 4, 2030, AMOUNT, 123);
+    //Then
+    ExecutionException actualException = assertThrows(ExecutionException.class, actualFuture::get);
+    assertThat(actualException.getCause(), is(instanceOf(RejectedCardException.class)));
+    assertThat(savedBankCalls("card.number.invalid"), is(equalTo(1.0)));
+    verify(bankServiceMock, never()).authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+  }
+
+  private double savedBankCalls(String reason) {
+    return meterRegistry.get(CardScreeningBankService.SAVED_BANK_CALLS).tag("reason", reason).counter().count();
+  }
+}
@@ -0,0 +1,45 @@
+package com.checkout.payment.gateway.screening;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class LuhnCheckSmallTest {
+
+  @ParameterizedTest
+  @CsvSource({
+      "2222405343248877, true",
+      "4242424242424242, true",
+      "4111111111111111, true",
+      "378282246310005, true",
+      "30569309025904, true",
+      "4000056655665556, true",
+      "6011000990139424, true",
+      "4242424242424241, false",
+      "2222405343248112, false",
+      "12345678912345, false",
+      "0, false",
+      "-4242424242424242, false"})
+  void isValid_cardNumber_matchesCheckDigit(long cardNumber, boolean expectedValid) {
+    //When
+    boolean actualValid = LuhnCheck.isValid(cardNumber);
+    //Then
+    assertThat(actualValid, is(equalTo(expectedValid)));
+  }
+
+  @ParameterizedTest
+  @CsvSource({"2222405343248877", "4242424242424242", "378282246310005"})
+  void isValid_singleDigitChanged_invalid(long cardNumber) {
+    for (long position = 1; position <= cardNumber; position *= 10) {
+      long digit = cardNumber / position % 10;
+      long changedCardNumber = cardNumber - digit * position + (digit + 1) % 10 * position;
+      //When
+      boolean actualValid = LuhnCheck.isValid(changedCardNumber);
+      //Then
+      assertThat(actualValid, is(equalTo(false)));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.checkout.payment.gateway.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BoundedParallelismSmallTest {
+
+  @Test
+  void map_pendingTasks_atMostParallelismInFlightAndResultsInOrder() {
+    //Given
+    List<Integer> items = IntStream.range(0, 10).boxed().toList();
+    List<CompletableFuture<String>> startedTasks = new ArrayList<>();
+    //When
+    CompletableFuture<List<String>> actualResults = BoundedParallelism.map(items, 3, item -> {
+      CompletableFuture<String> task = new CompletableFuture<>();
+      startedTasks.add(task);
+      return task;
+    });
+    //Then
+    assertThat(startedTasks.size(), is(equalTo(3)));
+    //Completing out of order starts one more task each time
+    startedTasks.get(2).complete("2");
+    assertThat(startedTasks.size(), is(equalTo(4)));
+    startedTasks.get(0).complete("0");
+    startedTasks.get(1).complete("1");
+    assertThat(startedTasks.size(), is(equalTo(6)));
+    for (int i = 3; i < 10; i++) {
+      startedTasks.get(i).complete(String.valueOf(i));
+    }
+    assertThat(actualResults.join(), is(equalTo(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"))));
+  }
+
+  @Test
+  void map_tasksCompletingSynchronously_allItemsRunWithoutWaiting() {
+    //Given
+    List<Integer> items = IntStream.range(0, 100_000).boxed().toList();
+    //When
+    CompletableFuture<List<Integer>> actualResults = BoundedParallelism.map(items, 2,
+        item -> CompletableFuture.completedFuture(item * 2));
+    //Then
+    assertThat(actualResults.isDone(), is(equalTo(true)));
+    assertThat(actualResults.join().get(99_999), is(equalTo(199_998)));
+  }
+
+  @Test
+  void map_taskFails_remainingTasksRunAndResultFails() {
+    //Given
+    List<Integer> items = List.of(0, 1, 2);
+    List<Integer> startedItems = new ArrayList<>();
+    //When
+    CompletableFuture<List<Integer>> actualResults = BoundedParallelism.map(items, 1, item -> {
+      startedItems.add(item);
+      if (item == 1) {
+        throw new IllegalStateException();
+      }
+      return CompletableFuture.completedFuture(item);
+    });
+    //Then
+    assertThat(startedItems, is(equalTo(items)));
+    CompletionException actualException = assertThrows(CompletionException.class, actualResults::join);
+    assertThat(actualException.getCause(), is(instanceOf(IllegalStateException.class)));
+  }
+
+  @Test
+  void map_noItems_emptyResult() {
+    //When
+    CompletableFuture<List<Integer>> actualResults = BoundedParallelism.map(List.<Integer>of(), 4,
+        CompletableFuture::completedFuture);
+    //Then
+    assertThat(actualResults.join().isEmpty(), is(equalTo(true)));
+  }
+}
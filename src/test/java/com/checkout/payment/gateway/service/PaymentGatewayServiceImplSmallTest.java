@@ -5,6 +5,9 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,13 +15,30 @@ import static org.mockito.Mockito.when;
 import com.checkout.payment.gateway.command.ProcessPaymentCommand;
 import com.checkout.payment.gateway.exception.ExpiredCardDateException;
 import com.checkout.payment.gateway.factory.PaymentFactory;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
 import com.checkout.payment.gateway.model.CashAmount;
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentStatus;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
 import com.checkout.payment.gateway.service.exception.PaymentAlreadyProcessedException;
+import com.checkout.payment.infrastructure.persistance.SimpleInMemoryPaymentsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Year;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -37,7 +57,8 @@ class PaymentGatewayServiceImplSmallTest {
 
   @BeforeEach
   void setup() {
-    testObj = new PaymentGatewayServiceImpl(paymentsRepositoryMock, new PaymentFactory(), bankServiceMock);
+    testObj = new PaymentGatewayServiceImpl(paymentsRepositoryMock, new PaymentFactory(), bankServiceMock,
+        PaymentMetrics.NOOP);
   }
 
 
@@ -97,19 +118,20 @@ class PaymentGatewayServiceImplSmallTest {
       throws ExpiredCardDateException, PaymentAlreadyProcessedException {
     //Given
     UUID idempotencyKey = UUID.randomUUID();
-    when(paymentsRepositoryMock.getByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
+    int expiryYear = Year.now().plusYears(1).getValue();
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
     ArgumentCaptor<Payment> paymentCaptor = ArgumentCaptor.forClass(Payment.class);
     when(paymentsRepositoryMock.createPayment(paymentCaptor.capture()))
         .thenAnswer(invocation -> paymentCaptor.getValue());
     ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
-        Currency.getInstance("GBP"), 2025), 123L, 10, 2025, 0);
+        Currency.getInstance("GBP"), 2025), 123L, 10, expiryYear, 0);
     //When
     Payment actualPayment = testObj.processPayment(processPaymentCommand);
     //Then
     Payment capturedPayment = paymentCaptor.getValue();
     assertThat(actualPayment, is(notNullValue()));
-    verify(paymentsRepositoryMock, times(1)).getByIdempotencyKey(idempotencyKey);
-    verify(bankServiceMock, times(1)).authorisePayment(123L,10, 2025, new CashAmount(
+    verify(paymentsRepositoryMock, times(1)).reserveIdempotencyKey(idempotencyKey);
+    verify(bankServiceMock, times(1)).authorisePayment(idempotencyKey, 123L,10, expiryYear, new CashAmount(
         Currency.getInstance("GBP"), 2025), 0);
     verify(paymentsRepositoryMock, times(1)).createPayment(capturedPayment);
   }
@@ -120,9 +142,195 @@ class PaymentGatewayServiceImplSmallTest {
     //Given
     UUID idempotencyKey = UUID.randomUUID();
     Payment existingPayment = new Payment(idempotencyKey, null, null, null);
-    when(paymentsRepositoryMock.getByIdempotencyKey(idempotencyKey)).thenReturn(Optional.of(existingPayment));
-    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, null, 123L, 10, 2025, 0);
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.of(
+        CompletableFuture.completedFuture(existingPayment)));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, null, 123L, 10, Year.now().plusYears(1).getValue(), 0);
     //When & Then
-    assertThrows(PaymentAlreadyProcessedException.class, () -> testObj.processPayment(processPaymentCommand));
+    PaymentAlreadyProcessedException actualException = assertThrows(PaymentAlreadyProcessedException.class, () -> testObj.processPayment(processPaymentCommand));
+    assertThat(actualException.getProcessedPayment().orElseThrow().join(), is(equalTo(existingPayment)));
+  }
+
+  @Test
+  void processPayment_bankServiceFails_releaseIdempotencyKey() throws ExpiredCardDateException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    BankServiceException bankServiceException = new BankServiceException();
+    when(bankServiceMock.authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenThrow(bankServiceException);
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
+        Currency.getInstance("GBP"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When
+    assertThrows(BankServiceException.class, () -> testObj.processPayment(processPaymentCommand));
+    //Then
+    verify(paymentsRepositoryMock, times(1)).releaseIdempotencyKey(idempotencyKey, bankServiceException);
+    verify(paymentsRepositoryMock, times(0)).createPayment(any());
+  }
+
+  @Test
+  void processPayment_concurrentDuplicatesOfSameIdempotencyKey_callBankOnce() throws Exception {
+    //Given
+    int threads = 32;
+    UUID idempotencyKey = UUID.randomUUID();
+    PaymentGatewayService paymentGatewayService = new PaymentGatewayServiceImpl(
+        new SimpleInMemoryPaymentsRepository(), new PaymentFactory(), bankServiceMock,
+        PaymentMetrics.NOOP);
+    when(bankServiceMock.authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+      Thread.sleep(50);
+      return PaymentStatus.AUTHORIZED;
+    });
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
+        Currency.getInstance("GBP"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    CountDownLatch startingGun = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<Payment>> results = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> {
+          startingGun.await();
+          try {
+            return paymentGatewayService.processPayment(processPaymentCommand);
+          } catch (PaymentAlreadyProcessedException e) {
+            return e.getProcessedPayment().orElseThrow().join();
+          }
+        }));
+      }
+      startingGun.countDown();
+      Set<UUID> transactionIds = new HashSet<>();
+      for (Future<Payment> result : results) {
+        transactionIds.add(result.get().getTransactionId());
+      }
+      //Then
+      verify(bankServiceMock, times(1)).authorisePayment(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+      assertThat(transactionIds.size(), is(equalTo(1)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void processPaymentAsync_paymentHasNotAlreadyBeenProcessed_completeWithPayment()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    int expiryYear = Year.now().plusYears(1).getValue();
+    CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 2025);
+    CompletableFuture<PaymentStatus> authorisation = new CompletableFuture<>();
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
+    when(bankServiceMock.authorisePaymentAsync(idempotencyKey, 123L, 10, expiryYear, cashAmount, 0)).thenReturn(authorisation);
+    when(paymentsRepositoryMock.createPaymentAsync(any(Payment.class)))
+        .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, cashAmount, 123L, 10, expiryYear, 0);
+    //When
+    CompletableFuture<Payment> actualPayment = testObj.processPaymentAsync(processPaymentCommand);
+    //Then
+    assertThat(actualPayment.isDone(), is(equalTo(false)));
+    authorisation.complete(PaymentStatus.DECLINED);
+    assertThat(actualPayment.join().getStatus(), is(equalTo(PaymentStatus.DECLINED)));
+    verify(paymentsRepositoryMock, times(1)).createPaymentAsync(any(Payment.class));
+    verify(paymentsRepositoryMock, times(0)).createPayment(any(Payment.class));
+    verify(paymentsRepositoryMock, times(0)).releaseIdempotencyKey(any(), any());
+  }
+
+  @Test
+  void processPaymentAsync_repositoryCommitPending_completeOnceCommitted()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    CompletableFuture<Payment> commit = new CompletableFuture<>();
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(PaymentStatus.AUTHORIZED));
+    when(paymentsRepositoryMock.createPaymentAsync(any(Payment.class))).thenReturn(commit);
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
+        Currency.getInstance("GBP"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When
+    CompletableFuture<Payment> actualPayment = testObj.processPaymentAsync(processPaymentCommand);
+    //Then
+    assertThat(actualPayment.isDone(), is(equalTo(false)));
+    Payment committedPayment = new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, null, null);
+    commit.complete(committedPayment);
+    assertThat(actualPayment.join(), is(equalTo(committedPayment)));
+    verify(paymentsRepositoryMock, times(0)).releaseIdempotencyKey(any(), any());
+  }
+
+  @Test
+  void processPaymentAsync_repositoryCommitFails_releaseIdempotencyKeyWithCause()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    IllegalStateException commitFailure = new IllegalStateException("Journal closed");
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(PaymentStatus.AUTHORIZED));
+    when(paymentsRepositoryMock.createPaymentAsync(any(Payment.class)))
+        .thenReturn(CompletableFuture.failedFuture(commitFailure));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
+        Currency.getInstance("GBP"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When
+    CompletableFuture<Payment> actualPayment = testObj.processPaymentAsync(processPaymentCommand);
+    //Then
+    CompletionException actualException = assertThrows(CompletionException.class, actualPayment::join);
+    assertThat(actualException.getCause(), is(equalTo(commitFailure)));
+    verify(paymentsRepositoryMock, times(1)).releaseIdempotencyKey(idempotencyKey, commitFailure);
+  }
+
+  @Test
+  void processPaymentAsync_paymentHasAlreadyBeenProcessed_throwPaymentAlreadyProcessedException()
+      throws ExpiredCardDateException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment existingPayment = new Payment(idempotencyKey, null, null, null);
+    when(paymentsRepositoryMock.reserveIdempotencyKey(idempotencyKey)).thenReturn(Optional.of(
+        CompletableFuture.completedFuture(existingPayment)));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, null, 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When & Then
+    assertThrows(PaymentAlreadyProcessedException.class, () -> testObj.processPaymentAsync(processPaymentCommand));
+    verify(bankServiceMock, times(0)).authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt());
+  }
+
+  @Test
+  void processPaymentAsync_bankServiceFails_releaseIdempotencyKeyWithCause()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    BankServiceException bankServiceException = new BankServiceException();
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenReturn(CompletableFuture.supplyAsync(() -> {
+          throw bankServiceException;
+        }));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(idempotencyKey, new CashAmount(
+        Currency.getInstance("GBP"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When
+    CompletableFuture<Payment> actualPayment = testObj.processPaymentAsync(processPaymentCommand);
+    //Then
+    CompletionException actualException = assertThrows(CompletionException.class, actualPayment::join);
+    assertThat(actualException.getCause(), is(equalTo(bankServiceException)));
+    verify(paymentsRepositoryMock, times(1)).releaseIdempotencyKey(idempotencyKey, bankServiceException);
+    verify(paymentsRepositoryMock, times(0)).createPaymentAsync(any());
+  }
+
+  @Test
+  void processPaymentAsync_authorised_stagesTimedAndPaymentCountedByStatus()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    testObj = new PaymentGatewayServiceImpl(paymentsRepositoryMock, new PaymentFactory(), bankServiceMock,
+        new PaymentMetrics(meterRegistry));
+    when(paymentsRepositoryMock.reserveIdempotencyKey(any())).thenReturn(Optional.empty());
+    when(bankServiceMock.authorisePaymentAsync(any(), anyLong(), anyInt(), anyInt(), any(), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(PaymentStatus.AUTHORIZED));
+    when(paymentsRepositoryMock.createPaymentAsync(any(Payment.class)))
+        .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+    ProcessPaymentCommand processPaymentCommand = new ProcessPaymentCommand(UUID.randomUUID(), new CashAmount(
+        Currency.getInstance("EUR"), 150), 123L, 10, Year.now().plusYears(1).getValue(), 0);
+    //When
+    testObj.processPaymentAsync(processPaymentCommand).join();
+    //Then
+    assertThat(meterRegistry.get(PaymentMetrics.STAGE).tag("stage", "idempotency-lookup").timer().count(), is(equalTo(1L)));
+    assertThat(meterRegistry.get(PaymentMetrics.STAGE).tag("stage", "repository-insert").timer().count(), is(equalTo(1L)));
+    assertThat(meterRegistry.get(PaymentMetrics.BANK_CALL).tag("currency", "EUR").tag("status", "Authorized")
+        .timer().count(), is(equalTo(1L)));
+    assertThat(meterRegistry.get(PaymentMetrics.PROCESSED).tag("status", "Authorized").counter().count(), is(equalTo(1.0)));
+    assertThat(meterRegistry.get(PaymentMetrics.PROCESSED).tag("status", "Declined").counter().count(), is(equalTo(0.0)));
   }
 }
@@ -0,0 +1,82 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class GroupCommitterSmallTest {
+
+  @Test
+  void submit_afterClose_throwIllegalStateException() {
+    //Given
+    GroupCommitter<Integer> testObj = new GroupCommitter<>("test-group-commit", 8, Duration.ZERO,
+        batch -> {
+        }, new SimpleMeterRegistry());
+    testObj.close();
+    //When
+    IllegalStateException actualException = assertThrows(IllegalStateException.class,
+        () -> testObj.submit(1));
+    //Then
+    assertThat(actualException.getMessage(), is(equalTo("Group committer test-group-commit is closed")));
+  }
+
+  @Test
+  void close_whileWritesSubmittedConcurrently_everyAcceptedWriteCommitted() throws Exception {
+    //Given
+    Set<Integer> committedWrites = ConcurrentHashMap.newKeySet();
+    GroupCommitter<Integer> testObj = new GroupCommitter<>("test-group-commit", 8, Duration.ZERO,
+        committedWrites::addAll, new SimpleMeterRegistry());
+    int threads = 4;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    AtomicInteger nextWrite = new AtomicInteger();
+    CountDownLatch submitting = new CountDownLatch(threads);
+    List<Future<List<Integer>>> acceptedWrites = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        acceptedWrites.add(executorService.submit(() -> {
+          List<Integer> accepted = new ArrayList<>();
+          submitting.countDown();
+          try {
+            while (true) {
+              int write = nextWrite.getAndIncrement();
+              testObj.submit(write);
+              accepted.add(write);
+            }
+          } catch (IllegalStateException closed) {
+            return accepted;
+          }
+        }));
+      }
+      submitting.await(5, TimeUnit.SECONDS);
+      Thread.sleep(20);
+      //When
+      testObj.close();
+      //Then
+      int accepted = 0;
+      for (Future<List<Integer>> threadWrites : acceptedWrites) {
+        for (Integer write : threadWrites.get(5, TimeUnit.SECONDS)) {
+          assertThat(committedWrites.contains(write), is(true));
+          accepted++;
+        }
+      }
+      assertThat(committedWrites.size(), is(equalTo(accepted)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyKeyStoreSmallTest {
+  private static final Duration TTL = Duration.ofSeconds(80);
+  //A generation spans TTL / (GENERATIONS - 1) = 20s
+  private static final int GENERATIONS = 5;
+  private static final int MAX_SIZE = 100;
+
+  private final AtomicLong clock = new AtomicLong();
+  private final IdempotencyKeyStore testObj = new IdempotencyKeyStore(TTL, MAX_SIZE, GENERATIONS, clock::get);
+
+  @Test
+  void putIfAbsent_newKey_transactionIdHeld() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    UUID transactionId = UUID.randomUUID();
+    //When
+    UUID actualHeldTransactionId = testObj.putIfAbsent(idempotencyKey, transactionId);
+    //Then
+    assertThat(actualHeldTransactionId, is(nullValue()));
+    assertThat(testObj.get(idempotencyKey), is(equalTo(transactionId)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void putIfAbsent_keyHeld_returnHeldTransactionId() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    UUID transactionId = UUID.randomUUID();
+    testObj.putIfAbsent(idempotencyKey, transactionId);
+    //When
+    UUID actualHeldTransactionId = testObj.putIfAbsent(idempotencyKey, UUID.randomUUID());
+    //Then
+    assertThat(actualHeldTransactionId, is(equalTo(transactionId)));
+    assertThat(testObj.get(idempotencyKey), is(equalTo(transactionId)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void get_unknownKey_returnNull() {
+    //Given & When
+    UUID actualTransactionId = testObj.get(UUID.randomUUID());
+    //Then
+    assertThat(actualTransactionId, is(nullValue()));
+  }
+
+  @Test
+  void putIfAbsent_nilTransactionId_throwIllegalArgumentException() {
+    //Given & When & Then
+    assertThrows(IllegalArgumentException.class, () -> testObj.putIfAbsent(UUID.randomUUID(), new UUID(0, 0)));
+  }
+
+  @Test
+  void get_keyUnderConstantLoad_heldForTtlThenEvicted() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    UUID transactionId = UUID.randomUUID();
+    testObj.putIfAbsent(idempotencyKey, transactionId);
+    //When a key is added every second up to just before the TTL
+    for (int second = 1; second < 80; second++) {
+      clock.set(Duration.ofSeconds(second).toNanos());
+      testObj.putIfAbsent(UUID.randomUUID(), UUID.randomUUID());
+    }
+    //Then
+    assertThat(testObj.get(idempotencyKey), is(equalTo(transactionId)));
+    for (int second = 80; second <= 100; second++) {
+      clock.set(Duration.ofSeconds(second).toNanos());
+      testObj.putIfAbsent(UUID.randomUUID(), UUID.randomUUID());
+    }
+    assertThat(testObj.get(idempotencyKey), is(nullValue()));
+    assertThat(testObj.putIfAbsent(idempotencyKey, UUID.randomUUID()), is(nullValue()));
+  }
+
+  @Test
+  void get_noWritesSinceKeyAdded_evictedOnceTtlAndSpanElapsed() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    UUID transactionId = UUID.randomUUID();
+    testObj.putIfAbsent(idempotencyKey, transactionId);
+    //When
+    clock.set(TTL.toNanos());
+    UUID actualTransactionIdAtTtl = testObj.get(idempotencyKey);
+    clock.set(TTL.plusSeconds(20).toNanos());
+    UUID actualTransactionIdAfterSpan = testObj.get(idempotencyKey);
+    //Then
+    assertThat(actualTransactionIdAtTtl, is(equalTo(transactionId)));
+    assertThat(actualTransactionIdAfterSpan, is(nullValue()));
+  }
+
+  @Test
+  void putIfAbsent_moreKeysThanMaxSizeWithinTtl_oldestEvicted() {
+    //Given
+    List<UUID> idempotencyKeys = new ArrayList<>();
+    //When
+    for (int i = 0; i < MAX_SIZE * 3; i++) {
+      UUID idempotencyKey = UUID.randomUUID();
+      idempotencyKeys.add(idempotencyKey);
+      testObj.putIfAbsent(idempotencyKey, UUID.randomUUID());
+    }
+    //Then
+    assertThat(testObj.size(), is(lessThanOrEqualTo(MAX_SIZE)));
+    assertThat(testObj.get(idempotencyKeys.get(0)), is(nullValue()));
+    assertThat(testObj.get(idempotencyKeys.get(idempotencyKeys.size() - 1)), is(notNullValue()));
+  }
+
+  @Test
+  void putIfAbsent_keysAtSteadyRateThenBurst_tablesAllocatedOncePerGenerationAndSizeBounded() {
+    //Given 1s TTL over 8 generations, 2,000 keys each: a key every 100us rotates on the span, and a
+    //key every 10us on the size
+    AtomicLong keyClock = new AtomicLong();
+    IdempotencyKeyStore keyTestObj = new IdempotencyKeyStore(Duration.ofSeconds(1), 16_000, 8, keyClock::get);
+    int maxHeldSize = 0;
+    //When
+    for (int i = 1; i <= 200_000; i++) {
+      keyClock.addAndGet(i <= 100_000 ? 100_000 : 10_000);
+      keyTestObj.putIfAbsent(new UUID(i, ~i), new UUID(1, i));
+      maxHeldSize = Math.max(maxHeldSize, keyTestObj.size());
+    }
+    //Then
+    assertThat(keyTestObj.allocatedTables(), is(equalTo(8)));
+    assertThat(maxHeldSize, is(lessThanOrEqualTo(16_000)));
+  }
+}
@@ -0,0 +1,338 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalPaymentsRepositorySmallTest {
+  private static final int RECORDS_PER_SEGMENT = 4;
+
+  @TempDir
+  Path directory;
+
+  private JournalPaymentsRepository testObj;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    testObj.close();
+  }
+
+  @Test
+  void createPayment_validPayment_success() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    Payment payment = createValidPayment(UUID.randomUUID());
+    //When
+    Payment actualPayment = testObj.createPayment(payment);
+    //Then
+    assertThat(actualPayment, is(notNullValue()));
+    assertThat(actualPayment.getTransactionId(), is(notNullValue()));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void getByTransactionId_paymentDoesNotExist_returnEmptyPayment() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    //When
+    Optional<Payment> actualPaymentOpt = testObj.getByTransactionId(UUID.randomUUID());
+    //Then
+    assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void createPayment_idempotencyKeyAlreadyUsed_returnFirstPayment() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment firstPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Payment actualPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //Then
+    assertThat(actualPayment, is(equalTo(firstPayment)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void open_afterRestartAcrossSegments_allPaymentsRecovered() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_N_RECORDS);
+    List<Payment> persistedPayments = createPayments(10);
+    testObj.close();
+    //When
+    testObj = open(JournalFsyncPolicy.EVERY_N_RECORDS);
+    //Then
+    assertThat(segmentFiles().size(), is(equalTo(3)));
+    assertThat(testObj.size(), is(equalTo(10)));
+    assertAllFound(persistedPayments);
+  }
+
+  @Test
+  void findPayments_afterRestart_recoveredPaymentsFoundInJournalOrderNewestFirst() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    List<Payment> persistedPayments = createPayments(10);
+    testObj.close();
+    //When
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    Payment createdPayment = testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    PaymentPage actualPage = testObj.findPayments(PaymentSearchQuery.builder().limit(20).build());
+    //Then
+    List<Payment> expectedPayments = new ArrayList<>(persistedPayments);
+    expectedPayments.add(createdPayment);
+    Collections.reverse(expectedPayments);
+    assertThat(actualPage.payments(), is(equalTo(expectedPayments)));
+  }
+
+  @Test
+  void open_tailTruncatedMidRecord_tornRecordDiscardedAndAppendsResume() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.INTERVAL);
+    List<Payment> persistedPayments = createPayments(7);
+    testObj.close();
+    Path lastSegment = segmentFiles().get(1);
+    //A crash part-way through writing the 7th record
+    try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+      channel.truncate(2L * PaymentJournal.RECORD_SIZE + PaymentJournal.RECORD_SIZE / 2);
+    }
+    //When
+    testObj = open(JournalFsyncPolicy.INTERVAL);
+    //Then
+    Payment tornPayment = persistedPayments.remove(6);
+    assertThat(testObj.size(), is(equalTo(6)));
+    assertAllFound(persistedPayments);
+    assertThat(testObj.getByTransactionId(tornPayment.getTransactionId()).isEmpty(), is(equalTo(true)));
+    assertThat(testObj.getByIdempotencyKey(tornPayment.getIdempotencyKey()).isEmpty(), is(equalTo(true)));
+    persistedPayments.addAll(createPayments(3));
+    testObj.close();
+    testObj = open(JournalFsyncPolicy.INTERVAL);
+    assertThat(testObj.size(), is(equalTo(9)));
+    assertAllFound(persistedPayments);
+  }
+
+  @Test
+  void open_lastRecordCorrupted_corruptRecordDiscarded() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    List<Payment> persistedPayments = createPayments(3);
+    testObj.close();
+    try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {42}), 2L * PaymentJournal.RECORD_SIZE + 33);
+    }
+    //When
+    testObj = open(JournalFsyncPolicy.EVERY_WRITE);
+    //Then
+    assertThat(testObj.size(), is(equalTo(2)));
+    assertAllFound(persistedPayments.subList(0, 2));
+  }
+
+  @Test
+  void createPayment_groupCommitConcurrentWriters_allPaymentsSyncedInBatchesAndRecovered() throws Exception {
+    //Given
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    testObj = open(JournalFsyncPolicy.GROUP_COMMIT, meterRegistry);
+    int threads = 16;
+    int paymentsPerThread = 50;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<List<Payment>>> results = new ArrayList<>();
+    List<Payment> persistedPayments = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> createPayments(paymentsPerThread)));
+      }
+      for (Future<List<Payment>> result : results) {
+        persistedPayments.addAll(result.get());
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    //Then
+    assertAllFound(persistedPayments);
+    //Writers are answered before their batch is recorded, closing waits for the committer to finish
+    testObj.close();
+    DistributionSummary batchSize = meterRegistry.get("payments.journal.group-commit.batch-size").summary();
+    assertThat(batchSize.totalAmount(), is(equalTo((double) threads * paymentsPerThread)));
+    assertThat(batchSize.count(), is(lessThanOrEqualTo((long) threads * paymentsPerThread)));
+    assertThat(meterRegistry.get("payments.journal.group-commit.flush").timer().count(),
+        is(equalTo(batchSize.count())));
+    testObj = open(JournalFsyncPolicy.GROUP_COMMIT, meterRegistry);
+    assertThat(testObj.size(), is(equalTo(threads * paymentsPerThread)));
+    assertAllFound(persistedPayments);
+  }
+
+  @Test
+  void createPayment_groupCommitIdempotencyKeyAlreadyUsed_returnFirstPayment() throws IOException {
+    //Given
+    testObj = open(JournalFsyncPolicy.GROUP_COMMIT);
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment firstPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Payment actualPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //Then
+    assertThat(actualPayment, is(equalTo(firstPayment)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void createPayment_groupCommitDuplicatesInSameBatch_allReturnFirstPayment() throws Exception {
+    //Given
+    testObj = new JournalPaymentsRepository(JournalOptions.builder()
+        .directory(directory)
+        .fsyncPolicy(JournalFsyncPolicy.GROUP_COMMIT)
+        .groupCommitMaxBatchSize(8)
+        .groupCommitMaxLinger(Duration.ofMillis(200))
+        .build());
+    UUID idempotencyKey = UUID.randomUUID();
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    List<Future<Payment>> results = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i < 8; i++) {
+        results.add(executorService.submit(() -> testObj.createPayment(createValidPayment(idempotencyKey))));
+      }
+      //Then
+      Payment firstPayment = results.get(0).get();
+      for (Future<Payment> result : results) {
+        assertThat(result.get(), is(equalTo(firstPayment)));
+      }
+      assertThat(testObj.size(), is(equalTo(1)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void createPaymentAsync_groupCommit_completedByCommitNotCaller() throws Exception {
+    //Given
+    testObj = new JournalPaymentsRepository(JournalOptions.builder()
+        .directory(directory)
+        .fsyncPolicy(JournalFsyncPolicy.GROUP_COMMIT)
+        .groupCommitMaxBatchSize(8)
+        .groupCommitMaxLinger(Duration.ofMillis(500))
+        .build());
+    Payment payment = createValidPayment(UUID.randomUUID());
+    //When
+    CompletableFuture<Payment> actualPayment = testObj.createPaymentAsync(payment);
+    //Then
+    assertThat(actualPayment.isDone(), is(equalTo(false)));
+    assertThat(actualPayment.get(5, TimeUnit.SECONDS), is(equalTo(payment)));
+    assertAllFound(List.of(payment));
+  }
+
+  @Test
+  void createPayment_groupCommitBatchFailsAcrossSegmentRoll_batchTruncatedFromJournal() throws Exception {
+    //Given
+    testObj = new JournalPaymentsRepository(JournalOptions.builder()
+        .directory(directory)
+        .recordsPerSegment(RECORDS_PER_SEGMENT)
+        .fsyncPolicy(JournalFsyncPolicy.GROUP_COMMIT)
+        .groupCommitMaxBatchSize(RECORDS_PER_SEGMENT + 2)
+        .groupCommitMaxLinger(Duration.ofSeconds(10))
+        .build());
+    ExecutorService executorService = Executors.newFixedThreadPool(RECORDS_PER_SEGMENT + 2);
+    List<Future<Payment>> results = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i <= RECORDS_PER_SEGMENT; i++) {
+        results.add(executorService.submit(() -> testObj.createPayment(createValidPayment(UUID.randomUUID()))));
+        Thread.sleep(50);
+      }
+      Payment unwritablePayment = new Payment(UUID.randomUUID(), null,
+          new CashAmount(Currency.getInstance("GBP"), 150), new PaymentMethodDetails(1234, 10, 2030));
+      results.add(executorService.submit(() -> testObj.createPayment(unwritablePayment)));
+      //Then
+      for (Future<Payment> result : results) {
+        assertThrows(ExecutionException.class, result::get);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertThat(testObj.size(), is(equalTo(0)));
+    assertThat(segmentFiles().size(), is(equalTo(1)));
+    testObj.close();
+    testObj = open(JournalFsyncPolicy.GROUP_COMMIT);
+    assertThat(testObj.size(), is(equalTo(0)));
+    List<Payment> persistedPayments = createPayments(RECORDS_PER_SEGMENT + 1);
+    assertAllFound(persistedPayments);
+  }
+
+  private JournalPaymentsRepository open(JournalFsyncPolicy fsyncPolicy) throws IOException {
+    return open(fsyncPolicy, new SimpleMeterRegistry());
+  }
+
+  private JournalPaymentsRepository open(JournalFsyncPolicy fsyncPolicy, MeterRegistry meterRegistry)
+      throws IOException {
+    return new JournalPaymentsRepository(JournalOptions.builder()
+        .directory(directory)
+        .recordsPerSegment(RECORDS_PER_SEGMENT)
+        .fsyncPolicy(fsyncPolicy)
+        .fsyncInterval(Duration.ofMillis(1))
+        .fsyncEveryRecords(3)
+        .build(), meterRegistry);
+  }
+
+  private List<Payment> createPayments(int count) {
+    List<Payment> persistedPayments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      persistedPayments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+    }
+    return persistedPayments;
+  }
+
+  private void assertAllFound(List<Payment> persistedPayments) {
+    for (Payment persistedPayment : persistedPayments) {
+      assertThat(testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+      assertThat(testObj.getByIdempotencyKey(persistedPayment.getIdempotencyKey()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+    }
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+
+  private Payment createValidPayment(UUID idempotencyKey) {
+    PaymentMethodDetails cardPaymentMethodDetails = new PaymentMethodDetails(1234, 10, 2030);
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, new CashAmount(Currency.getInstance("GBP"), 150), cardPaymentMethodDetails);
+  }
+}
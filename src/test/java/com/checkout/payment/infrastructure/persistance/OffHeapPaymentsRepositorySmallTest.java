@@ -0,0 +1,162 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapPaymentsRepositorySmallTest {
+  private OffHeapPaymentsRepository testObj;
+
+  @BeforeEach
+  void setup() {
+    testObj = new OffHeapPaymentsRepository(16);
+  }
+
+  @Test
+  void createPayment_validPayment_success() {
+    //Given
+    Payment payment = createValidPayment(UUID.randomUUID());
+    //When
+    Payment actualPayment = testObj.createPayment(payment);
+    //Then
+    assertThat(actualPayment, is(notNullValue()));
+    assertThat(actualPayment.getTransactionId(), is(notNullValue()));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void getByTransactionId_paymentExist_returnDecodedPayment() {
+    //Given
+    Payment persistedPayment = testObj.createPayment(new Payment(UUID.randomUUID(),
+        PaymentStatus.DECLINED, new CashAmount(Currency.getInstance("BHD"), 123456),
+        new PaymentMethodDetails(877, 12, 2031)));
+    //When
+    Optional<Payment> actualPaymentOpt = testObj.getByTransactionId(persistedPayment.getTransactionId());
+    //Then
+    assertThat(actualPaymentOpt.isPresent(), is(equalTo(true)));
+    assertThat(actualPaymentOpt.get(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void getByTransactionId_paymentDoesNotExist_returnEmptyPayment() {
+    //Given & When
+    Optional<Payment> actualPaymentOpt = testObj.getByTransactionId(UUID.randomUUID());
+    //Then
+    assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void getByIdempotencyKey_paymentExist_returnPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Optional<Payment> actualPaymentOpt = testObj.getByIdempotencyKey(idempotencyKey);
+    //Then
+    assertThat(actualPaymentOpt.isPresent(), is(equalTo(true)));
+    assertThat(actualPaymentOpt.get(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void getByIdempotencyKey_paymentDoesNotExist_returnEmptyPayment() {
+    //Given & When
+    Optional<Payment> actualPaymentOpt = testObj.getByIdempotencyKey(UUID.randomUUID());
+    //Then
+    assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void createPayment_idempotencyKeyAlreadyUsed_returnFirstPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment firstPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Payment actualPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //Then
+    assertThat(actualPayment, is(equalTo(firstPayment)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void createPayment_beyondInitialCapacityAndChunk_allPaymentsStillFound() {
+    //Given
+    List<Payment> persistedPayments = new ArrayList<>();
+    //When
+    for (int i = 0; i < 100_000; i++) {
+      persistedPayments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+    }
+    //Then
+    assertThat(testObj.size(), is(equalTo(100_000)));
+    for (Payment persistedPayment : persistedPayments) {
+      assertThat(testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+      assertThat(testObj.getByIdempotencyKey(persistedPayment.getIdempotencyKey()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+    }
+  }
+
+  @Test
+  void reserveIdempotencyKey_keyAlreadyReserved_returnInFlightPaymentCompletedOnCreation() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    testObj.reserveIdempotencyKey(idempotencyKey);
+    //When
+    CompletableFuture<Payment> actualInFlightPayment = testObj.reserveIdempotencyKey(idempotencyKey).orElseThrow();
+    //Then
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    assertThat(actualInFlightPayment.join(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void getByTransactionId_readersRacingWriters_alwaysFindCreatedPayments() throws Exception {
+    //Given
+    int threads = 8;
+    int paymentsPerThread = 20_000;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<Boolean>> results = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> {
+          for (int j = 0; j < paymentsPerThread; j++) {
+            Payment persistedPayment = testObj.createPayment(createValidPayment(UUID.randomUUID()));
+            if (!testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow()
+                .equals(persistedPayment)) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      //Then
+      for (Future<Boolean> result : results) {
+        assertThat(result.get(), is(equalTo(true)));
+      }
+      assertThat(testObj.size(), is(equalTo(threads * paymentsPerThread)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private Payment createValidPayment(UUID idempotencyKey) {
+    PaymentMethodDetails cardPaymentMethodDetails = new PaymentMethodDetails(1234, 10, 2025);
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, new CashAmount(Currency.getInstance("GBP"), 150), cardPaymentMethodDetails);
+  }
+}
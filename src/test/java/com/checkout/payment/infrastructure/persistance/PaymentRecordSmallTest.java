@@ -0,0 +1,52 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import java.nio.ByteBuffer;
+import java.util.Currency;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PaymentRecordSmallTest {
+
+  @Test
+  void read_writtenPayment_returnEqualPayment() {
+    //Given
+    ByteBuffer buffer = ByteBuffer.allocate(2 * PaymentRecord.SIZE);
+    Payment payment = createPayment();
+    PaymentRecord.write(buffer, PaymentRecord.SIZE, payment);
+    //When
+    Payment actualPayment = PaymentRecord.read(buffer, PaymentRecord.SIZE);
+    //Then
+    assertThat(actualPayment, is(equalTo(payment)));
+  }
+
+  @Test
+  void read_currencyUnknownToJdk_throwIllegalStateExceptionNamingCode() {
+    //Given
+    ByteBuffer buffer = ByteBuffer.allocate(PaymentRecord.SIZE);
+    PaymentRecord.write(buffer, 0, createPayment());
+    buffer.putShort(PaymentRecord.CURRENCY, (short) (('Q' - 'A') * 26 * 26 + ('Q' - 'A') * 26 + ('Q' - 'A')));
+    //When
+    IllegalStateException actualException = assertThrows(IllegalStateException.class,
+        () -> PaymentRecord.read(buffer, 0));
+    //Then
+    assertThat(actualException.getMessage(), is(equalTo("Payment record currency QQQ is not known to this JDK")));
+  }
+
+  private static Payment createPayment() {
+    Payment payment = new Payment(UUID.randomUUID(), PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 1050), new PaymentMethodDetails(8877, 4, 2030));
+    UUID transactionId = new TransactionIdGenerator().next();
+    payment.setTransactionId(transactionId);
+    payment.setCreatedAt(TransactionIdGenerator.createdAt(transactionId));
+    return payment;
+  }
+}
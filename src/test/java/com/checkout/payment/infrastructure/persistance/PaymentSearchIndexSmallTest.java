@@ -0,0 +1,222 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class PaymentSearchIndexSmallTest {
+  private static final IsoCurrency GBP = IsoCurrency.lookup("GBP");
+  private static final IsoCurrency USD = IsoCurrency.lookup("USD");
+  private static final IsoCurrency EUR = IsoCurrency.lookup("EUR");
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+  private final Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+  private final PaymentSearchIndex testObj = new PaymentSearchIndex();
+
+  @Test
+  void search_noFilters_allPaymentsNewestFirst() {
+    //Given
+    Payment first = add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    Payment second = add(PaymentStatus.DECLINED, USD, 1234);
+    Payment third = add(PaymentStatus.AUTHORIZED, EUR, 8877);
+    //When
+    PaymentPage actualPage = search(PaymentSearchQuery.builder());
+    //Then
+    assertThat(actualPage.payments(), is(equalTo(List.of(third, second, first))));
+    assertThat(actualPage.nextCursor(), is(nullValue()));
+  }
+
+  @Test
+  void search_statusAndCurrency_onlyPaymentsMatchingBoth() {
+    //Given
+    Payment declinedGbp = add(PaymentStatus.DECLINED, GBP, 8877);
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    add(PaymentStatus.DECLINED, USD, 8877);
+    Payment laterDeclinedGbp = add(PaymentStatus.DECLINED, GBP, 1234);
+    //When
+    PaymentPage actualPage = search(PaymentSearchQuery.builder().status(PaymentStatus.DECLINED).currency(GBP));
+    //Then
+    assertThat(actualPage.payments(), is(equalTo(List.of(laterDeclinedGbp, declinedGbp))));
+  }
+
+  @Test
+  void search_cardNumberLastFourAndStatus_onlyPaymentsMatchingBoth() {
+    //Given
+    Payment authorised = add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    add(PaymentStatus.DECLINED, GBP, 8877);
+    add(PaymentStatus.AUTHORIZED, GBP, 877);
+    //When
+    PaymentPage actualPage = search(PaymentSearchQuery.builder().cardNumberLastFour(8877).status(PaymentStatus.AUTHORIZED));
+    //Then
+    assertThat(actualPage.payments(), is(equalTo(List.of(authorised))));
+  }
+
+  @Test
+  void search_currencyOrCardNumberLastFourNeverIndexed_noPayments() {
+    //Given
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    //When
+    PaymentPage actualByCurrency = search(PaymentSearchQuery.builder().currency(USD));
+    PaymentPage actualByCardNumberLastFour = search(PaymentSearchQuery.builder().cardNumberLastFour(1234));
+    //Then
+    assertThat(actualByCurrency.payments(), is(equalTo(List.of())));
+    assertThat(actualByCardNumberLastFour.payments(), is(equalTo(List.of())));
+  }
+
+  @Test
+  void search_timeRange_fromInclusiveToExclusive() {
+    //Given
+    clock.set(1_000);
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    clock.set(1_500);
+    Payment atFrom = add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    clock.set(2_999);
+    Payment beforeTo = add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    clock.set(3_000);
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    //When
+    PaymentPage actualPage = search(PaymentSearchQuery.builder()
+        .from(Instant.ofEpochMilli(1_500))
+        .to(Instant.ofEpochMilli(3_000)));
+    //Then
+    assertThat(actualPage.payments(), is(equalTo(List.of(beforeTo, atFrom))));
+  }
+
+  @Test
+  void add_createdBeforeLastPayment_indexedAtLastPaymentTime() {
+    //Given
+    clock.set(5_000);
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    clock.set(4_000);
+    Payment late = add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    //When
+    PaymentPage actualPage = search(PaymentSearchQuery.builder().from(Instant.ofEpochMilli(4_500)));
+    //Then
+    assertThat(actualPage.payments().size(), is(equalTo(2)));
+    assertThat(actualPage.payments().get(0), is(equalTo(late)));
+  }
+
+  @Test
+  void search_pagedByCursor_everyMatchOnceNewestFirstAsBruteForce() {
+    //Given
+    Random random = new Random(42);
+    IsoCurrency[] currencies = {GBP, USD, EUR};
+    List<Payment> added = new ArrayList<>();
+    List<Long> createdAt = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      clock.addAndGet(random.nextInt(300));
+      createdAt.add(clock.get());
+      added.add(add(random.nextInt(10) == 0 ? PaymentStatus.DECLINED : PaymentStatus.AUTHORIZED,
+          currencies[random.nextInt(currencies.length)], random.nextInt(20)));
+    }
+    long start = createdAt.get(0);
+    long end = createdAt.get(createdAt.size() - 1);
+    for (int query = 0; query < 50; query++) {
+      PaymentStatus status = random.nextBoolean() ? PaymentStatus.values()[random.nextInt(2)] : null;
+      IsoCurrency currency = random.nextBoolean() ? currencies[random.nextInt(currencies.length)] : null;
+      Integer cardNumberLastFour = random.nextBoolean() ? random.nextInt(20) : null;
+      long from = start + (long) (random.nextDouble() * (end - start));
+      long to = from + (long) (random.nextDouble() * (end - from)) + 1;
+      List<Payment> expected = new ArrayList<>();
+      for (int i = added.size() - 1; i >= 0; i--) {
+        Payment payment = added.get(i);
+        if ((status == null || payment.getStatus() == status)
+            && (currency == null || payment.getCashAmount().getCurrency() == currency)
+            && (cardNumberLastFour == null || payment.getPaymentMethodDetails().getLastFourCardDigits() == cardNumberLastFour)
+            && createdAt.get(i) >= from && createdAt.get(i) < to) {
+          expected.add(payment);
+        }
+      }
+      //When
+      List<Payment> actual = new ArrayList<>();
+      String cursor = null;
+      do {
+        PaymentPage page = search(PaymentSearchQuery.builder().status(status).currency(currency)
+            .cardNumberLastFour(cardNumberLastFour).from(Instant.ofEpochMilli(from)).to(Instant.ofEpochMilli(to))
+            .limit(7).cursor(cursor));
+        actual.addAll(page.payments());
+        cursor = page.nextCursor();
+      } while (cursor != null);
+      //Then
+      assertThat(actual, is(equalTo(expected)));
+    }
+  }
+
+  @Test
+  void search_whileWriterAdds_everyPaymentIndexedBeforeSearchFound() throws Exception {
+    //Given
+    ExecutorService writer = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> adding = writer.submit(() -> {
+        for (int i = 0; i < 200_000; i++) {
+          add(i % 2 == 0 ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED, GBP, i % 10);
+        }
+      });
+      //When
+      while (!adding.isDone()) {
+        int matches = 0;
+        String cursor = null;
+        int size = testObj.size();
+        do {
+          PaymentPage page = search(PaymentSearchQuery.builder().status(PaymentStatus.DECLINED)
+              .cardNumberLastFour(1).limit(500).cursor(cursor));
+          matches += page.payments().size();
+          cursor = page.nextCursor();
+        } while (cursor != null);
+        //Then every payment indexed before the search started is found
+        assertThat(matches, is(greaterThanOrEqualTo((size + 8) / 10)));
+      }
+      adding.get();
+    } finally {
+      writer.shutdownNow();
+    }
+  }
+
+  @Test
+  void search_cursorNotReturnedByIndex_throwInvalidCursorException() {
+    //Given
+    add(PaymentStatus.AUTHORIZED, GBP, 8877);
+    //When & Then
+    assertThrows(InvalidCursorException.class, () -> search(PaymentSearchQuery.builder().cursor("2")));
+    assertThrows(InvalidCursorException.class, () -> search(PaymentSearchQuery.builder().cursor("next")));
+  }
+
+  private PaymentPage search(PaymentSearchQuery.PaymentSearchQueryBuilder query) {
+    return testObj.search(query.build(), transactionId -> Optional.ofNullable(payments.get(transactionId)));
+  }
+
+  private Payment add(PaymentStatus status, IsoCurrency currency, int cardNumberLastFour) {
+    Payment payment = new Payment(UUID.randomUUID(), status, new CashAmount(currency, 150),
+        new PaymentMethodDetails(cardNumberLastFour, 10, 2030));
+    payment.setTransactionId(UUID.randomUUID());
+    payment.setCreatedAt(Instant.ofEpochMilli(clock.get()));
+    payments.put(payment.getTransactionId(), payment);
+    testObj.add(payment);
+    return payment;
+  }
+}
@@ -0,0 +1,279 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
+import com.checkout.payment.gateway.repository.PaymentPage;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedPaymentsRepositorySmallTest {
+  private ShardedPaymentsRepository testObj = new ShardedPaymentsRepository(ShardingOptions.builder()
+      .shards(4)
+      .initialCapacity(16)
+      .build());
+
+  @AfterEach
+  void tearDown() {
+    testObj.close();
+  }
+
+  @Test
+  void createPayment_validPayment_success() {
+    //Given
+    Payment payment = createValidPayment(UUID.randomUUID());
+    //When
+    Payment actualPayment = testObj.createPayment(payment);
+    //Then
+    assertThat(actualPayment, is(notNullValue()));
+    assertThat(actualPayment.getTransactionId().version(), is(equalTo(7)));
+    assertThat(actualPayment.getCreatedAt(), is(notNullValue()));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void new_shardsNotPowerOfTwo_roundedUp() {
+    //Given & When
+    ShardedPaymentsRepository actualRepository = new ShardedPaymentsRepository(ShardingOptions.builder().shards(5).build());
+    //Then
+    assertThat(actualRepository.shardCount(), is(equalTo(8)));
+  }
+
+  @Test
+  void new_noShards_throwIllegalArgumentException() {
+    //Given & When & Then
+    assertThrows(IllegalArgumentException.class,
+        () -> new ShardedPaymentsRepository(ShardingOptions.builder().shards(0).build()));
+  }
+
+  @Test
+  void getByTransactionId_paymentExist_returnPayment() {
+    //Given
+    Payment persistedPayment = testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    //When
+    Optional<Payment> actualPaymentOpt = testObj.getByTransactionId(persistedPayment.getTransactionId());
+    //Then
+    assertThat(actualPaymentOpt.isPresent(), is(equalTo(true)));
+    assertThat(actualPaymentOpt.get(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void getByTransactionId_paymentDoesNotExist_returnEmptyPayment() {
+    //Given & When
+    Optional<Payment> actualPaymentOpt = testObj.getByTransactionId(UUID.randomUUID());
+    //Then
+    assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void getByIdempotencyKey_paymentExist_returnPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Optional<Payment> actualPaymentOpt = testObj.getByIdempotencyKey(idempotencyKey);
+    //Then
+    assertThat(actualPaymentOpt.isPresent(), is(equalTo(true)));
+    assertThat(actualPaymentOpt.get(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void getByIdempotencyKey_paymentDoesNotExist_returnEmptyPayment() {
+    //Given & When
+    Optional<Payment> actualPaymentOpt = testObj.getByIdempotencyKey(UUID.randomUUID());
+    //Then
+    assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void createPayment_idempotencyKeyAlreadyUsed_returnFirstPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment firstPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    Payment actualPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //Then
+    assertThat(actualPayment, is(equalTo(firstPayment)));
+    assertThat(testObj.size(), is(equalTo(1)));
+  }
+
+  @Test
+  void createPayment_beyondInitialCapacity_allPaymentsStillFoundAndSearchable() {
+    //Given
+    List<Payment> persistedPayments = new ArrayList<>();
+    //When
+    for (int i = 0; i < 10_000; i++) {
+      persistedPayments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+    }
+    //Then
+    assertThat(testObj.size(), is(equalTo(10_000)));
+    for (Payment persistedPayment : persistedPayments) {
+      assertThat(testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+      assertThat(testObj.getByIdempotencyKey(persistedPayment.getIdempotencyKey()).orElseThrow(),
+          is(equalTo(persistedPayment)));
+    }
+    assertThat(testObj.findPayments(PaymentSearchQuery.builder().limit(1).build()).payments(),
+        is(equalTo(List.of(persistedPayments.get(persistedPayments.size() - 1)))));
+  }
+
+  @Test
+  void findPayments_pagedByCursorWhilePaymentsCreated_everyEarlierPaymentOnceNewestFirst() {
+    //Given
+    Set<Payment> persistedPayments = new HashSet<>();
+    for (int i = 0; i < 2_000; i++) {
+      persistedPayments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+    }
+    List<Payment> pagedPayments = new ArrayList<>();
+    String cursor = null;
+    //When
+    do {
+      PaymentPage page = testObj.findPayments(PaymentSearchQuery.builder().limit(7).cursor(cursor).build());
+      pagedPayments.addAll(page.payments());
+      cursor = page.nextCursor();
+      testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    } while (cursor != null);
+    //Then
+    assertThat(pagedPayments.size(), is(equalTo(persistedPayments.size())));
+    assertThat(new HashSet<>(pagedPayments), is(equalTo(persistedPayments)));
+    for (int i = 1; i < pagedPayments.size(); i++) {
+      assertThat(pagedPayments.get(i).getCreatedAt(),
+          is(lessThanOrEqualTo(pagedPayments.get(i - 1).getCreatedAt())));
+    }
+  }
+
+  @Test
+  void findPayments_pagedByCursorAfterConcurrentWriters_everyPaymentOnce() throws Exception {
+    //Given
+    int threads = 4;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<List<Payment>>> results = new ArrayList<>();
+    Set<Payment> persistedPayments = new HashSet<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> {
+          List<Payment> payments = new ArrayList<>();
+          for (int j = 0; j < 2_000; j++) {
+            payments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+          }
+          return payments;
+        }));
+      }
+      for (Future<List<Payment>> result : results) {
+        persistedPayments.addAll(result.get());
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    List<Payment> pagedPayments = new ArrayList<>();
+    String cursor = null;
+    //When
+    do {
+      PaymentPage page = testObj.findPayments(PaymentSearchQuery.builder().limit(13).cursor(cursor).build());
+      pagedPayments.addAll(page.payments());
+      cursor = page.nextCursor();
+    } while (cursor != null);
+    //Then
+    assertThat(pagedPayments.size(), is(equalTo(persistedPayments.size())));
+    assertThat(new HashSet<>(pagedPayments), is(equalTo(persistedPayments)));
+  }
+
+  @Test
+  void findPayments_cursorNotReturnedByRepository_throwInvalidCursorException() {
+    //Given
+    Payment payment = testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    String unknownPaymentCursor = payment.getCreatedAt().toEpochMilli() + "." + UUID.randomUUID();
+    //When & Then
+    for (String cursor : List.of("next", "2", "next." + payment.getTransactionId(), "0.next", unknownPaymentCursor)) {
+      assertThrows(InvalidCursorException.class,
+          () -> testObj.findPayments(PaymentSearchQuery.builder().limit(1).cursor(cursor).build()));
+    }
+  }
+
+  @Test
+  void reserveIdempotencyKey_keyAlreadyReserved_returnInFlightPaymentCompletedOnCreation() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    testObj.reserveIdempotencyKey(idempotencyKey);
+    //When
+    CompletableFuture<Payment> actualInFlightPayment = testObj.reserveIdempotencyKey(idempotencyKey).orElseThrow();
+    //Then
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    assertThat(actualInFlightPayment.join(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void createPayment_singleWriterPerShard_racingDuplicatesAllReturnFirstPayment() throws Exception {
+    //Given
+    testObj.close();
+    testObj = new ShardedPaymentsRepository(ShardingOptions.builder()
+        .shards(4)
+        .initialCapacity(16)
+        .singleWriter(true)
+        .build());
+    //When & Then
+    createPayments_racingDuplicates_allReturnFirstPayment();
+  }
+
+  @Test
+  void createPayment_racingDuplicates_allReturnFirstPayment() throws Exception {
+    //Given & When & Then
+    createPayments_racingDuplicates_allReturnFirstPayment();
+  }
+
+  private void createPayments_racingDuplicates_allReturnFirstPayment() throws Exception {
+    int threads = 8;
+    int paymentsPerThread = 5_000;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<List<Payment>>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> {
+          List<Payment> payments = new ArrayList<>();
+          for (int j = 0; j < paymentsPerThread; j++) {
+            //Every thread uses the same keys in the same order
+            payments.add(testObj.createPayment(createValidPayment(new UUID(42, j))));
+          }
+          return payments;
+        }));
+      }
+      List<Payment> firstThreadPayments = results.get(0).get();
+      for (Future<List<Payment>> result : results) {
+        assertThat(result.get(), is(equalTo(firstThreadPayments)));
+      }
+      assertThat(testObj.size(), is(equalTo(paymentsPerThread)));
+      for (Payment persistedPayment : firstThreadPayments) {
+        assertThat(testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow(),
+            is(equalTo(persistedPayment)));
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private Payment createValidPayment(UUID idempotencyKey) {
+    PaymentMethodDetails cardPaymentMethodDetails = new PaymentMethodDetails(1234, 10, 2025);
+    return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, new CashAmount(Currency.getInstance("GBP"), 150), cardPaymentMethodDetails);
+  }
+}
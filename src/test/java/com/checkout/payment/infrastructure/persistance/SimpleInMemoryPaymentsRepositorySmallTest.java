@@ -8,14 +8,23 @@ import com.checkout.payment.gateway.repository.PaymentsRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class SimpleInMemoryPaymentsRepositorySmallTest {
   private PaymentsRepository testObj;
@@ -38,6 +47,51 @@ class SimpleInMemoryPaymentsRepositorySmallTest {
     assertThat(actualPayment.getTransactionId(), is(notNullValue()));
   }
 
+  @Test
+  void createPayment_idempotencyKeyAlreadyUsed_returnFirstPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment firstPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    Payment duplicatePayment = createValidPayment(idempotencyKey);
+    //When
+    Payment actualPayment = testObj.createPayment(duplicatePayment);
+    //Then
+    assertThat(actualPayment.getTransactionId(), is(equalTo(firstPayment.getTransactionId())));
+    assertThat(testObj.getByTransactionId(duplicatePayment.getTransactionId()).isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void createPayment_concurrentWriters_indexesStayConsistent() throws Exception {
+    //Given
+    int threads = 16;
+    int paymentsPerThread = 1000;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<List<Payment>>> results = new ArrayList<>();
+    //When
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executorService.submit(() -> {
+          List<Payment> createdPayments = new ArrayList<>();
+          for (int j = 0; j < paymentsPerThread; j++) {
+            createdPayments.add(testObj.createPayment(createValidPayment(UUID.randomUUID())));
+          }
+          return createdPayments;
+        }));
+      }
+      //Then
+      for (Future<List<Payment>> result : results) {
+        for (Payment createdPayment : result.get()) {
+          assertThat(testObj.getByIdempotencyKey(createdPayment.getIdempotencyKey()).orElseThrow().getTransactionId(),
+              is(equalTo(createdPayment.getTransactionId())));
+          assertThat(testObj.getByTransactionId(createdPayment.getTransactionId()).orElseThrow(),
+              is(equalTo(createdPayment)));
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   @Test
   void getByTransactionId_paymentExist_returnPayment() {
     //Given
@@ -81,6 +135,67 @@ class SimpleInMemoryPaymentsRepositorySmallTest {
     assertThat(actualPaymentOpt.isEmpty(), is(equalTo(true)));
   }
 
+  @Test
+  void reserveIdempotencyKey_keyNotReserved_reservesKey() {
+    //Given & When
+    Optional<CompletableFuture<Payment>> actualProcessedPaymentOpt = testObj.reserveIdempotencyKey(UUID.randomUUID());
+    //Then
+    assertThat(actualProcessedPaymentOpt.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void reserveIdempotencyKey_keyAlreadyReserved_returnInFlightPaymentCompletedOnCreation() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    testObj.reserveIdempotencyKey(idempotencyKey);
+    //When
+    CompletableFuture<Payment> actualInFlightPayment = testObj.reserveIdempotencyKey(idempotencyKey).orElseThrow();
+    //Then
+    assertThat(actualInFlightPayment.isDone(), is(equalTo(false)));
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    assertThat(actualInFlightPayment.join(), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void reserveIdempotencyKey_paymentAlreadyCreated_returnCompletedPayment() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    CompletableFuture<Payment> actualProcessedPayment = testObj.reserveIdempotencyKey(idempotencyKey).orElseThrow();
+    //Then
+    assertThat(actualProcessedPayment.getNow(null), is(equalTo(persistedPayment)));
+  }
+
+  @Test
+  void releaseIdempotencyKey_keyReserved_failInFlightPaymentAndFreeKey() {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    testObj.reserveIdempotencyKey(idempotencyKey);
+    CompletableFuture<Payment> inFlightPayment = testObj.reserveIdempotencyKey(idempotencyKey).orElseThrow();
+    //When
+    testObj.releaseIdempotencyKey(idempotencyKey, new IllegalStateException("bank unavailable"));
+    //Then
+    assertThrows(CompletionException.class, inFlightPayment::join);
+    assertThat(testObj.reserveIdempotencyKey(idempotencyKey).isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void getByTransactionId_idempotencyKeyEvicted_paymentStillFound() {
+    //Given
+    PaymentsRepository testObj = new SimpleInMemoryPaymentsRepository(
+        new IdempotencyKeyStore(Duration.ofHours(1), 2, 2));
+    UUID idempotencyKey = UUID.randomUUID();
+    Payment persistedPayment = testObj.createPayment(createValidPayment(idempotencyKey));
+    //When
+    testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    testObj.createPayment(createValidPayment(UUID.randomUUID()));
+    //Then
+    assertThat(testObj.getByIdempotencyKey(idempotencyKey).isEmpty(), is(equalTo(true)));
+    assertThat(testObj.getByTransactionId(persistedPayment.getTransactionId()).orElseThrow(),
+        is(equalTo(persistedPayment)));
+  }
+
   private Payment createValidPayment(UUID idempotencyKey) {
     PaymentMethodDetails cardPaymentMethodDetails = new PaymentMethodDetails(1234, 10, 2025);
     return new Payment(idempotencyKey, PaymentStatus.AUTHORIZED, new CashAmount(Currency.getInstance("GBP"), 150), cardPaymentMethodDetails);
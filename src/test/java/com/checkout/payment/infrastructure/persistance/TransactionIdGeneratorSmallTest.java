@@ -0,0 +1,102 @@
+package com.checkout.payment.infrastructure.persistance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TransactionIdGeneratorSmallTest {
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_123L);
+  private final TransactionIdGenerator testObj = new TransactionIdGenerator(clock::get);
+
+  @Test
+  void next_platformThread_version7IdCreatedAtClockMillis() {
+    //Given & When
+    UUID actualId = testObj.next();
+    //Then
+    assertThat(actualId.version(), is(equalTo(7)));
+    assertThat(actualId.variant(), is(equalTo(2)));
+    assertThat(TransactionIdGenerator.createdAt(actualId), is(equalTo(Instant.ofEpochMilli(1_700_000_000_123L))));
+  }
+
+  @Test
+  void next_sameMillisecondThenLater_idsStrictlyIncrease() {
+    //Given
+    List<UUID> ids = new ArrayList<>();
+    //When
+    for (int i = 0; i < 1_000; i++) {
+      ids.add(testObj.next());
+      clock.addAndGet(i % 10 == 0 ? 1 : 0);
+    }
+    //Then
+    for (int i = 1; i < ids.size(); i++) {
+      assertThat(ids.get(i).compareTo(ids.get(i - 1)), is(greaterThan(0)));
+    }
+  }
+
+  @Test
+  void next_clockGoesBack_idsStillIncreaseAtLastMillisecond() {
+    //Given
+    UUID first = testObj.next();
+    clock.addAndGet(-5_000);
+    //When
+    UUID actualId = testObj.next();
+    //Then
+    assertThat(actualId.compareTo(first), is(greaterThan(0)));
+    assertThat(TransactionIdGenerator.createdAt(actualId), is(equalTo(TransactionIdGenerator.createdAt(first))));
+  }
+
+  @Test
+  void next_sequenceOfMillisecondExhausted_nextMillisecondUsed() {
+    //Given
+    UUID last = null;
+    //When
+    for (int i = 0; i <= 4_096; i++) {
+      last = testObj.next();
+    }
+    //Then
+    assertThat(TransactionIdGenerator.createdAt(last), is(equalTo(Instant.ofEpochMilli(1_700_000_000_124L))));
+  }
+
+  @Test
+  void createdAt_randomUuid_returnNull() {
+    //Given & When & Then
+    assertThat(TransactionIdGenerator.createdAt(UUID.randomUUID()), is(nullValue()));
+  }
+
+  @Test
+  void next_manyVirtualThreadsInSameMillisecond_idsUnique() throws Exception {
+    //Given
+    Set<UUID> ids = ConcurrentHashMap.newKeySet();
+    List<Future<?>> generating = new ArrayList<>();
+    //When
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int thread = 0; thread < 1_000; thread++) {
+        generating.add(executor.submit(() -> {
+          for (int i = 0; i < 100; i++) {
+            ids.add(testObj.next());
+          }
+        }));
+      }
+      for (Future<?> future : generating) {
+        future.get();
+      }
+    }
+    //Then
+    assertThat(ids.size(), is(equalTo(100_000)));
+  }
+}
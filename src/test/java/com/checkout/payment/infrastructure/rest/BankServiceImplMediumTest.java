@@ -2,27 +2,51 @@ package com.checkout.payment.infrastructure.rest;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.checkout.payment.configuration.HttpClientConfig;
+import com.checkout.payment.configuration.HttpClientConfig.Protocol;
+import com.checkout.payment.configuration.HttpClientRequestFactories;
 import com.checkout.payment.gateway.model.CashAmount;
 import com.checkout.payment.gateway.model.PaymentStatus;
 import com.checkout.payment.gateway.service.BankService;
 import com.checkout.payment.gateway.service.exception.BankServiceException;
 import com.checkout.payment.gateway.service.exception.InvalidBankPaymentDetailsException;
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 class BankServiceImplMediumTest {
+  private static final UUID IDEMPOTENCY_KEY = UUID.randomUUID();
 
   private WireMockServer wireMockServer;
+  private final List<ClientHttpRequestFactory> requestFactories = new ArrayList<>();
 
   private BankService testObj;
 
@@ -32,7 +56,15 @@ class BankServiceImplMediumTest {
         .dynamicPort()
     );
     this.wireMockServer.start();
-    testObj = new BankServiceImpl(client());
+    testObj = new BankServiceImpl(client(), Runnable::run);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    for (ClientHttpRequestFactory requestFactory : requestFactories) {
+      ((DisposableBean) requestFactory).destroy();
+    }
+    wireMockServer.stop();
   }
 
   @Test
@@ -44,7 +76,7 @@ class BankServiceImplMediumTest {
             .withStatus(200)
             .withBodyFile("bank-api-card-payment-authorised-response.json")));
     //When
-    PaymentStatus cardPaymentStatus = testObj.authorisePayment(12345L, 04, 2025,
+    PaymentStatus cardPaymentStatus = testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
         new CashAmount(Currency.getInstance("GBP"), 150), 500);
     //Then
     assertThat(cardPaymentStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
@@ -59,7 +91,7 @@ class BankServiceImplMediumTest {
             .withStatus(200)
             .withBodyFile("bank-api-card-payment-not-authorised-response.json")));
     //When
-    PaymentStatus cardPaymentStatus = testObj.authorisePayment(12345L, 04, 2025,
+    PaymentStatus cardPaymentStatus = testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
         new CashAmount(Currency.getInstance("GBP"), 150), 500);
     //Then
     assertThat(cardPaymentStatus, is(equalTo(PaymentStatus.DECLINED)));
@@ -73,10 +105,77 @@ class BankServiceImplMediumTest {
             .withHeader("Content-type", "application/json")
             .withStatus(503)));
     //When
-    assertThrows(BankServiceException.class, () -> testObj.authorisePayment(12345L, 04, 2025,
+    assertThrows(BankServiceException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
         new CashAmount(Currency.getInstance("GBP"), 150), 500));
   }
 
+  @Test
+  void authorisePayment_validCardDetails_sendCardPaymentRequestJson() {
+    //Given
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    //When
+    testObj.authorisePayment(IDEMPOTENCY_KEY, 2222405343248877L, 4, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 123);
+    //Then
+    wireMockServer.verify(postRequestedFor(urlPathEqualTo("/payments"))
+        .withHeader("Content-Type", WireMock.equalTo("application/json"))
+        .withRequestBody(WireMock.equalTo(
+            "{\"currency\":\"GBP\",\"amount\":150,\"cvv\":123,\"card_number\":2222405343248877,\"expiry_date\":\"04/2025\"}")));
+  }
+
+  @Test
+  void authorisePayment_bankErrorThenAuthorised_retriedWithSameIdempotencyKey() {
+    //Given
+    testObj = new BankServiceImpl(client(), Runnable::run, new RetryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments")).inScenario("bank hiccup")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(aResponse().withStatus(503))
+        .willSetStateTo("recovered"));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments")).inScenario("bank hiccup")
+        .whenScenarioStateIs("recovered")
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    //When
+    PaymentStatus cardPaymentStatus = testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500);
+    //Then
+    assertThat(cardPaymentStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+    wireMockServer.verify(2, postRequestedFor(urlPathEqualTo("/payments"))
+        .withHeader(BankServiceImpl.IDEMPOTENCY_KEY_HEADER, WireMock.equalTo(IDEMPOTENCY_KEY.toString())));
+  }
+
+  @Test
+  void authorisePayment_bankErrorOnEveryAttempt_throwBankServiceExceptionAfterMaxAttempts() {
+    //Given
+    testObj = new BankServiceImpl(client(), Runnable::run, new RetryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse().withStatus(500)));
+    //When
+    assertThrows(BankServiceException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500));
+    //Then
+    wireMockServer.verify(3, postRequestedFor(urlPathEqualTo("/payments")));
+  }
+
+  @Test
+  void authorisePayment_invalidCardPaymentDetails_notRetried() {
+    //Given
+    testObj = new BankServiceImpl(client(), Runnable::run, new RetryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse().withStatus(400)));
+    //When
+    assertThrows(InvalidBankPaymentDetailsException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500));
+    //Then
+    wireMockServer.verify(1, postRequestedFor(urlPathEqualTo("/payments")));
+  }
+
   @Test
   void authorisePayment_invalidCardPaymentDetails_throwBankServiceException() {
     //Given
@@ -86,10 +185,155 @@ class BankServiceImplMediumTest {
             .withStatus(400)));
     //When
     assertThrows(
-        InvalidBankPaymentDetailsException.class, () -> testObj.authorisePayment(12345L, 04, 2025,
+        InvalidBankPaymentDetailsException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
             new CashAmount(Currency.getInstance("GBP"), 150), 500));
   }
 
+  @Test
+  void authorisePaymentAsync_validCardDetails_authorisedOnBankExecutor() {
+    //Given
+    ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bank-api-test"));
+    testObj = new BankServiceImpl(client(), executorService);
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    try {
+      //When
+      CompletableFuture<String> cardPaymentThread = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+              new CashAmount(Currency.getInstance("GBP"), 150), 500)
+          .thenApply(cardPaymentStatus -> cardPaymentStatus + "@" + Thread.currentThread().getName());
+      //Then
+      assertThat(cardPaymentThread.join(), is(equalTo("AUTHORIZED@bank-api-test")));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void authorisePaymentAsync_bankErrorThenAuthorised_retryScheduledAsNewBankExecutorTask() {
+    //Given
+    AtomicInteger bankExecutorTasks = new AtomicInteger();
+    testObj = new BankServiceImpl(client(), task -> {
+      bankExecutorTasks.incrementAndGet();
+      new Thread(task).start();
+    }, new RetryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments")).inScenario("bank hiccup")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(aResponse().withStatus(500))
+        .willSetStateTo("recovered"));
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments")).inScenario("bank hiccup")
+        .whenScenarioStateIs("recovered")
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    //When
+    PaymentStatus cardPaymentStatus = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500).join();
+    //Then the executor ran each attempt as its own task, rather than one task sleeping through the backoff
+    assertThat(cardPaymentStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+    assertThat(bankExecutorTasks.get(), is(equalTo(2)));
+    wireMockServer.verify(2, postRequestedFor(urlPathEqualTo("/payments"))
+        .withHeader(BankServiceImpl.IDEMPOTENCY_KEY_HEADER, WireMock.equalTo(IDEMPOTENCY_KEY.toString())));
+  }
+
+  @Test
+  void authorisePaymentAsync_badGateway_completeExceptionallyWithBankServiceException() {
+    //Given
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(503)));
+    //When
+    CompletableFuture<PaymentStatus> cardPaymentStatus = testObj.authorisePaymentAsync(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500);
+    //Then
+    CompletionException actualException = assertThrows(CompletionException.class, cardPaymentStatus::join);
+    assertThat(actualException.getCause(), is(instanceOf(BankServiceException.class)));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Protocol.class)
+  void authorisePayment_pooledOrMultiplexedClient_authorised(Protocol protocol) {
+    //Given
+    testObj = new BankServiceImpl(client(httpClientConfig(protocol)), Runnable::run);
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    //When
+    PaymentStatus cardPaymentStatus = testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500);
+    //Then
+    assertThat(cardPaymentStatus, is(equalTo(PaymentStatus.AUTHORIZED)));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Protocol.class)
+  void authorisePayment_bankSlowerThanReadTimeout_throwBankServiceException(Protocol protocol) {
+    //Given
+    HttpClientConfig httpClientConfig = httpClientConfig(protocol);
+    httpClientConfig.setReadTimeout(Duration.ofMillis(100));
+    testObj = new BankServiceImpl(client(httpClientConfig), Runnable::run);
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(1000)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    //When
+    assertThrows(BankServiceException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+        new CashAmount(Currency.getInstance("GBP"), 150), 500));
+  }
+
+  @Test
+  void authorisePayment_poolExhaustedBeyondAcquireTimeout_throwBankServiceException() throws Exception {
+    //Given
+    HttpClientConfig httpClientConfig = httpClientConfig(Protocol.HTTP_1_1);
+    httpClientConfig.setMaxConnections(1);
+    httpClientConfig.setAcquireTimeout(Duration.ofMillis(100));
+    testObj = new BankServiceImpl(client(httpClientConfig), Runnable::run);
+    wireMockServer.stubFor(post(urlPathEqualTo("/payments"))
+        .willReturn(aResponse()
+            .withHeader("Content-type", "application/json")
+            .withStatus(200)
+            .withFixedDelay(1000)
+            .withBodyFile("bank-api-card-payment-authorised-response.json")));
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      Future<PaymentStatus> holdingPayment = executorService.submit(() -> testObj.authorisePayment(
+          IDEMPOTENCY_KEY, 12345L, 04, 2025, new CashAmount(Currency.getInstance("GBP"), 150), 500));
+      Thread.sleep(200);
+      //When
+      assertThrows(BankServiceException.class, () -> testObj.authorisePayment(IDEMPOTENCY_KEY, 12345L, 04, 2025,
+          new CashAmount(Currency.getInstance("GBP"), 150), 500));
+      //Then
+      assertThat(holdingPayment.get(), is(equalTo(PaymentStatus.AUTHORIZED)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private HttpClientConfig httpClientConfig(Protocol protocol) {
+    HttpClientConfig httpClientConfig = new HttpClientConfig();
+    httpClientConfig.setHost("http://localhost");
+    httpClientConfig.setPort(wireMockServer.port());
+    httpClientConfig.setProtocol(protocol);
+    return httpClientConfig;
+  }
+
+  private RestClient client(HttpClientConfig httpClientConfig) {
+    ClientHttpRequestFactory requestFactory = HttpClientRequestFactories.create(httpClientConfig);
+    requestFactories.add(requestFactory);
+    return RestClient.builder()
+        .baseUrl(httpClientConfig.getHost() + ":" + httpClientConfig.getPort())
+        .requestFactory(requestFactory)
+        .build();
+  }
+
   private RestClient client() {
     return RestClient.create("http://localhost:" + wireMockServer.port());
   }
@@ -0,0 +1,48 @@
+package com.checkout.payment.infrastructure.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class RetryBackoffSmallTest {
+  private final RetryBackoff testObj = new RetryBackoff(5, Duration.ofMillis(10), Duration.ofMillis(30));
+
+  @Test
+  void backoffNanos_earlyAttempts_jitteredUpToDoublingCap() {
+    //When Then
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(testObj.backoffNanos(1), is(both(greaterThanOrEqualTo(0L)).and(lessThanOrEqualTo(10_000_000L))));
+      assertThat(testObj.backoffNanos(2), is(both(greaterThanOrEqualTo(0L)).and(lessThanOrEqualTo(20_000_000L))));
+    }
+  }
+
+  @Test
+  void backoffNanos_manyAttempts_cappedAtMaxBackoff() {
+    //When Then
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(testObj.backoffNanos(3), is(lessThanOrEqualTo(30_000_000L)));
+      assertThat(testObj.backoffNanos(100), is(lessThanOrEqualTo(30_000_000L)));
+    }
+  }
+
+  @Test
+  void none_singleAttemptWithoutBackoff() {
+    //When Then
+    assertThat(RetryBackoff.NONE.getMaxAttempts(), is(equalTo(1)));
+    assertThat(RetryBackoff.NONE.backoffNanos(1), is(equalTo(0L)));
+  }
+
+  @Test
+  void new_maxBackoffBelowInitial_throwIllegalArgumentException() {
+    //When Then
+    assertThrows(IllegalArgumentException.class,
+        () -> new RetryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(5)));
+  }
+}
@@ -0,0 +1,64 @@
+package com.checkout.payment.infrastructure.rest.request;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class CardPaymentRequestJsonWriterSmallTest {
+  //As the default message converter of RestClient.builder() writes the request
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+  @Test
+  void toJson_cardDetails_bytesAsJacksonOfCardPaymentRequest() throws JsonProcessingException {
+    //Given
+    CardPaymentRequest cardPaymentRequest = new CardPaymentRequest(2222405343248877L, "04/2030", "GBP", 150, 123);
+    //When
+    byte[] actualJson = CardPaymentRequestJsonWriter.toJson(2222405343248877L, 4, 2030, "GBP", 150, 123);
+    //Then
+    assertThat(actualJson, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(cardPaymentRequest))));
+  }
+
+  @Test
+  void toJson_randomCardDetails_bytesAsJacksonOfCardPaymentRequest() throws JsonProcessingException {
+    Random random = new Random(42);
+    String[] currencies = {"GBP", "USD", "EUR", "JPY", null, "\"\\\u0001é€💳"};
+    for (int i = 0; i < 10_000; i++) {
+      //Given
+      long cardNumber = random.nextLong();
+      int expiryMonth = random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(1, 13);
+      int expiryYear = random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(2020, 2100);
+      String currency = currencies[random.nextInt(currencies.length)];
+      long amount = random.nextLong();
+      int cvv = random.nextInt(10_000);
+      CardPaymentRequest cardPaymentRequest = new CardPaymentRequest(cardNumber,
+          String.format("%02d/%d", expiryMonth, expiryYear), currency, amount, cvv);
+      //When
+      byte[] actualJson = CardPaymentRequestJsonWriter.toJson(cardNumber, expiryMonth, expiryYear, currency, amount,
+          cvv);
+      //Then
+      assertThat(actualJson, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(cardPaymentRequest))));
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({"4,2030", "12,2030", "0,0", "10,99", "-1,2030", "123,-5", "-2147483648,2147483647"})
+  void toJson_expiryMonthAndYear_expiryDateFormattedAsStringFormat(int expiryMonth, int expiryYear)
+      throws JsonProcessingException {
+    //Given
+    CardPaymentRequest cardPaymentRequest = new CardPaymentRequest(2222405343248877L,
+        String.format("%02d/%d", expiryMonth, expiryYear), "GBP", 150, 123);
+    //When
+    byte[] actualJson = CardPaymentRequestJsonWriter.toJson(2222405343248877L, expiryMonth, expiryYear, "GBP", 150,
+        123);
+    //Then
+    assertThat(actualJson, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(cardPaymentRequest))));
+  }
+}
@@ -0,0 +1,113 @@
+package com.checkout.payment.json;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class JsonBufferSmallTest {
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+  private final JsonBuffer testObj = new JsonBuffer(4);
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "GBP", "2024-01-01T00:00:00.123Z", "quote \" backslash \\ slash /",
+      "\b\t\n\f\r\u0000\u001f\u007f", "£ € ü 日本", "💳 card", "lone \uD83D high", "lone \uDCB3 low"})
+  void writeString_string_bytesAsJackson(String value) throws JsonProcessingException {
+    //When
+    byte[] actualBytes = testObj.writeString(value).toByteArray();
+    //Then
+    assertThat(actualBytes, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(value))));
+  }
+
+  @Test
+  void writeString_randomStrings_bytesAsJackson() throws JsonProcessingException {
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      //Given
+      char[] chars = new char[random.nextInt(40)];
+      for (int c = 0; c < chars.length; c++) {
+        chars[c] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt(0x10000));
+      }
+      String value = new String(chars);
+      JsonBuffer buffer = new JsonBuffer(1);
+      //When
+      byte[] actualBytes = buffer.writeString(value).toByteArray();
+      //Then
+      assertThat(actualBytes, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(value))));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {0, 7, 9, 10, 99, 100, 2030, 8877, -1, -10, 999_999_999_999_999_999L,
+      1_000_000_000_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE})
+  void writeNumber_number_bytesAsJackson(long value) throws JsonProcessingException {
+    //When
+    byte[] actualBytes = testObj.writeNumber(value).toByteArray();
+    //Then
+    assertThat(actualBytes, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(value))));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 9, 10, 12, 100, -1, -10, Integer.MIN_VALUE})
+  void writeZeroPaddedNumber_number_formattedAsStringFormat(int value) {
+    //When
+    byte[] actualBytes = testObj.writeZeroPaddedNumber(value, 2).toByteArray();
+    //Then
+    assertThat(new String(actualBytes, StandardCharsets.US_ASCII), is(equalTo(String.format("%02d", value))));
+  }
+
+  @Test
+  void writeString_uuids_bytesAsJackson() throws JsonProcessingException {
+    for (UUID value : new UUID[]{new UUID(0, 0), new UUID(-1, -1), new UUID(0x0123456789ABCDEFL, 0xFEDCBA9876543210L),
+        UUID.randomUUID(), UUID.randomUUID()}) {
+      //When
+      byte[] actualBytes = new JsonBuffer(1).writeString(value).toByteArray();
+      //Then
+      assertThat(actualBytes, is(equalTo(OBJECT_MAPPER.writeValueAsBytes(value))));
+    }
+  }
+
+  @Test
+  void writeString_null_writeNull() {
+    //When
+    byte[] actualBytes = testObj.writeString((String) null).writeRaw(',').writeString((UUID) null).toByteArray();
+    //Then
+    assertThat(new String(actualBytes, StandardCharsets.US_ASCII), is(equalTo("null,null")));
+  }
+
+  @Test
+  void forCurrentThread_platformThread_sameBufferEmptied() {
+    //Given
+    JsonBuffer first = JsonBuffer.forCurrentThread();
+    first.writeNumber(1234);
+    //When
+    JsonBuffer actualBuffer = JsonBuffer.forCurrentThread();
+    //Then
+    assertThat(actualBuffer, is(sameInstance(first)));
+    assertThat(actualBuffer.size(), is(equalTo(0)));
+  }
+
+  @Test
+  void forCurrentThread_virtualThread_newBuffer() throws Exception {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      //When
+      boolean actualSame = executor.submit(() -> JsonBuffer.forCurrentThread() == JsonBuffer.forCurrentThread()).get();
+      //Then
+      assertThat(actualSame, is(not(true)));
+    }
+  }
+}
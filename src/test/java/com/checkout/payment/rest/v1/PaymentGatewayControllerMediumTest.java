@@ -3,21 +3,32 @@ package com.checkout.payment.rest.v1;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static io.restassured.RestAssured.given;
 import static io.restassured.http.ContentType.JSON;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import com.checkout.payment.AbstractMediumTest;
 import com.checkout.payment.gateway.model.PaymentStatus;
 import com.checkout.payment.rest.v1.request.PaymentRequest;
 import com.checkout.payment.rest.v1.response.PaymentResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.restassured.response.Response;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -55,6 +66,23 @@ class PaymentGatewayControllerMediumTest extends AbstractMediumTest {
     assertThat(actualPaymentResponse.getStatus(), is(equalTo(PaymentStatus.AUTHORIZED)));
   }
 
+  @Test
+  void createPayment_validPaymentRequest_returnTimeOrderedIdAndCreatedAt()
+      throws JsonProcessingException, JSONException {
+    //Given
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    //When
+    PaymentResponse firstPaymentResponse = postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    PaymentResponse secondPaymentResponse = postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    //Then
+    Instant createdAt = Instant.parse(firstPaymentResponse.getCreatedAt());
+    assertThat(firstPaymentResponse.getId().version(), is(equalTo(7)));
+    assertThat(createdAt.isBefore(before), is(false));
+    assertThat(createdAt.isAfter(Instant.now()), is(false));
+    assertThat(secondPaymentResponse.getId().compareTo(firstPaymentResponse.getId()), is(greaterThan(0)));
+  }
+
   @Test
   void createPayment_paymentRequestWithUnauthorisedBankDetails_returnPaymentResponseWith201()
       throws JsonProcessingException, JSONException {
@@ -259,6 +287,54 @@ class PaymentGatewayControllerMediumTest extends AbstractMediumTest {
     assertThat(fetchedPaymentResponse.getId(), is(equalTo(createdPaymentResponse.getId())));
   }
 
+  @Test
+  void getPaymentById_ifNoneMatchHoldsETag_returns304() throws JsonProcessingException, JSONException {
+    // Given
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    PaymentResponse createdPaymentResponse = postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    String eTag = given()
+        .pathParam("id", createdPaymentResponse.getId().toString())
+        .expect()
+        .statusCode(200)
+        .when()
+        .get("/payment/{id}").header("ETag");
+
+    // When & Then
+    given()
+        .log().all()
+        .header("If-None-Match", eTag)
+        .pathParam("id", createdPaymentResponse.getId().toString())
+        .expect()
+        .statusCode(304)
+        .header("ETag", equalTo(eTag))
+        .when()
+        .get("/payment/{id}");
+  }
+
+  @Test
+  void createPaymentAndGetPaymentById_validPaymentRequest_bodiesAsJacksonWritesThem() throws IOException {
+    //Given
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    //When
+    byte[] createdBody = given()
+        .body(om.writeValueAsString(paymentRequest("12345678912345", "GBP")))
+        .contentType(JSON)
+        .expect()
+        .statusCode(201)
+        .when()
+        .post("/payment").asByteArray();
+    PaymentResponse createdPaymentResponse = om.readValue(createdBody, PaymentResponse.class);
+    byte[] fetchedBody = given()
+        .pathParam("id", createdPaymentResponse.getId().toString())
+        .expect()
+        .statusCode(200)
+        .when()
+        .get("/payment/{id}").asByteArray();
+    //Then
+    assertThat(createdBody, is(equalTo(om.writeValueAsBytes(createdPaymentResponse))));
+    assertThat(fetchedBody, is(equalTo(createdBody)));
+  }
+
   @Test
   void getPaymentById_paymentDoesNotExists_returns404() {
     // Given & When & Then
@@ -272,6 +348,107 @@ class PaymentGatewayControllerMediumTest extends AbstractMediumTest {
         .get("/payment/{id}");
   }
 
+  @Test
+  void searchPayments_byCardNumberLastFour_returnNewestFirstPageByPage()
+      throws JsonProcessingException, JSONException {
+    //Given
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    PaymentResponse firstPayment = postPaymentRequest(paymentRequest("2222405343248877", "GBP"));
+    PaymentResponse secondPayment = postPaymentRequest(paymentRequest("2222405343248877", "GBP"));
+    postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    //When
+    Response firstPage = given()
+        .log().all()
+        .queryParam("cardNumberLastFour", "8877")
+        .queryParam("limit", 1)
+        .expect()
+        .statusCode(200)
+        .when()
+        .get("/payments").andReturn();
+    String nextCursor = firstPage.jsonPath().getString("nextCursor");
+    Response secondPage = given()
+        .log().all()
+        .queryParam("cardNumberLastFour", "8877")
+        .queryParam("limit", 1)
+        .queryParam("cursor", nextCursor)
+        .expect()
+        .statusCode(200)
+        .when()
+        .get("/payments").andReturn();
+    //Then
+    assertThat(firstPage.jsonPath().getList("payments.id"), is(equalTo(List.of(secondPayment.getId().toString()))));
+    assertThat(nextCursor, is(notNullValue()));
+    assertThat(secondPage.jsonPath().getList("payments.id"), is(equalTo(List.of(firstPayment.getId().toString()))));
+    assertThat(secondPage.jsonPath().getString("nextCursor"), is(nullValue()));
+  }
+
+  @Test
+  void searchPayments_byStatusCurrencyAndTimeRange_returnMatchingPayments()
+      throws JsonProcessingException, JSONException {
+    //Given
+    Instant from = Instant.now().minusSeconds(3600);
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-not-authorised-response.json");
+    postPaymentRequest(paymentRequest("12345678912345", "USD"));
+    PaymentResponse declinedGbpPayment = postPaymentRequest(paymentRequest("12345678912345", "GBP"));
+    //When & Then
+    given()
+        .log().all()
+        .queryParam("status", "Declined")
+        .queryParam("currency", "GBP")
+        .queryParam("from", from.toString())
+        .queryParam("to", Instant.now().plusSeconds(60).toString())
+        .expect()
+        .statusCode(200)
+        .when()
+        .get("/payments").then().log().all()
+        .assertThat().body("payments.size()", equalTo(1))
+        .assertThat().body("payments[0].id", equalTo(declinedGbpPayment.getId().toString()))
+        .assertThat().body("payments[0].status", equalTo("Declined"))
+        .assertThat().body("nextCursor", nullValue());
+  }
+
+  @Test
+  void searchPayments_invalidParameters_return400WithErrorPerParameter() {
+    //When & Then
+    given()
+        .log().all()
+        .queryParam("status", "Pending")
+        .queryParam("cardNumberLastFour", "88")
+        .queryParam("limit", 0)
+        .expect()
+        .statusCode(400)
+        .when()
+        .get("/payments").then().log().all()
+        .assertThat().contentType(JSON)
+        .assertThat().body("errors.code", equalTo(List.of("status", "cardNumberLastFour", "limit")));
+  }
+
+  @Test
+  void searchPayments_unknownCursor_return400AndInvalidCursorErrorCode() {
+    //When & Then
+    given()
+        .log().all()
+        .queryParam("cursor", "42")
+        .expect()
+        .statusCode(400)
+        .when()
+        .get("/payments").then().log().all()
+        .assertThat().body("errors[0].code", equalTo("cursor"));
+  }
+
+  private static PaymentRequest paymentRequest(String cardNumber, String currency) {
+    return PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber(cardNumber)
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency(currency)
+        .amount("150")
+        .cvv("500").build();
+  }
+
   private PaymentResponse postPaymentRequest(PaymentRequest paymentRequest)
       throws JsonProcessingException, JSONException {
     Response response = given()
@@ -304,6 +481,109 @@ class PaymentGatewayControllerMediumTest extends AbstractMediumTest {
     return om.readValue(jsonObject.toString(), PaymentResponse.class);
   }
 
+  @Test
+  void createPayments_batchWithDuplicateAndInvalidPayment_returnPerItemResultsInOrder()
+      throws JsonProcessingException {
+    //Given
+    WIRE_MOCK_SERVER.resetRequests();
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    PaymentRequest paymentRequest = PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("12345678912345")
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+    PaymentRequest invalidPaymentRequest = PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+    //When
+    Response response = given()
+        .log().all()
+        .body(om.writeValueAsString(List.of(paymentRequest, invalidPaymentRequest, paymentRequest)))
+        .contentType(JSON)
+        .expect()
+        .statusCode(200)
+        .when()
+        .post("/payments/batch").andReturn();
+    //Then
+    response.then().log().all()
+        .assertThat().body("results.size()", equalTo(3))
+        .assertThat().body("results[0].status", equalTo(201))
+        .assertThat().body("results[0].payment.status", equalTo("Authorized"))
+        .assertThat().body("results[1].status", equalTo(400))
+        .assertThat().body("results[1].errors[0].code", equalTo("cardNumber"))
+        .assertThat().body("results[1].errors[0].message", equalTo("Card Number is required"))
+        .assertThat().body("results[2].status", equalTo(200))
+        .assertThat().body("results[2].payment.id", equalTo(response.path("results[0].payment.id")));
+    WIRE_MOCK_SERVER.verify(1, postRequestedFor(urlPathEqualTo("/payments")));
+  }
+
+  @Test
+  void createPayments_emptyBatch_return400AndBatchSizeInvalidErrorCode() {
+    //When & Then
+    given()
+        .log().all()
+        .body("[]")
+        .contentType(JSON)
+        .when()
+        .post("/payments/batch").then().log().all()
+        .assertThat().statusCode(400).contentType(JSON)
+        .assertThat().body("errors[0].code", equalTo("batch.size.invalid"));
+  }
+
+  @Test
+  void streamPayments_ndjsonUpload_streamResultPerLine() throws JsonProcessingException {
+    //Given
+    setUpAuthorisedBankResponse(201, "bank-api-card-payment-authorised-response.json");
+    PaymentRequest paymentRequest = PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("12345678912345")
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+    PaymentRequest invalidPaymentRequest = PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .expiryMonth(10)
+        .expiryYear(Year.now().plusYears(1).getValue())
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+    String upload = om.writeValueAsString(paymentRequest) + "\n"
+        + om.writeValueAsString(invalidPaymentRequest) + "\n"
+        + "not json\n";
+    //When
+    Response response = given()
+        .log().all()
+        .body(upload.getBytes(StandardCharsets.UTF_8))
+        .contentType("application/x-ndjson")
+        .expect()
+        .statusCode(200)
+        .when()
+        .post("/payments/stream").andReturn();
+    //Then
+    assertThat(response.getContentType(), is(equalTo("application/x-ndjson")));
+    List<JsonNode> results = new ArrayList<>();
+    for (String line : response.getBody().asString().split("\n")) {
+      results.add(om.readTree(line));
+    }
+    results.sort(Comparator.comparingLong(result -> result.get("line").asLong()));
+    assertThat(results.size(), is(equalTo(3)));
+    assertThat(results.get(0).get("status").asInt(), is(equalTo(201)));
+    assertThat(results.get(0).get("payment").get("status").asText(), is(equalTo("Authorized")));
+    assertThat(results.get(1).get("status").asInt(), is(equalTo(400)));
+    assertThat(results.get(1).get("errors").get(0).get("code").asText(), is(equalTo("cardNumber")));
+    assertThat(results.get(2).get("status").asInt(), is(equalTo(400)));
+    assertThat(results.get(2).get("errors").get(0).get("message").asText(), is(equalTo("Malformed PaymentRequest")));
+  }
+
   private void setUpAuthorisedBankResponse(int statusCode, String accountResponseFileName) {
     WIRE_MOCK_SERVER.stubFor(post(urlPathEqualTo("/payments"))
         .willReturn(aResponse()
@@ -2,29 +2,47 @@ package com.checkout.payment.rest.v1;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.checkout.payment.configuration.CommonExceptionHandler;
+import com.checkout.payment.configuration.PaymentsBatchConfig;
 import com.checkout.payment.gateway.command.ProcessPaymentCommand;
 import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.exception.InvalidBatchSizeException;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.model.AllowedCurrencies;
 import com.checkout.payment.gateway.model.CashAmount;
 import com.checkout.payment.gateway.model.Payment;
 import com.checkout.payment.gateway.model.PaymentMethodDetails;
 import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.InvalidCursorException;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.exception.BankServiceException;
 import com.checkout.payment.gateway.service.exception.PaymentAlreadyProcessedException;
 import com.checkout.payment.gateway.service.exception.PaymentIncongruentServiceException;
 import com.checkout.payment.rest.v1.request.PaymentRequest;
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
 import com.checkout.payment.rest.v1.response.PaymentResponse;
-import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
+import com.checkout.payment.rest.v1.validator.InvalidPaymentRequestException;
+import com.checkout.payment.rest.v1.validator.PaymentRequestParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Year;
+import java.util.Arrays;
 import java.util.Currency;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,18 +53,21 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentGatewayControllerSmallTest {
   @Mock
   private PaymentGatewayService paymentGatewayServiceMock;
   private PaymentGatewayController testObj;
-  private Validator validator;
+  private PaymentRequestParser paymentRequestParser;
 
   @BeforeEach
   void setUp() {
-    validator = Validation.buildDefaultValidatorFactory().getValidator();
-    testObj = new PaymentGatewayController(paymentGatewayServiceMock, validator);
+    paymentRequestParser = new PaymentRequestParser(AllowedCurrencies.all());
+    testObj = new PaymentGatewayController(paymentGatewayServiceMock, paymentRequestParser, new PaymentsBatchConfig(),
+        new CommonExceptionHandler(), PaymentMetrics.NOOP, new PaymentResponseCache(16, PaymentMetrics.NOOP),
+        Jackson2ObjectMapperBuilder.json().build());
   }
 
   @Test
@@ -62,7 +83,7 @@ class PaymentGatewayControllerSmallTest {
     when(paymentGatewayServiceMock.findPaymentsByTransactionId(paymentTransactionId)).thenReturn(
         Optional.of(payment));
     //When
-    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId);
+    ResponseEntity<byte[]> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId, null);
     //Then
     assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(200)));
   }
@@ -74,11 +95,69 @@ class PaymentGatewayControllerSmallTest {
     when(paymentGatewayServiceMock.findPaymentsByTransactionId(paymentTransactionId)).thenReturn(
         Optional.empty());
     //When
-    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId);
+    ResponseEntity<byte[]> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId, null);
     //Then
     assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(404)));
   }
 
+  @Test
+  void getPaymentById_paymentReadTwice_secondServedFromCacheWithSameBodyAndETag() throws Exception {
+    //Given
+    UUID paymentTransactionId = UUID.randomUUID();
+    Payment payment = createValidPayment(UUID.randomUUID(), 1234, 10, 2024, PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 150));
+    payment.setTransactionId(paymentTransactionId);
+    when(paymentGatewayServiceMock.findPaymentsByTransactionId(paymentTransactionId)).thenReturn(
+        Optional.of(payment));
+    ResponseEntity<byte[]> firstPaymentResponse = testObj.getPaymentById(paymentTransactionId, null);
+    //When
+    ResponseEntity<byte[]> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId, null);
+    //Then
+    verify(paymentGatewayServiceMock, times(1)).findPaymentsByTransactionId(paymentTransactionId);
+    assertThat(actualPaymentResponse.getBody(), is(equalTo(firstPaymentResponse.getBody())));
+    assertThat(actualPaymentResponse.getHeaders().getETag(), is(equalTo(firstPaymentResponse.getHeaders().getETag())));
+    assertThat(new ObjectMapper().readValue(actualPaymentResponse.getBody(), PaymentResponse.class).getId(),
+        is(equalTo(paymentTransactionId)));
+  }
+
+  @Test
+  void getPaymentById_paymentReadTwice_serialisationTimedOnceOnCacheMiss() {
+    //Given
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    testObj = new PaymentGatewayController(paymentGatewayServiceMock, paymentRequestParser, new PaymentsBatchConfig(),
+        new CommonExceptionHandler(), PaymentMetrics.NOOP,
+        new PaymentResponseCache(16, new PaymentMetrics(meterRegistry)), Jackson2ObjectMapperBuilder.json().build());
+    UUID paymentTransactionId = UUID.randomUUID();
+    Payment payment = createValidPayment(UUID.randomUUID(), 1234, 10, 2024, PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 150));
+    when(paymentGatewayServiceMock.findPaymentsByTransactionId(paymentTransactionId)).thenReturn(
+        Optional.of(payment));
+    //When
+    testObj.getPaymentById(paymentTransactionId, null);
+    testObj.getPaymentById(paymentTransactionId, null);
+    //Then
+    assertThat(meterRegistry.get(PaymentMetrics.STAGE).tag("stage", "serialisation").timer().count(), is(equalTo(1L)));
+  }
+
+  @Test
+  void getPaymentById_ifNoneMatchHoldsETag_returnNotModified304() {
+    //Given
+    UUID paymentTransactionId = UUID.randomUUID();
+    Payment payment = createValidPayment(UUID.randomUUID(), 1234, 10, 2024, PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 150));
+    when(paymentGatewayServiceMock.findPaymentsByTransactionId(paymentTransactionId)).thenReturn(
+        Optional.of(payment));
+    String eTag = testObj.getPaymentById(paymentTransactionId, null).getHeaders().getETag();
+    //When
+    ResponseEntity<byte[]> actualPaymentResponse = testObj.getPaymentById(paymentTransactionId,
+        "\"0\", W/" + eTag);
+    ResponseEntity<byte[]> actualStalePaymentResponse = testObj.getPaymentById(paymentTransactionId, "\"0\"");
+    //Then
+    assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(304)));
+    assertThat(actualPaymentResponse.getBody(), is(equalTo(null)));
+    assertThat(actualStalePaymentResponse.getStatusCode().value(), is(equalTo(200)));
+  }
+
   @Test
   void createPayment_validPaymentRequest_returnOk201()
       throws ExpiredCardDateException, PaymentAlreadyProcessedException {
@@ -89,7 +168,8 @@ class PaymentGatewayControllerSmallTest {
     CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
 
     Payment expectedPayment = createValidPayment(idempotencyKey, 1023, expiryMonth, expiryYear, PaymentStatus.AUTHORIZED, cashAmount);
-    when(paymentGatewayServiceMock.processPayment(any(ProcessPaymentCommand.class))).thenReturn(expectedPayment);
+    when(paymentGatewayServiceMock.processPaymentAsync(any(ProcessPaymentCommand.class))).thenReturn(
+        CompletableFuture.completedFuture(expectedPayment));
     PaymentRequest paymentRequest = PaymentRequest.builder()
         .idempotencyKey(idempotencyKey.toString())
         .cardNumber("12345678911023")
@@ -99,33 +179,33 @@ class PaymentGatewayControllerSmallTest {
         .amount(String.valueOf(cashAmount.getMinorAmount()))
         .cvv("500").build();
     //When
-    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.createPayment(paymentRequest);
+    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.createPayment(paymentRequest).join();
     //Then
     assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(201)));
   }
 
   @ParameterizedTest
   @MethodSource("missingRequiredFieldsForPaymentRequests")
-  void createPayment_missingRequiredFieldsForAPaymentRequest_ThrowConstraintViolationException(
+  void createPayment_missingRequiredFieldsForAPaymentRequest_ThrowInvalidPaymentRequestException(
       PaymentRequest paymentRequest) {
     //Given & When & Then
-    assertThrows(ConstraintViolationException.class, () -> testObj.createPayment(paymentRequest));
+    assertThrows(InvalidPaymentRequestException.class, () -> testObj.createPayment(paymentRequest));
   }
 
   @ParameterizedTest
   @MethodSource("invalidSizeFieldsForAPaymentRequest")
-  void createPayment_invalidSizeFieldsForAPaymentRequest_ThrowConstraintViolationException(
+  void createPayment_invalidSizeFieldsForAPaymentRequest_ThrowInvalidPaymentRequestException(
       PaymentRequest paymentRequest) {
     //Given & When & Then
-    assertThrows(ConstraintViolationException.class, () -> testObj.createPayment(paymentRequest));
+    assertThrows(InvalidPaymentRequestException.class, () -> testObj.createPayment(paymentRequest));
   }
 
   @ParameterizedTest
   @MethodSource("invalidTypeFieldsForAPaymentRequest")
-  void createPayment_invalidTypeFieldsForAPaymentRequest_ThrowConstraintViolationException(
+  void createPayment_invalidTypeFieldsForAPaymentRequest_ThrowInvalidPaymentRequestException(
       PaymentRequest paymentRequest) {
     //Given & When & Then
-    assertThrows(ConstraintViolationException.class, () -> testObj.createPayment(paymentRequest));
+    assertThrows(InvalidPaymentRequestException.class, () -> testObj.createPayment(paymentRequest));
   }
 
   @Test
@@ -157,7 +237,7 @@ class PaymentGatewayControllerSmallTest {
     CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
 
     Payment expectedPayment = createValidPayment(idempotencyKey, 1023, expiryMonth, expiryYear, PaymentStatus.AUTHORIZED, cashAmount);
-    when(paymentGatewayServiceMock.processPayment(any(ProcessPaymentCommand.class))).thenThrow(PaymentAlreadyProcessedException.class);
+    when(paymentGatewayServiceMock.processPaymentAsync(any(ProcessPaymentCommand.class))).thenThrow(PaymentAlreadyProcessedException.class);
     when(paymentGatewayServiceMock.findPaymentByIdempotencyId(idempotencyKey)).thenReturn(Optional.of(expectedPayment));
     PaymentRequest paymentRequest = PaymentRequest.builder()
         .idempotencyKey(idempotencyKey.toString())
@@ -168,11 +248,66 @@ class PaymentGatewayControllerSmallTest {
         .amount(String.valueOf(cashAmount.getMinorAmount()))
         .cvv("500").build();
     //When
-    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.createPayment(paymentRequest);
+    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.createPayment(paymentRequest).join();
     //Then
     assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(200)));
   }
 
+  @Test
+  void createPayment_paymentInFlightForSameIdempotencyKey_returnOriginalPaymentWithOk200()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    int expiryMonth = 10;
+    int expiryYear = Year.now().plusYears(1).getValue();
+    CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
+
+    Payment inFlightPayment = createValidPayment(idempotencyKey, 1023, expiryMonth, expiryYear, PaymentStatus.AUTHORIZED, cashAmount);
+    inFlightPayment.setTransactionId(UUID.randomUUID());
+    when(paymentGatewayServiceMock.processPaymentAsync(any(ProcessPaymentCommand.class))).thenThrow(
+        new PaymentAlreadyProcessedException("Payment has already been processed.",
+            CompletableFuture.completedFuture(inFlightPayment)));
+    PaymentRequest paymentRequest = PaymentRequest.builder()
+        .idempotencyKey(idempotencyKey.toString())
+        .cardNumber("12345678911023")
+        .expiryMonth(expiryMonth)
+        .expiryYear(expiryYear)
+        .currency(cashAmount.getCurrencyIso())
+        .amount(String.valueOf(cashAmount.getMinorAmount()))
+        .cvv("500").build();
+    //When
+    ResponseEntity<PaymentResponse> actualPaymentResponse = testObj.createPayment(paymentRequest).join();
+    //Then
+    assertThat(actualPaymentResponse.getStatusCode().value(), is(equalTo(200)));
+    assertThat(actualPaymentResponse.getBody().getId(), is(equalTo(inFlightPayment.getTransactionId())));
+  }
+
+  @Test
+  void createPayment_bankFailure_completeExceptionallyWithBankServiceException()
+      throws ExpiredCardDateException, PaymentAlreadyProcessedException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    int expiryMonth = 10;
+    int expiryYear = Year.now().plusYears(1).getValue();
+    CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
+
+    when(paymentGatewayServiceMock.processPaymentAsync(any(ProcessPaymentCommand.class))).thenReturn(
+        CompletableFuture.failedFuture(new BankServiceException()));
+    PaymentRequest paymentRequest = PaymentRequest.builder()
+        .idempotencyKey(idempotencyKey.toString())
+        .cardNumber("12345678911023")
+        .expiryMonth(expiryMonth)
+        .expiryYear(expiryYear)
+        .currency(cashAmount.getCurrencyIso())
+        .amount(String.valueOf(cashAmount.getMinorAmount()))
+        .cvv("500").build();
+    //When
+    CompletableFuture<ResponseEntity<PaymentResponse>> actualPaymentResponse = testObj.createPayment(paymentRequest);
+    //Then
+    CompletionException actualException = assertThrows(CompletionException.class, actualPaymentResponse::join);
+    assertThat(actualException.getCause(), is(instanceOf(BankServiceException.class)));
+  }
+
   @Test
   void createPayment_incongruentPaymentAlreadyProcessed_throwPaymentIncongruentServiceException()
       throws PaymentAlreadyProcessedException {
@@ -182,7 +317,7 @@ class PaymentGatewayControllerSmallTest {
     int expiryYear = Year.now().plusYears(1).getValue();
     CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
 
-    when(paymentGatewayServiceMock.processPayment(any(ProcessPaymentCommand.class))).thenThrow(PaymentAlreadyProcessedException.class);
+    when(paymentGatewayServiceMock.processPaymentAsync(any(ProcessPaymentCommand.class))).thenThrow(PaymentAlreadyProcessedException.class);
     PaymentRequest paymentRequest = PaymentRequest.builder()
         .idempotencyKey(idempotencyKey.toString())
         .cardNumber("12345678911023")
@@ -195,6 +330,97 @@ class PaymentGatewayControllerSmallTest {
     assertThrows(PaymentIncongruentServiceException.class, () -> testObj.createPayment(paymentRequest));
   }
 
+  @Test
+  void createPayments_mixedBatch_returnPerItemResultsInOrder()
+      throws InvalidBatchSizeException, PaymentAlreadyProcessedException {
+    //Given
+    CashAmount cashAmount = new CashAmount(Currency.getInstance("GBP"), 150);
+    int expiryYear = Year.now().plusYears(1).getValue();
+    UUID authorisedIdempotencyKey = UUID.randomUUID();
+    UUID bankFailureIdempotencyKey = UUID.randomUUID();
+    Payment authorisedPayment = createValidPayment(authorisedIdempotencyKey, 1023, 10, expiryYear, PaymentStatus.AUTHORIZED, cashAmount);
+    when(paymentGatewayServiceMock.processPaymentAsync(argThat(command -> command != null
+        && command.getIdempotencyKey().equals(authorisedIdempotencyKey))))
+        .thenReturn(CompletableFuture.completedFuture(authorisedPayment));
+    when(paymentGatewayServiceMock.processPaymentAsync(argThat(command -> command != null
+        && command.getIdempotencyKey().equals(bankFailureIdempotencyKey))))
+        .thenReturn(CompletableFuture.failedFuture(new BankServiceException()));
+    List<PaymentRequest> paymentRequests = Arrays.asList(
+        createPaymentRequest(authorisedIdempotencyKey, "12345678911023", expiryYear),
+        createPaymentRequest(UUID.randomUUID(), null, expiryYear),
+        createPaymentRequest(bankFailureIdempotencyKey, "12345678911023", expiryYear),
+        createPaymentRequest(UUID.randomUUID(), "12345678911023", Year.now().minusYears(1).getValue()),
+        null);
+    //When
+    ResponseEntity<BatchPaymentResponse> actualResponse = testObj.createPayments(paymentRequests).join();
+    //Then
+    assertThat(actualResponse.getStatusCode().value(), is(equalTo(200)));
+    List<BatchPaymentResponse.Item> actualItems = actualResponse.getBody().getResults();
+    assertThat(actualItems.size(), is(equalTo(5)));
+    assertThat(actualItems.get(0).getStatus(), is(equalTo(201)));
+    assertThat(actualItems.get(0).getPayment().getIdempotencyKey(), is(equalTo(authorisedIdempotencyKey)));
+    assertThat(actualItems.get(1).getStatus(), is(equalTo(400)));
+    assertThat(actualItems.get(1).getErrors().get(0).getCode(), is(equalTo("cardNumber")));
+    assertThat(actualItems.get(2).getStatus(), is(equalTo(502)));
+    assertThat(actualItems.get(2).getErrors().get(0).getCode(), is(equalTo("bad.gateway.error")));
+    assertThat(actualItems.get(3).getStatus(), is(equalTo(400)));
+    assertThat(actualItems.get(3).getErrors().get(0).getCode(), is(equalTo("card.expiry.date.expired")));
+    assertThat(actualItems.get(4).getStatus(), is(equalTo(400)));
+    assertThat(actualItems.get(4).getErrors().get(0).getMessage(), is(equalTo("PaymentRequest is required")));
+  }
+
+  @Test
+  void searchPayments_invalidCursor_throwInvalidPaymentRequestException() {
+    //Given
+    when(paymentGatewayServiceMock.searchPayments(any())).thenThrow(new InvalidCursorException("2"));
+    //When
+    InvalidPaymentRequestException actualException = assertThrows(InvalidPaymentRequestException.class,
+        () -> testObj.searchPayments(null, null, null, null, null, null, "2"));
+    //Then
+    assertThat(actualException.getErrors().get(0).getCode(), is(equalTo("cursor")));
+  }
+
+  @Test
+  void searchPayments_searchFailsWithIllegalArgument_notMappedToInvalidCursor() {
+    //Given
+    when(paymentGatewayServiceMock.searchPayments(any())).thenThrow(new IllegalArgumentException("index bug"));
+    //When & Then
+    assertThrows(IllegalArgumentException.class, () -> testObj.searchPayments(null, null, null, null, null, null, null));
+  }
+
+  @Test
+  void createPayments_emptyBatch_throwInvalidBatchSizeException() {
+    //Given & When & Then
+    assertThrows(InvalidBatchSizeException.class, () -> testObj.createPayments(List.of()));
+  }
+
+  @Test
+  void createPayments_batchLargerThanMaxSize_throwInvalidBatchSizeException() {
+    //Given
+    PaymentsBatchConfig paymentsBatchConfig = new PaymentsBatchConfig();
+    paymentsBatchConfig.setMaxSize(1);
+    testObj = new PaymentGatewayController(paymentGatewayServiceMock, paymentRequestParser, paymentsBatchConfig,
+        new CommonExceptionHandler(), PaymentMetrics.NOOP, new PaymentResponseCache(16, PaymentMetrics.NOOP),
+        Jackson2ObjectMapperBuilder.json().build());
+    int expiryYear = Year.now().plusYears(1).getValue();
+    List<PaymentRequest> paymentRequests = List.of(
+        createPaymentRequest(UUID.randomUUID(), "12345678911023", expiryYear),
+        createPaymentRequest(UUID.randomUUID(), "12345678911023", expiryYear));
+    //When & Then
+    assertThrows(InvalidBatchSizeException.class, () -> testObj.createPayments(paymentRequests));
+  }
+
+  private PaymentRequest createPaymentRequest(UUID idempotencyKey, String cardNumber, int expiryYear) {
+    return PaymentRequest.builder()
+        .idempotencyKey(idempotencyKey.toString())
+        .cardNumber(cardNumber)
+        .expiryMonth(10)
+        .expiryYear(expiryYear)
+        .currency("GBP")
+        .amount("150")
+        .cvv("500").build();
+  }
+
   private Payment createValidPayment(UUID idempotencyKey, int lastFourCardDigits, int expiryMonth, int expiryYear, PaymentStatus paymentStatus, CashAmount cashAmount) {
     PaymentMethodDetails paymentMethodDetails = new PaymentMethodDetails(lastFourCardDigits, expiryMonth, expiryYear);
     return new Payment(idempotencyKey, paymentStatus, cashAmount, paymentMethodDetails);
@@ -0,0 +1,129 @@
+package com.checkout.payment.rest.v1;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class PaymentStreamProcessorMediumTest {
+  private static final String PAYMENT_LINE = "{\"idempotencyKey\":\"%s\",\"card_number\":\"2222405343248877\","
+      + "\"expiry_month\":4,\"expiry_year\":2030,\"currency\":\"GBP\",\"amount\":\"100\",\"cvv\":\"123\"}";
+  //A fraction of the upload, which is over 150 bytes a line
+  private static final long MAX_LIVE_HEAP_GROWTH = 32L * 1024 * 1024;
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+  private static final BatchPaymentResponse.Item CREATED = BatchPaymentResponse.Item.of(201, new PaymentResponse());
+
+  private final ExecutorService bankExecutor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    bankExecutor.shutdownNow();
+  }
+
+  @Test
+  void process_millionLinesGeneratedLazily_resultsWrittenWhileUploadReadInBoundedHeap() throws IOException {
+    //Given
+    int lines = 1_000_000;
+    int parallelism = 200;
+    PaymentStreamProcessor testObj = new PaymentStreamProcessor(OBJECT_MAPPER, parallelism, 8192,
+        paymentRequest -> CompletableFuture.supplyAsync(() -> CREATED, bankExecutor));
+    LineCountingOutputStream responseBody = new LineCountingOutputStream();
+    PaymentLinesInputStream requestBody = new PaymentLinesInputStream(lines, responseBody);
+    long liveHeapBefore = liveHeap();
+    //When
+    long actualPayments = testObj.process(requestBody, responseBody);
+    //Then, no more than parallelism results were ever waiting to be written
+    assertThat(actualPayments, is(equalTo((long) lines)));
+    assertThat(responseBody.lines, is(equalTo((long) lines)));
+    assertThat(requestBody.resultsWrittenAtEndOfUpload, is(greaterThanOrEqualTo((long) lines - parallelism)));
+    //and the heap held a few lines in flight, not the upload of over 150 MB
+    assertThat(requestBody.maxLiveHeap - liveHeapBefore, is(lessThan(MAX_LIVE_HEAP_GROWTH)));
+  }
+
+  //Collects garbage first, so only objects still reachable are counted
+  private static long liveHeap() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  //Generates the upload a line at a time as it is read, sampling the live heap every so many lines
+  private static class PaymentLinesInputStream extends InputStream {
+    private static final int LIVE_HEAP_SAMPLE_LINES = 100_000;
+
+    private final int lines;
+    private final LineCountingOutputStream responseBody;
+    private int linesGenerated;
+    private byte[] line = new byte[0];
+    private int linePosition;
+    private long maxLiveHeap;
+    private long resultsWrittenAtEndOfUpload = -1;
+
+    private PaymentLinesInputStream(int lines, LineCountingOutputStream responseBody) {
+      this.lines = lines;
+      this.responseBody = responseBody;
+    }
+
+    @Override
+    public int read() {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (linePosition == line.length && !nextLine()) {
+        return -1;
+      }
+      int read = Math.min(len, line.length - linePosition);
+      System.arraycopy(line, linePosition, b, off, read);
+      linePosition += read;
+      return read;
+    }
+
+    private boolean nextLine() {
+      if (linesGenerated == lines) {
+        if (resultsWrittenAtEndOfUpload < 0) {
+          resultsWrittenAtEndOfUpload = responseBody.lines;
+          maxLiveHeap = Math.max(maxLiveHeap, liveHeap());
+        }
+        return false;
+      }
+      if (linesGenerated % LIVE_HEAP_SAMPLE_LINES == 0) {
+        maxLiveHeap = Math.max(maxLiveHeap, liveHeap());
+      }
+      line = (String.format(PAYMENT_LINE, UUID.randomUUID()) + '\n').getBytes(StandardCharsets.UTF_8);
+      linePosition = 0;
+      linesGenerated++;
+      return true;
+    }
+  }
+
+  //Discards the results, counting them
+  private static class LineCountingOutputStream extends OutputStream {
+    private long lines;
+
+    @Override
+    public void write(int b) {
+      if (b == '\n') {
+        lines++;
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package com.checkout.payment.rest.v1;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.checkout.payment.rest.v1.response.BatchPaymentResponse;
+import com.checkout.payment.rest.v1.response.PaymentResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class PaymentStreamProcessorSmallTest {
+  private static final String PAYMENT_LINE = "{\"idempotencyKey\":\"%s\",\"card_number\":\"2222405343248877\","
+      + "\"expiry_month\":4,\"expiry_year\":2030,\"currency\":\"GBP\",\"amount\":\"100\",\"cvv\":\"123\"}";
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+  private static final BatchPaymentResponse.Item CREATED = BatchPaymentResponse.Item.of(201, new PaymentResponse());
+
+  private final ObjectMapper om = new ObjectMapper();
+  private final ExecutorService bankExecutor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    bankExecutor.shutdownNow();
+  }
+
+  @Test
+  void process_linesWithBlankAndMalformedLine_resultPerPaymentLineWithLineNumber() throws IOException {
+    //Given
+    String upload = String.format(PAYMENT_LINE, UUID.randomUUID()) + "\n"
+        + "\n"
+        + "{\"idempotencyKey\":\n"
+        + String.format(PAYMENT_LINE, UUID.randomUUID());
+    PaymentStreamProcessor testObj = new PaymentStreamProcessor(OBJECT_MAPPER, 2, 8192,
+        paymentRequest -> CompletableFuture.supplyAsync(() -> CREATED, bankExecutor));
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    //When
+    long actualPayments = testObj.process(toInputStream(upload), responseBody);
+    //Then
+    assertThat(actualPayments, is(equalTo(3L)));
+    List<JsonNode> actualResults = readResults(responseBody);
+    assertThat(actualResults.size(), is(equalTo(3)));
+    assertThat(actualResults.get(0).get("line").asLong(), is(equalTo(1L)));
+    assertThat(actualResults.get(0).get("status").asInt(), is(equalTo(201)));
+    assertThat(actualResults.get(1).get("line").asLong(), is(equalTo(3L)));
+    assertThat(actualResults.get(1).get("status").asInt(), is(equalTo(400)));
+    assertThat(actualResults.get(1).get("errors").get(0).get("message").asText(), is(equalTo("Malformed PaymentRequest")));
+    assertThat(actualResults.get(2).get("line").asLong(), is(equalTo(4L)));
+    assertThat(actualResults.get(2).get("status").asInt(), is(equalTo(201)));
+  }
+
+  @Test
+  void process_slowBank_atMostParallelismPaymentsInFlight() throws IOException {
+    //Given
+    int parallelism = 3;
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    PaymentStreamProcessor testObj = new PaymentStreamProcessor(OBJECT_MAPPER, parallelism, 8192, paymentRequest -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      return CompletableFuture.supplyAsync(() -> {
+        sleep(5);
+        inFlight.decrementAndGet();
+        return CREATED;
+      }, bankExecutor);
+    });
+    StringBuilder upload = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      upload.append(String.format(PAYMENT_LINE, UUID.randomUUID())).append('\n');
+    }
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    //When
+    testObj.process(toInputStream(upload.toString()), responseBody);
+    //Then
+    assertThat(maxInFlight.get(), is(lessThanOrEqualTo(parallelism)));
+    assertThat(readResults(responseBody).size(), is(equalTo(50)));
+  }
+
+  @Test
+  void process_lineLongerThanMaxLineLength_badRequestForThatLineOnly() throws IOException {
+    //Given
+    String paymentLine = String.format(PAYMENT_LINE, UUID.randomUUID());
+    String upload = paymentLine + "\r\n"
+        + "{\"idempotencyKey\":\"" + "x".repeat(paymentLine.length()) + "\"}\n"
+        + paymentLine + "\n";
+    PaymentStreamProcessor testObj = new PaymentStreamProcessor(OBJECT_MAPPER, 2, paymentLine.length(),
+        paymentRequest -> CompletableFuture.supplyAsync(() -> CREATED, bankExecutor));
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    //When
+    long actualPayments = testObj.process(toInputStream(upload), responseBody);
+    //Then
+    assertThat(actualPayments, is(equalTo(3L)));
+    List<JsonNode> actualResults = readResults(responseBody);
+    assertThat(actualResults.get(0).get("status").asInt(), is(equalTo(201)));
+    assertThat(actualResults.get(1).get("line").asLong(), is(equalTo(2L)));
+    assertThat(actualResults.get(1).get("status").asInt(), is(equalTo(400)));
+    assertThat(actualResults.get(1).get("errors").get(0).get("message").asText(),
+        is(equalTo("PaymentRequest is longer than " + paymentLine.length() + " bytes")));
+    assertThat(actualResults.get(2).get("status").asInt(), is(equalTo(201)));
+  }
+
+  private static InputStream toInputStream(String upload) {
+    return new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<JsonNode> readResults(ByteArrayOutputStream responseBody) throws IOException {
+    List<JsonNode> results = new ArrayList<>();
+    for (String line : responseBody.toString(StandardCharsets.UTF_8).split("\n")) {
+      results.add(om.readTree(line));
+    }
+    results.sort(Comparator.comparingLong(result -> result.get("line").asLong()));
+    return results;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.checkout.payment.rest.v1.response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.checkout.payment.gateway.model.CashAmount;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.model.PaymentMethodDetails;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class PaymentResponseJsonWriterSmallTest {
+  private static final ObjectWriter OBJECT_WRITER = Jackson2ObjectMapperBuilder.json().build()
+      .writerFor(PaymentResponse.class);
+
+  @Test
+  void toJson_paymentResponse_bytesAsJackson() throws JsonProcessingException {
+    //Given
+    Payment payment = new Payment(UUID.randomUUID(), PaymentStatus.AUTHORIZED,
+        new CashAmount(Currency.getInstance("GBP"), 150), new PaymentMethodDetails(8877, 4, 2030));
+    payment.setTransactionId(UUID.randomUUID());
+    payment.setCreatedAt(Instant.parse("2024-01-01T10:15:30.123Z"));
+    PaymentResponse paymentResponse = PaymentResponse.from(payment);
+    //When
+    byte[] actualJson = PaymentResponseJsonWriter.toJson(paymentResponse);
+    //Then
+    assertThat(actualJson, is(equalTo(OBJECT_WRITER.writeValueAsBytes(paymentResponse))));
+  }
+
+  @Test
+  void toJson_nullFields_bytesAsJackson() throws JsonProcessingException {
+    //Given
+    PaymentResponse paymentResponse = new PaymentResponse();
+    //When
+    byte[] actualJson = PaymentResponseJsonWriter.toJson(paymentResponse);
+    //Then
+    assertThat(actualJson, is(equalTo(OBJECT_WRITER.writeValueAsBytes(paymentResponse))));
+  }
+
+  @Test
+  void toJson_randomPaymentResponses_bytesAsJackson() throws JsonProcessingException {
+    Random random = new Random(42);
+    String[] currencies = {"GBP", "USD", "EUR", "JPY", null, "\"\\\u0001é€💳"};
+    for (int i = 0; i < 10_000; i++) {
+      //Given
+      PaymentResponse paymentResponse = new PaymentResponse(
+          random.nextInt(10) == 0 ? null : new UUID(random.nextLong(), random.nextLong()),
+          random.nextInt(10) == 0 ? null : new UUID(random.nextLong(), random.nextLong()),
+          random.nextInt(10) == 0 ? null : PaymentStatus.values()[random.nextInt(2)],
+          random.nextInt(10_000),
+          random.nextInt(),
+          random.nextInt(),
+          currencies[random.nextInt(currencies.length)],
+          random.nextLong(),
+          random.nextInt(10) == 0 ? null : Instant.ofEpochMilli(random.nextLong(1L << 42)).toString());
+      //When
+      byte[] actualJson = PaymentResponseJsonWriter.toJson(paymentResponse);
+      //Then
+      assertThat(actualJson, is(equalTo(OBJECT_WRITER.writeValueAsBytes(paymentResponse))));
+    }
+  }
+}
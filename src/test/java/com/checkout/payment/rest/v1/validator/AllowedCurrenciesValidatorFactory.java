@@ -0,0 +1,45 @@
+package com.checkout.payment.rest.v1.validator;
+
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorFactory;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+/**
+ * Creates {@link CurrencyIsoValidator}s that check against the configured
+ * {@link AllowedCurrencies}, leaving every other constraint validator to the provider's factory.
+ */
+public class AllowedCurrenciesValidatorFactory implements ConstraintValidatorFactory {
+
+  private final ConstraintValidatorFactory delegate;
+  private final AllowedCurrencies allowedCurrencies;
+
+  private AllowedCurrenciesValidatorFactory(ConstraintValidatorFactory delegate,
+      AllowedCurrencies allowedCurrencies) {
+    this.delegate = delegate;
+    this.allowedCurrencies = allowedCurrencies;
+  }
+
+  public static Validator buildValidator(AllowedCurrencies allowedCurrencies) {
+    jakarta.validation.Configuration<?> configuration = Validation.byDefaultProvider().configure();
+    return configuration
+        .constraintValidatorFactory(new AllowedCurrenciesValidatorFactory(
+            configuration.getDefaultConstraintValidatorFactory(), allowedCurrencies))
+        .buildValidatorFactory()
+        .getValidator();
+  }
+
+  @Override
+  public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+    if (key == CurrencyIsoValidator.class) {
+      return key.cast(new CurrencyIsoValidator(allowedCurrencies));
+    }
+    return delegate.getInstance(key);
+  }
+
+  @Override
+  public void releaseInstance(ConstraintValidator<?, ?> instance) {
+    delegate.releaseInstance(instance);
+  }
+}
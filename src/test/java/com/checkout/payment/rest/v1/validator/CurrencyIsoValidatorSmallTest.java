@@ -0,0 +1,59 @@
+package com.checkout.payment.rest.v1.validator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class CurrencyIsoValidatorSmallTest {
+
+  private final Validator testObj = AllowedCurrenciesValidatorFactory.buildValidator(
+      AllowedCurrencies.of(List.of("GBP", "EUR")));
+
+  @Test
+  void validate_allowedCurrency_noViolations() {
+    //When
+    Set<ConstraintViolation<PaymentRequest>> actualViolations = testObj.validate(paymentRequest("EUR"));
+    //Then
+    assertThat(actualViolations.isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  void validate_isoCurrencyNotAllowed_notSupportedViolation() {
+    //When
+    Set<ConstraintViolation<PaymentRequest>> actualViolations = testObj.validate(paymentRequest("USD"));
+    //Then
+    assertThat(actualViolations.size(), is(equalTo(1)));
+    ConstraintViolation<PaymentRequest> actualViolation = actualViolations.iterator().next();
+    assertThat(actualViolation.getPropertyPath().toString(), is(equalTo("currency")));
+    assertThat(actualViolation.getMessage(), is(equalTo("Currency is not supported")));
+  }
+
+  @Test
+  void validate_notAnIsoCurrency_invalidIsoViolation() {
+    //When
+    Set<ConstraintViolation<PaymentRequest>> actualViolations = testObj.validate(paymentRequest("ZZZ"));
+    //Then
+    assertThat(actualViolations.size(), is(equalTo(1)));
+    assertThat(actualViolations.iterator().next().getMessage(), is(equalTo("Currency must be a valid ISO code standard")));
+  }
+
+  private static PaymentRequest paymentRequest(String currency) {
+    return PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency(currency)
+        .amount("150")
+        .cvv("123").build();
+  }
+}
@@ -0,0 +1,187 @@
+package com.checkout.payment.rest.v1.validator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.command.ProcessPaymentCommand;
+import com.checkout.payment.gateway.exception.ExpiredCardDateException;
+import com.checkout.payment.gateway.model.AllowedCurrencies;
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.rest.v1.request.PaymentRequest;
+import jakarta.validation.Validator;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class PaymentRequestParserSmallTest {
+
+  private static final AllowedCurrencies ALLOWED_CURRENCIES = AllowedCurrencies.of(List.of("GBP", "EUR", "JPY"));
+
+  private final PaymentRequestParser testObj = new PaymentRequestParser(ALLOWED_CURRENCIES);
+  private final Validator validator = AllowedCurrenciesValidatorFactory.buildValidator(ALLOWED_CURRENCIES);
+
+  @Test
+  void parse_validRequest_commandWithParsedFields() throws ExpiredCardDateException {
+    //Given
+    UUID idempotencyKey = UUID.randomUUID();
+    PaymentRequest paymentRequest = validPaymentRequest().idempotencyKey(idempotencyKey.toString().toUpperCase()).build();
+    //When
+    ProcessPaymentCommand actualCommand = testObj.parse(paymentRequest);
+    //Then
+    assertThat(actualCommand.getIdempotencyKey(), is(equalTo(idempotencyKey)));
+    assertThat(actualCommand.getCardNumber(), is(equalTo(2222405343248877L)));
+    assertThat(actualCommand.getExpiryMonth(), is(equalTo(4)));
+    assertThat(actualCommand.getExpiryYear(), is(equalTo(2030)));
+    assertThat(actualCommand.getCvv(), is(equalTo(123)));
+    assertThat(actualCommand.getCashAmount().getCurrency(), is(equalTo(IsoCurrency.lookup("GBP"))));
+    assertThat(actualCommand.getCashAmount().getMinorAmount(), is(equalTo(150L)));
+  }
+
+  @Test
+  void parse_signedAmount_commandWithSignedAmount() throws ExpiredCardDateException {
+    //When
+    ProcessPaymentCommand actualCommand = testObj.parse(validPaymentRequest().amount("-5").build());
+    //Then
+    assertThat(actualCommand.getCashAmount().getMinorAmount(), is(equalTo(-5L)));
+  }
+
+  @Test
+  void parse_expiredCard_throwExpiredCardDateException() {
+    //Given
+    YearMonth lastMonth = YearMonth.now().minusMonths(1);
+    PaymentRequest paymentRequest = validPaymentRequest()
+        .expiryMonth(lastMonth.getMonthValue())
+        .expiryYear(lastMonth.getYear()).build();
+    //When Then
+    assertThrows(ExpiredCardDateException.class, () -> testObj.parse(paymentRequest));
+  }
+
+  @Test
+  void parse_nullRequest_paymentRequestRequiredError() {
+    //When
+    InvalidPaymentRequestException actualException = assertThrows(InvalidPaymentRequestException.class,
+        () -> testObj.parse(null));
+    //Then
+    assertThat(describe(actualException), is(equalTo(List.of("paymentRequest: PaymentRequest is required"))));
+  }
+
+  @Test
+  void parse_invalidFields_errorsInFieldOrder() {
+    //Given
+    PaymentRequest paymentRequest = validPaymentRequest()
+        .idempotencyKey("not-a-uuid")
+        .cardNumber("22224053432488AB")
+        .currency("ZZZ")
+        .cvv("12").build();
+    //When
+    InvalidPaymentRequestException actualException = assertThrows(InvalidPaymentRequestException.class,
+        () -> testObj.parse(paymentRequest));
+    //Then
+    assertThat(describe(actualException), is(equalTo(List.of(
+        "idempotencyKey: Invalid idempotencyKey UUID format",
+        "cardNumber: Card number must only contain numeric characters",
+        "currency: Currency must be a valid ISO code standard",
+        "cvv: CVV must be between 3 and 4 characters"))));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("requests")
+  void parse_request_sameErrorsAsConstraintAnnotations(String description, PaymentRequest paymentRequest) {
+    //Given
+    List<String> expectedErrors = validator.validate(paymentRequest).stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .toList();
+    //When
+    List<String> actualErrors;
+    try {
+      testObj.parse(paymentRequest);
+      actualErrors = List.of();
+    } catch (InvalidPaymentRequestException e) {
+      actualErrors = describe(e).stream().sorted().toList();
+    } catch (ExpiredCardDateException | NumberFormatException e) {
+      //Passed validation, failing as the controller failed before once the fields were parsed
+      actualErrors = List.of();
+    }
+    //Then
+    assertThat(actualErrors, is(equalTo(expectedErrors)));
+  }
+
+  private static Stream<Arguments> requests() {
+    return Stream.of(
+        request("valid", builder -> builder),
+        request("null idempotencyKey", builder -> builder.idempotencyKey(null)),
+        request("empty idempotencyKey", builder -> builder.idempotencyKey("")),
+        request("short idempotencyKey", builder -> builder.idempotencyKey("1-1-1-1-1")),
+        request("non hex idempotencyKey", builder -> builder.idempotencyKey("g2345678-1234-1234-1234-123456789012")),
+        request("misplaced hyphen idempotencyKey", builder -> builder.idempotencyKey("123456789-234-1234-1234-123456789012")),
+        request("null cardNumber", builder -> builder.cardNumber(null)),
+        request("empty cardNumber", builder -> builder.cardNumber("")),
+        request("short cardNumber", builder -> builder.cardNumber("2222405343")),
+        request("19 digit cardNumber", builder -> builder.cardNumber("2222405343248877123")),
+        request("20 digit cardNumber", builder -> builder.cardNumber("22224053432488771234")),
+        request("spaced cardNumber", builder -> builder.cardNumber("2222 4053 4324 8877")),
+        request("non ASCII digit cardNumber", builder -> builder.cardNumber("222240534324887٣")),
+        request("null expiryMonth", builder -> builder.expiryMonth(null)),
+        request("zero expiryMonth", builder -> builder.expiryMonth(0)),
+        request("13 expiryMonth", builder -> builder.expiryMonth(13)),
+        request("null expiryYear", builder -> builder.expiryYear(null)),
+        request("2 digit expiryYear", builder -> builder.expiryYear(30)),
+        request("5 digit expiryYear", builder -> builder.expiryYear(20301)),
+        request("negative 3 digit expiryYear", builder -> builder.expiryYear(-500)),
+        request("null currency", builder -> builder.currency(null)),
+        request("empty currency", builder -> builder.currency("")),
+        request("blank currency", builder -> builder.currency("   ")),
+        request("lower case currency", builder -> builder.currency("gbp")),
+        request("unknown currency", builder -> builder.currency("ZZZ")),
+        request("not allowed currency", builder -> builder.currency("USD")),
+        request("long currency", builder -> builder.currency("GBPX")),
+        request("null amount", builder -> builder.amount(null)),
+        request("empty amount", builder -> builder.amount("")),
+        request("blank amount", builder -> builder.amount("   ")),
+        request("padded amount", builder -> builder.amount(" 150 ")),
+        request("exponent amount", builder -> builder.amount("1e3")),
+        request("decimal amount", builder -> builder.amount("150.0")),
+        request("fractional amount", builder -> builder.amount("150.5")),
+        request("plus signed amount", builder -> builder.amount("+150")),
+        request("negative amount", builder -> builder.amount("-5")),
+        request("sign only amount", builder -> builder.amount("-")),
+        request("too large amount", builder -> builder.amount("99999999999999999999")),
+        request("text amount", builder -> builder.amount("abc")),
+        request("null cvv", builder -> builder.cvv(null)),
+        request("empty cvv", builder -> builder.cvv("")),
+        request("short cvv", builder -> builder.cvv("12")),
+        request("long cvv", builder -> builder.cvv("12345")),
+        request("non numeric cvv", builder -> builder.cvv("12a")),
+        request("everything null", builder -> PaymentRequest.builder()));
+  }
+
+  private static Arguments request(String description, UnaryOperator<PaymentRequest.PaymentRequestBuilder> customiser) {
+    return Arguments.of(description, customiser.apply(validPaymentRequest()).build());
+  }
+
+  private static PaymentRequest.PaymentRequestBuilder validPaymentRequest() {
+    return PaymentRequest.builder()
+        .idempotencyKey(UUID.randomUUID().toString())
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount("150")
+        .cvv("123");
+  }
+
+  private static List<String> describe(InvalidPaymentRequestException exception) {
+    return exception.getErrors().stream()
+        .map(error -> error.getCode() + ": " + error.getMessage())
+        .toList();
+  }
+}
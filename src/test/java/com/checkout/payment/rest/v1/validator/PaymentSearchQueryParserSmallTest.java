@@ -0,0 +1,76 @@
+package com.checkout.payment.rest.v1.validator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.checkout.payment.gateway.model.IsoCurrency;
+import com.checkout.payment.gateway.model.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentSearchQuery;
+import com.checkout.payment.rest.v1.response.ErrorListResponse;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PaymentSearchQueryParserSmallTest {
+
+  @Test
+  void parse_everyParameter_queryWithParsedFilters() {
+    //When
+    PaymentSearchQuery actualQuery = PaymentSearchQueryParser.parse("declined", "GBP", "0877",
+        "2024-01-01T00:00:00Z", "2024-01-01T01:00:00Z", "20", "1234");
+    //Then
+    assertThat(actualQuery.getStatus(), is(equalTo(PaymentStatus.DECLINED)));
+    assertThat(actualQuery.getCurrency(), is(equalTo(IsoCurrency.lookup("GBP"))));
+    assertThat(actualQuery.getCardNumberLastFour(), is(equalTo(877)));
+    assertThat(actualQuery.getFrom(), is(equalTo(Instant.parse("2024-01-01T00:00:00Z"))));
+    assertThat(actualQuery.getTo(), is(equalTo(Instant.parse("2024-01-01T01:00:00Z"))));
+    assertThat(actualQuery.getLimit(), is(equalTo(20)));
+    assertThat(actualQuery.getCursor(), is(equalTo("1234")));
+  }
+
+  @Test
+  void parse_noParameters_firstPageOfDefaultLimitUnfiltered() {
+    //When
+    PaymentSearchQuery actualQuery = PaymentSearchQueryParser.parse(null, null, null, null, null, null, null);
+    //Then
+    assertThat(actualQuery.getStatus(), is(nullValue()));
+    assertThat(actualQuery.getCurrency(), is(nullValue()));
+    assertThat(actualQuery.getCardNumberLastFour(), is(nullValue()));
+    assertThat(actualQuery.getFrom(), is(nullValue()));
+    assertThat(actualQuery.getTo(), is(nullValue()));
+    assertThat(actualQuery.getLimit(), is(equalTo(50)));
+    assertThat(actualQuery.getCursor(), is(nullValue()));
+  }
+
+  @Test
+  void parse_everyParameterInvalid_throwErrorPerParameter() {
+    //When
+    InvalidPaymentRequestException actualException = assertThrows(InvalidPaymentRequestException.class,
+        () -> PaymentSearchQueryParser.parse("Pending", "XYZ", "88a7", "yesterday", "now", "501", ""));
+    //Then
+    assertThat(actualException.getErrors().stream().map(ErrorListResponse.ErrorResponse::getCode).toList(),
+        is(equalTo(List.of("status", "currency", "cardNumberLastFour", "from", "to", "limit", "cursor"))));
+  }
+
+  @Test
+  void parse_cursorNotDigits_cursorPassedToRepositoryAsIs() {
+    //When
+    PaymentSearchQuery actualQuery = PaymentSearchQueryParser.parse(null, null, null, null, null, null,
+        "1718000000000.01900b5e-6b40-7000-8000-000000000003");
+    //Then
+    assertThat(actualQuery.getCursor(), is(equalTo("1718000000000.01900b5e-6b40-7000-8000-000000000003")));
+  }
+
+  @Test
+  void parse_fromNotBeforeTo_throwFromError() {
+    //When
+    InvalidPaymentRequestException actualException = assertThrows(InvalidPaymentRequestException.class,
+        () -> PaymentSearchQueryParser.parse(null, null, null, "2024-01-01T01:00:00Z", "2024-01-01T01:00:00Z", null, null));
+    //Then
+    assertThat(actualException.getErrors(), is(equalTo(List.of(
+        new ErrorListResponse.ErrorResponse("from", "From must be before to")))));
+  }
+}